@@ -236,6 +236,31 @@ class BaseSettings(val config: Config) {
     */
   lazy val jdbcStorageEngine = config.getString("schedoscope.export.jdbc.storageEngine")
 
+  /**
+    * Write JDBC exports from the mappers directly, skipping the shuffle.
+    */
+  lazy val jdbcExportMapOnly = config.getBoolean("schedoscope.export.jdbc.mapOnly")
+
+  /**
+    * Use the native bulk loader of the database for JDBC export where available.
+    */
+  lazy val jdbcExportBulkLoad = config.getBoolean("schedoscope.export.jdbc.bulkLoad")
+
+  /**
+    * Build the JDBC export table under a shadow name and swap it into place when complete.
+    */
+  lazy val jdbcExportAtomicSwap = config.getBoolean("schedoscope.export.jdbc.atomicSwap")
+
+  /**
+    * Number of connections used to merge the partition tables of a JDBC export.
+    */
+  lazy val jdbcExportMergeParallelism = config.getInt("schedoscope.export.jdbc.mergeParallelism")
+
+  /**
+    * Write JDBC export batches in a background thread while the next batch is filled.
+    */
+  lazy val jdbcExportAsyncWrite = config.getBoolean("schedoscope.export.jdbc.asyncWrite")
+
   /**
     * Number of reducers to use for Redis export.
     */
@@ -251,11 +276,36 @@ class BaseSettings(val config: Config) {
     */
   lazy val redisExportBatchSize = config.getInt("schedoscope.export.redis.insertBatchSize")
 
+  /**
+    * Max time in ms between two syncs of a shard for Redis export (only cluster / sharded mode)
+    */
+  lazy val redisExportFlushInterval = config.getLong("schedoscope.export.redis.flushInterval")
+
+  /**
+    * Time in seconds until the previous generation expires for versioned Redis export
+    */
+  lazy val redisExportGenerationTtl = config.getInt("schedoscope.export.redis.generationTtl")
+
   /**
     * Number of reducers to use for Kafka export.
     */
   lazy val kafkaExportNumReducers = config.getInt("schedoscope.export.kafka.numberOfReducers")
 
+  /**
+    * Time in milliseconds the Kafka producer waits for more records before a batch is sent.
+    */
+  lazy val kafkaExportLingerMs = config.getInt("schedoscope.export.kafka.lingerMs")
+
+  /**
+    * Maximum size of a Kafka batch per partition in bytes.
+    */
+  lazy val kafkaExportBatchSize = config.getInt("schedoscope.export.kafka.batchSize")
+
+  /**
+    * Maximum number of records not yet acknowledged by Kafka (async producer only).
+    */
+  lazy val kafkaExportMaxInFlight = config.getInt("schedoscope.export.kafka.maxInFlight")
+
   /**
     * GCP project ID under which exported BigQuery dataset will be created. Defaults to the default project of the current user.
     */
@@ -267,10 +317,45 @@ class BaseSettings(val config: Config) {
   lazy val bigQueryExportNumReducers = config.getInt("schedoscope.export.bigQuery.numberOfReducers")
 
   /**
-    * Number of records to batch before flushing data to GCP Cloud Storage during BigQuery export.
+    * Deprecated and ignored, JSON staging files are uploaded in parts of bigQueryExportUploadPartSize bytes.
     */
   lazy val bigQueryExportFlushInterval = config.getLong("schedoscope.export.bigQuery.flushInterval")
 
+  /**
+    * How to get the data into BigQuery: staged, streaming or auto. Defaults to auto.
+    */
+  lazy val bigQueryExportLoadMode = config.getString("schedoscope.export.bigQuery.loadMode")
+
+  /**
+    * Input size in bytes up to which the auto load mode streams into BigQuery.
+    */
+  lazy val bigQueryExportStreamingThreshold = config.getLong("schedoscope.export.bigQuery.streamingThreshold")
+
+  /**
+    * Number of rows per insertAll request when streaming into BigQuery.
+    */
+  lazy val bigQueryExportStreamingBatchSize = config.getInt("schedoscope.export.bigQuery.streamingBatchSize")
+
+  /**
+    * Number of concurrent insertAll requests per reducer when streaming into BigQuery.
+    */
+  lazy val bigQueryExportStreamingParallelism = config.getInt("schedoscope.export.bigQuery.streamingParallelism")
+
+  /**
+    * File format in which the data is staged in Cloud Storage in staged load mode: json or avro.
+    */
+  lazy val bigQueryExportStagingFormat = config.getString("schedoscope.export.bigQuery.stagingFormat")
+
+  /**
+    * Compressed size in bytes of the parts in which JSON staging files are uploaded to Cloud Storage.
+    */
+  lazy val bigQueryExportUploadPartSize = config.getInt("schedoscope.export.bigQuery.uploadPartSize")
+
+  /**
+    * Number of concurrent part uploads per reducer of JSON staging files.
+    */
+  lazy val bigQueryExportUploadParallelism = config.getInt("schedoscope.export.bigQuery.uploadParallelism")
+
   /**
     * GCP data storage location of exported data within BigQuery. Defaults to EU.
     */
@@ -311,6 +396,26 @@ class BaseSettings(val config: Config) {
     */
   lazy val ftpExportNumReducers = config.getInt("schedoscope.export.ftp.numberOfReducers")
 
+  /**
+    * Number of concurrent part uploads per file for (S)Ftp export, 1 uploads files as a whole.
+    */
+  lazy val ftpExportUploadParallelism = config.getInt("schedoscope.export.ftp.uploadParallelism")
+
+  /**
+    * Minimum size in bytes of the parts in which files are uploaded during (S)Ftp export.
+    */
+  lazy val ftpExportUploadPartSize = config.getLong("schedoscope.export.ftp.uploadPartSize")
+
+  /**
+    * Number of times a broken transfer is resumed during (S)Ftp export.
+    */
+  lazy val ftpExportUploadMaxRetries = config.getInt("schedoscope.export.ftp.uploadMaxRetries")
+
+  /**
+    * Where files are written before they are transferred during (S)Ftp export: hdfs, local or direct.
+    */
+  lazy val ftpExportStagingMode = config.getString("schedoscope.export.ftp.stagingMode")
+
   /**
     * Port of Metascope web service.
     */
@@ -321,6 +426,21 @@ class BaseSettings(val config: Config) {
     */
   lazy val metascopeSchedoscopeInstances = config.getList("schedoscope.metascope.schedoscope-instances")
 
+  /**
+    * Number of threads synchronizing the tables of a Schedoscope instance with the repository
+    */
+  lazy val metascopeSyncThreads = config.getInt("schedoscope.metascope.sync-threads")
+
+  /**
+    * Interval in milliseconds of the incremental sync, reprocessing only the tables whose fingerprint changed
+    */
+  lazy val metascopeSyncInterval = config.getDuration("schedoscope.metascope.sync-interval", TimeUnit.MILLISECONDS)
+
+  /**
+    * Interval in milliseconds of the full sync, reprocessing all tables
+    */
+  lazy val metascopeFullSyncInterval = config.getDuration("schedoscope.metascope.full-sync-interval", TimeUnit.MILLISECONDS)
+
   /**
     * Authentication method used for Metascope. Possible options: ['simple', 'ldap']
     */
@@ -406,6 +526,16 @@ class BaseSettings(val config: Config) {
     */
   lazy val metascopeSolrUrl = config.getString("schedoscope.metascope.solr.url")
 
+  /**
+    * Number of documents sent to Solr in one update request
+    */
+  lazy val metascopeSolrBatchSize = config.getInt("schedoscope.metascope.solr.batch-size")
+
+  /**
+    * Maximum time in milliseconds a document is buffered before it is sent to Solr
+    */
+  lazy val metascopeSolrBatchMaxDelay = config.getDuration("schedoscope.metascope.solr.batch-max-delay", TimeUnit.MILLISECONDS)
+
   /**
     * Location of the Metascope log file
     */
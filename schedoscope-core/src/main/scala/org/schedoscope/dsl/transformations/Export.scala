@@ -18,16 +18,17 @@ package org.schedoscope.dsl.transformations
 
 import org.apache.hadoop.mapreduce.Job
 import org.schedoscope.Schedoscope
-import org.schedoscope.dsl.{Field, View}
+import org.schedoscope.dsl.{Field, FieldLike, View}
 import org.schedoscope.export.bigquery.BigQueryExportJob
 import org.schedoscope.export.ftp.FtpExportJob
-import org.schedoscope.export.ftp.outputformat.FileOutputType
+import org.schedoscope.export.ftp.outputformat.{FileOutputType, FtpStagingMode}
 import org.schedoscope.export.ftp.upload.FileCompressionCodec
 import org.schedoscope.export.jdbc.JdbcExportJob
 import org.schedoscope.export.jdbc.exception.{RetryException, UnrecoverableException}
 import org.schedoscope.export.kafka.KafkaExportJob
 import org.schedoscope.export.kafka.options.{CleanupPolicy, CompressionCodec, OutputEncoding, ProducerType}
 import org.schedoscope.export.redis.RedisExportJob
+import org.schedoscope.export.redis.options.{RedisCompression, RedisMode, RedisValueEncoding}
 import org.schedoscope.scheduler.driver._
 
 /**
@@ -47,6 +48,12 @@ object Export {
     * @param storageEngine     The underlying storage engine (only relevant for MySQL)
     * @param numReducers       The number of reducers, defines concurrency
     * @param commitSize        The size of batches for JDBC inserts
+    * @param mapOnly           Write from the mappers directly, skipping the shuffle
+    * @param bulkLoad          Use the native bulk loader of the database, if available
+    * @param atomicSwap        Build the table under a shadow name and swap it into place when complete
+    * @param mergeParallelism  The number of connections used to merge the partition tables, upserts are run one after another
+    * @param asyncWrite        Write batches in a background thread while the next batch is filled
+    * @param upsertKeys        Key fields to merge the rows into the table by, instead of replacing it
     * @param isKerberized      Is the cluster kerberized?
     * @param kerberosPrincipal The kerberos principal to use
     * @param metastoreUri      The thrift URI to the metastore
@@ -61,6 +68,12 @@ object Export {
             storageEngine: String = Schedoscope.settings.jdbcStorageEngine,
             numReducers: Int = Schedoscope.settings.jdbcExportNumReducers,
             commitSize: Int = Schedoscope.settings.jdbcExportBatchSize,
+            mapOnly: Boolean = Schedoscope.settings.jdbcExportMapOnly,
+            bulkLoad: Boolean = Schedoscope.settings.jdbcExportBulkLoad,
+            atomicSwap: Boolean = Schedoscope.settings.jdbcExportAtomicSwap,
+            mergeParallelism: Int = Schedoscope.settings.jdbcExportMergeParallelism,
+            asyncWrite: Boolean = Schedoscope.settings.jdbcExportAsyncWrite,
+            upsertKeys: Seq[FieldLike[_]] = Seq(),
             isKerberized: Boolean = !Schedoscope.settings.kerberosPrincipal.isEmpty(),
             kerberosPrincipal: String = Schedoscope.settings.kerberosPrincipal,
             metastoreUri: String = Schedoscope.settings.metastoreUri) = {
@@ -75,6 +88,8 @@ object Export {
 
         val distributionField = if (distributionKey != null) distributionKey.n else null
 
+        val upsertKeyFields = upsertKeys.map(_.n).toArray
+
         val anonFields = v.fields
           .filter {
             _.isPrivacySensitive
@@ -108,7 +123,13 @@ object Export {
           conf.get("schedoscope.export.numReducers").get.asInstanceOf[Int],
           conf.get("schedoscope.export.commitSize").get.asInstanceOf[Int],
           anonFields ++ anonParameters,
-          conf.get("schedoscope.export.salt").get.asInstanceOf[String])
+          conf.get("schedoscope.export.salt").get.asInstanceOf[String],
+          conf.get("schedoscope.export.mapOnly").get.asInstanceOf[Boolean],
+          conf.get("schedoscope.export.bulkLoad").get.asInstanceOf[Boolean],
+          conf.get("schedoscope.export.atomicSwap").get.asInstanceOf[Boolean],
+          conf.get("schedoscope.export.mergeParallelism").get.asInstanceOf[Int],
+          conf.get("schedoscope.export.asyncWrite").get.asInstanceOf[Boolean],
+          upsertKeyFields)
 
       },
       jdbcPostCommit)
@@ -122,6 +143,11 @@ object Export {
         "schedoscope.export.storageEngine" -> storageEngine,
         "schedoscope.export.numReducers" -> numReducers,
         "schedoscope.export.commitSize" -> commitSize,
+        "schedoscope.export.mapOnly" -> mapOnly,
+        "schedoscope.export.bulkLoad" -> bulkLoad,
+        "schedoscope.export.atomicSwap" -> atomicSwap,
+        "schedoscope.export.mergeParallelism" -> mergeParallelism,
+        "schedoscope.export.asyncWrite" -> asyncWrite,
         "schedoscope.export.salt" -> exportSalt,
         "schedoscope.export.isKerberized" -> isKerberized,
         "schedoscope.export.kerberosPrincipal" -> kerberosPrincipal,
@@ -180,7 +206,7 @@ object Export {
     *                                  Can be globally configured by setting schedoscope.export.bigQuery.dataLocation
     * @param numReducers               Number of reducers to use for BigQuery export. Defines the parallelism. Defaults to 10.
     *                                  Can be globally configured by setting schedoscope.export.bigQuery.numReducers
-    * @param flushInterval             Number of records to batch before flushing data to GCP Cloud Storage. Defaults to 10000.
+    * @param flushInterval             Deprecated and ignored, JSON staging files are uploaded in parts of uploadPartSize bytes.
     *                                  Can be globally configured by setting schedoscope.export.bigQuery.flushInterval
     * @param proxyHost                 Host of proxy to use for GCP API access. Set to empty, i.e., no proxy to use.
     * @param proxyPort                 Port of proxy to use for GCP API access. Set to empty, i.e., no proxy to use.
@@ -188,6 +214,23 @@ object Export {
     * @param kerberosPrincipal         Kerberos principal to use. Can be globally configured by setting schedoscope.kerberos.principal
     * @param metastoreUri              URI of the metastore. Can be globally configured by setting schedoscope.metastore.metastoreUri
     * @param exportSalt                Salt to use for anonymization. schedoscope.export.salt
+    * @param loadMode                  How to get the data into BigQuery: staged (Cloud Storage and load job), streaming
+    *                                  (insertAll API) or auto (streaming for small inputs). Defaults to staged.
+    *                                  Can be globally configured by setting schedoscope.export.bigQuery.loadMode
+    * @param streamingThreshold        Input size in bytes up to which auto mode streams. Defaults to 32 MB.
+    *                                  Can be globally configured by setting schedoscope.export.bigQuery.streamingThreshold
+    * @param streamingBatchSize        Number of rows per insertAll request. Defaults to 500.
+    *                                  Can be globally configured by setting schedoscope.export.bigQuery.streamingBatchSize
+    * @param streamingParallelism      Number of concurrent insertAll requests per reducer. Defaults to 4.
+    *                                  Can be globally configured by setting schedoscope.export.bigQuery.streamingParallelism
+    * @param stagingFormat             File format in which the data is staged in Cloud Storage in staged load mode:
+    *                                  json (gzipped JSON lines) or avro (Avro container files). Defaults to json.
+    *                                  Can be globally configured by setting schedoscope.export.bigQuery.stagingFormat
+    * @param uploadPartSize            Compressed size in bytes of the parts in which JSON staging files are uploaded.
+    *                                  Defaults to 8 MB.
+    *                                  Can be globally configured by setting schedoscope.export.bigQuery.uploadPartSize
+    * @param uploadParallelism         Number of concurrent part uploads per reducer. Defaults to 4.
+    *                                  Can be globally configured by setting schedoscope.export.bigQuery.uploadParallelism
     * @return the MapReduce transformation performing the export
     */
   def BigQuery(
@@ -206,7 +249,14 @@ object Export {
                 isKerberized: Boolean = !Schedoscope.settings.kerberosPrincipal.isEmpty(),
                 kerberosPrincipal: String = Schedoscope.settings.kerberosPrincipal,
                 metastoreUri: String = Schedoscope.settings.metastoreUri,
-                exportSalt: String = Schedoscope.settings.exportSalt
+                exportSalt: String = Schedoscope.settings.exportSalt,
+                loadMode: String = Schedoscope.settings.bigQueryExportLoadMode,
+                streamingThreshold: Long = Schedoscope.settings.bigQueryExportStreamingThreshold,
+                streamingBatchSize: Int = Schedoscope.settings.bigQueryExportStreamingBatchSize,
+                streamingParallelism: Int = Schedoscope.settings.bigQueryExportStreamingParallelism,
+                stagingFormat: String = Schedoscope.settings.bigQueryExportStagingFormat,
+                uploadPartSize: Int = Schedoscope.settings.bigQueryExportUploadPartSize,
+                uploadParallelism: Int = Schedoscope.settings.bigQueryExportUploadParallelism
               ) = {
 
     val t = MapreduceTransformation(
@@ -316,6 +366,13 @@ object Export {
           Seq("-b", conf("schedoscope.export.storageBucket").asInstanceOf[String]) ++
           Seq("-f", conf("schedoscope.export.storageBucketFolderPrefix").asInstanceOf[String]) ++
           Seq("-r", conf("schedoscope.export.storageBucketRegion").asInstanceOf[String]) ++
+          Seq("-M", conf("schedoscope.export.loadMode").asInstanceOf[String]) ++
+          Seq("-T", conf("schedoscope.export.streamingThreshold").asInstanceOf[Long].toString) ++
+          Seq("-B", conf("schedoscope.export.streamingBatchSize").asInstanceOf[Int].toString) ++
+          Seq("-W", conf("schedoscope.export.streamingParallelism").asInstanceOf[Int].toString) ++
+          Seq("-O", conf("schedoscope.export.stagingFormat").asInstanceOf[String]) ++
+          Seq("-U", conf("schedoscope.export.uploadPartSize").asInstanceOf[Int].toString) ++
+          Seq("-N", conf("schedoscope.export.uploadParallelism").asInstanceOf[Int].toString) ++
           (
             if (bigQueryPartitionDate.isDefined)
               Seq("-D", bigQueryPartitionDate.get)
@@ -347,7 +404,14 @@ object Export {
         "schedoscope.export.kerberosPrincipal" -> kerberosPrincipal,
         "schedoscope.export.metastoreUri" -> metastoreUri,
         "schedoscope.export.exportSalt" -> exportSalt,
-        "schedoscope.export.flushInterval" -> flushInterval
+        "schedoscope.export.flushInterval" -> flushInterval,
+        "schedoscope.export.loadMode" -> loadMode,
+        "schedoscope.export.streamingThreshold" -> streamingThreshold,
+        "schedoscope.export.streamingBatchSize" -> streamingBatchSize,
+        "schedoscope.export.streamingParallelism" -> streamingParallelism,
+        "schedoscope.export.stagingFormat" -> stagingFormat,
+        "schedoscope.export.uploadPartSize" -> uploadPartSize,
+        "schedoscope.export.uploadParallelism" -> uploadParallelism
       ) ++ (if (projectId != null) Seq("schedoscope.export.projectId" -> projectId) else Nil)
         ++ (if (gcpKey != null) Seq("schedoscope.export.gcpKey" -> gcpKey) else Nil)
         ++ (if (gcpKeyFile != null) Seq("schedoscope.export.gcpKeyFile" -> gcpKeyFile) else Nil)
@@ -398,6 +462,13 @@ object Export {
     * @param isKerberized      Is the cluster kerberized?
     * @param kerberosPrincipal The kerberos principal to use
     * @param metastoreUri      The thrift URI to the metastore
+    * @param redisMode         Write to a single node (standalone), a Redis Cluster (cluster) or client side sharded nodes (sharded)
+    * @param redisNodes        Comma separated list of host:port pairs, the seed nodes in cluster mode. Defaults to redisHost / redisPort
+    * @param flushInterval     Max time in ms between two syncs of a shard (only cluster / sharded mode)
+    * @param versioned         Write a new generation of keys below <keyPrefix>_<generation>_ and switch the pointer key <keyPrefix>_current to it on success
+    * @param generationTtl     Time in seconds until the keys of the previous generation expire (only versioned)
+    * @param valueEncoding     Full table exports only: one hash field per column (hash) or one binary Avro value per row (avro), the schema is stored under <keyPrefix>_schema
+    * @param valueCompression  Compression of Avro encoded values (none / snappy / lz4)
     */
   def Redis(
              v: View,
@@ -416,7 +487,14 @@ object Export {
              pipeline: Boolean = Schedoscope.settings.redisExportUsesPipelineMode,
              isKerberized: Boolean = !Schedoscope.settings.kerberosPrincipal.isEmpty(),
              kerberosPrincipal: String = Schedoscope.settings.kerberosPrincipal,
-             metastoreUri: String = Schedoscope.settings.metastoreUri) = {
+             metastoreUri: String = Schedoscope.settings.metastoreUri,
+             redisMode: RedisMode = RedisMode.standalone,
+             redisNodes: String = null,
+             flushInterval: Long = Schedoscope.settings.redisExportFlushInterval,
+             versioned: Boolean = false,
+             generationTtl: Int = Schedoscope.settings.redisExportGenerationTtl,
+             valueEncoding: RedisValueEncoding = RedisValueEncoding.hash,
+             valueCompression: RedisCompression = RedisCompression.none) = {
 
     val t = MapreduceTransformation(
       v,
@@ -466,7 +544,14 @@ object Export {
           flush,
           conf.get("schedoscope.export.commitSize").get.asInstanceOf[Int],
           anonFields ++ anonParameters,
-          conf.get("schedoscope.export.salt").get.asInstanceOf[String])
+          conf.get("schedoscope.export.salt").get.asInstanceOf[String],
+          conf.get("schedoscope.export.redisMode").get.asInstanceOf[RedisMode],
+          conf.get("schedoscope.export.redisNodes").get.asInstanceOf[String],
+          conf.get("schedoscope.export.flushInterval").get.asInstanceOf[Long],
+          conf.get("schedoscope.export.versioned").get.asInstanceOf[Boolean],
+          conf.get("schedoscope.export.generationTtl").get.asInstanceOf[Int],
+          conf.get("schedoscope.export.valueEncoding").get.asInstanceOf[RedisValueEncoding],
+          conf.get("schedoscope.export.valueCompression").get.asInstanceOf[RedisCompression])
 
       })
 
@@ -474,6 +559,13 @@ object Export {
     t.configureWith(
       Map(
         "schedoscope.export.redisHost" -> redisHost,
+        "schedoscope.export.redisMode" -> redisMode,
+        "schedoscope.export.redisNodes" -> redisNodes,
+        "schedoscope.export.flushInterval" -> flushInterval,
+        "schedoscope.export.versioned" -> versioned,
+        "schedoscope.export.generationTtl" -> generationTtl,
+        "schedoscope.export.valueEncoding" -> valueEncoding,
+        "schedoscope.export.valueCompression" -> valueCompression,
         "schedoscope.export.redisPort" -> redisPort,
         "schedoscope.export.redisPassword" -> redisPassword,
         "schedoscope.export.redisKeySpace" -> redisKeySpace,
@@ -504,6 +596,9 @@ object Export {
     * @param isKerberized      Is the cluster kerberized?
     * @param kerberosPrincipal The kerberos principal to use
     * @param metastoreUri      The thrift URI to the metastore
+    * @param lingerMs          Time in ms the producer waits for more records before sending a batch (async producer only)
+    * @param batchSize         Maximum batch size per partition in bytes
+    * @param maxInFlight       Maximum number of unacknowledged records (async producer only)
     *
     */
   def Kafka(
@@ -521,7 +616,10 @@ object Export {
              numReducers: Int = Schedoscope.settings.kafkaExportNumReducers,
              isKerberized: Boolean = !Schedoscope.settings.kerberosPrincipal.isEmpty(),
              kerberosPrincipal: String = Schedoscope.settings.kerberosPrincipal,
-             metastoreUri: String = Schedoscope.settings.metastoreUri) = {
+             metastoreUri: String = Schedoscope.settings.metastoreUri,
+             lingerMs: Int = Schedoscope.settings.kafkaExportLingerMs,
+             batchSize: Int = Schedoscope.settings.kafkaExportBatchSize,
+             maxInFlight: Int = Schedoscope.settings.kafkaExportMaxInFlight) = {
 
     val t = MapreduceTransformation(
       v,
@@ -567,7 +665,10 @@ object Export {
           compressionCodec,
           encoding,
           anonFields ++ anonParameters,
-          conf.get("schedoscope.export.salt").get.asInstanceOf[String])
+          conf.get("schedoscope.export.salt").get.asInstanceOf[String],
+          conf.get("schedoscope.export.lingerMs").get.asInstanceOf[Int],
+          conf.get("schedoscope.export.batchSize").get.asInstanceOf[Int],
+          conf.get("schedoscope.export.maxInFlight").get.asInstanceOf[Int])
       })
 
     t.directoriesToDelete = List()
@@ -578,6 +679,9 @@ object Export {
         "schedoscope.export.numPartitions" -> numPartitons,
         "schedoscope.export.replicationFactor" -> replicationFactor,
         "schedoscope.export.numReducers" -> numReducers,
+        "schedoscope.export.lingerMs" -> lingerMs,
+        "schedoscope.export.batchSize" -> batchSize,
+        "schedoscope.export.maxInFlight" -> maxInFlight,
         "schedoscope.export.salt" -> exportSalt,
         "schedoscope.export.isKerberized" -> isKerberized,
         "schedoscope.export.kerberosPrincipal" -> kerberosPrincipal,
@@ -601,10 +705,23 @@ object Export {
     * @param userIsRoot        User dir is root for (s)ftp connections.
     * @param cleanHdfsDir      Clean up HDFS temporary files (or not).
     * @param exportSalt        an optional salt when anonymizing fields.
-    * @param codec             The compression codec to use, either gzip or bzip2
+    * @param codec             The compression codec to use, either gzip, bzip2 or lz4 (LZ4 frame format)
     * @param isKerberized      A flag indication if Kerberos is enabled.
     * @param kerberosPrincipal The Kerberos principal
     * @param metastoreUri      A string containing the Hive meta store url.
+    * @param uploadParallelism Number of concurrent part uploads per file. With 1, files are uploaded as a whole,
+    *                          otherwise they are uploaded in parts plus a manifest listing them. Defaults to 1.
+    *                          Can be globally configured by setting schedoscope.export.ftp.uploadParallelism
+    * @param uploadPartSize    Minimum size in bytes of the uploaded parts. Defaults to 64 MB.
+    *                          Can be globally configured by setting schedoscope.export.ftp.uploadPartSize
+    * @param uploadMaxRetries  Number of times a broken transfer is resumed. Defaults to 3.
+    *                          Can be globally configured by setting schedoscope.export.ftp.uploadMaxRetries
+    * @param stagingMode       Where files are written before they are transferred: hdfs (temporary HDFS dir),
+    *                          local (spool file on the task's local disk) or direct (streamed to a temporary
+    *                          remote file that is renamed on commit). Defaults to hdfs.
+    *                          Can be globally configured by setting schedoscope.export.ftp.stagingMode
+    * @param spoolDir          Local spool dir for staging mode local and as fallback for direct. Defaults to the
+    *                          task's temp dir.
     */
   def Ftp(
            v: View,
@@ -624,7 +741,12 @@ object Export {
            codec: FileCompressionCodec = FileCompressionCodec.gzip,
            isKerberized: Boolean = !Schedoscope.settings.kerberosPrincipal.isEmpty(),
            kerberosPrincipal: String = Schedoscope.settings.kerberosPrincipal,
-           metastoreUri: String = Schedoscope.settings.metastoreUri) = {
+           metastoreUri: String = Schedoscope.settings.metastoreUri,
+           uploadParallelism: Int = Schedoscope.settings.ftpExportUploadParallelism,
+           uploadPartSize: Long = Schedoscope.settings.ftpExportUploadPartSize,
+           uploadMaxRetries: Int = Schedoscope.settings.ftpExportUploadMaxRetries,
+           stagingMode: String = Schedoscope.settings.ftpExportStagingMode,
+           spoolDir: String = null) = {
 
     val t = MapreduceTransformation(
       v,
@@ -672,7 +794,12 @@ object Export {
           conf.get("schedoscope.export.userIsRoot").get.asInstanceOf[Boolean],
           conf.get("schedoscope.export.cleanHdfsDir").get.asInstanceOf[Boolean],
           codec,
-          fileType
+          fileType,
+          conf.get("schedoscope.export.uploadParallelism").get.asInstanceOf[Int],
+          conf.get("schedoscope.export.uploadPartSize").get.asInstanceOf[Long],
+          conf.get("schedoscope.export.uploadMaxRetries").get.asInstanceOf[Int],
+          FtpStagingMode.valueOf(conf.get("schedoscope.export.stagingMode").get.asInstanceOf[String]),
+          spoolDir
         )
 
       })
@@ -692,6 +819,10 @@ object Export {
         "schedoscope.export.printHeader" -> printHeader,
         "schedoscope.export.passiveMode" -> passiveMode,
         "schedoscope.export.userIsRoot" -> userIsRoot,
-        "schedoscope.export.cleanHdfsDir" -> cleanHdfsDir))
+        "schedoscope.export.cleanHdfsDir" -> cleanHdfsDir,
+        "schedoscope.export.uploadParallelism" -> uploadParallelism,
+        "schedoscope.export.uploadPartSize" -> uploadPartSize,
+        "schedoscope.export.uploadMaxRetries" -> uploadMaxRetries,
+        "schedoscope.export.stagingMode" -> stagingMode))
   }
 }
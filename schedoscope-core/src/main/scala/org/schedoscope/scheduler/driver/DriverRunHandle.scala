@@ -21,7 +21,10 @@ import org.schedoscope.dsl.transformations.Transformation
   * Handle for the transformation executed by a driver, called a driver run.
   *
   * The real, technology-specific handle for a executions of a transformation type is kept
-  * in the property stateHandle.
+  * in the property stateHandle. Drivers may publish progress information of the run, e.g. the
+  * throughput of an export, in the property properties.
   */
-class DriverRunHandle[T <: Transformation](val driver: Driver[T], val started: LocalDateTime, val transformation: T, var stateHandle: Any)
+class DriverRunHandle[T <: Transformation](val driver: Driver[T], val started: LocalDateTime, val transformation: T, var stateHandle: Any) {
+  @volatile var properties: Map[String, String] = Map()
+}
 
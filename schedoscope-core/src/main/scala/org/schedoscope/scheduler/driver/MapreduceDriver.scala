@@ -25,8 +25,13 @@ import org.joda.time.LocalDateTime
 import org.schedoscope.Schedoscope
 import org.schedoscope.conf.DriverSettings
 import org.schedoscope.dsl.transformations.{MapreduceBaseTransformation}
+import org.schedoscope.export.metrics.ExportMetrics
 import org.schedoscope.test.resources.TestResources
 
+import scala.collection.JavaConverters._
+import scala.collection.immutable.ListMap
+import scala.util.Try
+
 /**
   * Driver that executes Mapreduce transformations.
   */
@@ -68,10 +73,17 @@ class MapreduceDriver(val driverRunCompletionHandlerClassNames: List[String], va
 
       new PrivilegedAction[DriverRunState[MapreduceBaseTransformation]]() {
 
-        def run(): DriverRunState[MapreduceBaseTransformation] = job.getJobState match {
-          case PREP | RUNNING => DriverRunOngoing[MapreduceBaseTransformation](driver, runHandle)
-          case FAILED | KILLED => cleanupAfterJob(job, driver, DriverRunFailed[MapreduceBaseTransformation](driver, s"Mapreduce job ${jobId} failed with state ${job.getJobState}", null))
-          case SUCCEEDED => cleanupAfterJob(job, driver, DriverRunSucceeded[MapreduceBaseTransformation](driver, s"Mapreduce job ${jobId} succeeded"))
+        def run(): DriverRunState[MapreduceBaseTransformation] = {
+          val state = job.getJobState
+
+          if (isExport(runHandle.transformation))
+            updateExportMetrics(runHandle, job)
+
+          state match {
+            case PREP | RUNNING => DriverRunOngoing[MapreduceBaseTransformation](driver, runHandle)
+            case FAILED | KILLED => cleanupAfterJob(job, driver, DriverRunFailed[MapreduceBaseTransformation](driver, s"Mapreduce job ${jobId} failed with state ${state}", null))
+            case SUCCEEDED => cleanupAfterJob(job, driver, DriverRunSucceeded[MapreduceBaseTransformation](driver, s"Mapreduce job ${jobId} succeeded${exportMetricsComment(runHandle)}"))
+          }
         }
 
       }
@@ -99,6 +111,30 @@ class MapreduceDriver(val driverRunCompletionHandlerClassNames: List[String], va
 
   private def driver = this
 
+  private def isExport(t: MapreduceBaseTransformation) =
+    t.configuration.keys.exists(_.startsWith("schedoscope.export."))
+
+  /**
+    * Publishes the throughput and stage times the export counters of the job report so far
+    * in the properties of the run handle. The metrics are informational, failing to fetch
+    * the counters does not affect the run.
+    */
+  private def updateExportMetrics(runHandle: DriverRunHandle[MapreduceBaseTransformation], job: Job) = Try {
+    val counters = job.getCounters
+
+    if (counters != null) {
+      val elapsedMs = System.currentTimeMillis() - runHandle.started.toDateTime.getMillis
+      runHandle.properties = ListMap(ExportMetrics.summarize(counters, elapsedMs).asScala.toSeq: _*)
+    }
+  }
+
+  // the rows, bytes and throughput of an export
+  private def exportMetricsComment(runHandle: DriverRunHandle[MapreduceBaseTransformation]) =
+    if (runHandle.properties.isEmpty)
+      ""
+    else
+      runHandle.properties.take(4).map { case (k, v) => s"${k}: ${v}" }.mkString(" (", ", ", ")")
+
 }
 
 /**
@@ -232,7 +232,7 @@ class SchedoscopeServiceImpl(actorSystem: ActorSystem, settings: SchedoscopeSett
         else
           "",
         comment,
-        None
+        if (drh.properties.isEmpty) None else Some(drh.properties)
       )
 
       TransformationStatus(actor, typ, status, Some(runStatus), None)
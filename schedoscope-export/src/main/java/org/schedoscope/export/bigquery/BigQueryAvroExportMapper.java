@@ -0,0 +1,84 @@
+package org.schedoscope.export.bigquery;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hive.hcatalog.data.HCatRecord;
+import org.apache.hive.hcatalog.data.schema.HCatSchema;
+import org.schedoscope.export.bigquery.outputschema.HCatRecordToBigQueryAvroConvertor;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.schedoscope.export.bigquery.outputformat.BigQueryOutputConfiguration.getBigQueryHCatSchema;
+import static org.schedoscope.export.bigquery.outputformat.BigQueryOutputConfiguration.getBigQueryUsedHcatFilter;
+import static org.schedoscope.export.bigquery.outputschema.BigQuerySchemaToAvroSchemaConverter.convertSchemaToAvroSchema;
+import static org.schedoscope.export.bigquery.outputschema.HCatSchemaToBigQuerySchemaConverter.convertSchemaToBigQuerySchema;
+
+/**
+ * Mapper that transforms an HCatRecord to an equivalent binary encoded Avro record for staging in Avro container files.
+ */
+public class BigQueryAvroExportMapper extends Mapper<WritableComparable<?>, HCatRecord, LongWritable, BytesWritable> {
+
+    private String usedHCatFilter;
+    private HCatRecordToBigQueryAvroConvertor convertor;
+    private GenericDatumWriter<GenericRecord> datumWriter;
+    private Buffer buffer = new Buffer();
+    private BinaryEncoder encoder;
+    private LongWritable outputKey = new LongWritable();
+    private BytesWritable outputValue = new BytesWritable();
+    private ExportMetrics metrics;
+
+
+    @Override
+    protected void setup(Context context) throws IOException, InterruptedException {
+        super.setup(context);
+        metrics = new ExportMetrics(context);
+
+        Configuration conf = context.getConfiguration();
+
+        HCatSchema hcatSchema = getBigQueryHCatSchema(conf);
+        Schema avroSchema = convertSchemaToAvroSchema(convertSchemaToBigQuerySchema(hcatSchema));
+
+        usedHCatFilter = getBigQueryUsedHcatFilter(conf);
+        convertor = new HCatRecordToBigQueryAvroConvertor(hcatSchema, avroSchema);
+        datumWriter = new GenericDatumWriter<>(avroSchema);
+    }
+
+    @Override
+    protected void map(WritableComparable<?> key, HCatRecord value,
+                       Context context) throws IOException, InterruptedException {
+
+        long start = metrics.start();
+        GenericRecord record = convertor.convert(value, usedHCatFilter);
+        start = metrics.stop(ExportCounter.CONVERSION_TIME_MS, start);
+
+        buffer.reset();
+        encoder = EncoderFactory.get().binaryEncoder(buffer, encoder);
+        datumWriter.write(record, encoder);
+        encoder.flush();
+        metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+
+        outputKey.set(WritableComparator.hashBytes(buffer.getBuffer(), buffer.size()));
+        outputValue.set(buffer.getBuffer(), 0, buffer.size());
+
+        context.write(outputKey, outputValue);
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
@@ -21,8 +21,10 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.util.ToolRunner;
@@ -33,14 +35,18 @@ import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
 import org.schedoscope.export.BaseExportJob;
+import org.schedoscope.export.bigquery.outputformat.BigQueryLoadMode;
+import org.schedoscope.export.bigquery.outputformat.BigQueryAvroOutputFormat;
 import org.schedoscope.export.bigquery.outputformat.BigQueryOutputFormat;
+import org.schedoscope.export.bigquery.outputformat.BigQueryStagingFormat;
+import org.schedoscope.export.metrics.MeteredHCatInputFormat;
 
 import java.io.File;
 import java.io.IOException;
 
 import static org.apache.hive.hcatalog.common.HCatUtil.getTable;
 import static org.apache.hive.hcatalog.common.HCatUtil.getTableSchemaWithPtnCols;
-import static org.schedoscope.export.bigquery.outputformat.BigQueryOutputConfiguration.configureBigQueryOutputFormat;
+import static org.schedoscope.export.bigquery.outputformat.BigQueryOutputConfiguration.*;
 import static org.schedoscope.export.bigquery.outputformat.BigQueryOutputFormat.*;
 
 public class BigQueryExportJob extends BaseExportJob {
@@ -80,9 +86,30 @@ public class BigQueryExportJob extends BaseExportJob {
     @Option(name = "-Y", usage = "Proxy port to use for GCP access")
     private String proxyPort;
 
-    @Option(name = "-F", usage = "Number of records to read before the export job flushes them to Google cloud storage.")
+    @Option(name = "-F", usage = "Deprecated and ignored, the data is uploaded to Google cloud storage in parts of -U bytes.")
     private long flushInterval = 10000;
 
+    @Option(name = "-M", usage = "How to get the data into BigQuery: 'staged' (load job from Cloud Storage), 'streaming' (insertAll API) or 'auto' (streaming if the input is not larger than -T). Defaults to staged")
+    private BigQueryLoadMode loadMode = BigQueryLoadMode.staged;
+
+    @Option(name = "-T", usage = "Input size in bytes up to which the auto load mode streams the data. Defaults to 33554432")
+    private long streamingThreshold = 32L * 1024 * 1024;
+
+    @Option(name = "-B", usage = "Number of rows per insertAll request in streaming mode. Defaults to 500")
+    private int streamingBatchSize = 500;
+
+    @Option(name = "-W", usage = "Number of concurrent insertAll requests per task in streaming mode. Defaults to 4")
+    private int streamingParallelism = 4;
+
+    @Option(name = "-O", usage = "File format in which to stage the data in Cloud Storage in staged load mode: 'json' (gzipped JSON lines) or 'avro' (Avro container files). Defaults to json")
+    private BigQueryStagingFormat stagingFormat = BigQueryStagingFormat.json;
+
+    @Option(name = "-U", usage = "Compressed size in bytes of the parts in which JSON staging files are uploaded to Cloud Storage. Defaults to 8388608")
+    private int uploadPartSize = 8 * 1024 * 1024;
+
+    @Option(name = "-N", usage = "Number of concurrent part uploads per reducer of JSON staging files. Defaults to 4")
+    private int uploadParallelism = 4;
+
     private Configuration initialConfiguration;
 
     @Override
@@ -107,7 +134,15 @@ public class BigQueryExportJob extends BaseExportJob {
             cmd.printUsage(System.err);
             throw e;
         }
-        return prepareJobObject(prepareJobConfiguration());
+        Job job = prepareJobObject(prepareJobConfiguration());
+
+        if (getBigQueryLoadMode(job.getConfiguration()) == BigQueryLoadMode.streaming) {
+            // rows are streamed into a fresh table, which replaces the target table (partition) on commit
+            configureBigQueryStreamingTable(job.getConfiguration());
+            prepareStreamingTable(job.getConfiguration());
+        }
+
+        return job;
     }
 
     public static void finishJob(Job job, boolean wasSuccessful) {
@@ -115,8 +150,12 @@ public class BigQueryExportJob extends BaseExportJob {
 
         if (wasSuccessful) {
             try {
-                prepareBigQueryTable(conf);
-                commit(conf);
+                if (getBigQueryLoadMode(conf) == BigQueryLoadMode.streaming) {
+                    commitStreaming(conf);
+                } else {
+                    prepareBigQueryTable(conf);
+                    commit(conf);
+                }
             } catch (Throwable t) {
                 rollback(conf);
             }
@@ -164,6 +203,21 @@ public class BigQueryExportJob extends BaseExportJob {
                 flushInterval
         );
 
+        conf = configureBigQueryLoadMode(
+                conf,
+                loadMode,
+                streamingThreshold,
+                streamingBatchSize,
+                streamingParallelism
+        );
+
+        conf = configureBigQueryStagingFormat(
+                conf,
+                stagingFormat,
+                uploadPartSize,
+                uploadParallelism
+        );
+
         return conf;
     }
 
@@ -173,28 +227,67 @@ public class BigQueryExportJob extends BaseExportJob {
                 + inputTable);
 
         job.setJarByClass(BigQueryExportJob.class);
-        job.setMapperClass(BigQueryExportMapper.class);
         job.setReducerClass(Reducer.class);
 
-        job.setMapOutputKeyClass(LongWritable.class);
-        job.setMapOutputValueClass(Text.class);
-        job.setOutputKeyClass(LongWritable.class);
-        job.setOutputValueClass(Text.class);
-
         if (inputFilter == null || inputFilter.trim().equals("")) {
             HCatInputFormat.setInput(job, inputDatabase, inputTable);
         } else {
             HCatInputFormat.setInput(job, inputDatabase, inputTable, inputFilter);
         }
 
-        job.setInputFormatClass(HCatInputFormat.class);
-        job.setOutputFormatClass(BigQueryOutputFormat.class);
+        job.setInputFormatClass(MeteredHCatInputFormat.class);
 
         job.setNumReduceTasks(numReducer);
 
+        if (getBigQueryLoadMode(job.getConfiguration()) == BigQueryLoadMode.auto) {
+            long inputSize = estimateInputSize(job);
+            BigQueryLoadMode resolvedMode = inputSize <= getBigQueryStreamingThreshold(job.getConfiguration()) ? BigQueryLoadMode.streaming : BigQueryLoadMode.staged;
+
+            LOG.info("Input size of " + inputSize + " bytes, using " + resolvedMode + " load mode");
+            job.getConfiguration().set(BIGQUERY_LOAD_MODE, resolvedMode.toString());
+        }
+
+        job.setMapOutputKeyClass(LongWritable.class);
+        job.setOutputKeyClass(LongWritable.class);
+
+        if (getBigQueryLoadMode(job.getConfiguration()) != BigQueryLoadMode.streaming
+                && getBigQueryStagingFormat(job.getConfiguration()) == BigQueryStagingFormat.avro) {
+            job.setMapperClass(BigQueryAvroExportMapper.class);
+            job.setMapOutputValueClass(BytesWritable.class);
+            job.setOutputValueClass(BytesWritable.class);
+            job.setOutputFormatClass(BigQueryAvroOutputFormat.class);
+        } else {
+            job.setMapperClass(BigQueryExportMapper.class);
+            job.setMapOutputValueClass(Text.class);
+            job.setOutputValueClass(Text.class);
+            job.setOutputFormatClass(BigQueryOutputFormat.class);
+        }
+
         return job;
     }
 
+    /**
+     * Estimate the size of the data to export by the total length of the input splits, i.e., the size of the
+     * (compressed) Hive files, not the size of the resulting JSON.
+     *
+     * @param job the configured job
+     * @return the input size in bytes
+     * @throws IOException
+     */
+    private static long estimateInputSize(Job job) throws IOException {
+        long inputSize = 0;
+
+        try {
+            for (InputSplit split : new HCatInputFormat().getSplits(job))
+                inputSize += split.getLength();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while estimating the input size", e);
+        }
+
+        return inputSize;
+    }
+
 
     public BigQueryExportJob(Configuration initialConfiguration) {
         this.initialConfiguration = initialConfiguration;
@@ -8,6 +8,8 @@ import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hive.hcatalog.data.HCatRecord;
 import org.apache.hive.hcatalog.data.schema.HCatSchema;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 
 import java.io.IOException;
 import java.util.Map;
@@ -25,11 +27,13 @@ public class BigQueryExportMapper extends Mapper<WritableComparable<?>, HCatReco
     private HCatSchema hcatSchema;
     private String usedHCatFilter;
     private ObjectMapper jsonFactory = new ObjectMapper();
+    private ExportMetrics metrics;
 
 
     @Override
     protected void setup(Context context) throws IOException, InterruptedException {
         super.setup(context);
+        metrics = new ExportMetrics(context);
 
         Configuration conf = context.getConfiguration();
 
@@ -42,10 +46,13 @@ public class BigQueryExportMapper extends Mapper<WritableComparable<?>, HCatReco
     protected void map(WritableComparable<?> key, HCatRecord value,
                        Context context) throws IOException, InterruptedException {
 
+        long start = metrics.start();
         Map<String, Object> recordMap = convertHCatRecordToBigQueryMap(hcatSchema, value);
         recordMap.put(USED_FILTER_FIELD_NAME, this.usedHCatFilter);
+        start = metrics.stop(ExportCounter.CONVERSION_TIME_MS, start);
 
         Text outputValue = new Text(jsonFactory.writeValueAsString(recordMap) + "\n");
+        metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
 
         LongWritable outputKey = new LongWritable(outputValue.hashCode());
 
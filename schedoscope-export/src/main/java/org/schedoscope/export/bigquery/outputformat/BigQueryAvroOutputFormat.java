@@ -0,0 +1,72 @@
+/**
+ * Copyright 2015 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.bigquery.outputformat;
+
+import com.google.cloud.storage.Storage;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.mapreduce.*;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.schedoscope.export.metrics.ExportMetrics;
+
+import java.io.IOException;
+
+import static org.schedoscope.export.bigquery.outputformat.BigQueryOutputConfiguration.*;
+import static org.schedoscope.export.bigquery.outputformat.BigQueryOutputFormat.setProxies;
+import static org.schedoscope.export.bigquery.outputformat.BigQueryOutputFormat.stagingFileSuffix;
+import static org.schedoscope.export.bigquery.outputschema.BigQuerySchemaToAvroSchemaConverter.convertSchemaToAvroSchema;
+import static org.schedoscope.export.bigquery.outputschema.HCatSchemaToBigQuerySchemaConverter.convertSchemaToBigQuerySchema;
+import static org.schedoscope.export.utils.CloudStorageUtils.storageService;
+
+/**
+ * Hadoop output format to write binary encoded Avro records to Avro container files in GCP Cloud Storage for loading
+ * them into BigQuery. Preparing, committing, and rolling back the export is done the same way as for the JSON staging
+ * format, see {@link BigQueryOutputFormat}.
+ *
+ * @param <K> we do not care about this type parameter.
+ */
+public class BigQueryAvroOutputFormat<K> extends OutputFormat<K, BytesWritable> {
+
+    @Override
+    public RecordWriter<K, BytesWritable> getRecordWriter(TaskAttemptContext context) throws IOException {
+        Configuration conf = context.getConfiguration();
+
+        setProxies(conf);
+
+        Storage storageService = storageService(getBigQueryProject(conf), getBigQueryGcpKey(conf));
+
+        return new BigQueryAvroRecordWriter<>(
+                storageService,
+                getBigQueryExportStorageBucket(conf),
+                getBigQueryExportStorageFolder(conf) + "/" + context.getTaskAttemptID().toString() + stagingFileSuffix(conf),
+                getBigQueryExportStorageRegion(conf),
+                convertSchemaToAvroSchema(convertSchemaToBigQuerySchema(getBigQueryHCatSchema(conf))),
+                new ExportMetrics(context)
+        );
+    }
+
+    @Override
+    public void checkOutputSpecs(JobContext context) throws IOException, InterruptedException {
+        // do nothing
+    }
+
+    @Override
+    public OutputCommitter getOutputCommitter(TaskAttemptContext context) throws IOException, InterruptedException {
+        return new FileOutputCommitter(FileOutputFormat.getOutputPath(context), context);
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2015 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.bigquery.outputformat;
+
+import com.google.cloud.storage.Storage;
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import static org.schedoscope.export.utils.CloudStorageUtils.createBlobIfNotExists;
+
+/**
+ * A writer for the BigQuery output format that stores binary encoded Avro records in an Avro container file in a
+ * cloud storage bucket. The records are appended as they come from the mapper, without decoding them again. Data
+ * blocks are snappy compressed, which BigQuery can load in parallel.
+ *
+ * @param <K> ignored
+ */
+public class BigQueryAvroRecordWriter<K> extends RecordWriter<K, BytesWritable> {
+
+    private static final int SYNC_INTERVAL = 1024 * 1024;
+
+    private Storage storageService;
+    private String bucket;
+    private String blobName;
+    private String region;
+    private Schema schema;
+
+    private DataFileWriter<GenericRecord> fileWriter;
+
+    private ExportMetrics metrics;
+
+
+    @Override
+    public void write(K key, BytesWritable value) throws IOException {
+
+        if (fileWriter == null) {
+            fileWriter = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema))
+                    .setCodec(CodecFactory.snappyCodec())
+                    .setSyncInterval(SYNC_INTERVAL)
+                    .create(schema, Channels.newOutputStream(createBlobIfNotExists(storageService, bucket, blobName, region).writer()));
+        }
+
+        // blocks are compressed and written to the blob as they fill up
+        long start = metrics.start();
+        fileWriter.appendEncoded(ByteBuffer.wrap(value.getBytes(), 0, value.getLength()));
+        metrics.stop(ExportCounter.WRITE_TIME_MS, start);
+        metrics.addRows(1);
+        metrics.addBytes(value.getLength());
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) throws IOException {
+
+        if (fileWriter != null) {
+            long start = metrics.start();
+            fileWriter.close();
+            metrics.stop(ExportCounter.COMMIT_TIME_MS, start);
+        }
+    }
+
+    /**
+     * Constructor for the record writer.
+     *
+     * @param storageService reference to Google Cloud Storage web service
+     * @param bucket         the bucket to write data to. The bucket gets created if it does not exist
+     * @param blobName       the name of the blob to write data to
+     * @param region         the storage region where the bucket is created if created.
+     * @param schema         the Avro schema the binary encoded records conform to.
+     */
+    public BigQueryAvroRecordWriter(Storage storageService, String bucket, String blobName, String region, Schema schema) {
+        this(storageService, bucket, blobName, region, schema, new ExportMetrics(null));
+    }
+
+    /**
+     * Constructor for the record writer recording the export metrics.
+     *
+     * @param storageService reference to Google Cloud Storage web service
+     * @param bucket         the bucket to write data to. The bucket gets created if it does not exist
+     * @param blobName       the name of the blob to write data to
+     * @param region         the storage region where the bucket is created if created.
+     * @param schema         the Avro schema the binary encoded records conform to.
+     * @param metrics        the export metrics of the task.
+     */
+    public BigQueryAvroRecordWriter(Storage storageService, String bucket, String blobName, String region, Schema schema,
+                                    ExportMetrics metrics) {
+        this.metrics = metrics;
+        this.storageService = storageService;
+        this.bucket = bucket;
+        this.blobName = blobName;
+        this.region = region;
+        this.schema = schema;
+    }
+
+}
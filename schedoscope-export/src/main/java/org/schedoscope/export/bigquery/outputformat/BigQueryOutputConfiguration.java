@@ -44,6 +44,15 @@ public class BigQueryOutputConfiguration {
     public static final String BIGQUERY_PROXY_HOST = "bigquery.proxyHost";
     public static final String BIGQUERY_PROXY_PORT = "bigquery.proxyPort";
     public static final String BIGQUERY_FLUSH_INTERVAL = "bigquery.flushInterval";
+    public static final String BIGQUERY_LOAD_MODE = "bigquery.loadMode";
+    public static final String BIGQUERY_STREAMING_THRESHOLD = "bigquery.streamingThreshold";
+    public static final String BIGQUERY_STREAMING_BATCH_SIZE = "bigquery.streamingBatchSize";
+    public static final String BIGQUERY_STREAMING_PARALLELISM = "bigquery.streamingParallelism";
+    public static final String BIGQUERY_STREAMING_TABLE = "bigquery.streamingTable";
+    public static final String BIGQUERY_HOST = "bigquery.host";
+    public static final String BIGQUERY_STAGING_FORMAT = "bigquery.stagingFormat";
+    public static final String BIGQUERY_UPLOAD_PART_SIZE = "bigquery.uploadPartSize";
+    public static final String BIGQUERY_UPLOAD_PARALLELISM = "bigquery.uploadParallelism";
 
     private static String serializeHCatSchema(HCatSchema schema) throws IOException {
 
@@ -284,6 +293,179 @@ public class BigQueryOutputConfiguration {
     }
 
 
+    /**
+     * Return how the exported data gets into BigQuery. Defaults to staged.
+     *
+     * @param conf the Hadoop configuration
+     * @return the load mode
+     */
+    public static BigQueryLoadMode getBigQueryLoadMode(Configuration conf) {
+        return BigQueryLoadMode.valueOf(conf.get(BIGQUERY_LOAD_MODE, BigQueryLoadMode.staged.toString()));
+    }
+
+    /**
+     * Return the input size in bytes up to which the auto load mode streams the data into BigQuery instead of staging
+     * it in Cloud Storage. Defaults to 32 MB.
+     *
+     * @param conf the Hadoop configuration
+     * @return the streaming threshold
+     */
+    public static long getBigQueryStreamingThreshold(Configuration conf) {
+        return conf.getLong(BIGQUERY_STREAMING_THRESHOLD, 32L * 1024 * 1024);
+    }
+
+    /**
+     * Return the number of rows per insertAll request in streaming mode. Defaults to 500.
+     *
+     * @param conf the Hadoop configuration
+     * @return the batch size
+     */
+    public static int getBigQueryStreamingBatchSize(Configuration conf) {
+        return conf.getInt(BIGQUERY_STREAMING_BATCH_SIZE, 500);
+    }
+
+    /**
+     * Return the number of concurrent insertAll requests per task in streaming mode. Defaults to 4.
+     *
+     * @param conf the Hadoop configuration
+     * @return the parallelism
+     */
+    public static int getBigQueryStreamingParallelism(Configuration conf) {
+        return conf.getInt(BIGQUERY_STREAMING_PARALLELISM, 4);
+    }
+
+    /**
+     * Return the ID of the table the rows are streamed into in streaming mode. It is created for the export job only
+     * and replaces the target table (partition) when the job is committed. Null if no such table is configured.
+     *
+     * @param conf the Hadoop configuration
+     * @return the table ID
+     */
+    public static TableId getBigQueryStreamingTableId(Configuration conf) {
+        String streamingTable = conf.get(BIGQUERY_STREAMING_TABLE);
+
+        if (streamingTable == null)
+            return null;
+
+        TableId tableId = getBigQueryTableId(conf);
+
+        return tableId.getProject() == null ? TableId.of(tableId.getDataset(), streamingTable) : TableId.of(tableId.getProject(), tableId.getDataset(), streamingTable);
+    }
+
+    /**
+     * Return the root URL of the BigQuery API to use instead of the public endpoint, e.g., a local stand-in for
+     * testing. Null if the public endpoint is to be used.
+     *
+     * @param conf the Hadoop configuration
+     * @return the BigQuery host
+     */
+    public static String getBigQueryHost(Configuration conf) {
+        return conf.get(BIGQUERY_HOST);
+    }
+
+    /**
+     * Return the file format in which exported data is staged in Cloud Storage. Defaults to json.
+     *
+     * @param conf the Hadoop configuration
+     * @return the staging format
+     */
+    public static BigQueryStagingFormat getBigQueryStagingFormat(Configuration conf) {
+        return BigQueryStagingFormat.valueOf(conf.get(BIGQUERY_STAGING_FORMAT, BigQueryStagingFormat.json.toString()));
+    }
+
+    /**
+     * Return the compressed size in bytes of the parts in which JSON staging files are uploaded to Cloud Storage.
+     * Defaults to 8 MB.
+     *
+     * @param conf the Hadoop configuration
+     * @return the part size
+     */
+    public static int getBigQueryUploadPartSize(Configuration conf) {
+        return conf.getInt(BIGQUERY_UPLOAD_PART_SIZE, 8 * 1024 * 1024);
+    }
+
+    /**
+     * Return the number of concurrent part uploads per task of JSON staging files. Defaults to 4.
+     *
+     * @param conf the Hadoop configuration
+     * @return the upload parallelism
+     */
+    public static int getBigQueryUploadParallelism(Configuration conf) {
+        return conf.getInt(BIGQUERY_UPLOAD_PARALLELISM, 4);
+    }
+
+    /**
+     * Augment a given Hadoop configuration with the file format in which to stage exported data in Cloud Storage and
+     * how to upload it. These are only relevant for the staged load mode.
+     *
+     * @param currentConf       the Hadoop configuration to augment
+     * @param stagingFormat     gzipped JSON lines or Avro container files. Defaults to json in case you pass null.
+     * @param uploadPartSize    the compressed size in bytes of the parts in which JSON staging files are uploaded.
+     *                          Defaults to 8 MB in case you pass null.
+     * @param uploadParallelism the number of concurrent part uploads per task. Defaults to 4 in case you pass null.
+     * @return the Hadoop configuration
+     */
+    public static Configuration configureBigQueryStagingFormat(Configuration currentConf, BigQueryStagingFormat stagingFormat, Integer uploadPartSize, Integer uploadParallelism) {
+
+        currentConf.set(BIGQUERY_STAGING_FORMAT, (stagingFormat != null ? stagingFormat : BigQueryStagingFormat.json).toString());
+
+        if (uploadPartSize != null && uploadPartSize > 0)
+            currentConf.setInt(BIGQUERY_UPLOAD_PART_SIZE, uploadPartSize);
+
+        if (uploadParallelism != null && uploadParallelism > 0)
+            currentConf.setInt(BIGQUERY_UPLOAD_PARALLELISM, uploadParallelism);
+
+        return currentConf;
+    }
+
+    /**
+     * Augment a given Hadoop configuration with the parameters controlling how the data gets into BigQuery.
+     *
+     * @param currentConf          the Hadoop configuration to augment
+     * @param loadMode             stage the data in Cloud Storage, stream it via insertAll, or decide based on the
+     *                             input size (auto). Defaults to staged in case you pass null.
+     * @param streamingThreshold   the input size in bytes up to which auto mode streams. Defaults to 32 MB in case
+     *                             you pass null.
+     * @param streamingBatchSize   the number of rows per insertAll request. Defaults to 500 in case you pass null.
+     * @param streamingParallelism the number of concurrent insertAll requests per task. Defaults to 4 in case you
+     *                             pass null.
+     * @return the Hadoop configuration
+     */
+    public static Configuration configureBigQueryLoadMode(Configuration currentConf, BigQueryLoadMode loadMode, Long streamingThreshold, Integer streamingBatchSize, Integer streamingParallelism) {
+
+        currentConf.set(BIGQUERY_LOAD_MODE, (loadMode != null ? loadMode : BigQueryLoadMode.staged).toString());
+
+        if (streamingThreshold != null)
+            currentConf.setLong(BIGQUERY_STREAMING_THRESHOLD, streamingThreshold);
+
+        if (streamingBatchSize != null && streamingBatchSize > 0)
+            currentConf.setInt(BIGQUERY_STREAMING_BATCH_SIZE, streamingBatchSize);
+
+        if (streamingParallelism != null && streamingParallelism > 0)
+            currentConf.setInt(BIGQUERY_STREAMING_PARALLELISM, streamingParallelism);
+
+        return currentConf;
+    }
+
+    /**
+     * Augment a given Hadoop configuration with a fresh, job specific name for the table the rows are streamed into
+     * in streaming mode. Streaming into a new table avoids that BigQuery drops rows streamed into a table which has
+     * just been dropped and created again under the same name.
+     *
+     * @param currentConf the Hadoop configuration to augment
+     * @return the Hadoop configuration
+     */
+    public static Configuration configureBigQueryStreamingTable(Configuration currentConf) {
+
+        String partitionDate = getBigQueryTablePartitionDate(currentConf);
+
+        currentConf.set(BIGQUERY_STREAMING_TABLE, getBigQueryTableId(currentConf).getTable()
+                + (partitionDate != null ? "_" + partitionDate : "")
+                + "_streaming_" + System.currentTimeMillis());
+
+        return currentConf;
+    }
+
     /**
      * Augment a given Hadoop configuration with additional parameters required for BigQuery Hive table export.
      *
@@ -16,6 +16,7 @@
 package org.schedoscope.export.bigquery.outputformat;
 
 import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.FormatOptions;
 import com.google.cloud.bigquery.TableDefinition;
 import com.google.cloud.bigquery.TableId;
 import com.google.cloud.storage.Storage;
@@ -25,10 +26,12 @@ import org.apache.hadoop.mapreduce.*;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.schedoscope.export.bigquery.outputschema.PartitioningScheme;
+import org.schedoscope.export.metrics.ExportMetrics;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import static org.schedoscope.export.bigquery.outputformat.BigQueryOutputConfiguration.*;
 import static org.schedoscope.export.bigquery.outputschema.HCatSchemaToBigQuerySchemaConverter.convertSchemaToTableDefinition;
@@ -45,7 +48,7 @@ import static org.schedoscope.export.utils.CloudStorageUtils.*;
 public class BigQueryOutputFormat<K> extends OutputFormat<K, Text> {
 
 
-    private static void setProxies(Configuration conf) {
+    static void setProxies(Configuration conf) {
         if (getBigQueryProxyHost(conf) != null && getBigQueryProxyPort(conf) != null) {
             System.setProperty("https.proxyHost", getBigQueryProxyHost(conf));
             System.setProperty("https.proxyPort", getBigQueryProxyPort(conf));
@@ -55,7 +58,7 @@ public class BigQueryOutputFormat<K> extends OutputFormat<K, Text> {
     /**
      * Given a Hadoop configuration with the BigQuery output format configuration values, create an equivalent BigQuery
      * table. It HCatSchema passed in the configuration is considered, as well as a potentially given partition date
-     * to decide about daily partitioning of the table (or not).
+     * to decide about daily partitioning of the table (or not). An existing table (partition) is dropped first.
      *
      * @param conf the BigQuery augmented Hadoop configuration (see {@link BigQueryOutputConfiguration})
      * @throws IOException in case the table could not be created.
@@ -64,22 +67,84 @@ public class BigQueryOutputFormat<K> extends OutputFormat<K, Text> {
 
         setProxies(conf);
 
+        BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf), getBigQueryHost(conf));
+
+        retry(3, () -> {
+            dropTable(bigQueryService, getBigQueryTableId(conf, true));
+        });
+
+        createBigQueryTable(conf);
+
+    }
+
+    /**
+     * Create the BigQuery table equivalent to the HCatSchema passed in the configuration, if it does not exist yet.
+     *
+     * @param conf the BigQuery augmented Hadoop configuration (see {@link BigQueryOutputConfiguration})
+     * @throws IOException in case the table could not be created.
+     */
+    public static void createBigQueryTable(Configuration conf) throws IOException {
+
+        setProxies(conf);
+
         PartitioningScheme partitioning = getBigQueryTablePartitionDate(conf) != null ? DAILY : NONE;
 
         TableDefinition outputSchema = convertSchemaToTableDefinition(getBigQueryHCatSchema(conf), partitioning);
 
-        BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf));
+        BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf), getBigQueryHost(conf));
 
         retry(3, () -> {
-            dropTable(bigQueryService, getBigQueryTableId(conf, true));
+            createTable(bigQueryService, getBigQueryTableId(conf), outputSchema, getBigQueryDatasetLocation(conf));
         });
 
+    }
+
+    /**
+     * Create the fresh, unpartitioned table the rows are streamed into in streaming mode (see
+     * {@link BigQueryOutputConfiguration#configureBigQueryStreamingTable(Configuration)}). The target table is not
+     * touched before {@link #commitStreaming(Configuration)}.
+     *
+     * @param conf the BigQuery augmented Hadoop configuration (see {@link BigQueryOutputConfiguration})
+     * @throws IOException in case the table could not be created.
+     */
+    public static void prepareStreamingTable(Configuration conf) throws IOException {
+
+        setProxies(conf);
+
+        TableDefinition outputSchema = convertSchemaToTableDefinition(getBigQueryHCatSchema(conf), NONE);
+
+        BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf), getBigQueryHost(conf));
+
         retry(3, () -> {
-            createTable(bigQueryService, getBigQueryTableId(conf), outputSchema, getBigQueryDatasetLocation(conf));
+            createTable(bigQueryService, getBigQueryStreamingTableId(conf), outputSchema, getBigQueryDatasetLocation(conf));
         });
 
     }
 
+    /**
+     * After the rows have been streamed into the streaming table, commit the export by replacing the target table
+     * (partition) with the streamed rows in a single query job, then drop the streaming table.
+     *
+     * @param conf the BigQuery augmented Hadoop configuration (see {@link BigQueryOutputConfiguration})
+     * @throws IOException
+     */
+    public static void commitStreaming(Configuration conf) throws IOException {
+
+        createBigQueryTable(conf);
+
+        BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf), getBigQueryHost(conf));
+        TableId streamingTableId = getBigQueryStreamingTableId(conf);
+
+        retry(3, () -> replaceTable(bigQueryService, streamingTableId, getBigQueryTableId(conf, true)));
+
+        try {
+            rollbackStreamingTable(conf);
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+
+    }
+
     /**
      * After the output format has written a Hive table's data to GCP cloud storage, commit the export by loading
      * the data into the prepared BigQuery table and then delete the data in the storage bucket afterwards.
@@ -93,13 +158,19 @@ public class BigQueryOutputFormat<K> extends OutputFormat<K, Text> {
 
         setProxies(conf);
 
-        BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf));
+        BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf), getBigQueryHost(conf));
         Storage storageService = storageService(getBigQueryProject(conf), getBigQueryGcpKey(conf));
 
-        List<String> blobsToLoad = listBlobs(storageService, getBigQueryExportStorageBucket(conf), getBigQueryExportStorageFolder(conf));
+        // only complete staging files, not the parts they are composed of
+        List<String> blobsToLoad = listBlobs(storageService, getBigQueryExportStorageBucket(conf), getBigQueryExportStorageFolder(conf))
+                .stream()
+                .filter(blob -> blob.endsWith(stagingFileSuffix(conf)))
+                .collect(Collectors.toList());
         TableId tableId = getBigQueryTableId(conf, true);
 
-        retry(3, () -> loadTable(bigQueryService, tableId, blobsToLoad));
+        FormatOptions format = getBigQueryStagingFormat(conf) == BigQueryStagingFormat.avro ? FormatOptions.avro() : FormatOptions.json();
+
+        retry(3, () -> loadTable(bigQueryService, tableId, blobsToLoad, format));
 
         try {
             rollbackStorage(conf);
@@ -110,8 +181,18 @@ public class BigQueryOutputFormat<K> extends OutputFormat<K, Text> {
     }
 
     /**
-     * Call the method in case of a problem. It drops the BigQuery table or table partition and deletes all data
-     * on cloud storage.
+     * Return the file name suffix of the staging files of the configured staging format.
+     *
+     * @param conf the BigQuery augmented Hadoop configuration (see {@link BigQueryOutputConfiguration})
+     * @return the suffix
+     */
+    static String stagingFileSuffix(Configuration conf) {
+        return getBigQueryStagingFormat(conf) == BigQueryStagingFormat.avro ? ".avro" : ".gz";
+    }
+
+    /**
+     * Call the method in case of a problem. It drops the BigQuery table or table partition as well as the streaming
+     * table and deletes all data on cloud storage.
      *
      * @param conf the BigQuery augmented Hadoop configuration (see {@link BigQueryOutputConfiguration})
      */
@@ -125,6 +206,12 @@ public class BigQueryOutputFormat<K> extends OutputFormat<K, Text> {
             t.printStackTrace();
         }
 
+        try {
+            rollbackStreamingTable(conf);
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+
         try {
             rollbackStorage(conf);
         } catch (Throwable t) {
@@ -134,7 +221,7 @@ public class BigQueryOutputFormat<K> extends OutputFormat<K, Text> {
     }
 
     private static void rollbackBigQuery(Configuration conf) throws IOException {
-        BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf));
+        BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf), getBigQueryHost(conf));
         TableId tableId = getBigQueryTableId(conf, true);
 
         retry(3, () -> {
@@ -142,6 +229,19 @@ public class BigQueryOutputFormat<K> extends OutputFormat<K, Text> {
         });
     }
 
+    private static void rollbackStreamingTable(Configuration conf) throws IOException {
+        TableId streamingTableId = getBigQueryStreamingTableId(conf);
+
+        if (streamingTableId == null)
+            return;
+
+        BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf), getBigQueryHost(conf));
+
+        retry(3, () -> {
+            dropTable(bigQueryService, streamingTableId);
+        });
+    }
+
     private static void rollbackStorage(Configuration conf) throws IOException {
         Storage storageService = storageService(getBigQueryProject(conf), getBigQueryGcpKey(conf));
         String bucket = getBigQueryExportStorageBucket(conf);
@@ -159,14 +259,29 @@ public class BigQueryOutputFormat<K> extends OutputFormat<K, Text> {
 
         setProxies(conf);
 
+        if (getBigQueryLoadMode(conf) == BigQueryLoadMode.streaming) {
+            BigQuery bigQueryService = bigQueryService(getBigQueryProject(conf), getBigQueryGcpKey(conf), getBigQueryHost(conf));
+
+            return new BigQueryStreamingRecordWriter<>(
+                    bigQueryService,
+                    getBigQueryStreamingTableId(conf),
+                    context.getTaskAttemptID().getTaskID().toString() + "-",
+                    getBigQueryStreamingBatchSize(conf),
+                    getBigQueryStreamingParallelism(conf),
+                    new ExportMetrics(context)
+            );
+        }
+
         Storage storageService = storageService(getBigQueryProject(conf), getBigQueryGcpKey(conf));
 
         return new BiqQueryJsonRecordWriter<>(
                 storageService,
                 getBigQueryExportStorageBucket(conf),
-                getBigQueryExportStorageFolder(conf) + "/" + context.getTaskAttemptID().toString() + ".gz",
+                getBigQueryExportStorageFolder(conf) + "/" + context.getTaskAttemptID().toString() + stagingFileSuffix(conf),
                 getBigQueryExportStorageRegion(conf),
-                getBigQueryFlushInterval(conf)
+                getBigQueryUploadPartSize(conf),
+                getBigQueryUploadParallelism(conf),
+                new ExportMetrics(context)
         );
     }
 
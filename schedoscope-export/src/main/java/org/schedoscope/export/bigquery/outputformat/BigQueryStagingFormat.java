@@ -0,0 +1,36 @@
+/**
+ * Copyright 2015 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.bigquery.outputformat;
+
+/**
+ * An enum representing the file format in which the exported data is staged
+ * in Cloud Storage before BigQuery loads it: gzipped JSON lines or Avro
+ * container files.
+ */
+public enum BigQueryStagingFormat {
+    json {
+        @Override
+        public String toString() {
+            return "json";
+        }
+    },
+    avro {
+        @Override
+        public String toString() {
+            return "avro";
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2015 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.bigquery.outputformat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.InsertAllRequest.RowToInsert;
+import com.google.cloud.bigquery.TableId;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.schedoscope.export.utils.BigQueryUtils.insertIntoTable;
+import static org.schedoscope.export.utils.BigQueryUtils.retry;
+
+/**
+ * Record writer streaming the JSON formatted records directly into the BigQuery table via the insertAll API,
+ * bypassing Cloud Storage and the load job. Rows are sent in batches by a bounded number of concurrent requests.
+ * <p>
+ * Every row carries an insert ID derived from the task and its position within the task's input, so that BigQuery
+ * can deduplicate rows sent again by a retried request or task attempt.
+ *
+ * @param <K> the key type, ignored
+ */
+public class BigQueryStreamingRecordWriter<K> extends RecordWriter<K, Text> {
+
+    private static final ObjectMapper jsonFactory = new ObjectMapper();
+
+    private BigQuery bigQueryService;
+    private TableId tableId;
+    private String rowIdPrefix;
+    private int batchSize;
+
+    private ExecutorService executor;
+    private Semaphore requestsInFlight;
+    private AtomicReference<Throwable> failure = new AtomicReference<>();
+    private boolean failureCounted = false;
+
+    // the requests record into these, the task thread moves them to the counters
+    private ExportMetrics metrics;
+    private AtomicLong rowsWritten = new AtomicLong();
+    private AtomicLong bytesWritten = new AtomicLong();
+    private AtomicLong writeNanos = new AtomicLong();
+    private AtomicLong retries = new AtomicLong();
+
+    private List<RowToInsert> batch;
+    private long batchBytes = 0;
+    private long rowCounter = 0;
+
+
+    @Override
+    public void write(K key, Text value) throws IOException {
+
+        checkFailure();
+
+        long start = metrics.start();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> row = jsonFactory.readValue(value.getBytes(), 0, value.getLength(), Map.class);
+        metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+
+        batch.add(RowToInsert.of(rowIdPrefix + rowCounter, row));
+        batchBytes += value.getLength();
+        rowCounter++;
+
+        if (batch.size() >= batchSize)
+            send();
+    }
+
+    private void send() throws IOException {
+
+        List<RowToInsert> rows = batch;
+        long bytes = batchBytes;
+        batch = new ArrayList<>(batchSize);
+        batchBytes = 0;
+
+        try {
+            requestsInFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to stream rows into " + tableId, e);
+        }
+
+        collectMetrics();
+
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            int[] attempts = {0};
+            try {
+                retry(3, () -> {
+                    if (attempts[0]++ > 0)
+                        retries.incrementAndGet();
+                    insertIntoTable(bigQueryService, tableId, rows);
+                });
+                rowsWritten.addAndGet(rows.size());
+                bytesWritten.addAndGet(bytes);
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                writeNanos.addAndGet(System.nanoTime() - start);
+                requestsInFlight.release();
+            }
+        });
+    }
+
+    private void collectMetrics() {
+        metrics.addRows(rowsWritten.getAndSet(0));
+        metrics.addBytes(bytesWritten.getAndSet(0));
+        metrics.addNanos(ExportCounter.WRITE_TIME_MS, writeNanos.getAndSet(0));
+        metrics.addRetries(retries.getAndSet(0));
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable t = failure.get();
+
+        if (t != null && !failureCounted) {
+            metrics.addError(t);
+            failureCounted = true;
+        }
+
+        if (t != null)
+            throw new IOException("Could not stream rows into BigQuery table " + tableId, t);
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) throws IOException {
+
+        try {
+            if (!batch.isEmpty() && failure.get() == null)
+                send();
+        } finally {
+            executor.shutdown();
+
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    if (context != null)
+                        context.progress();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while streaming rows into " + tableId, e);
+            }
+        }
+
+        collectMetrics();
+        checkFailure();
+    }
+
+    /**
+     * Constructor for the record writer.
+     *
+     * @param bigQueryService reference to the BigQuery web service
+     * @param tableId         the table (partition) to stream the records into
+     * @param rowIdPrefix     the prefix of the insert IDs, must be the same for all attempts of a task
+     * @param batchSize       the number of rows per insertAll request
+     * @param parallelism     the maximum number of concurrent insertAll requests
+     */
+    public BigQueryStreamingRecordWriter(BigQuery bigQueryService, TableId tableId, String rowIdPrefix, int batchSize, int parallelism) {
+        this(bigQueryService, tableId, rowIdPrefix, batchSize, parallelism, new ExportMetrics(null));
+    }
+
+    /**
+     * Constructor for the record writer recording the export metrics.
+     *
+     * @param bigQueryService reference to the BigQuery web service
+     * @param tableId         the table (partition) to stream the records into
+     * @param rowIdPrefix     the prefix of the insert IDs, must be the same for all attempts of a task
+     * @param batchSize       the number of rows per insertAll request
+     * @param parallelism     the maximum number of concurrent insertAll requests
+     * @param metrics         the export metrics of the task
+     */
+    public BigQueryStreamingRecordWriter(BigQuery bigQueryService, TableId tableId, String rowIdPrefix, int batchSize, int parallelism,
+                                         ExportMetrics metrics) {
+        this.metrics = metrics;
+        this.bigQueryService = bigQueryService;
+        this.tableId = tableId;
+        this.rowIdPrefix = rowIdPrefix;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+        this.executor = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("bigquery-streaming-%d").build());
+        this.requestsInFlight = new Semaphore(parallelism);
+    }
+
+}
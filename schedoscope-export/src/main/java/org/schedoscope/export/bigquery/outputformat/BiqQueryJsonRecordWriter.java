@@ -16,84 +16,215 @@
 package org.schedoscope.export.bigquery.outputformat;
 
 import com.google.cloud.storage.Storage;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.channels.WritableByteChannel;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.GZIPOutputStream;
 
-import static org.schedoscope.export.utils.CloudStorageUtils.createBlobIfNotExists;
+import static org.schedoscope.export.utils.BigQueryUtils.retry;
+import static org.schedoscope.export.utils.CloudStorageUtils.*;
 
 /**
  * A writer for the BigQuery output format that stores JSON-formatted records for BigQuery to a cloud storage bucket.
+ * <p>
+ * The records are compressed into parts of about the given part size. Each part is a complete gzip stream that is
+ * uploaded by a background pool while the next part is being filled, a failed part upload is retried without
+ * affecting the task. On close, the parts are composed into the final blob, which is a valid multi-member gzip file.
+ * Memory is bounded by the part buffers, which are reused: at most one more than there are concurrent uploads.
  *
  * @param <K> ignored
  */
 public class BiqQueryJsonRecordWriter<K> extends RecordWriter<K, Text> {
 
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
     private Storage storageService;
     private String bucket;
     private String blobName;
     private String region;
+    private int partSize;
+    private int maxBuffers;
 
-    private WritableByteChannel channel;
+    private ExecutorService executor;
+    private BlockingQueue<PartBuffer> freeBuffers = new LinkedBlockingQueue<>();
+    private int allocatedBuffers = 0;
+    private AtomicReference<Throwable> failure = new AtomicReference<>();
+    private boolean failureCounted = false;
 
-    private ByteArrayOutputStream buffer;
-    private GZIPOutputStream compressor;
+    // the uploads record into these, the task thread moves them to the counters
+    private ExportMetrics metrics;
+    private AtomicLong uploadNanos = new AtomicLong();
+    private AtomicLong retries = new AtomicLong();
 
-    private long recordCounter = 0;
-    private long flushInterval;
+    private PartBuffer buffer;
+    private GZIPOutputStream compressor;
+    private List<String> parts = new ArrayList<>();
+    private boolean bucketCreated = false;
 
 
     @Override
     public void write(K key, Text value) throws IOException {
 
-        if (channel == null)
-            channel = createBlobIfNotExists(storageService, bucket, blobName, region).writer();
+        checkFailure();
+
+        if (compressor == null) {
+            buffer = takeBuffer();
+            compressor = new GZIPOutputStream(buffer, INITIAL_BUFFER_SIZE);
+        }
+
+        long start = metrics.start();
+        compressor.write(value.getBytes(), 0, value.getLength());
+        metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+        metrics.addRows(1);
+        metrics.addBytes(value.getLength());
+
+        if (buffer.size() >= partSize) {
+            compressor.close();
+            compressor = null;
+
+            String partName = blobName + ".part-" + String.format("%05d", parts.size());
+            parts.add(partName);
+            upload(partName);
+        }
+
+    }
+
+    private PartBuffer takeBuffer() throws IOException {
+        PartBuffer free = freeBuffers.poll();
+
+        if (free == null && allocatedBuffers < maxBuffers) {
+            allocatedBuffers++;
+            return new PartBuffer();
+        }
+
+        try {
+            free = free != null ? free : freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an upload to " + bucket + " to finish", e);
+        }
+
+        free.reset();
+
+        return free;
+    }
+
+    private void upload(String name) {
+
+        if (!bucketCreated) {
+            retry(3, () -> {
+                createBucket(storageService, bucket, region);
+            });
+            bucketCreated = true;
+        }
+
+        PartBuffer part = buffer;
+        buffer = null;
 
-        if (buffer == null)
-            buffer = new ByteArrayOutputStream();
+        collectMetrics();
 
-        if (compressor == null)
-            compressor = new GZIPOutputStream(buffer, true);
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            int[] attempts = {0};
+            try {
+                retry(3, () -> {
+                    if (attempts[0]++ > 0)
+                        retries.incrementAndGet();
+                    try {
+                        uploadBlob(storageService, bucket, name, part.getBuffer(), part.size());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                uploadNanos.addAndGet(System.nanoTime() - start);
+                freeBuffers.add(part);
+            }
+        });
+    }
 
+    private void collectMetrics() {
+        metrics.addNanos(ExportCounter.WRITE_TIME_MS, uploadNanos.getAndSet(0));
+        metrics.addRetries(retries.getAndSet(0));
+    }
 
-        compressor.write(value.toString().getBytes("UTF-8"));
-        recordCounter++;
+    private void checkFailure() throws IOException {
+        Throwable t = failure.get();
 
-        if (recordCounter % flushInterval == 0) {
-            compressor.flush();
-            byte[] recordsCompressed = buffer.toByteArray();
-            channel.write(ByteBuffer.wrap(recordsCompressed));
-            buffer.reset();
+        if (t != null && !failureCounted) {
+            metrics.addError(t);
+            failureCounted = true;
         }
 
+        if (t != null)
+            throw new IOException("Could not upload records to blob " + blobName + " in bucket " + bucket, t);
     }
 
     @Override
     public void close(TaskAttemptContext context) throws IOException {
 
-        if (compressor != null) {
-            compressor.flush();
-            compressor.finish();
+        try {
+            if (compressor != null && failure.get() == null) {
+                compressor.close();
+                compressor = null;
 
-            if (buffer != null) {
-                byte[] lastBytes = buffer.toByteArray();
-                channel.write(ByteBuffer.wrap(lastBytes));
+                // a single part is uploaded to the final blob right away
+                if (parts.isEmpty()) {
+                    upload(blobName);
+                } else {
+                    String partName = blobName + ".part-" + String.format("%05d", parts.size());
+                    parts.add(partName);
+                    upload(partName);
+                }
             }
+        } finally {
+            executor.shutdown();
 
-            compressor.close();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    if (context != null)
+                        context.progress();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while uploading records to blob " + blobName, e);
+            }
         }
 
-        if (buffer != null)
-            buffer.close();
+        collectMetrics();
+        checkFailure();
+
+        if (!parts.isEmpty()) {
+            long start = metrics.start();
+            retry(3, () -> composeBlobs(storageService, bucket, parts, blobName));
+            metrics.stop(ExportCounter.COMMIT_TIME_MS, start);
 
-        if (channel != null)
-            channel.close();
+            try {
+                deleteBlobs(storageService, bucket, parts);
+            } catch (Throwable t) {
+                // leftover parts are not loaded and get deleted with the storage folder
+                t.printStackTrace();
+            }
+        }
     }
 
     /**
@@ -103,14 +234,49 @@ public class BiqQueryJsonRecordWriter<K> extends RecordWriter<K, Text> {
      * @param bucket         the bucket to write data to. The bucket gets created if it does not exist
      * @param blobName       the name of the blob to write data to
      * @param region         the storage region where the bucket is created if created.
-     * @param flushInterval  the number of records buffered after which the results should be pushed to the storage bucket.
+     * @param partSize       the compressed size in bytes after which a part is handed over for upload.
+     * @param parallelism    the maximum number of concurrent part uploads.
      */
-    public BiqQueryJsonRecordWriter(Storage storageService, String bucket, String blobName, String region, long flushInterval) {
+    public BiqQueryJsonRecordWriter(Storage storageService, String bucket, String blobName, String region, int partSize, int parallelism) {
+        this(storageService, bucket, blobName, region, partSize, parallelism, new ExportMetrics(null));
+    }
+
+    /**
+     * Constructor for the record writer recording the export metrics.
+     *
+     * @param storageService reference to Google Cloud Storage web service
+     * @param bucket         the bucket to write data to. The bucket gets created if it does not exist
+     * @param blobName       the name of the blob to write data to
+     * @param region         the storage region where the bucket is created if created.
+     * @param partSize       the compressed size in bytes after which a part is handed over for upload.
+     * @param parallelism    the maximum number of concurrent part uploads.
+     * @param metrics        the export metrics of the task.
+     */
+    public BiqQueryJsonRecordWriter(Storage storageService, String bucket, String blobName, String region, int partSize, int parallelism,
+                                    ExportMetrics metrics) {
+        this.metrics = metrics;
         this.storageService = storageService;
         this.bucket = bucket;
         this.blobName = blobName;
         this.region = region;
-        this.flushInterval = flushInterval;
+        this.partSize = partSize;
+        this.maxBuffers = parallelism + 1;
+        this.executor = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("bigquery-upload-%d").build());
+    }
+
+    /**
+     * Buffer for a compressed part, exposing its backing array so that it can be uploaded without copying.
+     */
+    private static class PartBuffer extends ByteArrayOutputStream {
+
+        PartBuffer() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
     }
 
 }
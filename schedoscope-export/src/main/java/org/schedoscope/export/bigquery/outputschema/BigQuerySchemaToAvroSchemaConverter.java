@@ -0,0 +1,96 @@
+/**
+ * Copyright 2015 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.bigquery.outputschema;
+
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.LegacySQLTypeName;
+import org.apache.avro.Schema;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.JsonNodeFactory;
+import org.codehaus.jackson.node.NullNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Convertor for transforming BigQuery schemas to the Avro schemas of the container files BigQuery loads into a table
+ * of that schema. Nullable fields become unions with null, repeated fields become arrays, and records become nested
+ * Avro records.
+ */
+public class BigQuerySchemaToAvroSchemaConverter {
+
+    static private final String ROOT_RECORD_NAME = "root";
+
+    static private final Schema nullSchema = Schema.create(Schema.Type.NULL);
+
+    // Avro 1.7 expects Jackson 1 nodes as field defaults
+    static private final JsonNode nullDefault = NullNode.getInstance();
+
+    static private final JsonNode emptyArrayDefault = new ArrayNode(JsonNodeFactory.instance);
+
+    /**
+     * Convert a given BigQuery schema to an equivalent Avro record schema.
+     *
+     * @param bigQuerySchema the BigQuery schema to convert
+     * @return the Avro schema
+     */
+    static public Schema convertSchemaToAvroSchema(com.google.cloud.bigquery.Schema bigQuerySchema) {
+        return convertFields(ROOT_RECORD_NAME, null, bigQuerySchema.getFields());
+    }
+
+    static private Schema convertFields(String recordName, String namespace, List<Field> bigQueryFields) {
+
+        // nested records are named by their path, as Avro requires record names to be unique
+        String fullName = namespace == null ? recordName : namespace + "." + recordName;
+
+        List<Schema.Field> fields = new ArrayList<>();
+
+        for (Field field : bigQueryFields) {
+            Schema type = convertType(field, fullName);
+
+            if (field.getMode() == Field.Mode.REPEATED)
+                fields.add(new Schema.Field(field.getName(), Schema.createArray(type), field.getDescription(), emptyArrayDefault));
+            else if (field.getMode() == Field.Mode.REQUIRED)
+                fields.add(new Schema.Field(field.getName(), type, field.getDescription(), null));
+            else
+                fields.add(new Schema.Field(field.getName(), Schema.createUnion(Arrays.asList(nullSchema, type)), field.getDescription(), nullDefault));
+        }
+
+        Schema record = Schema.createRecord(recordName, null, namespace, false);
+        record.setFields(fields);
+
+        return record;
+    }
+
+    static private Schema convertType(Field field, String namespace) {
+        LegacySQLTypeName type = field.getType().getValue();
+
+        if (type == LegacySQLTypeName.RECORD)
+            return convertFields(field.getName(), namespace, field.getFields());
+        else if (type == LegacySQLTypeName.INTEGER)
+            return Schema.create(Schema.Type.LONG);
+        else if (type == LegacySQLTypeName.FLOAT)
+            return Schema.create(Schema.Type.DOUBLE);
+        else if (type == LegacySQLTypeName.BOOLEAN)
+            return Schema.create(Schema.Type.BOOLEAN);
+        else if (type == LegacySQLTypeName.STRING)
+            return Schema.create(Schema.Type.STRING);
+        else
+            throw new IllegalArgumentException("BigQuery field type " + type + " of field " + field.getName() + " has no Avro equivalent");
+    }
+}
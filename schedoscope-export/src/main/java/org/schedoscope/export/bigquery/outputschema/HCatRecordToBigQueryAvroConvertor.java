@@ -0,0 +1,193 @@
+/**
+ * Copyright 2015 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.bigquery.outputschema;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hive.hcatalog.data.HCatRecord;
+import org.apache.hive.hcatalog.data.schema.HCatFieldSchema;
+import org.apache.hive.hcatalog.data.schema.HCatSchema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.schedoscope.export.bigquery.outputschema.HCatSchemaToBigQuerySchemaConverter.USED_FILTER_FIELD_NAME;
+
+/**
+ * Convert HCat records to Avro records for staging them in Avro container files to be loaded into BigQuery. The
+ * records are built directly from the HCat records, without an intermediate map. They conform to the Avro schema
+ * derived from the BigQuery schema of the HCat schema (see {@link BigQuerySchemaToAvroSchemaConverter}) and the
+ * values are downgraded the same way as by {@link HCatRecordToBigQueryMapConvertor}: maps as well as arrays nested in
+ * arrays become JSON strings. As BigQuery does not support null elements in repeated fields, these are skipped.
+ */
+public class HCatRecordToBigQueryAvroConvertor {
+
+    static private final ObjectMapper jsonConvertor = new ObjectMapper();
+
+    private final HCatSchema hcatSchema;
+
+    private final GenericRecord record;
+
+    private final int usedFilterPosition;
+
+    private final Schema.Field[] avroFields;
+
+    /**
+     * Constructor for the convertor.
+     *
+     * @param hcatSchema the HCat schema of the records to convert
+     * @param avroSchema the Avro schema derived from the BigQuery schema equivalent to the HCat schema
+     */
+    public HCatRecordToBigQueryAvroConvertor(HCatSchema hcatSchema, Schema avroSchema) {
+        this.hcatSchema = hcatSchema;
+        this.record = new GenericData.Record(avroSchema);
+        this.usedFilterPosition = avroSchema.getField(USED_FILTER_FIELD_NAME).pos();
+        this.avroFields = avroFieldsOf(hcatSchema, avroSchema);
+    }
+
+    /**
+     * Convert an HCat record. The returned Avro record is reused by subsequent calls, so it needs to be
+     * written before the next record is converted.
+     *
+     * @param hcatRecord     the record to convert
+     * @param usedHCatFilter the HCatInputFormat filter used to export the record
+     * @return the Avro record
+     * @throws IOException in case a field could not be converted
+     */
+    public GenericRecord convert(HCatRecord hcatRecord, String usedHCatFilter) throws IOException {
+
+        record.put(usedFilterPosition, usedHCatFilter);
+
+        List<HCatFieldSchema> fields = hcatSchema.getFields();
+
+        for (int i = 0; i < fields.size(); i++)
+            record.put(avroFields[i].pos(), convertField(fields.get(i), avroFields[i].schema(), hcatRecord.get(i)));
+
+        return record;
+    }
+
+    static private Schema.Field[] avroFieldsOf(HCatSchema hcatSchema, Schema avroSchema) {
+        List<HCatFieldSchema> fields = hcatSchema.getFields();
+        Schema.Field[] avroFields = new Schema.Field[fields.size()];
+
+        for (int i = 0; i < fields.size(); i++)
+            avroFields[i] = avroSchema.getField(fields.get(i).getName());
+
+        return avroFields;
+    }
+
+    static private Object convertField(HCatFieldSchema field, Schema avroType, Object value) throws IOException {
+
+        switch (field.getCategory()) {
+            case ARRAY:
+                return convertArray(field.getArrayElementSchema().get(0), avroType.getElementType(), (List<?>) value);
+
+            case STRUCT:
+                return value == null ? null : convertStruct(field.getStructSubSchema(), nonNullType(avroType), (List<?>) value);
+
+            case MAP:
+                return value == null ? null : toJson(value);
+
+            default:
+                return value == null ? null : convertPrimitive(nonNullType(avroType), value);
+        }
+    }
+
+    static private List<Object> convertArray(HCatFieldSchema elementField, Schema elementType, List<?> values) throws IOException {
+
+        if (values == null || values.isEmpty())
+            return Collections.emptyList();
+
+        List<Object> elements = new ArrayList<>(values.size());
+
+        for (Object value : values) {
+            if (value == null)
+                continue;
+
+            switch (elementField.getCategory()) {
+                case STRUCT:
+                    elements.add(convertStruct(elementField.getStructSubSchema(), elementType, (List<?>) value));
+                    break;
+
+                case ARRAY:
+                case MAP:
+                    elements.add(toJson(value));
+                    break;
+
+                default:
+                    elements.add(convertPrimitive(elementType, value));
+            }
+        }
+
+        return elements;
+    }
+
+    static private GenericRecord convertStruct(HCatSchema structSchema, Schema avroType, List<?> values) throws IOException {
+        GenericRecord struct = new GenericData.Record(avroType);
+
+        List<HCatFieldSchema> fields = structSchema.getFields();
+
+        for (int i = 0; i < fields.size(); i++) {
+            Schema.Field avroField = avroType.getField(fields.get(i).getName());
+            struct.put(avroField.pos(), convertField(fields.get(i), avroField.schema(), values.get(i)));
+        }
+
+        return struct;
+    }
+
+    static private Object convertPrimitive(Schema avroType, Object value) {
+
+        switch (avroType.getType()) {
+            case LONG:
+                return ((Number) value).longValue();
+
+            case DOUBLE:
+                return ((Number) value).doubleValue();
+
+            case BOOLEAN:
+                return value;
+
+            default:
+                return value.toString();
+        }
+    }
+
+    static private Schema nonNullType(Schema avroType) {
+
+        if (avroType.getType() != Schema.Type.UNION)
+            return avroType;
+
+        for (Schema type : avroType.getTypes())
+            if (type.getType() != Schema.Type.NULL)
+                return type;
+
+        return avroType;
+    }
+
+    static private String toJson(Object value) throws IOException {
+        try {
+            return jsonConvertor.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IOException("Could not convert value to JSON: " + value, e);
+        }
+    }
+
+}
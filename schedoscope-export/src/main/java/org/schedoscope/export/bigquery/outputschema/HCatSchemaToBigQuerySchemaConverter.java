@@ -181,6 +181,21 @@ public class HCatSchemaToBigQuerySchemaConverter {
         }
     };
 
+    /**
+     * Convert a given HCat schema to a BigQuery schema. The first field of the result is the field holding the
+     * HCatInputFormat filter used for the export.
+     *
+     * @param hcatSchema the HCat schema to convert
+     * @return the BigQuery schema equivalent to the HCat schema.
+     */
+    static public Schema convertSchemaToBigQuerySchema(HCatSchema hcatSchema) {
+        List<Field> fields = new LinkedList<>();
+        fields.add(usedFilterField);
+        fields.addAll(transformSchema(c, hcatSchema, hcatSchema).getFields());
+
+        return Schema.of(fields);
+    }
+
     /**
      * Convert a given HCat schema to a BigQuery table definition.
      *
@@ -191,13 +206,9 @@ public class HCatSchemaToBigQuerySchemaConverter {
     static public TableDefinition convertSchemaToTableDefinition(HCatSchema hcatSchema, PartitioningScheme partitioning) {
         LOG.info("Incoming HCat table schema: " + hcatSchema.getSchemaAsTypeString());
 
-        List<Field> fields = new LinkedList<>();
-        fields.add(usedFilterField);
-        fields.addAll(transformSchema(c, hcatSchema, hcatSchema).getFields());
-
         StandardTableDefinition.Builder tableDefinitionBuilder = StandardTableDefinition
                 .newBuilder()
-                .setSchema(Schema.of(fields));
+                .setSchema(convertSchemaToBigQuerySchema(hcatSchema));
 
         if (partitioning != PartitioningScheme.NONE) {
             tableDefinitionBuilder.setTimePartitioning(TimePartitioning.of(TimePartitioning.Type.DAY));
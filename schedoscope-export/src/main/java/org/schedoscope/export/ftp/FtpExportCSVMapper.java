@@ -27,6 +27,8 @@ import org.apache.hive.hcatalog.data.HCatRecord;
 import org.apache.hive.hcatalog.data.schema.HCatSchema;
 import org.apache.hive.hcatalog.mapreduce.HCatInputFormat;
 import org.schedoscope.export.BaseExportJob;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 import org.schedoscope.export.utils.HCatRecordJsonSerializer;
 import org.schedoscope.export.utils.HCatUtils;
 import org.schedoscope.export.writables.TextPairArrayWritable;
@@ -52,10 +54,13 @@ public class FtpExportCSVMapper extends Mapper<WritableComparable<?>, HCatRecord
 
     private String salt;
 
+    private ExportMetrics metrics;
+
     @Override
     protected void setup(Context context) throws IOException, InterruptedException {
 
         super.setup(context);
+        metrics = new ExportMetrics(context);
         conf = context.getConfiguration();
 
         inputSchema = HCatInputFormat.getTableSchema(conf);
@@ -71,17 +76,22 @@ public class FtpExportCSVMapper extends Mapper<WritableComparable<?>, HCatRecord
     protected void map(WritableComparable<?> key, HCatRecord value, Context context)
             throws IOException, InterruptedException {
 
+        long start = metrics.start();
+
         List<TextPairWritable> items = new ArrayList<TextPairWritable>();
 
-        for (String f : inputSchema.getFieldNames()) {
+        String[] json = serializer.getComplexFieldsAsJson(value);
 
+        for (int i = 0; i < inputSchema.size(); i++) {
+
+            String f = inputSchema.get(i).getName();
             String fieldValue = "";
 
-            Object obj = value.get(f, inputSchema);
+            Object obj = value.get(i);
             if (obj != null) {
 
-                if (inputSchema.get(f).isComplex()) {
-                    fieldValue = serializer.getFieldAsJson(value, f);
+                if (json[i] != null) {
+                    fieldValue = json[i];
                 } else {
                     fieldValue = obj.toString();
                     fieldValue = HCatUtils.getHashValueIfInList(f, fieldValue, anonFields, salt);
@@ -94,6 +104,8 @@ public class FtpExportCSVMapper extends Mapper<WritableComparable<?>, HCatRecord
 
         TextPairArrayWritable record = new TextPairArrayWritable(Iterables.toArray(items, TextPairWritable.class));
 
+        metrics.stop(ExportCounter.CONVERSION_TIME_MS, start);
+
         LongWritable localKey = new LongWritable(context.getCounter(TaskCounter.MAP_INPUT_RECORDS).getValue());
         context.write(localKey, record);
     }
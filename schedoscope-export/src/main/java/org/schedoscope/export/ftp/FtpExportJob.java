@@ -33,9 +33,11 @@ import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
 import org.schedoscope.export.BaseExportJob;
 import org.schedoscope.export.ftp.outputformat.FileOutputType;
+import org.schedoscope.export.ftp.outputformat.FtpStagingMode;
 import org.schedoscope.export.ftp.outputformat.FtpUploadOutputFormat;
 import org.schedoscope.export.ftp.upload.FileCompressionCodec;
 import org.schedoscope.export.kafka.avro.HCatToAvroSchemaConverter;
+import org.schedoscope.export.metrics.MeteredHCatInputFormat;
 import org.schedoscope.export.writables.TextPairArrayWritable;
 
 /**
@@ -75,12 +77,27 @@ public class FtpExportJob extends BaseExportJob {
     @Option(name = "-g", usage = "clean up hdfs dir after export, defaults to 'true'")
     private boolean cleanHdfsDir = true;
 
-    @Option(name = "-y", usage = "compression codec, either 'none', 'gzip' or 'bzip2', defaults to 'gzip'")
+    @Option(name = "-y", usage = "compression codec, either 'none', 'gzip', 'bzip2' or 'lz4', defaults to 'gzip'")
     private FileCompressionCodec codec = FileCompressionCodec.gzip;
 
     @Option(name = "-v", usage = "file output encoding, either 'csv' or 'json', defaults to 'csv'")
     private FileOutputType fileType = FileOutputType.csv;
 
+    @Option(name = "-N", usage = "number of concurrent part uploads per file, 1 uploads files as a whole, defaults to 1")
+    private int uploadParallelism = 1;
+
+    @Option(name = "-U", usage = "minimum size in bytes of the parts a file is split into if -N is larger than 1, defaults to 64 MB")
+    private long uploadPartSize = FtpUploadOutputFormat.DEFAULT_UPLOAD_PART_SIZE;
+
+    @Option(name = "-R", usage = "number of times a broken transfer is resumed, defaults to 3")
+    private int uploadMaxRetries = 3;
+
+    @Option(name = "-e", usage = "staging mode, either 'hdfs', 'local' (spool to local disk) or 'direct' (stream to a temporary remote file), defaults to 'hdfs'")
+    private FtpStagingMode stagingMode = FtpStagingMode.hdfs;
+
+    @Option(name = "-b", usage = "local spool dir for staging mode 'local' and as fallback for 'direct', defaults to the task's temp dir")
+    private String spoolDir;
+
     @Override
     public int run(String[] args) throws Exception {
 
@@ -118,7 +135,7 @@ public class FtpExportJob extends BaseExportJob {
      * @param passiveMode   Enable passive mode for FTP connections
      * @param userIsRoot    User dir is root for (s)ftp connections
      * @param cleanHdfsDir  Clean up HDFS temporary files (or  not)
-     * @param codec         The compression codec to use, either gzip or bzip2
+     * @param codec         The compression codec to use, either gzip, bzip2 or lz4
      * @param fileType      The output file type, either csv or json
      * @return A configured MR job object.
      * @throws Exception
@@ -130,6 +147,51 @@ public class FtpExportJob extends BaseExportJob {
                          boolean printHeader, boolean passiveMode, boolean userIsRoot,
                          boolean cleanHdfsDir, FileCompressionCodec codec, FileOutputType fileType) throws Exception {
 
+        return configure(isSecured, metaStoreUris, principal, inputDatabase, inputTable, inputFilter, numReducer,
+                anonFields, exportSalt, keyFile, ftpUser, ftpPass, ftpEndpoint, filePrefix, delimiter, printHeader,
+                passiveMode, userIsRoot, cleanHdfsDir, codec, fileType, 1, FtpUploadOutputFormat.DEFAULT_UPLOAD_PART_SIZE, 3,
+                FtpStagingMode.hdfs, null);
+    }
+
+    /**
+     * @param isSecured         A flag indicating if Kerberos is enabled.
+     * @param metaStoreUris     A string containing the Hive meta store URI
+     * @param principal         The Kerberos principal
+     * @param inputDatabase     The Hive input database
+     * @param inputTable        The Hive input table
+     * @param inputFilter       An optional input filter
+     * @param numReducer        Number of reducers / partitions
+     * @param anonFields        A list of fields to anonymize
+     * @param exportSalt        An optional salt when anonymizing fields
+     * @param keyFile           A private ssh key file
+     * @param ftpUser           The (s)ftp user
+     * @param ftpPass           The (s)ftp password or passphrase is key file is set
+     * @param ftpEndpoint       The (s)ftp endpoint.
+     * @param filePrefix        A custom file prefix for exported files
+     * @param delimiter         A custom delimiter to use
+     * @param printHeader       To print a header or not (only CSV)
+     * @param passiveMode       Enable passive mode for FTP connections
+     * @param userIsRoot        User dir is root for (s)ftp connections
+     * @param cleanHdfsDir      Clean up HDFS temporary files (or  not)
+     * @param codec             The compression codec to use, either gzip, bzip2 or lz4
+     * @param fileType          The output file type, either csv or json
+     * @param uploadParallelism The number of concurrent part uploads per file, 1 uploads files as a whole
+     * @param uploadPartSize    The minimum size of an uploaded part in bytes
+     * @param uploadMaxRetries  The number of times a broken transfer is resumed
+     * @param stagingMode       Where files are written before the transfer, either hdfs, local or direct
+     * @param spoolDir          The local spool dir (can be null)
+     * @return A configured MR job object.
+     * @throws Exception
+     */
+    public Job configure(boolean isSecured, String metaStoreUris, String principal,
+                         String inputDatabase, String inputTable, String inputFilter, int numReducer,
+                         String[] anonFields, String exportSalt, String keyFile, String ftpUser,
+                         String ftpPass, String ftpEndpoint, String filePrefix, String delimiter,
+                         boolean printHeader, boolean passiveMode, boolean userIsRoot,
+                         boolean cleanHdfsDir, FileCompressionCodec codec, FileOutputType fileType,
+                         int uploadParallelism, long uploadPartSize, int uploadMaxRetries,
+                         FtpStagingMode stagingMode, String spoolDir) throws Exception {
+
         this.isSecured = isSecured;
         this.metaStoreUris = metaStoreUris;
         this.principal = principal;
@@ -151,6 +213,11 @@ public class FtpExportJob extends BaseExportJob {
         this.cleanHdfsDir = cleanHdfsDir;
         this.codec = codec;
         this.fileType = fileType;
+        this.uploadParallelism = uploadParallelism;
+        this.uploadPartSize = uploadPartSize;
+        this.uploadMaxRetries = uploadMaxRetries;
+        this.stagingMode = stagingMode;
+        this.spoolDir = spoolDir;
 
         return configure();
     }
@@ -182,9 +249,10 @@ public class FtpExportJob extends BaseExportJob {
 
         FtpUploadOutputFormat.setOutput(job, inputTable, printHeader, delimiter,
                 fileType, codec, ftpEndpoint, ftpUser, ftpPass, keyFile,
-                filePrefix, passiveMode, userIsRoot, cleanHdfsDir);
+                filePrefix, passiveMode, userIsRoot, cleanHdfsDir, uploadParallelism,
+                uploadPartSize, uploadMaxRetries, stagingMode, spoolDir);
 
-        job.setInputFormatClass(HCatInputFormat.class);
+        job.setInputFormatClass(MeteredHCatInputFormat.class);
         job.setOutputFormatClass(FtpUploadOutputFormat.class);
         job.setOutputKeyClass(LongWritable.class);
 
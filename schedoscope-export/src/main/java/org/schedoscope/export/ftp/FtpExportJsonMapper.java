@@ -32,7 +32,8 @@ import org.schedoscope.export.BaseExportJob;
 import org.schedoscope.export.ftp.outputformat.FtpUploadOutputFormat;
 import org.schedoscope.export.kafka.avro.HCatToAvroRecordConverter;
 import org.schedoscope.export.kafka.avro.HCatToAvroSchemaConverter;
-import org.schedoscope.export.utils.HCatRecordJsonSerializer;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 
 import java.io.IOException;
 import java.util.Set;
@@ -48,12 +49,13 @@ public class FtpExportJsonMapper extends Mapper<WritableComparable<?>, HCatRecor
 
     private HCatToAvroRecordConverter converter;
 
-    private Schema avroSchema;
+    private ExportMetrics metrics;
 
     @Override
     protected void setup(Context context) throws IOException, InterruptedException {
 
         super.setup(context);
+        metrics = new ExportMetrics(context);
         Configuration conf = context.getConfiguration();
         hcatSchema = HCatInputFormat.getTableSchema(conf);
 
@@ -63,20 +65,23 @@ public class FtpExportJsonMapper extends Mapper<WritableComparable<?>, HCatRecor
 
         String salt = conf.get(BaseExportJob.EXPORT_ANON_SALT, "");
 
-        HCatRecordJsonSerializer serializer = new HCatRecordJsonSerializer(conf, hcatSchema);
-
-        converter = new HCatToAvroRecordConverter(serializer, anonFields, salt);
-
         HCatToAvroSchemaConverter schemaConverter = new HCatToAvroSchemaConverter(anonFields);
-        avroSchema = schemaConverter.convertSchema(hcatSchema, tableName);
+        Schema avroSchema = schemaConverter.convertSchema(hcatSchema, tableName);
+
+        // the map output is serialized on write if there is a reduce phase
+        converter = new HCatToAvroRecordConverter(hcatSchema, avroSchema, anonFields, salt,
+                context.getNumReduceTasks() > 0);
     }
 
     @Override
     protected void map(WritableComparable<?> key, HCatRecord value, Context context) throws IOException, InterruptedException {
 
-        GenericRecord record = converter.convert(value, avroSchema);
+        long start = metrics.start();
+        GenericRecord record = converter.convert(value);
         AvroValue<GenericRecord> recordWrapper = new AvroValue<GenericRecord>(record);
 
+        metrics.stop(ExportCounter.CONVERSION_TIME_MS, start);
+
         LongWritable localKey = new LongWritable(context.getCounter(TaskCounter.MAP_INPUT_RECORDS).getValue());
         context.write(localKey, recordWrapper);
     }
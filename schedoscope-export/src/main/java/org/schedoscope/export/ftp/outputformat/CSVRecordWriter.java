@@ -16,12 +16,14 @@
 
 package org.schedoscope.export.ftp.outputformat;
 
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.csv.QuoteMode;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 import org.schedoscope.export.writables.TextPairArrayWritable;
+import org.schedoscope.export.writables.TextPairWritable;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -29,49 +31,129 @@ import java.nio.charset.StandardCharsets;
 
 /**
  * The CSV Record Writer is used to write the records as a CSV file.
+ * <p>
+ * The output is the same as the one of commons-csv with the default format,
+ * all values quoted and trimmed: every value is enclosed in double quotes,
+ * double quotes within a value are doubled and the records are separated by
+ * CRLF. The value bytes are copied from the {@link Text} into a reused
+ * buffer and quoted in place, without decoding them into strings.
  */
 public class CSVRecordWriter<K, V> extends RecordWriter<K, V> {
 
+    private static final byte QUOTE = '"';
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final byte[] RECORD_SEPARATOR = {'\r', '\n'};
+
     private DataOutputStream out;
 
-    private CSVPrinter csvPrinter;
+    private byte[] delimiter;
 
-    private CSVFormat csvFormat;
+    private RecordBuffer buffer;
 
-    private StringBuilder buffer;
+    private ExportMetrics metrics;
 
     /**
      * The constructor to initialize the CSV Record Writer.
      *
      * @param out       A data output stream.
-     * @param header    A flag to print a header or not.
+     * @param header    The header columns, null to print no header.
      * @param delimiter The delimiter to use.
      * @throws IOException Is thrown if an error occurs.
      */
     public CSVRecordWriter(DataOutputStream out, String[] header, char delimiter) throws IOException {
 
+        this(out, header, delimiter, new ExportMetrics(null));
+    }
+
+    /**
+     * The constructor to initialize the CSV Record Writer recording the
+     * export metrics.
+     *
+     * @param out       A data output stream.
+     * @param header    The header columns, null to print no header.
+     * @param delimiter The delimiter to use.
+     * @param metrics   The export metrics of the task.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    public CSVRecordWriter(DataOutputStream out, String[] header, char delimiter, ExportMetrics metrics)
+            throws IOException {
+
         this.out = out;
-        csvFormat = CSVFormat.DEFAULT
-                .withTrim(true)
-                .withQuoteMode(QuoteMode.ALL)
-                .withHeader(header)
-                .withDelimiter(delimiter);
-
-        buffer = new StringBuilder();
-        csvPrinter = csvFormat.print(buffer);
+        this.metrics = metrics;
+        this.delimiter = String.valueOf(delimiter).getBytes(StandardCharsets.UTF_8);
+
+        // the header stays in the buffer and is written with the first record
+        buffer = new RecordBuffer();
+        if (header != null) {
+            for (int i = 0; i < header.length; i++) {
+                if (i > 0) {
+                    buffer.append(this.delimiter);
+                }
+                byte[] column = header[i].getBytes(StandardCharsets.UTF_8);
+                appendValue(column, column.length);
+            }
+            buffer.append(RECORD_SEPARATOR);
+        }
     }
 
     @Override
     public void write(K key, V value) throws IOException {
 
-        csvPrinter.printRecord(((TextPairArrayWritable) value).getSecondAsList());
-        out.write(buffer.toString().getBytes(StandardCharsets.UTF_8));
-        buffer.setLength(0);
+        long start = metrics.start();
+        Writable[] values = ((TextPairArrayWritable) value).get();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append(delimiter);
+            }
+            Text text = ((TextPairWritable) values[i]).getSecond();
+            if (text == null) {
+                appendValue(EMPTY, 0);
+            } else {
+                appendValue(text.getBytes(), text.getLength());
+            }
+        }
+        buffer.append(RECORD_SEPARATOR);
+        long encoded = metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+
+        buffer.writeTo(out);
+        metrics.stop(ExportCounter.WRITE_TIME_MS, encoded);
+        metrics.addRows(1);
+        metrics.addBytes(buffer.length());
+        buffer.reset();
+    }
+
+    private void appendValue(byte[] bytes, int length) {
+
+        int start = 0;
+        int end = length;
+
+        // trim like String.trim(), UTF-8 multi-byte sequences never contain bytes <= 0x20
+        while (start < end && (bytes[start] & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (bytes[end - 1] & 0xff) <= ' ') {
+            end--;
+        }
+
+        buffer.append(QUOTE);
+        int run = start;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == QUOTE) {
+                buffer.append(bytes, run, i + 1 - run);
+                run = i;
+            }
+        }
+        buffer.append(bytes, run, end - run);
+        buffer.append(QUOTE);
     }
 
     @Override
     public void close(TaskAttemptContext context) throws IOException {
 
+        long start = metrics.start();
         out.close();
+        metrics.stop(ExportCounter.WRITE_TIME_MS, start);
     }
-}
\ No newline at end of file
+}
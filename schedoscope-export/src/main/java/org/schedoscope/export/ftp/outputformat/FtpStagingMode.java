@@ -0,0 +1,43 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.outputformat;
+
+/**
+ * An enum representing where the exported files are written before they are
+ * transferred (hdfs / local / direct). With direct, files are streamed to
+ * a temporary file on the (s)ftp server and only renamed on commit.
+ */
+public enum FtpStagingMode {
+    hdfs {
+        @Override
+        public String toString() {
+            return "hdfs";
+        }
+    },
+    local {
+        @Override
+        public String toString() {
+            return "local";
+        }
+    },
+    direct {
+        @Override
+        public String toString() {
+            return "direct";
+        }
+    }
+}
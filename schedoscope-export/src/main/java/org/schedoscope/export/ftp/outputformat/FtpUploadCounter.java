@@ -0,0 +1,26 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.outputformat;
+
+/**
+ * Counts the files, parts, bytes and retries of the (s)ftp uploads. The
+ * upload time is summed up in milliseconds, divided into the bytes it gives
+ * the average throughput.
+ */
+public enum FtpUploadCounter {
+    FILES, PARTS, BYTES_UPLOADED, UPLOAD_TIME_MS, RETRIES, CONNECTIONS_OPENED
+}
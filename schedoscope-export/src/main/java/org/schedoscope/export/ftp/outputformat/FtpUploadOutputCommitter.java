@@ -16,50 +16,53 @@
 
 package org.schedoscope.export.ftp.outputformat;
 
-import com.google.common.io.Files;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.MRJobConfig;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
-import org.schedoscope.export.ftp.upload.Uploader;
+import org.schedoscope.export.ftp.upload.ParallelUploader;
+import org.schedoscope.export.ftp.upload.RemoteConnection;
+import org.schedoscope.export.ftp.upload.RemoteConnectionPool;
+import org.schedoscope.export.ftp.upload.RemoteEndpoint;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
 
 /**
  * A custom file output committer that transfers file to a (s)ftp
- * remote location.
+ * remote location. The connections are taken from a pool shared by all
+ * tasks in the same JVM. Files streamed to the server in direct mode are
+ * only renamed to their final name.
  */
 public class FtpUploadOutputCommitter extends FileOutputCommitter {
 
-    private static final String TMP_FILE_PREFIX = "private_key_";
+    private static final Log LOG = LogFactory.getLog(FtpUploadOutputCommitter.class);
 
-    private static final String TMP_FILE_SUFFIX = ".rsa";
+    public static final String FTP_EXPORT_FILE_COUNTER_GROUP = "FTP export files";
 
-    private Uploader uploader;
+    // per file counters are skipped for many files to stay below the job's counter limit
+    private static final int MAX_FILE_COUNTERS = 20;
 
     private Path outputPath;
 
-    private String endpoint;
+    private RemoteEndpoint endpoint;
 
-    private String filePrefix;
+    private FtpStagingMode stagingMode;
 
-    private String user;
+    private int numFiles;
 
-    private String pass;
+    private int uploadParallelism;
 
-    private String keyContent;
+    private long uploadPartSize;
 
-    private int numReducer;
-
-    private boolean passiveMode;
-
-    private boolean userIsRoot;
+    private int uploadMaxRetries;
 
     private boolean cleanHdfsDir;
 
@@ -77,53 +80,162 @@ public class FtpUploadOutputCommitter extends FileOutputCommitter {
         Configuration conf = context.getConfiguration();
 
         this.outputPath = outputPath;
-        this.endpoint = conf.get(FtpUploadOutputFormat.FTP_EXPORT_ENDPOINT);
-        this.filePrefix = conf.get(FtpUploadOutputFormat.FTP_EXPORT_FILE_PREFIX);
-
-        this.user = conf.get(FtpUploadOutputFormat.FTP_EXPORT_USER);
-        this.pass = conf.get(FtpUploadOutputFormat.FTP_EXPORT_PASS);
-        this.keyContent = conf.get(FtpUploadOutputFormat.FTP_EXPORT_KEY_FILE_CONTENT);
-        this.passiveMode = conf.getBoolean(FtpUploadOutputFormat.FTP_EXPORT_PASSIVE_MODE, true);
-        this.userIsRoot = conf.getBoolean(FtpUploadOutputFormat.FTP_EXPORT_USER_IS_ROOT, true);
+        this.endpoint = FtpUploadOutputFormat.getRemoteEndpoint(conf);
+        this.stagingMode = FtpUploadOutputFormat.getStagingMode(conf);
+        this.uploadParallelism = conf.getInt(FtpUploadOutputFormat.FTP_EXPORT_UPLOAD_PARALLELISM, 1);
+        this.uploadPartSize = conf.getLong(FtpUploadOutputFormat.FTP_EXPORT_UPLOAD_PART_SIZE,
+                FtpUploadOutputFormat.DEFAULT_UPLOAD_PART_SIZE);
+        this.uploadMaxRetries = conf.getInt(FtpUploadOutputFormat.FTP_EXPORT_UPLOAD_MAX_RETRIES, 3);
         this.cleanHdfsDir = conf.getBoolean(FtpUploadOutputFormat.FTP_EXPORT_CLEAN_HDFS_DIR, true);
-        this.numReducer = context.getNumReduceTasks();
+        this.numFiles = getNumberOfFiles(context);
+    }
+
+    @Override
+    public void commitTask(TaskAttemptContext context) throws IOException {
+
+        ExportMetrics metrics = new ExportMetrics(context);
+        long start = metrics.start();
+
+        if (stagingMode == FtpStagingMode.hdfs) {
+            super.commitTask(context);
+        }
+
+        String remoteName = FtpUploadOutputFormat.getRemoteFileName(context);
+        File spoolFile = FtpUploadOutputFormat.getSpoolFile(context);
 
         try {
+            if (stagingMode == FtpStagingMode.hdfs) {
 
-            String protocol = new URI(endpoint).getScheme();
+                Path src = new Path(outputPath, FtpUploadOutputFormat.getOutputName(context));
+                upload(context, metrics, src.getFileSystem(context.getConfiguration()), src, remoteName);
 
-            if (!protocol.equals("ftp") && !protocol.equals("sftp")) {
-                throw new IllegalArgumentException("protocol not supported, must be either 'ftp' or 'sftp'");
-            }
+            } else if (spoolFile.exists()) {
+
+                upload(context, metrics, FileSystem.getLocal(context.getConfiguration()),
+                        new Path(spoolFile.getAbsolutePath()), remoteName);
+                deleteSpoolFile(spoolFile);
 
-        } catch (URISyntaxException e) {
-            throw new IllegalArgumentException(e);
+            } else {
+                commitStreamedFile(context, remoteName);
+            }
+        } catch (IOException e) {
+            metrics.addError(e);
+            throw e;
+        } finally {
+            metrics.stop(ExportCounter.COMMIT_TIME_MS, start);
         }
     }
 
     @Override
-    public void commitTask(TaskAttemptContext context) throws IOException {
+    public boolean needsTaskCommit(TaskAttemptContext context) throws IOException {
+
+        // nothing is written to the task's hdfs dir in local and direct mode
+        return stagingMode != FtpStagingMode.hdfs || super.needsTaskCommit(context);
+    }
 
-        super.commitTask(context);
+    @Override
+    public void abortTask(TaskAttemptContext context) throws IOException {
 
-        String fileName = FtpUploadOutputFormat.getOutputName(context);
-        String remote = endpoint + "/" + filePrefix + context.getTaskAttemptID().getTaskID().getId() + "-" + numReducer + FtpUploadOutputFormat.getOutputNameExtension();
+        super.abortTask(context);
 
-        Configuration conf = context.getConfiguration();
+        if (stagingMode != FtpStagingMode.hdfs) {
 
-        if (keyContent != null && !keyContent.isEmpty()) {
+            deleteSpoolFile(FtpUploadOutputFormat.getSpoolFile(context));
 
-            File keyFile = File.createTempFile(TMP_FILE_PREFIX, TMP_FILE_SUFFIX);
-            keyFile.deleteOnExit();
-            Files.write(keyContent.getBytes(StandardCharsets.US_ASCII), keyFile);
+            if (stagingMode == FtpStagingMode.direct) {
+                RemoteConnectionPool pool = RemoteConnectionPool.forEndpoint(endpoint);
+                RemoteConnection connection = null;
+                try {
+                    connection = pool.borrow();
+                    connection.delete(endpoint.resolve(FtpUploadOutputFormat.getRemoteTmpFileName(context)));
+                    pool.release(connection);
+                } catch (IOException e) {
+                    pool.invalidate(connection);
+                    LOG.warn("could not delete temporary remote file", e);
+                }
+            }
+        }
+    }
 
-            uploader = new Uploader(user, new File(keyFile.getCanonicalPath()), pass, conf, passiveMode, userIsRoot);
-        } else {
-            uploader = new Uploader(user, pass, conf, passiveMode, userIsRoot);
+    private void commitStreamedFile(TaskAttemptContext context, String remoteName) throws IOException {
+
+        String tmpFile = endpoint.resolve(FtpUploadOutputFormat.getRemoteTmpFileName(context));
+        RemoteConnectionPool pool = RemoteConnectionPool.forEndpoint(endpoint);
+        RemoteConnection connection = pool.borrow();
+        long bytes;
+
+        try {
+            bytes = connection.getSize(tmpFile);
+            if (bytes < 0) {
+                throw new IOException("streamed file " + tmpFile + " not found");
+            }
+            connection.rename(tmpFile, endpoint.resolve(remoteName));
+        } catch (IOException e) {
+            pool.invalidate(connection);
+            throw e;
+        }
+        pool.release(connection);
+
+        LOG.info("committed streamed file " + remoteName + " to " + endpoint + ": " + bytes + " bytes");
+
+        context.getCounter(FtpUploadCounter.FILES).increment(1);
+        context.getCounter(FtpUploadCounter.BYTES_UPLOADED).increment(bytes);
+        if (numFiles <= MAX_FILE_COUNTERS) {
+            context.getCounter(FTP_EXPORT_FILE_COUNTER_GROUP, remoteName + " bytes").increment(bytes);
+        }
+    }
+
+    private void deleteSpoolFile(File spoolFile) {
+
+        if (spoolFile.exists() && !spoolFile.delete()) {
+            LOG.warn("could not delete spool file " + spoolFile);
+        }
+    }
+
+    private void upload(TaskAttemptContext context, ExportMetrics metrics, FileSystem fs, Path src, String remoteName)
+            throws IOException {
+
+        long bytes = fs.getFileStatus(src).getLen();
+
+        RemoteConnectionPool pool = RemoteConnectionPool.forEndpoint(endpoint);
+        ParallelUploader uploader = new ParallelUploader(pool, uploadParallelism, uploadPartSize, uploadMaxRetries);
+        int connections = pool.getConnectionsCreated();
+
+        long start = System.currentTimeMillis();
+        int parts = uploader.upload(fs, src, endpoint.resolve(remoteName), context);
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+
+        LOG.info(String.format("uploaded %s to %s: %d bytes in %d part(s), %d ms, %.1f KB/s",
+                src, endpoint, bytes, parts, millis, bytes * 1000.0 / 1024 / millis));
+
+        context.getCounter(FtpUploadCounter.FILES).increment(1);
+        context.getCounter(FtpUploadCounter.PARTS).increment(parts);
+        context.getCounter(FtpUploadCounter.BYTES_UPLOADED).increment(bytes);
+        context.getCounter(FtpUploadCounter.UPLOAD_TIME_MS).increment(millis);
+        context.getCounter(FtpUploadCounter.RETRIES).increment(uploader.getRetries());
+        metrics.addRetries(uploader.getRetries());
+        context.getCounter(FtpUploadCounter.CONNECTIONS_OPENED).increment(pool.getConnectionsCreated() - connections);
+
+        if (numFiles <= MAX_FILE_COUNTERS) {
+            context.getCounter(FTP_EXPORT_FILE_COUNTER_GROUP, remoteName + " bytes").increment(bytes);
+            context.getCounter(FTP_EXPORT_FILE_COUNTER_GROUP, remoteName + " KB/s").increment(bytes * 1000 / 1024 / millis);
+        }
+    }
+
+    /**
+     * The number of files the job uploads, one per reducer or, for map-only
+     * jobs, one per mapper.
+     *
+     * @param context The job context.
+     * @return The number of files, Integer.MAX_VALUE if it is unknown.
+     */
+    static int getNumberOfFiles(JobContext context) {
 
+        int numReducer = context.getNumReduceTasks();
+        if (numReducer > 0) {
+            return numReducer;
         }
-        uploader.uploadFile(new Path(outputPath, fileName).toString(), remote);
-        uploader.closeFilesystem();
+        return context.getConfiguration().getInt(MRJobConfig.NUM_MAPS, Integer.MAX_VALUE);
     }
 
     @Override
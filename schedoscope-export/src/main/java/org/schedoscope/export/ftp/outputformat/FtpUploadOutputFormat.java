@@ -21,7 +21,6 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.compress.BZip2Codec;
@@ -41,16 +40,29 @@ import org.joda.time.DateTimeZone;
 import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
 import org.schedoscope.export.ftp.upload.FileCompressionCodec;
+import org.schedoscope.export.ftp.upload.ParallelUploader;
+import org.schedoscope.export.ftp.upload.RemoteConnection;
+import org.schedoscope.export.ftp.upload.RemoteConnectionPool;
+import org.schedoscope.export.ftp.upload.RemoteEndpoint;
+import org.schedoscope.export.metrics.ExportMetrics;
 
+import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
 /**
  * The FtpUpload output format is responsible to set up the record writers and
- * (s)ftp connection settings.
+ * (s)ftp connection settings. Depending on the staging mode, the record
+ * writers write to HDFS, to a local spool file or directly to a temporary
+ * file on the (s)ftp server. If the remote file can't be opened in direct
+ * mode, the task falls back to a local spool file.
  */
 public class FtpUploadOutputFormat<K, V> extends FileOutputFormat<K, V> {
 
@@ -78,6 +90,20 @@ public class FtpUploadOutputFormat<K, V> extends FileOutputFormat<K, V> {
 
     public static final String FTP_EXPORT_CVS_DELIMITER = "ftp.export.csv.delimmiter";
 
+    public static final String FTP_EXPORT_UPLOAD_PARALLELISM = "ftp.export.upload.parallelism";
+
+    public static final String FTP_EXPORT_UPLOAD_PART_SIZE = "ftp.export.upload.part.size";
+
+    public static final String FTP_EXPORT_UPLOAD_MAX_RETRIES = "ftp.export.upload.max.retries";
+
+    public static final long DEFAULT_UPLOAD_PART_SIZE = 64L * 1024 * 1024;
+
+    public static final String FTP_EXPORT_STAGING_MODE = "ftp.export.staging.mode";
+
+    public static final String FTP_EXPORT_SPOOL_DIR = "ftp.export.spool.dir";
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     private static final String FTP_EXPORT_HEADER_COLUMNS = "ftp.export.header.columns";
 
     private static final String FTP_EXPORT_FILE_TYPE = "ftp.export.file.type";
@@ -93,44 +119,45 @@ public class FtpUploadOutputFormat<K, V> extends FileOutputFormat<K, V> {
 
         boolean isCompressed = getCompressOutput(context);
         CompressionCodec codec = null;
+        extension = "";
 
         if (isCompressed) {
             Class<? extends CompressionCodec> codecClass = getOutputCompressorClass(context, GzipCodec.class);
 
-            // only support gzip and bzip2 compression
-            if (codecClass.equals(BZip2Codec.class) || codecClass.equals(GzipCodec.class)) {
+            // only support gzip, bzip2 and lz4 compression
+            if (codecClass.equals(BZip2Codec.class) || codecClass.equals(GzipCodec.class)
+                    || codecClass.equals(Lz4FrameCodec.class)) {
                 codec = ReflectionUtils.newInstance(codecClass, conf);
                 extension = codec.getDefaultExtension();
             } else {
-                LOG.warn("neither gzip nor bzip2 compression codec found - disabling compression");
+                LOG.warn("no supported compression codec found - disabling compression");
                 isCompressed = false;
-                extension = "";
             }
         }
 
         char delimiter = conf.get(FTP_EXPORT_CVS_DELIMITER, "\t").charAt(0);
         String[] header = conf.getStrings(FTP_EXPORT_HEADER_COLUMNS);
 
-        Path file = getDefaultWorkFile(context, extension);
-        FileSystem fs = file.getFileSystem(conf);
-        FSDataOutputStream fileOut = fs.create(file, false);
+        DataOutputStream fileOut = new DataOutputStream(openOutputStream(context));
 
+        ExportMetrics metrics = new ExportMetrics(context);
         RecordWriter<K, V> writer;
 
         if (conf.get(FTP_EXPORT_FILE_TYPE).equals(FileOutputType.csv.toString())) {
 
             if (!isCompressed) {
-                writer = new CSVRecordWriter<K, V>(fileOut, header, delimiter);
+                writer = new CSVRecordWriter<K, V>(fileOut, header, delimiter, metrics);
             } else {
-                writer = new CSVRecordWriter<K, V>(new DataOutputStream(codec.createOutputStream(fileOut)), header, delimiter);
+                writer = new CSVRecordWriter<K, V>(new DataOutputStream(codec.createOutputStream(fileOut)), header,
+                        delimiter, metrics);
             }
 
         } else if (conf.get(FTP_EXPORT_FILE_TYPE).equals(FileOutputType.json.toString())) {
 
             if (!isCompressed) {
-                writer = new JsonRecordWriter<K, V>(fileOut);
+                writer = new JsonRecordWriter<K, V>(fileOut, metrics);
             } else {
-                writer = new JsonRecordWriter<K, V>(new DataOutputStream(codec.createOutputStream(fileOut)));
+                writer = new JsonRecordWriter<K, V>(new DataOutputStream(codec.createOutputStream(fileOut)), metrics);
             }
 
         } else {
@@ -140,6 +167,73 @@ public class FtpUploadOutputFormat<K, V> extends FileOutputFormat<K, V> {
         return writer;
     }
 
+    private OutputStream openOutputStream(TaskAttemptContext context) throws IOException {
+
+        FtpStagingMode stagingMode = getStagingMode(context.getConfiguration());
+
+        if (stagingMode == FtpStagingMode.direct) {
+            try {
+                return openRemoteStream(context);
+            } catch (IOException e) {
+                LOG.warn("could not open remote file, spooling to local disk instead", e);
+                return openSpoolStream(context);
+            }
+        } else if (stagingMode == FtpStagingMode.local) {
+            return openSpoolStream(context);
+        }
+
+        Path file = getDefaultWorkFile(context, extension);
+        FileSystem fs = file.getFileSystem(context.getConfiguration());
+        return fs.create(file, false);
+    }
+
+    private OutputStream openRemoteStream(TaskAttemptContext context) throws IOException {
+
+        RemoteEndpoint endpoint = getRemoteEndpoint(context.getConfiguration());
+        final RemoteConnectionPool pool = RemoteConnectionPool.forEndpoint(endpoint);
+        final RemoteConnection connection = pool.borrow();
+        final OutputStream out;
+
+        try {
+            if (!endpoint.getDirectory().isEmpty()) {
+                connection.makeDirectories(endpoint.getDirectory());
+            }
+            out = connection.openOutputStream(endpoint.resolve(getRemoteTmpFileName(context)), false);
+        } catch (IOException e) {
+            pool.invalidate(connection);
+            throw e;
+        }
+
+        // the connection is held until the record writer is closed
+        return new BufferedOutputStream(new FilterOutputStream(out) {
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } catch (IOException e) {
+                    pool.invalidate(connection);
+                    throw e;
+                }
+                pool.release(connection);
+            }
+        }, STREAM_BUFFER_SIZE);
+    }
+
+    private OutputStream openSpoolStream(TaskAttemptContext context) throws IOException {
+
+        File spoolFile = getSpoolFile(context);
+        if (!spoolFile.getParentFile().isDirectory() && !spoolFile.getParentFile().mkdirs()) {
+            throw new IOException("could not create spool dir " + spoolFile.getParent());
+        }
+        return new BufferedOutputStream(new FileOutputStream(spoolFile), STREAM_BUFFER_SIZE);
+    }
+
     /**
      * A method to configure the output format.
      *
@@ -148,7 +242,7 @@ public class FtpUploadOutputFormat<K, V> extends FileOutputFormat<K, V> {
      * @param printHeader  A flag indicating to print a csv header or not.
      * @param delimiter    The delimiter to use for separating the records (CSV)
      * @param fileType     The file type (csv / json)
-     * @param codec        The compresson codec (none / gzip / bzip2)
+     * @param codec        The compresson codec (none / gzip / bzip2 / lz4)
      * @param ftpEndpoint  The (s)ftp endpoint.
      * @param ftpUser      The (s)ftp user
      * @param ftpPass      The (s)ftp password or sftp passphrase
@@ -163,6 +257,41 @@ public class FtpUploadOutputFormat<K, V> extends FileOutputFormat<K, V> {
                                  FileCompressionCodec codec, String ftpEndpoint, String ftpUser, String ftpPass, String keyFile, String filePrefix,
                                  boolean passiveMode, boolean userIsRoot, boolean cleanHdfsDir) throws Exception {
 
+        setOutput(job, tableName, printHeader, delimiter, fileType, codec, ftpEndpoint, ftpUser, ftpPass, keyFile,
+                filePrefix, passiveMode, userIsRoot, cleanHdfsDir, 1, DEFAULT_UPLOAD_PART_SIZE, 3, FtpStagingMode.hdfs,
+                null);
+    }
+
+    /**
+     * A method to configure the output format, including the upload settings.
+     *
+     * @param job               The job object.
+     * @param tableName         The Hive input table name
+     * @param printHeader       A flag indicating to print a csv header or not.
+     * @param delimiter         The delimiter to use for separating the records (CSV)
+     * @param fileType          The file type (csv / json)
+     * @param codec             The compresson codec (none / gzip / bzip2 / lz4)
+     * @param ftpEndpoint       The (s)ftp endpoint.
+     * @param ftpUser           The (s)ftp user
+     * @param ftpPass           The (s)ftp password or sftp passphrase
+     * @param keyFile           The private ssh key file
+     * @param filePrefix        An optional file prefix
+     * @param passiveMode       Passive mode or not (only ftp)
+     * @param userIsRoot        User dir is root or not
+     * @param cleanHdfsDir      Clean up HDFS temporary files.
+     * @param uploadParallelism The number of concurrent part uploads per file, 1 uploads files as a whole.
+     * @param uploadPartSize    The minimum size of an uploaded part in bytes.
+     * @param uploadMaxRetries  The number of times a broken transfer is resumed.
+     * @param stagingMode       Where files are written before the transfer (hdfs / local / direct)
+     * @param spoolDir          The local spool dir, defaults to the task's temp dir (can be null)
+     * @throws Exception Is thrown if an error occurs.
+     */
+    public static void setOutput(Job job, String tableName, boolean printHeader, String delimiter, FileOutputType fileType,
+                                 FileCompressionCodec codec, String ftpEndpoint, String ftpUser, String ftpPass, String keyFile, String filePrefix,
+                                 boolean passiveMode, boolean userIsRoot, boolean cleanHdfsDir, int uploadParallelism,
+                                 long uploadPartSize, int uploadMaxRetries, FtpStagingMode stagingMode,
+                                 String spoolDir) throws Exception {
+
         Configuration conf = job.getConfiguration();
         String tmpDir = conf.get("hadoop.tmp.dir");
         String localTmpDir = RandomStringUtils.randomNumeric(10);
@@ -188,7 +317,6 @@ public class FtpUploadOutputFormat<K, V> extends FileOutputFormat<K, V> {
 
         if (keyFile != null && Files.exists(Paths.get(keyFile))) {
 
-            // Uploader.checkPrivateKey(keyFile);
             String privateKey = new String(Files.readAllBytes(Paths.get(keyFile)), StandardCharsets.US_ASCII);
             conf.set(FTP_EXPORT_KEY_FILE_CONTENT, privateKey);
         }
@@ -196,6 +324,14 @@ public class FtpUploadOutputFormat<K, V> extends FileOutputFormat<K, V> {
         conf.setBoolean(FTP_EXPORT_PASSIVE_MODE, passiveMode);
         conf.setBoolean(FTP_EXPORT_USER_IS_ROOT, userIsRoot);
         conf.setBoolean(FTP_EXPORT_CLEAN_HDFS_DIR, cleanHdfsDir);
+        conf.setInt(FTP_EXPORT_UPLOAD_PARALLELISM, uploadParallelism);
+        conf.setLong(FTP_EXPORT_UPLOAD_PART_SIZE, uploadPartSize);
+        conf.setInt(FTP_EXPORT_UPLOAD_MAX_RETRIES, uploadMaxRetries);
+        conf.set(FTP_EXPORT_STAGING_MODE, stagingMode.toString());
+
+        if (spoolDir != null) {
+            conf.set(FTP_EXPORT_SPOOL_DIR, spoolDir);
+        }
 
         DateTimeFormatter fmt = ISODateTimeFormat.basicDateTimeNoMillis();
         String timestamp = fmt.print(DateTime.now(DateTimeZone.UTC));
@@ -207,13 +343,30 @@ public class FtpUploadOutputFormat<K, V> extends FileOutputFormat<K, V> {
 
         conf.set(FTP_EXPORT_FILE_TYPE, fileType.toString());
 
+        Class<? extends CompressionCodec> codecClass = getCompressionCodec(codec);
+        if (codecClass != null) {
+            setOutputCompressorClass(job, codecClass);
+        } else {
+            extension = "";
+        }
+    }
+
+    /**
+     * Returns the Hadoop compression codec of the given file compression.
+     *
+     * @param codec The file compression codec (none / gzip / bzip2 / lz4)
+     * @return The codec class, null if the files are not compressed.
+     */
+    static Class<? extends CompressionCodec> getCompressionCodec(FileCompressionCodec codec) {
+
         if (codec.equals(FileCompressionCodec.gzip)) {
-            setOutputCompressorClass(job, GzipCodec.class);
+            return GzipCodec.class;
         } else if (codec.equals(FileCompressionCodec.bzip2)) {
-            setOutputCompressorClass(job, BZip2Codec.class);
-        } else if (codec.equals(FileCompressionCodec.none)) {
-            extension = "";
+            return BZip2Codec.class;
+        } else if (codec.equals(FileCompressionCodec.lz4)) {
+            return Lz4FrameCodec.class;
         }
+        return null;
     }
 
     private static String[] setCSVHeader(Configuration conf) throws IOException {
@@ -222,6 +375,66 @@ public class FtpUploadOutputFormat<K, V> extends FileOutputFormat<K, V> {
         return Iterables.toArray(schema.getFieldNames(), String.class);
     }
 
+    /**
+     * A method to create the (s)ftp endpoint from the configuration.
+     *
+     * @param conf The Hadoop configuration.
+     * @return The endpoint including its credentials.
+     */
+    public static RemoteEndpoint getRemoteEndpoint(Configuration conf) {
+
+        return new RemoteEndpoint(conf.get(FTP_EXPORT_ENDPOINT), conf.get(FTP_EXPORT_USER),
+                conf.get(FTP_EXPORT_PASS), conf.get(FTP_EXPORT_KEY_FILE_CONTENT),
+                conf.getBoolean(FTP_EXPORT_PASSIVE_MODE, true), conf.getBoolean(FTP_EXPORT_USER_IS_ROOT, true));
+    }
+
+    /**
+     * A method to return the staging mode.
+     *
+     * @param conf The Hadoop configuration.
+     * @return The staging mode, defaults to hdfs.
+     */
+    public static FtpStagingMode getStagingMode(Configuration conf) {
+
+        return FtpStagingMode.valueOf(conf.get(FTP_EXPORT_STAGING_MODE, FtpStagingMode.hdfs.toString()));
+    }
+
+    /**
+     * A method to provide the name of the file on the (s)ftp server.
+     *
+     * @param context The TaskAttemptContext.
+     * @return The remote file name, e.g. prefix-20160101T000000Z-0-2.gz
+     */
+    public static String getRemoteFileName(TaskAttemptContext context) {
+
+        return context.getConfiguration().get(FTP_EXPORT_FILE_PREFIX) + context.getTaskAttemptID().getTaskID().getId()
+                + "-" + context.getNumReduceTasks() + extension;
+    }
+
+    /**
+     * A method to provide the name of the temporary remote file a task
+     * attempt streams to in direct mode.
+     *
+     * @param context The TaskAttemptContext.
+     * @return The temporary remote file name.
+     */
+    public static String getRemoteTmpFileName(TaskAttemptContext context) {
+
+        return getRemoteFileName(context) + "." + context.getTaskAttemptID() + ParallelUploader.TMP_SUFFIX;
+    }
+
+    /**
+     * A method to provide the local spool file of a task attempt.
+     *
+     * @param context The TaskAttemptContext.
+     * @return The spool file.
+     */
+    public static File getSpoolFile(TaskAttemptContext context) {
+
+        String spoolDir = context.getConfiguration().get(FTP_EXPORT_SPOOL_DIR, System.getProperty("java.io.tmpdir"));
+        return new File(spoolDir, context.getTaskAttemptID() + "-" + getRemoteFileName(context));
+    }
+
     /**
      * A method to provide the fully qualified file path of the current file.
      *
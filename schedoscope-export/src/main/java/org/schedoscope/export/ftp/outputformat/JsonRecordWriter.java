@@ -16,25 +16,52 @@
 
 package org.schedoscope.export.ftp.outputformat;
 
-/**
- * The Json Record Writer is used to write the records as JSON to a file.
- */
-
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericEnumSymbol;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.IndexedRecord;
 import org.apache.avro.mapred.AvroValue;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * The Json Record Writer is used to write the records as JSON to a file.
+ * <p>
+ * The output is the same as the one of {@link GenericRecord#toString()}, one
+ * record per line. The records are encoded into a reused buffer as UTF-8
+ * directly instead of building a string per record first.
+ */
 public class JsonRecordWriter<K, V> extends RecordWriter<K, V> {
 
-    private static final String NEWLINE = "\n";
+    private static final byte NEWLINE = '\n';
+
+    private static final byte[] FIELD_SEPARATOR = ": ".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] VALUE_SEPARATOR = ", ".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] BYTES_START = "{\"bytes\": \"".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] BYTES_END = "\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.UTF_8);
 
     private DataOutputStream out;
 
+    private RecordBuffer buffer;
+
+    private ExportMetrics metrics;
+
     /**
      * The constructor to initialize the Json Record Writer.
      *
@@ -42,21 +69,161 @@ public class JsonRecordWriter<K, V> extends RecordWriter<K, V> {
      */
     public JsonRecordWriter(DataOutputStream out) {
 
+        this(out, new ExportMetrics(null));
+    }
+
+    /**
+     * The constructor to initialize the Json Record Writer recording the
+     * export metrics.
+     *
+     * @param out     A data output stream.
+     * @param metrics The export metrics of the task.
+     */
+    public JsonRecordWriter(DataOutputStream out, ExportMetrics metrics) {
+
         this.out = out;
+        this.metrics = metrics;
+        this.buffer = new RecordBuffer();
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public void write(K key, V value) throws IOException {
 
+        long start = metrics.start();
         AvroValue<GenericRecord> avroValue = (AvroValue<GenericRecord>) value;
-        out.write(avroValue.datum().toString().getBytes(StandardCharsets.UTF_8));
-        out.write(NEWLINE.getBytes(StandardCharsets.UTF_8));
+        appendDatum(avroValue.datum());
+        buffer.append(NEWLINE);
+        long encoded = metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+
+        buffer.writeTo(out);
+        metrics.stop(ExportCounter.WRITE_TIME_MS, encoded);
+        metrics.addRows(1);
+        metrics.addBytes(buffer.length());
+        buffer.reset();
+    }
+
+    private void appendDatum(Object datum) {
+
+        if (datum instanceof IndexedRecord) {
+            IndexedRecord record = (IndexedRecord) datum;
+            List<Schema.Field> fields = record.getSchema().getFields();
+            buffer.append((byte) '{');
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    buffer.append(VALUE_SEPARATOR);
+                }
+                Schema.Field field = fields.get(i);
+                appendString(field.name());
+                buffer.append(FIELD_SEPARATOR);
+                appendDatum(record.get(field.pos()));
+            }
+            buffer.append((byte) '}');
+
+        } else if (datum instanceof Collection) {
+            buffer.append((byte) '[');
+            Iterator<?> it = ((Collection<?>) datum).iterator();
+            while (it.hasNext()) {
+                appendDatum(it.next());
+                if (it.hasNext()) {
+                    buffer.append(VALUE_SEPARATOR);
+                }
+            }
+            buffer.append((byte) ']');
+
+        } else if (datum instanceof Map) {
+            buffer.append((byte) '{');
+            Iterator<? extends Map.Entry<?, ?>> it = ((Map<?, ?>) datum).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<?, ?> entry = it.next();
+                appendDatum(entry.getKey());
+                buffer.append(FIELD_SEPARATOR);
+                appendDatum(entry.getValue());
+                if (it.hasNext()) {
+                    buffer.append(VALUE_SEPARATOR);
+                }
+            }
+            buffer.append((byte) '}');
+
+        } else if (datum instanceof CharSequence) {
+            appendString((CharSequence) datum);
+
+        } else if (datum instanceof GenericEnumSymbol) {
+            appendString(datum.toString());
+
+        } else if (datum instanceof ByteBuffer) {
+            // like avro, every byte is appended as a (sign extended) character
+            ByteBuffer bytes = (ByteBuffer) datum;
+            buffer.append(BYTES_START);
+            for (int i = bytes.position(); i < bytes.limit(); i++) {
+                buffer.appendUtf8((char) bytes.get(i));
+            }
+            buffer.append(BYTES_END);
+
+        } else {
+            buffer.appendUtf8(String.valueOf(datum));
+        }
+    }
+
+    private void appendString(CharSequence s) {
+
+        buffer.append((byte) '"');
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    appendEscape('"');
+                    break;
+                case '\\':
+                    appendEscape('\\');
+                    break;
+                case '\b':
+                    appendEscape('b');
+                    break;
+                case '\f':
+                    appendEscape('f');
+                    break;
+                case '\n':
+                    appendEscape('n');
+                    break;
+                case '\r':
+                    appendEscape('r');
+                    break;
+                case '\t':
+                    appendEscape('t');
+                    break;
+                case '/':
+                    appendEscape('/');
+                    break;
+                default:
+                    if (c <= '\u001F' || (c >= '\u007F' && c <= '\u009F') || (c >= '\u2000' && c <= '\u20FF')) {
+                        appendEscape('u');
+                        buffer.append(HEX[(c >> 12) & 0xf]);
+                        buffer.append(HEX[(c >> 8) & 0xf]);
+                        buffer.append(HEX[(c >> 4) & 0xf]);
+                        buffer.append(HEX[c & 0xf]);
+                    } else {
+                        i += buffer.appendUtf8(s, i);
+                        continue;
+                    }
+            }
+            i++;
+        }
+        buffer.append((byte) '"');
+    }
+
+    private void appendEscape(char c) {
+
+        buffer.append((byte) '\\');
+        buffer.append((byte) c);
     }
 
     @Override
     public void close(TaskAttemptContext context) throws IOException {
 
+        long start = metrics.start();
         out.close();
+        metrics.stop(ExportCounter.WRITE_TIME_MS, start);
     }
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.ftp.outputformat;
+
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionInputStream;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A compression codec writing the standard LZ4 frame format, the files can
+ * be read with the lz4 command line tool and the lz4 libraries of other
+ * languages. Hadoop's Lz4Codec is not used, it needs the native Hadoop
+ * library and writes Hadoop's own block framing. The codec is implemented
+ * in pure Java on top of lz4-java, it does not use Hadoop's compressor
+ * pool.
+ */
+public class Lz4FrameCodec implements CompressionCodec {
+
+    @Override
+    public CompressionOutputStream createOutputStream(OutputStream out) throws IOException {
+
+        return new Lz4FrameOutputStream(out);
+    }
+
+    @Override
+    public CompressionOutputStream createOutputStream(OutputStream out, Compressor compressor) throws IOException {
+
+        return createOutputStream(out);
+    }
+
+    @Override
+    public Class<? extends Compressor> getCompressorType() {
+
+        return null;
+    }
+
+    @Override
+    public Compressor createCompressor() {
+
+        return null;
+    }
+
+    @Override
+    public CompressionInputStream createInputStream(InputStream in) throws IOException {
+
+        return new Lz4FrameInputStream(in);
+    }
+
+    @Override
+    public CompressionInputStream createInputStream(InputStream in, Decompressor decompressor) throws IOException {
+
+        return createInputStream(in);
+    }
+
+    @Override
+    public Class<? extends Decompressor> getDecompressorType() {
+
+        return null;
+    }
+
+    @Override
+    public Decompressor createDecompressor() {
+
+        return null;
+    }
+
+    @Override
+    public String getDefaultExtension() {
+
+        return ".lz4";
+    }
+}
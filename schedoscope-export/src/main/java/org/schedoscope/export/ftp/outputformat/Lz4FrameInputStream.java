@@ -0,0 +1,255 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.ftp.outputformat;
+
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import net.jpountz.xxhash.StreamingXXHash32;
+import net.jpountz.xxhash.XXHash32;
+import net.jpountz.xxhash.XXHashFactory;
+import org.apache.hadoop.io.compress.CompressionInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads concatenated LZ4 frames with independent blocks, skippable frames
+ * are ignored. Frames with dependent blocks or a dictionary are not
+ * supported.
+ */
+class Lz4FrameInputStream extends CompressionInputStream {
+
+    private static final int SKIPPABLE_MAGIC = 0x184D2A50;
+
+    private final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+
+    private final XXHash32 hash = XXHashFactory.fastestInstance().hash32();
+
+    private final StreamingXXHash32 contentHash = XXHashFactory.fastestInstance().newStreamingHash32(0);
+
+    private final byte[] intBuffer = new byte[4];
+
+    private byte[] block = new byte[0];
+
+    private byte[] compressed = new byte[0];
+
+    private int position;
+
+    private int limit;
+
+    private boolean blockChecksum;
+
+    private boolean contentChecksum;
+
+    private boolean inFrame;
+
+    private boolean eof;
+
+    Lz4FrameInputStream(InputStream in) throws IOException {
+
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+
+        if (!fill()) {
+            return -1;
+        }
+        return block[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, limit - position);
+        System.arraycopy(block, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void resetState() throws IOException {
+
+        position = 0;
+        limit = 0;
+        inFrame = false;
+        eof = false;
+    }
+
+    private boolean fill() throws IOException {
+
+        while (position == limit) {
+            if (eof) {
+                return false;
+            }
+            if (!inFrame) {
+                inFrame = readHeader();
+                eof = !inFrame;
+            } else {
+                inFrame = readBlock();
+            }
+        }
+        return true;
+    }
+
+    private boolean readHeader() throws IOException {
+
+        while (true) {
+            int first = in.read();
+            if (first == -1) {
+                return false;
+            }
+            readFully(intBuffer, 1, 3);
+            intBuffer[0] = (byte) first;
+            int magic = toInt(intBuffer);
+
+            if ((magic & 0xFFFFFFF0) == SKIPPABLE_MAGIC) {
+                skipFully(readInt() & 0xFFFFFFFFL);
+            } else if (magic == Lz4FrameOutputStream.MAGIC) {
+                break;
+            } else {
+                throw new IOException("not an lz4 frame");
+            }
+        }
+
+        byte[] descriptor = new byte[10];
+        readFully(descriptor, 0, 2);
+        int flg = descriptor[0] & 0xFF;
+        int descriptorLength = (flg & 0x08) != 0 ? 10 : 2;
+        readFully(descriptor, 2, descriptorLength - 2);
+
+        if ((flg >>> 6) != 1) {
+            throw new IOException("unsupported lz4 frame version");
+        }
+        if ((flg & 0x20) == 0) {
+            throw new IOException("lz4 frames with dependent blocks are not supported");
+        }
+        if ((flg & 0x01) != 0) {
+            throw new IOException("lz4 frames with a dictionary are not supported");
+        }
+        if (readByte() != (hash.hash(descriptor, 0, descriptorLength, 0) >> 8 & 0xFF)) {
+            throw new IOException("lz4 frame header checksum mismatch");
+        }
+
+        int maxBlockSize = getMaxBlockSize(descriptor[1]);
+        if (block.length < maxBlockSize) {
+            block = new byte[maxBlockSize];
+            compressed = new byte[maxBlockSize];
+        }
+        blockChecksum = (flg & 0x10) != 0;
+        contentChecksum = (flg & 0x04) != 0;
+        contentHash.reset();
+        return true;
+    }
+
+    private boolean readBlock() throws IOException {
+
+        int size = readInt();
+        if (size == 0) {
+            if (contentChecksum && readInt() != contentHash.getValue()) {
+                throw new IOException("lz4 frame content checksum mismatch");
+            }
+            return false;
+        }
+
+        boolean uncompressed = (size & Lz4FrameOutputStream.UNCOMPRESSED_BLOCK) != 0;
+        int length = size & ~Lz4FrameOutputStream.UNCOMPRESSED_BLOCK;
+        if (length > block.length) {
+            throw new IOException("lz4 block exceeds the maximum block size");
+        }
+
+        byte[] data = uncompressed ? block : compressed;
+        readFully(data, 0, length);
+        if (blockChecksum && readInt() != hash.hash(data, 0, length, 0)) {
+            throw new IOException("lz4 block checksum mismatch");
+        }
+
+        if (uncompressed) {
+            limit = length;
+        } else {
+            try {
+                limit = decompressor.decompress(compressed, 0, length, block, 0, block.length);
+            } catch (LZ4Exception e) {
+                throw new IOException("corrupt lz4 block", e);
+            }
+        }
+        position = 0;
+        contentHash.update(block, 0, limit);
+        return true;
+    }
+
+    private int getMaxBlockSize(byte bd) throws IOException {
+
+        int id = (bd >>> 4) & 0x07;
+        if (id < 4) {
+            throw new IOException("invalid lz4 maximum block size");
+        }
+        return 1 << (2 * id + 8);
+    }
+
+    private int readByte() throws IOException {
+
+        int b = in.read();
+        if (b == -1) {
+            throw new EOFException("unexpected end of lz4 frame");
+        }
+        return b;
+    }
+
+    private int readInt() throws IOException {
+
+        readFully(intBuffer, 0, 4);
+        return toInt(intBuffer);
+    }
+
+    private void readFully(byte[] b, int off, int len) throws IOException {
+
+        while (len > 0) {
+            int n = in.read(b, off, len);
+            if (n == -1) {
+                throw new EOFException("unexpected end of lz4 frame");
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void skipFully(long n) throws IOException {
+
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                readByte();
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    private static int toInt(byte[] b) {
+
+        return (b[0] & 0xFF) | (b[1] & 0xFF) << 8 | (b[2] & 0xFF) << 16 | (b[3] & 0xFF) << 24;
+    }
+}
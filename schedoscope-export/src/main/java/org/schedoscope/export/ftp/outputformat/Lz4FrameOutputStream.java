@@ -0,0 +1,177 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.ftp.outputformat;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.StreamingXXHash32;
+import net.jpountz.xxhash.XXHashFactory;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes an LZ4 frame: the frame header, independent blocks of at most 4MB,
+ * the end mark and a checksum of the uncompressed content. Blocks that do
+ * not get smaller are stored uncompressed.
+ */
+class Lz4FrameOutputStream extends CompressionOutputStream {
+
+    static final int MAGIC = 0x184D2204;
+
+    // version 01, independent blocks, content checksum
+    static final int FLG = 0x64;
+
+    // 4MB maximum block size
+    static final int BD = 0x70;
+
+    static final int BLOCK_SIZE = 4 * 1024 * 1024;
+
+    static final int UNCOMPRESSED_BLOCK = 0x80000000;
+
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+
+    private final StreamingXXHash32 contentHash = XXHashFactory.fastestInstance().newStreamingHash32(0);
+
+    private final byte[] block = new byte[BLOCK_SIZE];
+
+    private final byte[] compressed = new byte[compressor.maxCompressedLength(BLOCK_SIZE)];
+
+    private final byte[] intBuffer = new byte[4];
+
+    private int length;
+
+    private boolean finished;
+
+    Lz4FrameOutputStream(OutputStream out) throws IOException {
+
+        super(out);
+        writeHeader();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+
+        ensureOpen();
+        if (length == BLOCK_SIZE) {
+            writeBlock();
+        }
+        block[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+
+        ensureOpen();
+        while (len > 0) {
+            if (length == BLOCK_SIZE) {
+                writeBlock();
+            }
+            int n = Math.min(len, BLOCK_SIZE - length);
+            System.arraycopy(b, off, block, length, n);
+            length += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+
+        if (!finished) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void finish() throws IOException {
+
+        if (finished) {
+            return;
+        }
+        writeBlock();
+        writeInt(0);
+        writeInt(contentHash.getValue());
+        finished = true;
+    }
+
+    /**
+     * Starts a new frame after {@link #finish()}, frames can be concatenated.
+     */
+    @Override
+    public void resetState() throws IOException {
+
+        contentHash.reset();
+        length = 0;
+        finished = false;
+        writeHeader();
+    }
+
+    private void writeHeader() throws IOException {
+
+        byte[] descriptor = new byte[]{(byte) FLG, (byte) BD};
+        writeInt(MAGIC);
+        out.write(descriptor);
+        out.write(headerChecksum(descriptor));
+    }
+
+    private void writeBlock() throws IOException {
+
+        if (length == 0) {
+            return;
+        }
+        contentHash.update(block, 0, length);
+        int compressedLength = compressor.compress(block, 0, length, compressed, 0, compressed.length);
+        if (compressedLength < length) {
+            writeInt(compressedLength);
+            out.write(compressed, 0, compressedLength);
+        } else {
+            writeInt(length | UNCOMPRESSED_BLOCK);
+            out.write(block, 0, length);
+        }
+        length = 0;
+    }
+
+    private void writeInt(int i) throws IOException {
+
+        intBuffer[0] = (byte) i;
+        intBuffer[1] = (byte) (i >>> 8);
+        intBuffer[2] = (byte) (i >>> 16);
+        intBuffer[3] = (byte) (i >>> 24);
+        out.write(intBuffer);
+    }
+
+    private void ensureOpen() throws IOException {
+
+        if (finished) {
+            throw new IOException("lz4 frame already finished");
+        }
+    }
+
+    /**
+     * The header checksum, the second byte of the xxhash32 of the frame
+     * descriptor.
+     *
+     * @param descriptor The frame descriptor without the checksum.
+     * @return The checksum byte.
+     */
+    static int headerChecksum(byte[] descriptor) {
+
+        return (XXHashFactory.fastestInstance().hash32().hash(descriptor, 0, descriptor.length, 0) >> 8) & 0xFF;
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.outputformat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer the record writers encode a record into before
+ * handing it to the output stream in a single write. The buffer is reused
+ * for all records of a writer, characters are encoded to UTF-8 directly
+ * without creating intermediate strings or byte arrays.
+ */
+class RecordBuffer {
+
+    private static final int INITIAL_SIZE = 4096;
+
+    private static final byte REPLACEMENT = '?';
+
+    private byte[] bytes = new byte[INITIAL_SIZE];
+
+    private int length;
+
+    void append(byte b) {
+
+        ensureCapacity(1);
+        bytes[length++] = b;
+    }
+
+    void append(byte[] b) {
+
+        append(b, 0, b.length);
+    }
+
+    void append(byte[] b, int off, int len) {
+
+        ensureCapacity(len);
+        System.arraycopy(b, off, bytes, length, len);
+        length += len;
+    }
+
+    /**
+     * Appends a string encoded as UTF-8.
+     *
+     * @param s The string.
+     */
+    void appendUtf8(CharSequence s) {
+
+        int i = 0;
+        while (i < s.length()) {
+            i += appendUtf8(s, i);
+        }
+    }
+
+    /**
+     * Appends the character at the given index encoded as UTF-8, a surrogate
+     * pair is encoded as one code point. Unpaired surrogates are replaced by
+     * '?', the same as {@link String#getBytes(java.nio.charset.Charset)} does.
+     *
+     * @param s The string.
+     * @param i The index of the character.
+     * @return The number of characters consumed, 1 or 2.
+     */
+    int appendUtf8(CharSequence s, int i) {
+
+        char c = s.charAt(i);
+
+        if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, s.charAt(i + 1));
+            ensureCapacity(4);
+            bytes[length++] = (byte) (0xf0 | (cp >> 18));
+            bytes[length++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+            bytes[length++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+            bytes[length++] = (byte) (0x80 | (cp & 0x3f));
+            return 2;
+        }
+
+        appendUtf8(c);
+        return 1;
+    }
+
+    /**
+     * Appends a single character encoded as UTF-8, a surrogate is replaced
+     * by '?'.
+     *
+     * @param c The character.
+     */
+    void appendUtf8(char c) {
+
+        ensureCapacity(3);
+
+        if (c < 0x80) {
+            bytes[length++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[length++] = (byte) (0xc0 | (c >> 6));
+            bytes[length++] = (byte) (0x80 | (c & 0x3f));
+        } else if (!Character.isSurrogate(c)) {
+            bytes[length++] = (byte) (0xe0 | (c >> 12));
+            bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            bytes[length++] = (byte) (0x80 | (c & 0x3f));
+        } else {
+            bytes[length++] = REPLACEMENT;
+        }
+    }
+
+    int length() {
+
+        return length;
+    }
+
+    void reset() {
+
+        length = 0;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+
+        out.write(bytes, 0, length);
+    }
+
+    byte[] toByteArray() {
+
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private void ensureCapacity(int additional) {
+
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+        }
+    }
+}
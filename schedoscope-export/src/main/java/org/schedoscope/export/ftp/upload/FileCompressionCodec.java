@@ -17,7 +17,7 @@
 package org.schedoscope.export.ftp.upload;
 
 /**
- * An enum reresenting the available compression codecs (none / gzip / bzip2)
+ * An enum reresenting the available compression codecs (none / gzip / bzip2 / lz4)
  */
 public enum FileCompressionCodec {
     none {
@@ -37,5 +37,11 @@ public enum FileCompressionCodec {
         public String toString() {
             return "gzip";
         }
+    },
+    lz4 {
+        @Override
+        public String toString() {
+            return "lz4";
+        }
     }
 }
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.upload;
+
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A ftp connection based on the Commons Net ftp client, files are
+ * transferred in binary mode.
+ */
+public class FtpConnection implements RemoteConnection {
+
+    private static final int DEFAULT_PORT = 21;
+
+    private final FTPClient client;
+
+    /**
+     * The constructor to open and authenticate a ftp connection.
+     *
+     * @param host    The ftp host.
+     * @param port    The ftp port, -1 for the default port.
+     * @param user    The user name.
+     * @param pass    The password.
+     * @param passive A flag to use passive mode.
+     * @param timeout The connect and read timeout in milliseconds.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    public FtpConnection(String host, int port, String user, String pass, boolean passive, int timeout)
+            throws IOException {
+
+        this.client = new FTPClient();
+        client.setConnectTimeout(timeout);
+        client.setDefaultTimeout(timeout);
+        client.setDataTimeout(timeout);
+
+        try {
+            client.connect(host, port < 0 ? DEFAULT_PORT : port);
+            if (!FTPReply.isPositiveCompletion(client.getReplyCode())) {
+                throw new IOException("ftp server refused connection: " + client.getReplyString());
+            }
+            if (!client.login(user, pass)) {
+                throw new IOException("ftp login failed: " + client.getReplyString());
+            }
+            client.setFileType(FTP.BINARY_FILE_TYPE);
+            if (passive) {
+                client.enterLocalPassiveMode();
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long getSize(String path) throws IOException {
+
+        if (client.sendCommand("SIZE", path) != FTPReply.FILE_STATUS) {
+            return -1;
+        }
+        return Long.parseLong(client.getReplyString().substring(4).trim());
+    }
+
+    @Override
+    public OutputStream openOutputStream(String path, boolean append) throws IOException {
+
+        final OutputStream out = append ? client.appendFileStream(path) : client.storeFileStream(path);
+        if (out == null) {
+            throw new IOException("could not open " + path + ": " + client.getReplyString());
+        }
+
+        return new FilterOutputStream(out) {
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!client.completePendingCommand()) {
+                    throw new IOException("transfer failed: " + client.getReplyString());
+                }
+            }
+        };
+    }
+
+    @Override
+    public void rename(String from, String to) throws IOException {
+
+        delete(to);
+        if (!client.rename(from, to)) {
+            throw new IOException("could not rename " + from + " to " + to + ": " + client.getReplyString());
+        }
+    }
+
+    @Override
+    public void delete(String path) throws IOException {
+
+        if (!client.deleteFile(path) && getSize(path) >= 0) {
+            throw new IOException("could not delete " + path + ": " + client.getReplyString());
+        }
+    }
+
+    @Override
+    public void makeDirectories(String path) throws IOException {
+
+        String current = path.startsWith("/") ? "" : ".";
+        for (String dir : path.split("/")) {
+
+            if (dir.isEmpty()) {
+                continue;
+            }
+            current = current + "/" + dir;
+            // fails if the directory exists already, errors show up on upload
+            client.makeDirectory(current);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+
+        try {
+            return client.isConnected() && client.sendNoOp();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+
+        if (client.isConnected()) {
+            try {
+                client.logout();
+            } catch (IOException e) {
+                // the connection is discarded anyway
+            }
+            try {
+                client.disconnect();
+            } catch (IOException e) {
+                // the connection is discarded anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.upload;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.Progressable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads files to a (s)ftp endpoint using pooled connections.
+ * <p>
+ * A file is uploaded under a temporary name and renamed when complete. With
+ * a parallelism above one, files larger than the part size are split into
+ * parts which are uploaded concurrently over separate connections, neither
+ * sftp nor ftp can concatenate files on the server. The parts are named
+ * {@code <file>.part-00000} etc., and a manifest {@code <file>.manifest}
+ * listing the part names and sizes in order is written last, concatenating
+ * the parts gives the original file.
+ * <p>
+ * A transfer that breaks is resumed on a new connection from the size the
+ * server has received.
+ */
+public class ParallelUploader {
+
+    private static final Log LOG = LogFactory.getLog(ParallelUploader.class);
+
+    public static final String TMP_SUFFIX = ".tmp";
+
+    public static final String MANIFEST_SUFFIX = ".manifest";
+
+    private static final String PART_FORMAT = "%s.part-%05d";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final long RETRY_BACKOFF_MS = 1000;
+
+    private final RemoteConnectionPool pool;
+
+    private final int parallelism;
+
+    private final long partSize;
+
+    private final int maxRetries;
+
+    private final AtomicInteger retries = new AtomicInteger();
+
+    /**
+     * The constructor to initialize the uploader.
+     *
+     * @param pool        The pool to take the connections from.
+     * @param parallelism The maximum number of concurrent part uploads.
+     * @param partSize    The minimum size of a part in bytes.
+     * @param maxRetries  The number of times a broken transfer is resumed.
+     */
+    public ParallelUploader(RemoteConnectionPool pool, int parallelism, long partSize, int maxRetries) {
+
+        this.pool = pool;
+        this.parallelism = Math.max(1, parallelism);
+        this.partSize = Math.max(1, partSize);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    /**
+     * Returns the number of resumed transfers so far.
+     *
+     * @return The number of retries.
+     */
+    public int getRetries() {
+
+        return retries.get();
+    }
+
+    /**
+     * Uploads a file.
+     *
+     * @param fs       The file system of the source file.
+     * @param src      The source file.
+     * @param remote   The remote path of the file.
+     * @param progress Notified while data is transferred, can be null.
+     * @return The number of parts, 1 if the file was uploaded as a whole.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    public int upload(final FileSystem fs, final Path src, String remote, final Progressable progress)
+            throws IOException {
+
+        long length = fs.getFileStatus(src).getLen();
+        int numParts = parallelism == 1 ? 1 : (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+                (length + partSize - 1) / partSize));
+
+        int slash = remote.lastIndexOf('/');
+        if (slash > 0) {
+            RemoteConnection connection = pool.borrow();
+            try {
+                connection.makeDirectories(remote.substring(0, slash));
+            } catch (IOException e) {
+                pool.invalidate(connection);
+                throw e;
+            }
+            pool.release(connection);
+        }
+
+        if (numParts == 1) {
+            uploadRange(fs, src, 0, length, remote + TMP_SUFFIX, progress);
+            rename(remote + TMP_SUFFIX, remote);
+            return 1;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, numParts),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ftp-upload-%d").build());
+
+        StringBuilder manifest = new StringBuilder();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        try {
+            for (int i = 0; i < numParts; i++) {
+
+                final long offset = i * partSize;
+                final long size = Math.min(partSize, length - offset);
+                final String part = String.format(PART_FORMAT, remote, i);
+
+                manifest.append(part.substring(slash + 1)).append('\t').append(size).append('\n');
+                futures.add(executor.submit(() -> {
+                    uploadRange(fs, src, offset, size, part, progress);
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("upload of " + remote + " interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        writeManifest(remote + MANIFEST_SUFFIX, manifest.toString().getBytes(StandardCharsets.UTF_8));
+        return numParts;
+    }
+
+    private void uploadRange(FileSystem fs, Path src, long offset, long length, String remote,
+                             Progressable progress) throws IOException {
+
+        long uploaded = 0;
+        int attempt = 0;
+
+        while (true) {
+
+            RemoteConnection connection = null;
+            try {
+                connection = pool.borrow();
+
+                if (attempt > 0) {
+                    long remoteSize = connection.getSize(remote);
+                    uploaded = remoteSize >= 0 && remoteSize <= length ? remoteSize : 0;
+                    LOG.info("resuming upload of " + remote + " at " + uploaded + " of " + length + " bytes");
+                }
+
+                try (FSDataInputStream in = fs.open(src);
+                     OutputStream out = connection.openOutputStream(remote, uploaded > 0)) {
+                    in.seek(offset + uploaded);
+                    copy(in, out, length - uploaded, progress);
+                }
+
+                pool.release(connection);
+                return;
+
+            } catch (IOException e) {
+                pool.invalidate(connection);
+                if (++attempt > maxRetries) {
+                    throw e;
+                }
+                retries.incrementAndGet();
+                LOG.warn("upload of " + remote + " failed, retrying", e);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void writeManifest(String remote, byte[] content) throws IOException {
+
+        RemoteConnection connection = pool.borrow();
+        try {
+            try (OutputStream out = connection.openOutputStream(remote + TMP_SUFFIX, false)) {
+                out.write(content);
+            }
+            connection.rename(remote + TMP_SUFFIX, remote);
+        } catch (IOException e) {
+            pool.invalidate(connection);
+            throw e;
+        }
+        pool.release(connection);
+    }
+
+    private void rename(String from, String to) throws IOException {
+
+        RemoteConnection connection = pool.borrow();
+        try {
+            connection.rename(from, to);
+        } catch (IOException e) {
+            pool.invalidate(connection);
+            throw e;
+        }
+        pool.release(connection);
+    }
+
+    private static void copy(FSDataInputStream in, OutputStream out, long length, Progressable progress)
+            throws IOException {
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = length;
+
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("unexpected end of file, " + remaining + " bytes missing");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+            if (progress != null) {
+                progress.progress();
+            }
+        }
+    }
+
+    private static void backoff(int attempt) throws IOException {
+
+        try {
+            Thread.sleep(RETRY_BACKOFF_MS * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("upload interrupted");
+        }
+    }
+}
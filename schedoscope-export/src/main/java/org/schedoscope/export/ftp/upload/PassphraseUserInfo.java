@@ -1,66 +0,0 @@
-/**
- * Copyright 2016 Otto (GmbH & Co KG)
- * <p>
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * <p>
- * http://www.apache.org/licenses/LICENSE-2.0
- * <p>
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package org.schedoscope.export.ftp.upload;
-
-import com.jcraft.jsch.UserInfo;
-
-/**
- * A User Info class providing the private ssh key passphrase to JSch library.
- */
-public class PassphraseUserInfo implements UserInfo {
-
-    private String passphrase = null;
-
-    /**
-     * The constructor to initialize the user info instance
-     *
-     * @param passphrase The passphrase to use for decrypting the key.
-     */
-    public PassphraseUserInfo(final String passphrase) {
-
-        this.passphrase = passphrase;
-    }
-
-    @Override
-    public String getPassphrase() {
-        return passphrase;
-    }
-
-    @Override
-    public String getPassword() {
-        return null;
-    }
-
-    @Override
-    public boolean promptPassword(String message) {
-        return false;
-    }
-
-    @Override
-    public boolean promptPassphrase(String message) {
-        return true;
-    }
-
-    @Override
-    public boolean promptYesNo(String message) {
-        return true;
-    }
-
-    @Override
-    public void showMessage(String message) {
-    }
-}
\ No newline at end of file
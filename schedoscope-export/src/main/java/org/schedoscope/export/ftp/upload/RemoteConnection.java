@@ -0,0 +1,81 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.upload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An open, authenticated connection to a (s)ftp server. Connections are not
+ * thread safe, they are handed out to one thread at a time by a
+ * {@link RemoteConnectionPool}.
+ */
+public interface RemoteConnection extends Closeable {
+
+    /**
+     * Returns the size of a remote file.
+     *
+     * @param path The remote path.
+     * @return The size in bytes or -1 if the file does not exist.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    long getSize(String path) throws IOException;
+
+    /**
+     * Opens a stream to write a remote file, the transfer is completed when
+     * the stream is closed. Only one stream can be open per connection.
+     *
+     * @param path   The remote path.
+     * @param append Append to an existing file instead of replacing it.
+     * @return The output stream.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    OutputStream openOutputStream(String path, boolean append) throws IOException;
+
+    /**
+     * Renames a remote file, an existing target file is replaced.
+     *
+     * @param from The remote path of the file to rename.
+     * @param to   The new remote path.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    void rename(String from, String to) throws IOException;
+
+    /**
+     * Deletes a remote file, a missing file is ignored.
+     *
+     * @param path The remote path.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    void delete(String path) throws IOException;
+
+    /**
+     * Creates a remote directory and all missing parent directories.
+     *
+     * @param path The remote directory.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    void makeDirectories(String path) throws IOException;
+
+    /**
+     * Checks if the connection is still usable.
+     *
+     * @return True if the connection can be reused.
+     */
+    boolean isConnected();
+}
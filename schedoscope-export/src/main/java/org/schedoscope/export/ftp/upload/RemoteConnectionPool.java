@@ -0,0 +1,174 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.upload;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of open connections to a single (s)ftp endpoint. Connections are
+ * created on demand and kept open after use, so the handshake and login is
+ * paid once per connection and not per file. The shared pools live as long
+ * as the JVM, all tasks and retries in the same JVM reuse their connections.
+ */
+public class RemoteConnectionPool implements Closeable {
+
+    private static final Log LOG = LogFactory.getLog(RemoteConnectionPool.class);
+
+    private static final ConcurrentMap<RemoteEndpoint, RemoteConnectionPool> POOLS =
+            new ConcurrentHashMap<RemoteEndpoint, RemoteConnectionPool>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(RemoteConnectionPool::closeAll));
+    }
+
+    private final RemoteEndpoint endpoint;
+
+    private final BlockingDeque<RemoteConnection> idle = new LinkedBlockingDeque<RemoteConnection>();
+
+    private final AtomicInteger connectionsCreated = new AtomicInteger();
+
+    /**
+     * The constructor to create a new, unshared pool.
+     *
+     * @param endpoint The endpoint to connect to.
+     */
+    public RemoteConnectionPool(RemoteEndpoint endpoint) {
+
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Returns the shared pool for the given endpoint.
+     *
+     * @param endpoint The endpoint.
+     * @return The pool.
+     */
+    public static RemoteConnectionPool forEndpoint(RemoteEndpoint endpoint) {
+
+        return POOLS.computeIfAbsent(endpoint, RemoteConnectionPool::new);
+    }
+
+    /**
+     * Closes the idle connections of all shared pools.
+     */
+    public static void closeAll() {
+
+        for (RemoteConnectionPool pool : POOLS.values()) {
+            pool.close();
+        }
+    }
+
+    public RemoteEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns an idle connection or opens a new one. The connection must be
+     * given back by either {@link #release(RemoteConnection)} or
+     * {@link #invalidate(RemoteConnection)}.
+     *
+     * @return The connection.
+     * @throws IOException Is thrown if a new connection can't be opened.
+     */
+    public RemoteConnection borrow() throws IOException {
+
+        RemoteConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (connection.isConnected()) {
+                return connection;
+            }
+            closeQuietly(connection);
+        }
+
+        connectionsCreated.incrementAndGet();
+        LOG.debug("opening new connection to " + endpoint);
+        return connect();
+    }
+
+    /**
+     * Opens a new connection.
+     *
+     * @return The connection.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    protected RemoteConnection connect() throws IOException {
+
+        return endpoint.connect();
+    }
+
+    /**
+     * Gives a healthy connection back to the pool.
+     *
+     * @param connection The connection.
+     */
+    public void release(RemoteConnection connection) {
+
+        idle.offerFirst(connection);
+    }
+
+    /**
+     * Closes a broken connection instead of giving it back to the pool.
+     *
+     * @param connection The connection, can be null.
+     */
+    public void invalidate(RemoteConnection connection) {
+
+        if (connection != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    /**
+     * Returns the number of connections opened by this pool so far.
+     *
+     * @return The number of connections.
+     */
+    public int getConnectionsCreated() {
+
+        return connectionsCreated.get();
+    }
+
+    /**
+     * Closes all idle connections, the pool can still be used afterwards.
+     */
+    @Override
+    public void close() {
+
+        RemoteConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private void closeQuietly(RemoteConnection connection) {
+
+        try {
+            connection.close();
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("could not close connection to " + endpoint, e);
+        }
+    }
+}
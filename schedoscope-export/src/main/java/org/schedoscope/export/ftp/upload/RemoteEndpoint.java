@@ -0,0 +1,165 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.upload;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Objects;
+
+/**
+ * A (s)ftp endpoint together with its credentials and connection settings.
+ * Endpoints are equal if they connect to the same server with the same
+ * settings, so they can be used as key for connection pools.
+ */
+public class RemoteEndpoint {
+
+    private static final int TIMEOUT_MS = 60000;
+
+    private final String protocol;
+
+    private final String host;
+
+    private final int port;
+
+    private final String directory;
+
+    private final String user;
+
+    private final String pass;
+
+    private final String keyContent;
+
+    private final boolean passive;
+
+    private final boolean userIsRoot;
+
+    /**
+     * The constructor to initialize an endpoint.
+     *
+     * @param endpoint   The (s)ftp endpoint, e.g. sftp://sftp.example.com:22/path/to/
+     * @param user       The user name.
+     * @param pass       The ftp password or sftp password / passphrase.
+     * @param keyContent The private ssh key (can be null, only sftp).
+     * @param passive    A flag to use FTP passive mode (only ftp).
+     * @param userIsRoot A flag indicating the user dir is (s)ftp root dir.
+     */
+    public RemoteEndpoint(String endpoint, String user, String pass, String keyContent, boolean passive,
+                          boolean userIsRoot) {
+
+        URI uri;
+        try {
+            uri = new URI(endpoint);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+
+        this.protocol = uri.getScheme();
+        if (!"ftp".equals(protocol) && !"sftp".equals(protocol)) {
+            throw new IllegalArgumentException("protocol not supported, must be either 'ftp' or 'sftp'");
+        }
+
+        this.host = uri.getHost();
+        this.port = uri.getPort();
+        this.directory = uri.getPath() == null ? "" : uri.getPath().replaceAll("/+$", "");
+        this.user = user;
+        this.pass = pass;
+        this.keyContent = keyContent;
+        this.passive = passive;
+        this.userIsRoot = userIsRoot;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Returns the remote directory of the endpoint, relative to the user's
+     * home directory if the user dir is root.
+     *
+     * @return The remote directory, empty for the root directory.
+     */
+    public String getDirectory() {
+
+        return userIsRoot ? directory.replaceAll("^/+", "") : directory;
+    }
+
+    /**
+     * Resolves a file name against the directory of the endpoint.
+     *
+     * @param fileName The file name.
+     * @return The remote path of the file.
+     */
+    public String resolve(String fileName) {
+
+        String dir = getDirectory();
+        if (dir.isEmpty()) {
+            return userIsRoot ? fileName : "/" + fileName;
+        }
+        return dir + "/" + fileName;
+    }
+
+    /**
+     * Opens a new connection to the endpoint.
+     *
+     * @return The connection.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    public RemoteConnection connect() throws IOException {
+
+        if (protocol.equals("sftp")) {
+            return new SftpConnection(host, port, user, pass, keyContent, TIMEOUT_MS);
+        } else {
+            return new FtpConnection(host, port, user, pass, passive, TIMEOUT_MS);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RemoteEndpoint that = (RemoteEndpoint) o;
+        return port == that.port && passive == that.passive && protocol.equals(that.protocol)
+                && Objects.equals(host, that.host) && Objects.equals(user, that.user)
+                && Objects.equals(pass, that.pass) && Objects.equals(keyContent, that.keyContent);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(protocol, host, port, user, passive);
+    }
+
+    @Override
+    public String toString() {
+
+        return protocol + "://" + user + "@" + host + (port < 0 ? "" : ":" + port) + directory;
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.upload;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A sftp connection, a JSch session with a single sftp channel. The private
+ * key is handed to JSch in memory, no key file is written to disk.
+ */
+public class SftpConnection implements RemoteConnection {
+
+    private static final int DEFAULT_PORT = 22;
+
+    private final Session session;
+
+    private final ChannelSftp channel;
+
+    /**
+     * The constructor to open and authenticate a sftp connection.
+     *
+     * @param host       The sftp host.
+     * @param port       The sftp port, -1 for the default port.
+     * @param user       The user name.
+     * @param pass       The password, or the key passphrase if a key is set.
+     * @param keyContent The private key (can be null).
+     * @param timeout    The connect and read timeout in milliseconds.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    public SftpConnection(String host, int port, String user, String pass, String keyContent, int timeout)
+            throws IOException {
+
+        JSch jsch = new JSch();
+        Session session = null;
+
+        try {
+            boolean useKey = keyContent != null && !keyContent.isEmpty();
+            if (useKey) {
+                jsch.addIdentity(user, keyContent.getBytes(StandardCharsets.US_ASCII), null,
+                        pass == null ? null : pass.getBytes(StandardCharsets.UTF_8));
+            }
+
+            session = jsch.getSession(user, host, port < 0 ? DEFAULT_PORT : port);
+            if (!useKey) {
+                session.setPassword(pass);
+            }
+            session.setConfig("StrictHostKeyChecking", "no");
+            session.setDaemonThread(true);
+            session.setTimeout(timeout);
+            session.connect(timeout);
+
+            this.channel = (ChannelSftp) session.openChannel("sftp");
+            this.channel.connect(timeout);
+            this.session = session;
+
+        } catch (JSchException e) {
+            if (session != null) {
+                session.disconnect();
+            }
+            throw new IOException("could not connect to sftp://" + host + ":" + port, e);
+        }
+    }
+
+    @Override
+    public long getSize(String path) throws IOException {
+
+        try {
+            return channel.stat(path).getSize();
+        } catch (SftpException e) {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                return -1;
+            }
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public OutputStream openOutputStream(String path, boolean append) throws IOException {
+
+        try {
+            return channel.put(path, append ? ChannelSftp.APPEND : ChannelSftp.OVERWRITE);
+        } catch (SftpException e) {
+            throw new IOException("could not open " + path, e);
+        }
+    }
+
+    @Override
+    public void rename(String from, String to) throws IOException {
+
+        // sftp v3 servers refuse to rename onto an existing file
+        delete(to);
+        try {
+            channel.rename(from, to);
+        } catch (SftpException e) {
+            throw new IOException("could not rename " + from + " to " + to, e);
+        }
+    }
+
+    @Override
+    public void delete(String path) throws IOException {
+
+        try {
+            channel.rm(path);
+        } catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                throw new IOException("could not delete " + path, e);
+            }
+        }
+    }
+
+    @Override
+    public void makeDirectories(String path) throws IOException {
+
+        String current = path.startsWith("/") ? "" : ".";
+        for (String dir : path.split("/")) {
+
+            if (dir.isEmpty()) {
+                continue;
+            }
+            current = current + "/" + dir;
+            if (getSize(current) < 0) {
+                try {
+                    channel.mkdir(current);
+                } catch (SftpException e) {
+                    throw new IOException("could not create " + current, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+
+        return session.isConnected() && channel.isConnected() && !channel.isClosed();
+    }
+
+    @Override
+    public void close() {
+
+        channel.disconnect();
+        session.disconnect();
+    }
+}
@@ -17,6 +17,7 @@
 package org.schedoscope.export.jdbc;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ObjectArrays;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -33,14 +34,16 @@ import org.apache.hive.hcatalog.mapreduce.HCatInputFormat;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
+import org.kohsuke.args4j.spi.StringArrayOptionHandler;
 import org.schedoscope.export.BaseExportJob;
 import org.schedoscope.export.jdbc.exception.RetryException;
 import org.schedoscope.export.jdbc.exception.UnrecoverableException;
 import org.schedoscope.export.jdbc.outputformat.JdbcOutputFormat;
-import org.schedoscope.export.jdbc.outputformat.JdbcOutputWritable;
+import org.schedoscope.export.jdbc.outputformat.JdbcRowWritable;
 import org.schedoscope.export.jdbc.outputschema.Schema;
 import org.schedoscope.export.jdbc.outputschema.SchemaFactory;
 import org.schedoscope.export.jdbc.outputschema.SchemaUtils;
+import org.schedoscope.export.metrics.MeteredHCatInputFormat;
 
 /**
  * The MR driver to run the Hive to database export, uses JDBC under the hood.
@@ -69,6 +72,24 @@ public class JdbcExportJob extends BaseExportJob {
     @Option(name = "-k", usage = "batch size")
     private int commitSize = 10000;
 
+    @Option(name = "-M", usage = "map-only export, every mapper writes its own partition table and the shuffle is skipped")
+    private boolean mapOnly = false;
+
+    @Option(name = "-b", usage = "write with the database's native bulk loader (COPY / LOAD DATA / IMPORT) if available")
+    private boolean bulkLoad = false;
+
+    @Option(name = "-W", usage = "build the output table under a shadow name and swap it into place when all partitions are merged")
+    private boolean atomicSwap = false;
+
+    @Option(name = "-P", usage = "number of parallel connections used to merge the partition tables, not used in upsert mode")
+    private int mergeParallelism = 1;
+
+    @Option(name = "-a", usage = "write batches in a background thread while the next batch is filled")
+    private boolean asyncWrite = false;
+
+    @Option(name = "-K", handler = StringArrayOptionHandler.class, usage = "a space separated list of key columns, enables the upsert mode")
+    private String[] upsertKeys = new String[0];
+
     @Override
     public int run(String[] args) throws Exception {
 
@@ -137,6 +158,58 @@ public class JdbcExportJob extends BaseExportJob {
                          int numReducer, int commitSize, String[] anonFields,
                          String exportSalt) throws Exception {
 
+        return configure(isSecured, metaStoreUris, principal,
+                dbConnectionString, dbUser, dbPassword, inputDatabase,
+                inputTable, inputFilter, storageEngine, distributeBy,
+                numReducer, commitSize, anonFields, exportSalt, false, false,
+                false, 1, false, new String[0]);
+    }
+
+    /**
+     * This function takes all required parameters and returns a configured job
+     * object.
+     *
+     * @param isSecured          A flag indicating if Kerberos is enabled.
+     * @param metaStoreUris      A string containing the Hive meta store URI
+     * @param principal          The Kerberos principal.
+     * @param dbConnectionString The JDBC connection string.
+     * @param dbUser             The database user
+     * @param dbPassword         The database password
+     * @param inputDatabase      The Hive input database
+     * @param inputTable         The Hive input table
+     * @param inputFilter        An optional input filter.
+     * @param storageEngine      An optional storage engine (only MySQL)
+     * @param distributeBy       An optional distribute by clause (only Exasol)
+     * @param numReducer         Number of reducers / partitions, ignored if
+     *                           mapOnly is set
+     * @param commitSize         The batch size.
+     * @param anonFields         A list of fields to anonymize
+     * @param exportSalt         An optional salt when anonymizing fields
+     * @param mapOnly            A flag indicating if the mappers write to the
+     *                           database directly, skipping the shuffle
+     * @param bulkLoad           A flag indicating if the native bulk loader
+     *                           of the database should be used
+     * @param atomicSwap         A flag indicating if the output table is
+     *                           built under a shadow name and swapped into
+     *                           place
+     * @param mergeParallelism   The number of connections used to merge the
+     *                           partition tables
+     * @param asyncWrite         A flag indicating if batches are written by a
+     *                           background thread
+     * @param upsertKeys         The key columns of the upsert mode, empty to
+     *                           replace the output table or partition
+     * @return A configured job instance.
+     * @throws Exception Is thrown if an error occurs.
+     */
+    public Job configure(boolean isSecured, String metaStoreUris,
+                         String principal, String dbConnectionString, String dbUser,
+                         String dbPassword, String inputDatabase, String inputTable,
+                         String inputFilter, String storageEngine, String distributeBy,
+                         int numReducer, int commitSize, String[] anonFields,
+                         String exportSalt, boolean mapOnly, boolean bulkLoad,
+                         boolean atomicSwap, int mergeParallelism,
+                         boolean asyncWrite, String[] upsertKeys) throws Exception {
+
         this.isSecured = isSecured;
         this.metaStoreUris = metaStoreUris;
         this.principal = principal;
@@ -152,6 +225,12 @@ public class JdbcExportJob extends BaseExportJob {
         this.commitSize = commitSize;
         this.anonFields = anonFields.clone();
         this.exportSalt = exportSalt;
+        this.mapOnly = mapOnly;
+        this.bulkLoad = bulkLoad;
+        this.atomicSwap = atomicSwap;
+        this.mergeParallelism = mergeParallelism;
+        this.asyncWrite = asyncWrite;
+        this.upsertKeys = upsertKeys.clone();
         return configure();
     }
 
@@ -167,8 +246,13 @@ public class JdbcExportJob extends BaseExportJob {
 
         job.setJarByClass(JdbcExportJob.class);
         job.setMapperClass(JdbcExportMapper.class);
-        job.setReducerClass(Reducer.class);
-        job.setNumReduceTasks(numReducer);
+
+        if (mapOnly) {
+            job.setNumReduceTasks(0);
+        } else {
+            job.setReducerClass(Reducer.class);
+            job.setNumReduceTasks(numReducer);
+        }
 
         if (inputFilter == null || inputFilter.trim().equals("")) {
             HCatInputFormat.setInput(job, inputDatabase, inputTable);
@@ -188,20 +272,38 @@ public class JdbcExportJob extends BaseExportJob {
         String[] columnTypes = SchemaUtils.getColumnTypesFromHcatSchema(
                 hcatInputSchema, outputSchema, ImmutableSet.copyOf(anonFields));
 
+        String[] outputUpsertKeys = new String[upsertKeys.length];
+        for (int i = 0; i < upsertKeys.length; i++) {
+            outputUpsertKeys[i] = outputSchema.getColumnNameMapping()
+                    .getOrDefault(upsertKeys[i], upsertKeys[i]);
+        }
+
+        if (outputUpsertKeys.length > 0) {
+            columnNames = ObjectArrays.concat(columnNames,
+                    Schema.JDBC_ROW_HASH_COLUMN);
+            columnTypes = ObjectArrays.concat(columnTypes, outputSchema
+                    .getColumnTypeMapping().get("string"));
+        }
+
         String outputTable = inputDatabase + "_" + inputTable;
 
         JdbcOutputFormat.setOutput(job.getConfiguration(), dbConnectionString,
                 dbUser, dbPassword, outputTable, inputFilter, numReducer,
                 commitSize, storageEngine, distributeBy, columnNames,
                 columnTypes);
+        JdbcOutputFormat.setBulkLoad(job.getConfiguration(), bulkLoad);
+        JdbcOutputFormat.setAsyncWrite(job.getConfiguration(), asyncWrite);
+        JdbcOutputFormat.setUpsertKeys(job.getConfiguration(), outputUpsertKeys);
+        JdbcOutputFormat.setFinalizeStrategy(job.getConfiguration(),
+                atomicSwap, mergeParallelism);
 
-        job.setInputFormatClass(HCatInputFormat.class);
+        job.setInputFormatClass(MeteredHCatInputFormat.class);
         job.setOutputFormatClass(JdbcOutputFormat.class);
 
         job.setMapOutputKeyClass(LongWritable.class);
-        job.setMapOutputValueClass(JdbcOutputWritable.class);
+        job.setMapOutputValueClass(JdbcRowWritable.class);
         job.setOutputKeyClass(LongWritable.class);
-        job.setOutputValueClass(JdbcOutputWritable.class);
+        job.setOutputValueClass(JdbcRowWritable.class);
 
         Class<?> clazz = Class.forName(outputSchema.getDriverName());
         String jarFile = ClassUtil.findContainingJar(clazz);
@@ -17,7 +17,6 @@
 package org.schedoscope.export.jdbc;
 
 import com.google.common.collect.ImmutableSet;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
@@ -29,16 +28,15 @@ import org.apache.hive.hcatalog.data.HCatRecord;
 import org.apache.hive.hcatalog.data.schema.HCatSchema;
 import org.apache.hive.hcatalog.mapreduce.HCatInputFormat;
 import org.schedoscope.export.BaseExportJob;
-import org.schedoscope.export.jdbc.outputformat.JdbcOutputWritable;
+import org.schedoscope.export.jdbc.outputformat.JdbcColumnBinder;
+import org.schedoscope.export.jdbc.outputformat.JdbcRowWritable;
 import org.schedoscope.export.jdbc.outputschema.Schema;
 import org.schedoscope.export.jdbc.outputschema.SchemaFactory;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 import org.schedoscope.export.utils.HCatRecordJsonSerializer;
-import org.schedoscope.export.utils.HCatUtils;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -46,50 +44,53 @@ import java.util.Set;
  */
 public class JdbcExportMapper
         extends
-        Mapper<WritableComparable<?>, HCatRecord, LongWritable, JdbcOutputWritable> {
+        Mapper<WritableComparable<?>, HCatRecord, LongWritable, JdbcRowWritable> {
 
     private static final Log LOG = LogFactory.getLog(JdbcExportMapper.class);
 
-    private String[] columnTypes;
-
-    private Map<String, String> typeMapping;
-
-    private HCatSchema inputSchema;
-
     private String inputFilter;
 
     private Configuration conf;
 
-    private HCatRecordJsonSerializer serializer;
+    private JdbcColumnBinder binder;
+
+    private JdbcRowWritable row;
 
-    private Set<String> anonFields;
+    private LongWritable localKey;
 
-    private String salt;
+    private ExportMetrics metrics;
 
     @Override
     protected void setup(Context context) throws IOException,
             InterruptedException {
 
         super.setup(context);
+        metrics = new ExportMetrics(context);
         conf = context.getConfiguration();
-        inputSchema = HCatInputFormat
+        HCatSchema inputSchema = HCatInputFormat
                 .getTableSchema(context.getConfiguration());
 
-        serializer = new HCatRecordJsonSerializer(conf, inputSchema);
+        HCatRecordJsonSerializer serializer = new HCatRecordJsonSerializer(
+                conf, inputSchema);
 
         Schema outputSchema = SchemaFactory.getSchema(context
                 .getConfiguration());
 
         inputFilter = outputSchema.getFilter();
 
-        columnTypes = outputSchema.getColumnTypes();
+        Set<String> anonFields = ImmutableSet.copyOf(conf.getStrings(
+                BaseExportJob.EXPORT_ANON_FIELDS, new String[0]));
 
-        typeMapping = outputSchema.getPreparedStatementTypeMapping();
+        String salt = conf.get(BaseExportJob.EXPORT_ANON_SALT, "");
 
-        anonFields = ImmutableSet.copyOf(conf.getStrings(
-                BaseExportJob.EXPORT_ANON_FIELDS, new String[0]));
+        binder = new JdbcColumnBinder(inputSchema,
+                outputSchema.getColumnTypes(),
+                outputSchema.getPreparedStatementTypeMapping(), serializer,
+                anonFields, salt, inputFilter,
+                outputSchema.getUpsertKeys().length > 0);
 
-        salt = conf.get(BaseExportJob.EXPORT_ANON_SALT, "");
+        row = binder.newRow();
+        localKey = new LongWritable();
 
         LOG.info("Used Filter: " + inputFilter);
     }
@@ -98,38 +99,12 @@ public class JdbcExportMapper
     protected void map(WritableComparable<?> key, HCatRecord value,
                        Context context) throws IOException, InterruptedException {
 
-        List<Pair<String, String>> record = new ArrayList<Pair<String, String>>();
-
-        for (String f : inputSchema.getFieldNames()) {
-
-            String fieldValue = "NULL";
-            String fieldType = typeMapping.get(columnTypes[inputSchema
-                    .getPosition(f)]);
-
-            Object obj = value.get(f, inputSchema);
-            if (obj != null) {
-
-                if (inputSchema.get(f).isComplex()) {
-                    fieldValue = serializer.getFieldAsJson(value, f);
-                } else {
-                    fieldValue = obj.toString();
-                    fieldValue = HCatUtils.getHashValueIfInList(f, fieldValue,
-                            anonFields, salt);
-                }
-            }
-            record.add(Pair.of(fieldType, fieldValue));
-        }
-
-        String filterType = typeMapping
-                .get(columnTypes[columnTypes.length - 1]);
-        if (inputFilter == null) {
-            record.add(Pair.of(filterType, "NULL"));
-        } else {
-            record.add(Pair.of(filterType, inputFilter));
-        }
-
-        LongWritable localKey = new LongWritable(context.getCounter(
-                TaskCounter.MAP_INPUT_RECORDS).getValue());
-        context.write(localKey, new JdbcOutputWritable(record));
+        long start = metrics.start();
+        binder.bind(value, row);
+        metrics.stop(ExportCounter.CONVERSION_TIME_MS, start);
+
+        localKey.set(context.getCounter(TaskCounter.MAP_INPUT_RECORDS)
+                .getValue());
+        context.write(localKey, row);
     }
 }
@@ -0,0 +1,210 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.jdbc.outputformat;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hive.hcatalog.data.HCatRecord;
+import org.apache.hive.hcatalog.data.schema.HCatSchema;
+import org.schedoscope.export.utils.HCatRecordJsonSerializer;
+import org.schedoscope.export.utils.HCatUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The column binder is compiled once per task from the HCatalog schema and the
+ * prepared statement type mapping of the output schema. It copies the values
+ * of a HCatRecord into a reusable {@link JdbcRowWritable} without converting
+ * primitives into strings.
+ */
+public class JdbcColumnBinder {
+
+    private static final Log LOG = LogFactory.getLog(JdbcColumnBinder.class);
+
+    private final JdbcColumnType[] types;
+
+    private final String[] fieldNames;
+
+    private final boolean[] complex;
+
+    private final boolean hasComplex;
+
+    private final HCatRecordJsonSerializer serializer;
+
+    private final Set<String> anonFields;
+
+    private final String salt;
+
+    private final String filter;
+
+    private final boolean rowHash;
+
+    /**
+     * The constructor to compile the binder.
+     *
+     * @param inputSchema The HCatalog schema of the input table.
+     * @param columnTypes The database column types, including the trailing
+     *                    filter column.
+     * @param typeMapping The prepared statement type mapping of the output
+     *                    schema.
+     * @param serializer  The serializer used for complex columns.
+     * @param anonFields  A list of fields to anonymize.
+     * @param salt        An optional salt when anonymizing fields.
+     * @param filter      The input filter, may be null.
+     */
+    public JdbcColumnBinder(HCatSchema inputSchema, String[] columnTypes,
+                            Map<String, String> typeMapping,
+                            HCatRecordJsonSerializer serializer, Set<String> anonFields,
+                            String salt, String filter) {
+
+        this(inputSchema, columnTypes, typeMapping, serializer, anonFields,
+                salt, filter, false);
+    }
+
+    /**
+     * The constructor to compile the binder, optionally with a trailing row
+     * hash column following the filter column.
+     *
+     * @param inputSchema The HCatalog schema of the input table.
+     * @param columnTypes The database column types, including the trailing
+     *                    filter and row hash column.
+     * @param typeMapping The prepared statement type mapping of the output
+     *                    schema.
+     * @param serializer  The serializer used for complex columns.
+     * @param anonFields  A list of fields to anonymize.
+     * @param salt        An optional salt when anonymizing fields.
+     * @param filter      The input filter, may be null.
+     * @param rowHash     A flag indicating if the content hash of the fields
+     *                    is written into a trailing column.
+     */
+    public JdbcColumnBinder(HCatSchema inputSchema, String[] columnTypes,
+                            Map<String, String> typeMapping,
+                            HCatRecordJsonSerializer serializer, Set<String> anonFields,
+                            String salt, String filter, boolean rowHash) {
+
+        int numFields = inputSchema.getFieldNames().size();
+
+        this.types = new JdbcColumnType[numFields + (rowHash ? 2 : 1)];
+        this.fieldNames = new String[numFields];
+        this.complex = new boolean[numFields];
+        this.serializer = serializer;
+        this.anonFields = anonFields;
+        this.salt = salt;
+        this.filter = filter;
+        this.rowHash = rowHash;
+
+        boolean anyComplex = false;
+        for (int i = 0; i < numFields; i++) {
+            fieldNames[i] = inputSchema.get(i).getName();
+            complex[i] = inputSchema.get(i).isComplex();
+            anyComplex |= complex[i];
+            types[i] = resolveType(typeMapping, columnTypes[i]);
+        }
+        this.hasComplex = anyComplex;
+        types[numFields] = resolveType(typeMapping,
+                columnTypes[numFields]);
+        if (rowHash) {
+            types[numFields + 1] = JdbcColumnType.STRING;
+        }
+    }
+
+    private static JdbcColumnType resolveType(Map<String, String> typeMapping,
+                                              String columnType) {
+
+        JdbcColumnType type = JdbcColumnType.forName(typeMapping
+                .get(columnType));
+        if (type == null) {
+            LOG.warn("Unknown column type: " + columnType);
+            type = JdbcColumnType.STRING;
+        }
+        return type;
+    }
+
+    /**
+     * Creates a new row matching the compiled column types.
+     *
+     * @return An empty row.
+     */
+    public JdbcRowWritable newRow() {
+
+        return new JdbcRowWritable(types);
+    }
+
+    /**
+     * Copies all fields of the record and the filter into the given row,
+     * followed by the content hash if enabled.
+     *
+     * @param value The HCatRecord to read from.
+     * @param row   The row to fill, created by {@link #newRow()}.
+     * @throws IOException Is thrown if a complex field can't be serialized.
+     */
+    public void bind(HCatRecord value, JdbcRowWritable row) throws IOException {
+
+        // all complex fields are serialized in a single pass over the record
+        String[] json = hasComplex ? serializer.getComplexFieldsAsJson(value)
+                : null;
+
+        for (int i = 0; i < fieldNames.length; i++) {
+
+            Object obj = value.get(i);
+            if (obj == null) {
+                row.setNull(i);
+                continue;
+            }
+
+            switch (types[i]) {
+                case STRING:
+                    if (complex[i]) {
+                        row.setString(i, json[i]);
+                    } else {
+                        row.setString(i, HCatUtils.getHashValueIfInList(
+                                fieldNames[i], obj.toString(), anonFields, salt));
+                    }
+                    break;
+                case DOUBLE:
+                    row.setDouble(i, obj instanceof Number ? ((Number) obj)
+                            .doubleValue() : Double.parseDouble(obj.toString()));
+                    break;
+                case FLOAT:
+                    // widen via the decimal representation, so 0.1f
+                    // is stored as 0.1 and not as 0.10000000149
+                    row.setDouble(i, Double.parseDouble(obj.toString()));
+                    break;
+                case BOOLEAN:
+                    row.setBoolean(i, obj instanceof Boolean ? (Boolean) obj
+                            : Boolean.parseBoolean(obj.toString()));
+                    break;
+                case INTEGER:
+                case LONG:
+                    row.setLong(i, obj instanceof Number ? ((Number) obj)
+                            .longValue() : Long.parseLong(obj.toString()));
+                    break;
+                default:
+                    row.setString(i, obj.toString());
+            }
+        }
+
+        row.setString(fieldNames.length, filter);
+
+        if (rowHash) {
+            row.setString(fieldNames.length + 1,
+                    row.contentHash(fieldNames.length));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.jdbc.outputformat;
+
+import java.sql.Types;
+import java.util.Locale;
+
+/**
+ * An enum representing the prepared statement types a column can be bound
+ * with, as returned by
+ * {@link org.schedoscope.export.jdbc.outputschema.Schema#getPreparedStatementTypeMapping()}.
+ */
+public enum JdbcColumnType {
+    STRING(Types.VARCHAR),
+    DOUBLE(Types.DOUBLE),
+    FLOAT(Types.FLOAT),
+    BOOLEAN(Types.BOOLEAN),
+    INTEGER(Types.INTEGER),
+    LONG(Types.BIGINT);
+
+    private static final JdbcColumnType[] VALUES = values();
+
+    private final int sqlType;
+
+    JdbcColumnType(int sqlType) {
+        this.sqlType = sqlType;
+    }
+
+    /**
+     * Returns the SQL type used when binding a null value.
+     *
+     * @return The {@link java.sql.Types} constant.
+     */
+    public int getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * Resolves a prepared statement type name, e.g. "string" or "long".
+     *
+     * @param name The prepared statement type name.
+     * @return The column type or null if the name is unknown.
+     */
+    public static JdbcColumnType forName(String name) {
+
+        if (name == null) {
+            return null;
+        }
+
+        String type = name.toLowerCase(Locale.getDefault());
+        if (type.equals("string")) {
+            return STRING;
+        } else if (type.equals("double")) {
+            return DOUBLE;
+        } else if (type.equals("float")) {
+            return FLOAT;
+        } else if (type.equals("boolean")) {
+            return BOOLEAN;
+        } else if (type.equals("int")) {
+            return INTEGER;
+        } else if (type.equals("long")) {
+            return LONG;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the column type for its serialized ordinal.
+     *
+     * @param ordinal The ordinal written by {@link JdbcRowWritable}.
+     * @return The column type.
+     */
+    static JdbcColumnType fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -22,21 +22,44 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.classification.InterfaceStability;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.*;
 import org.apache.hadoop.mapreduce.lib.db.DBWritable;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.hadoop.util.StringUtils;
 import org.schedoscope.export.jdbc.exception.RetryException;
 import org.schedoscope.export.jdbc.exception.UnrecoverableException;
+import org.schedoscope.export.jdbc.outputschema.BulkLoader;
 import org.schedoscope.export.jdbc.outputschema.Schema;
 import org.schedoscope.export.jdbc.outputschema.SchemaFactory;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 import org.schedoscope.export.utils.JdbcQueryUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The JDBC output format is responsible to write data into a database using
@@ -54,9 +77,35 @@ public class JdbcOutputFormat<K, V extends DBWritable> extends
 
     private static final String TMPDB = "TMP_";
 
+    private static final String SHADOW_SUFFIX = "_SHADOW";
+
+    private static final String BACKUP_SUFFIX = "_BACKUP";
+
+    /**
+     * Drops left over temporary tables of previous runs. The temporary tables
+     * are discovered when finalizing the output, so stale tables must not
+     * survive until then.
+     */
     @Override
     public void checkOutputSpecs(JobContext context) throws IOException,
             InterruptedException {
+
+        Schema outputSchema = SchemaFactory.getSchema(context
+                .getConfiguration());
+        String tmpOutputTable = getTablePrefix(outputSchema) + outputSchema.getTable();
+
+        Connection connection = null;
+
+        try {
+            connection = outputSchema.getConnection();
+            JdbcQueryUtils.dropTemporaryOutputTables(JdbcQueryUtils
+                    .findTemporaryOutputTables(tmpOutputTable, connection), connection);
+
+        } catch (SQLException | ClassNotFoundException ex) {
+            throw new IOException(ex.getMessage());
+        } finally {
+            DbUtils.closeQuietly(connection);
+        }
     }
 
     @Override
@@ -69,16 +118,29 @@ public class JdbcOutputFormat<K, V extends DBWritable> extends
 
     /**
      * The JDBC Record Writer is used to write data into a database using a JDBC
-     * connection.
+     * connection. Rows are added to a batch which is executed and committed
+     * once it reaches either the commit size or the maximum size in bytes, so
+     * transactions stay bounded. Batches failing with a transient error are
+     * rolled back and replayed with an exponential backoff, this requires the
+     * values to be {@link Writable}.
      */
     @InterfaceStability.Evolving
     public class JdbcRecordWriter extends RecordWriter<K, V> {
 
         private Connection connection;
         private PreparedStatement statement;
+        private TaskAttemptContext context;
+        private ExportMetrics metrics = new ExportMetrics(null);
         private int rowsInBatch = 0;
-        private int rowsTotal = 0;
+        private long rowsTotal = 0;
         private int commitSize = 25000;
+        private long maxBatchBytes = Long.MAX_VALUE;
+        private int maxRetries = 0;
+        private long retryBackoff = 0;
+        private DataOutputBuffer replayBuffer = new DataOutputBuffer();
+        private boolean replayable = true;
+        private Class<?> valueClass;
+        private V replayRow;
 
         public JdbcRecordWriter() throws SQLException {
         }
@@ -101,6 +163,32 @@ public class JdbcOutputFormat<K, V extends DBWritable> extends
             this.connection.setAutoCommit(false);
         }
 
+        /**
+         * The constructor to initialize the JDBC Record Writer with a byte
+         * bound, retries and counters.
+         *
+         * @param connection    The JDBC connection.
+         * @param statement     The prepared statement.
+         * @param commitSize    The batch size
+         * @param maxBatchBytes The maximum batch size in bytes.
+         * @param maxRetries    The number of retries on transient errors.
+         * @param retryBackoff  The wait time before the first retry in ms.
+         * @param context       The task context to report counters to.
+         * @throws SQLException Is thrown if a error occurs.
+         */
+        public JdbcRecordWriter(Connection connection,
+                                PreparedStatement statement, int commitSize,
+                                long maxBatchBytes, int maxRetries, long retryBackoff,
+                                TaskAttemptContext context) throws SQLException {
+
+            this(connection, statement, commitSize);
+            this.maxBatchBytes = maxBatchBytes;
+            this.maxRetries = maxRetries;
+            this.retryBackoff = retryBackoff;
+            this.context = context;
+            this.metrics = new ExportMetrics(context);
+        }
+
         public Connection getConnection() {
 
             return connection;
@@ -115,47 +203,408 @@ public class JdbcOutputFormat<K, V extends DBWritable> extends
         public void close(TaskAttemptContext context) throws IOException {
 
             try {
-
                 if (rowsInBatch > 0) {
-                    statement.executeBatch();
+                    flushBatch();
                 }
+                LOG.info("wrote " + rowsTotal + " rows");
+            } finally {
+                DbUtils.closeQuietly(statement);
+                DbUtils.closeQuietly(connection);
+            }
+        }
 
-                if (rowsTotal > 0) {
+        @Override
+        public void write(K key, V value) throws IOException {
+
+            long start = metrics.start();
+            try {
+                value.write(statement);
+                statement.addBatch();
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+
+            // the batch is only kept in serialized form if it is needed to
+            // bound its size or to replay it
+            if (maxRetries > 0 || maxBatchBytes < Long.MAX_VALUE) {
+                if (value instanceof Writable) {
+                    ((Writable) value).write(replayBuffer);
+                    valueClass = value.getClass();
+                } else {
+                    replayable = false;
+                }
+            }
+            metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+
+            rowsInBatch++;
+            rowsTotal++;
+
+            if (rowsInBatch >= commitSize
+                    || replayBuffer.getLength() >= maxBatchBytes) {
+                flushBatch();
+            }
+        }
+
+        private void flushBatch() throws IOException {
+
+            // the batch is discarded after it has been written or after it
+            // finally failed and has been rolled back
+            try {
+                executeBatch();
+            } finally {
+                replayBuffer.reset();
+                rowsInBatch = 0;
+            }
+        }
+
+        private void executeBatch() throws IOException {
+
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    long start = metrics.start();
+                    statement.executeBatch();
+                    long executed = metrics.stop(ExportCounter.WRITE_TIME_MS, start);
                     connection.commit();
+                    long committed = metrics.stop(ExportCounter.COMMIT_TIME_MS, executed);
+
+                    increment(JdbcWriteCounter.ROWS_WRITTEN, rowsInBatch);
+                    increment(JdbcWriteCounter.BATCHES, 1);
+                    increment(JdbcWriteCounter.BATCH_TIME_MS, TimeUnit.NANOSECONDS.toMillis(executed - start));
+                    increment(JdbcWriteCounter.COMMITS, 1);
+                    increment(JdbcWriteCounter.COMMIT_TIME_MS, TimeUnit.NANOSECONDS.toMillis(committed - executed));
+                    metrics.addRows(rowsInBatch);
+                    metrics.addBytes(replayBuffer.getLength());
+                    break;
+
+                } catch (SQLException e) {
+                    metrics.addError(e);
+                    rollbackQuietly();
+                    if (attempt >= maxRetries || !replayable
+                            || !JdbcQueryUtils.isTransient(e)) {
+                        throw new IOException(e.getMessage(), e);
+                    }
+                    LOG.warn("transient error, retrying batch of " + rowsInBatch
+                            + " rows: " + e.getMessage());
+                    increment(JdbcWriteCounter.RETRIES, 1);
+                    metrics.addRetries(1);
+                    backoff(attempt);
+                    replayBatch();
+                }
+            }
+        }
+
+        /**
+         * Writes a batch of serialized rows, used by the asynchronous writer.
+         * The batch buffer is reset once the rows are committed.
+         */
+        private void writeBatch(DataOutputBuffer batch, int rows,
+                                Class<?> batchValueClass) throws IOException {
+
+            replayBuffer = batch;
+            rowsInBatch = rows;
+            rowsTotal += rows;
+            valueClass = batchValueClass;
+            replayBatch();
+            flushBatch();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void replayBatch() throws IOException {
+
+            try {
+                statement.clearBatch();
+
+                DataInputBuffer in = new DataInputBuffer();
+                in.reset(replayBuffer.getData(), replayBuffer.getLength());
+                for (int i = 0; i < rowsInBatch; i++) {
+                    if (replayRow == null) {
+                        replayRow = (V) ReflectionUtils.newInstance(valueClass,
+                                null);
+                    }
+                    ((Writable) replayRow).readFields(in);
+                    replayRow.write(statement);
+                    statement.addBatch();
+                }
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        private void backoff(int attempt) throws IOException {
+
+            try {
+                Thread.sleep(retryBackoff << Math.min(attempt, 16));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while retrying batch", e);
+            }
+            if (context != null) {
+                context.progress();
+            }
+        }
+
+        private void rollbackQuietly() {
+
+            try {
+                connection.rollback();
+            } catch (SQLException ex) {
+                LOG.warn(StringUtils.stringifyException(ex));
+            }
+        }
+
+        private void increment(JdbcWriteCounter counter, long value) {
+
+            if (context != null) {
+                context.getCounter(counter).increment(value);
+            }
+        }
+    }
+
+    /**
+     * The JDBC Async Record Writer decouples the task thread from the
+     * database round trips. Rows are serialized into one of two buffers,
+     * while one batch is written by a background thread the next batch is
+     * filled. If the background thread falls behind, the task thread waits
+     * for it before handing over the next batch. The batches are written with
+     * a {@link JdbcRecordWriter} on the task's connection, so the commit
+     * size, byte bound, retries and counters apply as well.
+     */
+    @InterfaceStability.Evolving
+    public class JdbcAsyncRecordWriter extends RecordWriter<K, V> {
+
+        private JdbcRecordWriter writer;
+        private int commitSize;
+        private long maxBatchBytes;
+        private ExecutorService executor;
+        private Future<Void> inFlight;
+        private DataOutputBuffer current = new DataOutputBuffer();
+        private DataOutputBuffer spare = new DataOutputBuffer();
+        private int rowsInCurrent = 0;
+        private Class<?> valueClass;
+        private boolean failed = false;
+
+        /**
+         * The constructor to initialize the JDBC Async Record Writer.
+         *
+         * @param writer        The writer used by the background thread.
+         * @param commitSize    The batch size.
+         * @param maxBatchBytes The maximum batch size in bytes.
+         */
+        public JdbcAsyncRecordWriter(JdbcRecordWriter writer, int commitSize,
+                                     long maxBatchBytes) {
+
+            this.writer = writer;
+            this.commitSize = commitSize;
+            this.maxBatchBytes = maxBatchBytes;
+            this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "jdbc-flush");
+                    thread.setDaemon(true);
+                    return thread;
                 }
+            });
+        }
+
+        @Override
+        public void write(K key, V value) throws IOException {
+
+            if (!(value instanceof Writable)) {
+                throw new IOException("asynchronous writes require "
+                        + Writable.class.getSimpleName() + " values");
+            }
+
+            // only the task thread records serialization times, the
+            // background thread records the write and commit times
+            long start = writer.metrics.start();
+            ((Writable) value).write(current);
+            writer.metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+            valueClass = value.getClass();
+            rowsInCurrent++;
+
+            if (rowsInCurrent >= commitSize
+                    || current.getLength() >= maxBatchBytes) {
+                handOver();
+            }
+        }
+
+        private void handOver() throws IOException {
+
+            awaitInFlight();
+
+            final DataOutputBuffer batch = current;
+            final int rows = rowsInCurrent;
+            final Class<?> batchValueClass = valueClass;
+
+            current = spare;
+            spare = batch;
+            rowsInCurrent = 0;
+
+            inFlight = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    writer.writeBatch(batch, rows, batchValueClass);
+                    return null;
+                }
+            });
+        }
+
+        private void awaitInFlight() throws IOException {
+
+            if (inFlight == null) {
+                return;
+            }
+
+            try {
+                inFlight.get();
+            } catch (ExecutionException e) {
+                failed = true;
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                failed = true;
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while writing batch", e);
+            } finally {
+                inFlight = null;
+            }
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) throws IOException {
+
+            try {
+                if (rowsInCurrent > 0 && !failed) {
+                    handOver();
+                }
+                awaitInFlight();
+            } finally {
+                executor.shutdownNow();
+                writer.close(context);
+            }
+        }
+    }
+
+    /**
+     * The JDBC Bulk Record Writer collects rows as CSV in memory and writes
+     * each chunk with the native bulk loader of the database dialect. Every
+     * chunk is committed separately.
+     */
+    @InterfaceStability.Evolving
+    public class JdbcBulkRecordWriter extends RecordWriter<K, V> {
+
+        private Connection connection;
+        private BulkLoader loader;
+        private String table;
+        private String[] columnNames;
+        private int commitSize;
+        private ChunkBuffer chunk = new ChunkBuffer();
+        private Writer chunkWriter = new OutputStreamWriter(chunk,
+                StandardCharsets.UTF_8);
+        private int rowsInChunk = 0;
+        private TaskAttemptContext context;
+        private ExportMetrics metrics;
+
+        /**
+         * The constructor to initialize the JDBC Bulk Record Writer.
+         *
+         * @param connection  The JDBC connection.
+         * @param loader      The bulk loader of the database dialect.
+         * @param table       The table to write to.
+         * @param columnNames The column names.
+         * @param commitSize  The number of rows per chunk.
+         * @param context     The task context to report counters to.
+         * @throws SQLException Is thrown if a error occurs.
+         */
+        public JdbcBulkRecordWriter(Connection connection, BulkLoader loader,
+                                    String table, String[] columnNames, int commitSize,
+                                    TaskAttemptContext context) throws SQLException {
+
+            this.connection = connection;
+            this.loader = loader;
+            this.table = table;
+            this.columnNames = columnNames;
+            this.commitSize = commitSize;
+            this.context = context;
+            this.metrics = new ExportMetrics(context);
+            this.connection.setAutoCommit(false);
+        }
+
+        @Override
+        public void write(K key, V value) throws IOException {
+
+            if (!(value instanceof JdbcRowWritable)) {
+                throw new IOException("bulk load requires "
+                        + JdbcRowWritable.class.getSimpleName() + " values");
+            }
 
+            long start = metrics.start();
+            ((JdbcRowWritable) value).writeCsv(chunkWriter,
+                    loader.getNullToken());
+            metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+            rowsInChunk++;
+
+            if (rowsInChunk >= commitSize) {
+                flushChunk();
+            }
+        }
+
+        private void flushChunk() throws IOException {
+
+            chunkWriter.flush();
+            try {
+                long start = metrics.start();
+                loader.load(connection, table, columnNames,
+                        chunk.toInputStream());
+                long loaded = metrics.stop(ExportCounter.WRITE_TIME_MS, start);
+                connection.commit();
+                long committed = metrics.stop(ExportCounter.COMMIT_TIME_MS, loaded);
+
+                context.getCounter(JdbcWriteCounter.ROWS_WRITTEN).increment(rowsInChunk);
+                context.getCounter(JdbcWriteCounter.BATCHES).increment(1);
+                context.getCounter(JdbcWriteCounter.BATCH_TIME_MS).increment(TimeUnit.NANOSECONDS.toMillis(loaded - start));
+                context.getCounter(JdbcWriteCounter.COMMITS).increment(1);
+                context.getCounter(JdbcWriteCounter.COMMIT_TIME_MS).increment(TimeUnit.NANOSECONDS.toMillis(committed - loaded));
+                metrics.addRows(rowsInChunk);
+                metrics.addBytes(chunk.size());
             } catch (SQLException e) {
+                metrics.addError(e);
                 try {
                     connection.rollback();
                 } catch (SQLException ex) {
                     LOG.warn(StringUtils.stringifyException(ex));
                 }
-                throw new IOException(e.getMessage());
-            } finally {
-                DbUtils.closeQuietly(statement);
-                DbUtils.closeQuietly(connection);
+                throw new IOException(e.getMessage(), e);
             }
+            chunk.reset();
+            rowsInChunk = 0;
         }
 
         @Override
-        public void write(K key, V value) throws IOException {
+        public void close(TaskAttemptContext context) throws IOException {
 
             try {
-                value.write(statement);
-                statement.addBatch();
-                if (rowsInBatch == commitSize) {
-                    statement.executeBatch();
-                    rowsInBatch = 0;
-                } else {
-                    rowsInBatch++;
-                    rowsTotal++;
+                if (rowsInChunk > 0) {
+                    flushChunk();
                 }
-            } catch (SQLException e) {
-                e.printStackTrace();
+            } finally {
+                DbUtils.closeQuietly(connection);
             }
         }
     }
 
+    /**
+     * A byte array stream whose content can be read without copying.
+     */
+    private static class ChunkBuffer extends ByteArrayOutputStream {
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
     @Override
     public RecordWriter<K, V> getRecordWriter(TaskAttemptContext context)
             throws IOException {
@@ -165,10 +614,8 @@ public class JdbcOutputFormat<K, V extends DBWritable> extends
 
         String tmpOutputTable = getTablePrefix(outputSchema) + outputSchema.getTable() + "_"
                 + context.getTaskAttemptID().getTaskID().getId();
-        String createTableQuery = outputSchema.getCreateTableQuery();
-
-        createTableQuery = createTableQuery.replace(outputSchema.getTable(),
-                tmpOutputTable);
+        String createTableQuery = outputSchema
+                .getCreateTableQuery(tmpOutputTable);
 
         int commitSize = outputSchema.getCommitSize();
         String[] fieldNames = outputSchema.getColumnNames();
@@ -179,11 +626,31 @@ public class JdbcOutputFormat<K, V extends DBWritable> extends
             JdbcQueryUtils.dropTable(tmpOutputTable, connection);
             JdbcQueryUtils.createTable(createTableQuery, connection);
 
+            if (outputSchema.isBulkLoad()) {
+                BulkLoader loader = outputSchema.getBulkLoader();
+                if (loader != null) {
+                    return new JdbcBulkRecordWriter(connection, loader,
+                            tmpOutputTable, fieldNames, commitSize, context);
+                }
+                LOG.info("no bulk loader available for "
+                        + outputSchema.getClass().getSimpleName()
+                        + ", falling back to batched inserts");
+            }
+
             PreparedStatement statement = null;
             statement = connection.prepareStatement(JdbcQueryUtils
                     .createInsertQuery(tmpOutputTable, fieldNames));
 
-            return new JdbcRecordWriter(connection, statement, commitSize);
+            JdbcRecordWriter writer = new JdbcRecordWriter(connection,
+                    statement, commitSize, outputSchema.getBatchMaxBytes(),
+                    outputSchema.getMaxRetries(), outputSchema.getRetryBackoff(),
+                    context);
+
+            if (outputSchema.isAsyncWrite()) {
+                return new JdbcAsyncRecordWriter(writer, commitSize,
+                        outputSchema.getBatchMaxBytes());
+            }
+            return writer;
 
         } catch (Exception ex) {
             throw new IOException(ex.getMessage());
@@ -229,9 +696,72 @@ public class JdbcOutputFormat<K, V extends DBWritable> extends
                 columnsTypes);
     }
 
+    /**
+     * Enables writing the rows with the native bulk loader of the database
+     * dialect, if there is one.
+     *
+     * @param conf     The Hadoop configuration object.
+     * @param bulkLoad A flag indicating if the bulk loader should be used.
+     */
+    public static void setBulkLoad(Configuration conf, boolean bulkLoad) {
+
+        conf.setBoolean(Schema.JDBC_BULK_LOAD, bulkLoad);
+    }
+
+    /**
+     * Enables writing the batches in a background thread, while the task
+     * thread fills the next batch.
+     *
+     * @param conf       The Hadoop configuration object.
+     * @param asyncWrite A flag indicating if batches are written
+     *                   asynchronously.
+     */
+    public static void setAsyncWrite(Configuration conf, boolean asyncWrite) {
+
+        conf.setBoolean(Schema.JDBC_ASYNC_WRITE, asyncWrite);
+    }
+
+    /**
+     * Enables the upsert mode, the rows are merged into the output table by
+     * the given key columns. Rows whose row hash is unchanged are skipped.
+     * If the output table doesn't exist, it is created with the key columns
+     * as primary key.
+     *
+     * @param conf       The Hadoop configuration object.
+     * @param upsertKeys The key columns, empty to disable the upsert mode.
+     */
+    public static void setUpsertKeys(Configuration conf, String[] upsertKeys) {
+
+        conf.setStrings(Schema.JDBC_UPSERT_KEYS, upsertKeys);
+    }
+
+    /**
+     * Enables building the output table under a shadow name and swapping it
+     * into place once all partitions have been merged, so readers never see
+     * an empty or partially filled table.
+     *
+     * @param conf             The Hadoop configuration object.
+     * @param atomicSwap       A flag indicating if the output table should be
+     *                         swapped into place.
+     * @param mergeParallelism The number of connections used to merge the
+     *                         partition tables, not used in upsert mode.
+     */
+    public static void setFinalizeStrategy(Configuration conf,
+                                           boolean atomicSwap, int mergeParallelism) {
+
+        conf.setBoolean(Schema.JDBC_ATOMIC_SWAP, atomicSwap);
+        conf.setInt(Schema.JDBC_MERGE_PARALLELISM, mergeParallelism);
+    }
+
     /**
      * This function finalizes the JDBC export, it merges all partitions and
-     * drops the temporary tables, optionally updates the output table.
+     * drops the temporary tables, optionally updates the output table. The
+     * temporary tables are looked up in the database, so this works for
+     * reducer as well as for map-only exports. The partitions are merged in
+     * parallel, either directly into the output table or, if atomic swap is
+     * enabled, into a shadow table which replaces the output table at the
+     * end. In upsert mode the partitions are merged into the output table by
+     * key instead, one partition after another.
      *
      * @param conf The Hadoop configuration object.
      * @throws RetryException         Is thrown if a SQL error occurs.
@@ -241,29 +771,29 @@ public class JdbcOutputFormat<K, V extends DBWritable> extends
             throws RetryException, UnrecoverableException {
 
         Schema outputSchema = SchemaFactory.getSchema(conf);
-        String outputTable = outputSchema.getTable();
         String tmpOutputTable = getTablePrefix(outputSchema) + outputSchema.getTable();
-        String createTableStatement = outputSchema.getCreateTableQuery();
-        String inputFilter = outputSchema.getFilter();
-        int outputNumberOfPartitions = outputSchema.getNumberOfPartitions();
 
         Connection connection = null;
 
         try {
             connection = outputSchema.getConnection();
 
-            if (inputFilter != null) {
-                JdbcQueryUtils.deleteExisitingRows(outputTable, inputFilter,
-                        connection);
+            List<String> tmpOutputTables = JdbcQueryUtils
+                    .findTemporaryOutputTables(tmpOutputTable, connection);
+
+            if (outputSchema.getUpsertKeys().length > 0) {
+                if (outputSchema.isAtomicSwap()) {
+                    LOG.warn("atomic swap is not supported in upsert mode");
+                }
+                upsertOutput(outputSchema, tmpOutputTables, connection);
+            } else if (outputSchema.isAtomicSwap()) {
+                swapOutput(outputSchema, tmpOutputTables, connection);
             } else {
-                JdbcQueryUtils.dropTable(outputTable, connection);
+                replaceOutput(outputSchema, tmpOutputTables, connection);
             }
 
-            JdbcQueryUtils.createTable(createTableStatement, connection);
-            JdbcQueryUtils.mergeOutput(outputTable, getTablePrefix(outputSchema),
-                    outputNumberOfPartitions, connection);
-            JdbcQueryUtils.dropTemporaryOutputTables(tmpOutputTable,
-                    outputNumberOfPartitions, connection);
+            JdbcQueryUtils.dropTemporaryOutputTables(tmpOutputTables,
+                    connection);
 
         } catch (SQLException ex1) {
             LOG.error(ex1.getMessage());
@@ -276,6 +806,171 @@ public class JdbcOutputFormat<K, V extends DBWritable> extends
         }
     }
 
+    private static void replaceOutput(Schema outputSchema,
+                                      List<String> tmpOutputTables, Connection connection)
+            throws SQLException, ClassNotFoundException {
+
+        String outputTable = outputSchema.getTable();
+        String inputFilter = outputSchema.getFilter();
+
+        if (inputFilter != null) {
+            JdbcQueryUtils.deleteExisitingRows(outputTable, inputFilter,
+                    connection);
+        } else {
+            JdbcQueryUtils.dropTable(outputTable, connection);
+        }
+
+        JdbcQueryUtils.createTable(outputSchema.getCreateTableQuery(),
+                connection);
+        mergeOutput(outputSchema, outputTable, tmpOutputTables,
+                Collections.<String>emptyList());
+    }
+
+    private static void swapOutput(Schema outputSchema,
+                                   List<String> tmpOutputTables, Connection connection)
+            throws SQLException, ClassNotFoundException {
+
+        String outputTable = outputSchema.getTable();
+        String shadowTable = getTablePrefix(outputSchema) + outputTable + SHADOW_SUFFIX;
+        String backupTable = getTablePrefix(outputSchema) + outputTable + BACKUP_SUFFIX;
+        String inputFilter = outputSchema.getFilter();
+        boolean outputExists = JdbcQueryUtils.tableExists(outputTable,
+                connection);
+
+        JdbcQueryUtils.dropTable(shadowTable, connection);
+        JdbcQueryUtils.dropTable(backupTable, connection);
+        JdbcQueryUtils.executeUpdate(outputSchema
+                .getCreateTableQuery(shadowTable), connection);
+
+        try {
+            // rows of other filters are kept, they are copied alongside
+            // the partitions
+            List<String> copyQueries = Collections.emptyList();
+            if (inputFilter != null && outputExists) {
+                copyQueries = Collections.singletonList(JdbcQueryUtils
+                        .createCopyRowsQuery(shadowTable, outputTable,
+                                inputFilter));
+            }
+            mergeOutput(outputSchema, shadowTable, tmpOutputTables,
+                    copyQueries);
+
+            if (outputExists) {
+                JdbcQueryUtils.executeInTransaction(outputSchema
+                                .getSwapTableQueries(outputTable, shadowTable, backupTable),
+                        connection);
+            } else {
+                JdbcQueryUtils.executeUpdate(outputSchema.getRenameTableQuery(
+                        shadowTable, outputTable), connection);
+            }
+
+        } catch (SQLException e) {
+            JdbcQueryUtils.dropTable(shadowTable, connection);
+            throw e;
+        }
+
+        LOG.info("swapped " + shadowTable + " into " + outputTable);
+        JdbcQueryUtils.dropTable(backupTable, connection);
+    }
+
+    private static void upsertOutput(Schema outputSchema,
+                                     List<String> tmpOutputTables, Connection connection)
+            throws SQLException, ClassNotFoundException {
+
+        String outputTable = outputSchema.getTable();
+        String[] upsertKeys = outputSchema.getUpsertKeys();
+
+        if (!JdbcQueryUtils.tableExists(outputTable, connection)) {
+            JdbcQueryUtils.createTable(outputSchema.getCreateTableQuery(
+                    outputTable, upsertKeys), connection);
+        }
+
+        // the partitions are upserted one after another in task order,
+        // parallel upserts into the same table lock the same keys and would
+        // leave the winner of a duplicated key to chance
+        for (String tmpOutputTable : tmpOutputTables) {
+            String upsertQuery = outputSchema.getUpsertQuery(outputTable,
+                    tmpOutputTable, outputSchema.getColumnNames(), upsertKeys);
+            LOG.info("Upsert output: ");
+            LOG.info(upsertQuery);
+            JdbcQueryUtils.executeUpdate(upsertQuery, connection);
+        }
+    }
+
+    /**
+     * Merges the temporary tables into the given table. The temporary tables
+     * are split into chunks, every chunk is merged by its own connection. The
+     * additional queries are run alongside the chunks.
+     */
+    private static void mergeOutput(Schema outputSchema, String table,
+                                    List<String> tmpOutputTables, List<String> additionalQueries)
+            throws SQLException, ClassNotFoundException {
+
+        int numberOfChunks = Math.min(outputSchema.getMergeParallelism(),
+                tmpOutputTables.size());
+
+        List<String> queries = new ArrayList<String>(additionalQueries);
+        for (int i = 0; i < numberOfChunks; i++) {
+            List<String> chunk = new ArrayList<String>();
+            for (int j = i; j < tmpOutputTables.size(); j += numberOfChunks) {
+                chunk.add(tmpOutputTables.get(j));
+            }
+            queries.add(JdbcQueryUtils.createMergeQuery(table, chunk));
+        }
+
+        executeParallel(outputSchema, table, queries, queries.size());
+    }
+
+    /**
+     * Executes the given statements, each on its own connection, with at
+     * most the given number of connections at a time.
+     */
+    private static void executeParallel(final Schema outputSchema,
+                                        String table, List<String> queries, int parallelism)
+            throws SQLException, ClassNotFoundException {
+
+        if (queries.isEmpty()) {
+            LOG.info("No temporary tables to merge into " + table);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+                parallelism, queries.size()));
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (final String query : queries) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        Connection connection = outputSchema.getConnection();
+                        try {
+                            JdbcQueryUtils.executeUpdate(query, connection);
+                        } finally {
+                            DbUtils.closeQuietly(connection);
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> result : results) {
+                result.get();
+            }
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            } else if (e.getCause() instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) e.getCause();
+            }
+            throw new SQLException("merge into " + table + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("merge into " + table + " interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * This function is called if the MR job doesn't finish successfully.
      *
@@ -288,14 +983,13 @@ public class JdbcOutputFormat<K, V extends DBWritable> extends
 
         Schema outputSchema = SchemaFactory.getSchema(conf);
         String tmpOutputTable = getTablePrefix(outputSchema) + outputSchema.getTable();
-        int outputNumberOfPartitions = outputSchema.getNumberOfPartitions();
 
         Connection connection = null;
 
         try {
             connection = outputSchema.getConnection();
-            JdbcQueryUtils.dropTemporaryOutputTables(tmpOutputTable,
-                    outputNumberOfPartitions, connection);
+            JdbcQueryUtils.dropTemporaryOutputTables(JdbcQueryUtils
+                    .findTemporaryOutputTables(tmpOutputTable, connection), connection);
 
         } catch (SQLException ex1) {
             LOG.error(ex1.getMessage());
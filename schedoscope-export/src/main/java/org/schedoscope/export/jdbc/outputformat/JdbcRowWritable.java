@@ -0,0 +1,376 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.jdbc.outputformat;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.hadoop.io.MD5Hash;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.lib.db.DBWritable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A typed writable holding a single database row. Primitive values are kept
+ * and serialized in binary form (a null bitmap followed by fixed-width
+ * values), so no string conversion happens between the mapper and the
+ * prepared statement. Instances are meant to be reused across records.
+ */
+public class JdbcRowWritable implements Writable, DBWritable {
+
+    private JdbcColumnType[] types;
+
+    private byte[] nulls;
+
+    private long[] longs;
+
+    private double[] doubles;
+
+    private String[] strings;
+
+    /**
+     * Default constructor, used by Hadoop when deserializing.
+     */
+    public JdbcRowWritable() {
+
+        this(new JdbcColumnType[0]);
+    }
+
+    /**
+     * Constructor to initialize a row with the given column types.
+     *
+     * @param types The column types, order is important.
+     */
+    public JdbcRowWritable(JdbcColumnType[] types) {
+
+        init(types.clone());
+    }
+
+    private void init(JdbcColumnType[] types) {
+
+        this.types = types;
+        this.nulls = new byte[(types.length + 7) / 8];
+        this.longs = new long[types.length];
+        this.doubles = new double[types.length];
+        this.strings = new String[types.length];
+    }
+
+    public int size() {
+
+        return types.length;
+    }
+
+    public JdbcColumnType getType(int i) {
+
+        return types[i];
+    }
+
+    public boolean isNull(int i) {
+
+        return (nulls[i >> 3] & (1 << (i & 7))) != 0;
+    }
+
+    public long getLong(int i) {
+
+        return longs[i];
+    }
+
+    public double getDouble(int i) {
+
+        return doubles[i];
+    }
+
+    public boolean getBoolean(int i) {
+
+        return longs[i] != 0;
+    }
+
+    public String getString(int i) {
+
+        return strings[i];
+    }
+
+    public void setNull(int i) {
+
+        nulls[i >> 3] |= (1 << (i & 7));
+        strings[i] = null;
+    }
+
+    public void setLong(int i, long value) {
+
+        clearNull(i);
+        longs[i] = value;
+    }
+
+    public void setDouble(int i, double value) {
+
+        clearNull(i);
+        doubles[i] = value;
+    }
+
+    public void setBoolean(int i, boolean value) {
+
+        clearNull(i);
+        longs[i] = value ? 1L : 0L;
+    }
+
+    public void setString(int i, String value) {
+
+        if (value == null) {
+            setNull(i);
+        } else {
+            clearNull(i);
+            strings[i] = value;
+        }
+    }
+
+    private void clearNull(int i) {
+
+        nulls[i >> 3] &= ~(1 << (i & 7));
+    }
+
+    @Override
+    public void write(PreparedStatement ps) throws SQLException {
+
+        for (int i = 0; i < types.length; i++) {
+
+            if (isNull(i)) {
+                ps.setNull(i + 1, types[i].getSqlType());
+                continue;
+            }
+
+            switch (types[i]) {
+                case STRING:
+                    ps.setString(i + 1, strings[i]);
+                    break;
+                case DOUBLE:
+                case FLOAT:
+                    ps.setDouble(i + 1, doubles[i]);
+                    break;
+                case BOOLEAN:
+                    ps.setBoolean(i + 1, longs[i] != 0);
+                    break;
+                case INTEGER:
+                    ps.setInt(i + 1, (int) longs[i]);
+                    break;
+                case LONG:
+                    ps.setLong(i + 1, longs[i]);
+                    break;
+                default:
+                    throw new SQLException("Unknown column type: " + types[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes the row as a single CSV line as expected by a
+     * {@link org.schedoscope.export.jdbc.outputschema.BulkLoader}. Strings
+     * are always quoted, so the unquoted null token can't be mistaken for a
+     * value.
+     *
+     * @param out       The writer to write the line to.
+     * @param nullToken The unquoted token representing a null value.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    public void writeCsv(Writer out, String nullToken) throws IOException {
+
+        for (int i = 0; i < types.length; i++) {
+
+            if (i > 0) {
+                out.write(',');
+            }
+
+            if (isNull(i)) {
+                out.write(nullToken);
+                continue;
+            }
+
+            switch (types[i]) {
+                case STRING:
+                    writeQuoted(out, strings[i]);
+                    break;
+                case DOUBLE:
+                case FLOAT:
+                    out.write(Double.toString(doubles[i]));
+                    break;
+                case BOOLEAN:
+                    out.write(longs[i] != 0 ? '1' : '0');
+                    break;
+                case INTEGER:
+                case LONG:
+                    out.write(Long.toString(longs[i]));
+                    break;
+                default:
+                    throw new IOException("Unknown column type: " + types[i]);
+            }
+        }
+        out.write('\n');
+    }
+
+    private static void writeQuoted(Writer out, String value) throws IOException {
+
+        out.write('"');
+        int start = 0;
+        int quote = value.indexOf('"');
+        while (quote >= 0) {
+            out.write(value, start, quote - start + 1);
+            out.write('"');
+            start = quote + 1;
+            quote = value.indexOf('"', start);
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+    /**
+     * Computes the MD5 hash of the first columns of the row, it changes if
+     * any value, type or null flag of these columns changes.
+     *
+     * @param numColumns The number of columns to include.
+     * @return The hash as hex string.
+     */
+    public String contentHash(int numColumns) {
+
+        MessageDigest digest = MD5Hash.getDigester();
+
+        for (int i = 0; i < numColumns; i++) {
+
+            digest.update((byte) types[i].ordinal());
+            if (isNull(i)) {
+                digest.update((byte) 0);
+                continue;
+            }
+            digest.update((byte) 1);
+
+            switch (types[i]) {
+                case STRING:
+                    byte[] bytes = strings[i].getBytes(StandardCharsets.UTF_8);
+                    updateDigest(digest, bytes.length);
+                    digest.update(bytes);
+                    break;
+                case DOUBLE:
+                case FLOAT:
+                    updateDigest(digest, Double.doubleToLongBits(doubles[i]));
+                    break;
+                default:
+                    updateDigest(digest, longs[i]);
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private static void updateDigest(MessageDigest digest, long value) {
+
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            digest.update((byte) (value >>> shift));
+        }
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+
+        WritableUtils.writeVInt(out, types.length);
+        for (JdbcColumnType type : types) {
+            out.writeByte(type.ordinal());
+        }
+        out.write(nulls);
+
+        for (int i = 0; i < types.length; i++) {
+
+            if (isNull(i)) {
+                continue;
+            }
+
+            switch (types[i]) {
+                case STRING:
+                    Text.writeString(out, strings[i]);
+                    break;
+                case DOUBLE:
+                case FLOAT:
+                    out.writeDouble(doubles[i]);
+                    break;
+                case BOOLEAN:
+                    out.writeBoolean(longs[i] != 0);
+                    break;
+                case INTEGER:
+                    out.writeInt((int) longs[i]);
+                    break;
+                case LONG:
+                    out.writeLong(longs[i]);
+                    break;
+                default:
+                    throw new IOException("Unknown column type: " + types[i]);
+            }
+        }
+    }
+
+    @Override
+    public void readFields(ResultSet resultSet) throws SQLException {
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+
+        int size = WritableUtils.readVInt(in);
+        if (size != types.length) {
+            init(new JdbcColumnType[size]);
+        }
+
+        for (int i = 0; i < size; i++) {
+            types[i] = JdbcColumnType.fromOrdinal(in.readByte());
+        }
+        in.readFully(nulls);
+
+        for (int i = 0; i < size; i++) {
+
+            if (isNull(i)) {
+                strings[i] = null;
+                continue;
+            }
+
+            switch (types[i]) {
+                case STRING:
+                    strings[i] = Text.readString(in);
+                    break;
+                case DOUBLE:
+                case FLOAT:
+                    doubles[i] = in.readDouble();
+                    break;
+                case BOOLEAN:
+                    longs[i] = in.readBoolean() ? 1L : 0L;
+                    break;
+                case INTEGER:
+                    longs[i] = in.readInt();
+                    break;
+                case LONG:
+                    longs[i] = in.readLong();
+                    break;
+                default:
+                    throw new IOException("Unknown column type: " + types[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.jdbc.outputformat;
+
+/**
+ * Counts the rows, batches, commits and retries of the JDBC record writers.
+ * The times are summed up in milliseconds, divided by the number of batches
+ * or commits they give the average latency.
+ */
+public enum JdbcWriteCounter {
+    ROWS_WRITTEN, BATCHES, BATCH_TIME_MS, COMMITS, COMMIT_TIME_MS, RETRIES
+}
@@ -23,7 +23,11 @@ import org.apache.hadoop.conf.Configuration;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -62,6 +66,87 @@ public abstract class AbstractSchema implements Schema {
         return conf.get(Schema.JDBC_CREATE_TABLE_QUERY);
     }
 
+    @Override
+    public String getCreateTableQuery(String table) {
+        return buildCreateTableStatement(table, getColumnNames(),
+                getColumnTypes());
+    }
+
+    @Override
+    public String getCreateTableQuery(String table, String[] primaryKey) {
+        return buildCreateTableStatement(table, getColumnNames(),
+                getColumnTypes(), primaryKey);
+    }
+
+    @Override
+    public String[] getUpsertKeys() {
+        return conf.getStrings(Schema.JDBC_UPSERT_KEYS, new String[0]);
+    }
+
+    /**
+     * Creates a standard SQL MERGE statement, unchanged rows are skipped by
+     * a refinement of the WHEN MATCHED clause.
+     */
+    @Override
+    public String getUpsertQuery(String table, String sourceTable,
+                                 String[] columnNames, String[] keyColumns) {
+
+        StringBuilder upsertQuery = new StringBuilder();
+        upsertQuery.append("MERGE INTO ");
+        upsertQuery.append(table);
+        upsertQuery.append(" tgt USING ");
+        upsertQuery.append(sourceTable);
+        upsertQuery.append(" src ON ");
+        upsertQuery.append(getJoinCondition(keyColumns));
+        upsertQuery.append("\nWHEN MATCHED AND tgt.");
+        upsertQuery.append(JDBC_ROW_HASH_COLUMN);
+        upsertQuery.append(" <> src.");
+        upsertQuery.append(JDBC_ROW_HASH_COLUMN);
+        upsertQuery.append(" THEN UPDATE SET ");
+        upsertQuery.append(getUpdateAssignments(columnNames, keyColumns,
+                "src."));
+        upsertQuery.append("\nWHEN NOT MATCHED THEN INSERT (");
+        upsertQuery.append(String.join(",", columnNames));
+        upsertQuery.append(") VALUES (");
+        upsertQuery.append(getQualifiedColumns(columnNames, "src."));
+        upsertQuery.append(")");
+        return upsertQuery.toString();
+    }
+
+    protected String getJoinCondition(String[] keyColumns) {
+
+        List<String> conditions = new ArrayList<String>();
+        for (String key : keyColumns) {
+            conditions.add("tgt." + key + " = src." + key);
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    /**
+     * Returns the assignments of all non key columns, e.g. "a = src.a".
+     */
+    protected String getUpdateAssignments(String[] columnNames,
+                                          String[] keyColumns, String valuePrefix) {
+
+        List<String> keys = Arrays.asList(keyColumns);
+        List<String> assignments = new ArrayList<String>();
+        for (String column : columnNames) {
+            if (!keys.contains(column)) {
+                assignments.add(column + " = " + valuePrefix + column);
+            }
+        }
+        return String.join(", ", assignments);
+    }
+
+    protected String getQualifiedColumns(String[] columnNames, String prefix) {
+
+        List<String> columns = new ArrayList<String>();
+        for (String column : columnNames) {
+            columns.add(prefix + column);
+        }
+        return String.join(",", columns);
+    }
+
     @Override
     public int getNumberOfPartitions() {
         return conf.getInt(Schema.JDBC_NUMBER_OF_PARTITIONS, 1);
@@ -72,11 +157,63 @@ public abstract class AbstractSchema implements Schema {
         return conf.getInt(Schema.JDBC_COMMIT_SIZE, 1);
     }
 
+    @Override
+    public long getBatchMaxBytes() {
+        return conf.getLong(Schema.JDBC_BATCH_MAX_BYTES, 16L * 1024 * 1024);
+    }
+
+    @Override
+    public int getMaxRetries() {
+        return conf.getInt(Schema.JDBC_MAX_RETRIES, 3);
+    }
+
+    @Override
+    public long getRetryBackoff() {
+        return conf.getLong(Schema.JDBC_RETRY_BACKOFF_MS, 1000);
+    }
+
     @Override
     public String getFilter() {
         return conf.get(Schema.JDBC_INPUT_FILTER);
     }
 
+    @Override
+    public boolean isBulkLoad() {
+        return conf.getBoolean(Schema.JDBC_BULK_LOAD, false);
+    }
+
+    @Override
+    public BulkLoader getBulkLoader() {
+        return null;
+    }
+
+    @Override
+    public boolean isAsyncWrite() {
+        return conf.getBoolean(Schema.JDBC_ASYNC_WRITE, false);
+    }
+
+    @Override
+    public boolean isAtomicSwap() {
+        return conf.getBoolean(Schema.JDBC_ATOMIC_SWAP, false);
+    }
+
+    @Override
+    public int getMergeParallelism() {
+        return Math.max(1, conf.getInt(Schema.JDBC_MERGE_PARALLELISM, 1));
+    }
+
+    @Override
+    public List<String> getSwapTableQueries(String table, String shadowTable,
+                                            String backupTable) {
+        return Arrays.asList(getRenameTableQuery(table, backupTable),
+                getRenameTableQuery(shadowTable, table));
+    }
+
+    @Override
+    public String getRenameTableQuery(String table, String newName) {
+        return "RENAME TABLE " + table + " TO " + newName;
+    }
+
     @Override
     public Configuration getConf() {
         return conf;
@@ -99,6 +236,10 @@ public abstract class AbstractSchema implements Schema {
         return "";
     }
 
+    protected String getKeyColumnType(String columnType) {
+        return columnType;
+    }
+
     protected Properties getConnectionProperties() {
         Properties props = new Properties();
         props.setProperty(JDBC_USERNAME_IDENTIFIER,
@@ -111,6 +252,13 @@ public abstract class AbstractSchema implements Schema {
     protected String buildCreateTableStatement(String table,
                                                String[] columnNames, String[] columnTypes) {
 
+        return buildCreateTableStatement(table, columnNames, columnTypes, null);
+    }
+
+    protected String buildCreateTableStatement(String table,
+                                               String[] columnNames, String[] columnTypes,
+                                               String[] primaryKey) {
+
         StringBuilder createTableStatement = new StringBuilder();
 
         createTableStatement.append("CREATE TABLE ");
@@ -119,16 +267,29 @@ public abstract class AbstractSchema implements Schema {
         createTableStatement.append("(");
         createTableStatement.append("\n");
 
+        List<String> keys = primaryKey == null ? Collections.<String>emptyList()
+                : Arrays.asList(primaryKey);
+
         for (int i = 0; i < columnNames.length; i++) {
             createTableStatement.append(columnNames[i]);
             createTableStatement.append(" ");
-            createTableStatement.append(columnTypes[i]);
+            if (keys.contains(columnNames[i])) {
+                createTableStatement.append(getKeyColumnType(columnTypes[i]));
+            } else {
+                createTableStatement.append(columnTypes[i]);
+            }
             if (i != columnNames.length - 1) {
                 createTableStatement.append(",");
             }
             createTableStatement.append("\n");
         }
 
+        if (primaryKey != null && primaryKey.length > 0) {
+            createTableStatement.append(", PRIMARY KEY (");
+            createTableStatement.append(String.join(",", primaryKey));
+            createTableStatement.append(")\n");
+        }
+
         createTableStatement.append(getDistributeByClause());
         createTableStatement.append(")");
         createTableStatement.append(getCreateTableSuffix());
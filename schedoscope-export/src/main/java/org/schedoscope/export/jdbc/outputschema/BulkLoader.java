@@ -0,0 +1,52 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.jdbc.outputschema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A bulk loader writes a chunk of CSV encoded rows into a table using the
+ * native bulk load facility of a database dialect, e.g. COPY for PostgreSQL.
+ * The CSV uses ',' as column separator, '"' as quote character, '\n' as row
+ * separator and the null token returned by {@link #getNullToken()}.
+ */
+public interface BulkLoader {
+
+    /**
+     * Returns the unquoted token representing a null value in the CSV data.
+     *
+     * @return The null token.
+     */
+    public String getNullToken();
+
+    /**
+     * Loads a chunk of CSV encoded rows into the given table.
+     *
+     * @param connection  The JDBC connection to use.
+     * @param table       The table to load the data into.
+     * @param columnNames The column names, in the order of the CSV columns.
+     * @param data        The CSV encoded rows.
+     * @return The number of rows loaded, -1 if the database doesn't report it.
+     * @throws SQLException Is thrown if the database rejects the data.
+     * @throws IOException  Is thrown if the data can't be read or transferred.
+     */
+    public long load(Connection connection, String table, String[] columnNames,
+                     InputStream data) throws SQLException, IOException;
+}
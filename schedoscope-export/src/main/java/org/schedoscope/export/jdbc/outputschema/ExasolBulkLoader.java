@@ -0,0 +1,90 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.jdbc.outputschema;
+
+import org.apache.commons.dbutils.DbUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Loads data into Exasol using IMPORT ... FROM LOCAL CSV FILE. The Exasol
+ * JDBC driver transfers local files itself, so the data is spooled to a
+ * temporary file on the task's local disk first.
+ */
+public class ExasolBulkLoader implements BulkLoader {
+
+    // Exasol reads empty, unquoted fields as null
+    private static final String NULL_TOKEN = "";
+
+    @Override
+    public String getNullToken() {
+        return NULL_TOKEN;
+    }
+
+    @Override
+    public long load(Connection connection, String table, String[] columnNames,
+                     InputStream data) throws SQLException, IOException {
+
+        File spoolFile = File.createTempFile("exasol-import-", ".csv");
+        Statement statement = null;
+        try {
+            Files.copy(data, spoolFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+
+            statement = connection.createStatement();
+            return statement.executeUpdate(getImportStatement(table,
+                    columnNames, spoolFile.getAbsolutePath()));
+        } finally {
+            DbUtils.closeQuietly(statement);
+            if (!spoolFile.delete()) {
+                spoolFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Creates the IMPORT statement for the given table.
+     *
+     * @param table       The table to load the data into.
+     * @param columnNames The column names.
+     * @param file        The local file to import.
+     * @return The IMPORT statement.
+     */
+    public String getImportStatement(String table, String[] columnNames,
+                                     String file) {
+
+        StringBuilder importStatement = new StringBuilder();
+        importStatement.append("IMPORT INTO ");
+        importStatement.append(table);
+        importStatement.append(" (");
+        importStatement.append(String.join(",", columnNames));
+        importStatement.append(") FROM LOCAL CSV FILE '");
+        importStatement.append(file.replace("'", "''"));
+        importStatement.append("' ENCODING = 'UTF-8'");
+        importStatement.append(" ROW SEPARATOR = 'LF'");
+        importStatement.append(" COLUMN SEPARATOR = ','");
+        importStatement.append(" COLUMN DELIMITER = '\"'");
+        return importStatement.toString();
+    }
+}
@@ -78,6 +78,41 @@ public class ExasolSchema extends AbstractSchema {
         return preparedStatementTypeMapping;
     }
 
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new ExasolBulkLoader();
+    }
+
+    /**
+     * Exasol's MERGE filters the update with a trailing WHERE clause instead
+     * of a WHEN MATCHED refinement.
+     */
+    @Override
+    public String getUpsertQuery(String table, String sourceTable,
+                                 String[] columnNames, String[] keyColumns) {
+
+        StringBuilder upsertQuery = new StringBuilder();
+        upsertQuery.append("MERGE INTO ");
+        upsertQuery.append(table);
+        upsertQuery.append(" tgt USING ");
+        upsertQuery.append(sourceTable);
+        upsertQuery.append(" src ON (");
+        upsertQuery.append(getJoinCondition(keyColumns));
+        upsertQuery.append(")\nWHEN MATCHED THEN UPDATE SET ");
+        upsertQuery.append(getUpdateAssignments(columnNames, keyColumns,
+                "src."));
+        upsertQuery.append(" WHERE tgt.");
+        upsertQuery.append(JDBC_ROW_HASH_COLUMN);
+        upsertQuery.append(" <> src.");
+        upsertQuery.append(JDBC_ROW_HASH_COLUMN);
+        upsertQuery.append("\nWHEN NOT MATCHED THEN INSERT (");
+        upsertQuery.append(String.join(",", columnNames));
+        upsertQuery.append(") VALUES (");
+        upsertQuery.append(getQualifiedColumns(columnNames, "src."));
+        upsertQuery.append(")");
+        return upsertQuery.toString();
+    }
+
     @Override
     protected String getDistributeByClause() {
         if (conf.get(JDBC_EXASOL_DISTRIBUTE_CLAUSE) != null) {
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.jdbc.outputschema;
+
+import org.apache.commons.dbutils.DbUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Loads data into MySQL using LOAD DATA LOCAL INFILE, the file content is
+ * streamed from memory via the local infile input stream of the MySQL
+ * Connector/J driver. The driver is only available at runtime, so it is
+ * accessed via reflection.
+ */
+public class MySQLBulkLoader implements BulkLoader {
+
+    private static final String MYSQL_STATEMENT_CLASS = "com.mysql.jdbc.Statement";
+
+    // with an empty escape character, the unquoted word NULL is read as null
+    private static final String NULL_TOKEN = "NULL";
+
+    @Override
+    public String getNullToken() {
+        return NULL_TOKEN;
+    }
+
+    @Override
+    public long load(Connection connection, String table, String[] columnNames,
+                     InputStream data) throws SQLException, IOException {
+
+        Statement statement = null;
+        try {
+            statement = connection.createStatement();
+
+            Class<?> statementClass = Class.forName(MYSQL_STATEMENT_CLASS);
+            Method setInputStream = statementClass.getMethod(
+                    "setLocalInfileInputStream", InputStream.class);
+            setInputStream.invoke(statement.unwrap(statementClass), data);
+
+            return statement.executeUpdate(getLoadStatement(table, columnNames));
+
+        } catch (InvocationTargetException e) {
+            throw new IOException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new SQLException("MySQL local infile not available", e);
+        } finally {
+            DbUtils.closeQuietly(statement);
+        }
+    }
+
+    /**
+     * Creates the LOAD DATA statement for the given table.
+     *
+     * @param table       The table to load the data into.
+     * @param columnNames The column names.
+     * @return The LOAD DATA statement.
+     */
+    public String getLoadStatement(String table, String[] columnNames) {
+
+        StringBuilder loadStatement = new StringBuilder();
+        // the file name is ignored, the data is read from the input stream
+        loadStatement.append("LOAD DATA LOCAL INFILE 'stream' INTO TABLE ");
+        loadStatement.append(table);
+        loadStatement.append(" CHARACTER SET utf8");
+        loadStatement.append(" FIELDS TERMINATED BY ','");
+        loadStatement.append(" OPTIONALLY ENCLOSED BY '\"' ESCAPED BY ''");
+        loadStatement.append(" LINES TERMINATED BY '\\n' (");
+        loadStatement.append(String.join(",", columnNames));
+        loadStatement.append(")");
+        return loadStatement.toString();
+    }
+}
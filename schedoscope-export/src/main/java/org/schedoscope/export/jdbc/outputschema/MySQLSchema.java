@@ -18,8 +18,11 @@ package org.schedoscope.export.jdbc.outputschema;
 
 import org.apache.hadoop.conf.Configuration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -32,6 +35,13 @@ public class MySQLSchema extends AbstractSchema {
 
     protected static final String JDBC_MYSQL_DEFAULT_STORAGE_ENGINE = "InnoDB";
 
+    protected static final String JDBC_ALLOW_LOCAL_INFILE_IDENTIFIER = "allowLoadLocalInfile";
+
+    protected static final String JDBC_COMPLIANT_TRUNCATION_IDENTIFIER = "jdbcCompliantTruncation";
+
+    // the longest utf8 key InnoDB can index (767 bytes)
+    protected static final int JDBC_MYSQL_MAX_KEY_LENGTH = 255;
+
     @SuppressWarnings("serial")
     private static final Map<String, String> columnTypeMapping = Collections
             .unmodifiableMap(new HashMap<String, String>() {
@@ -82,6 +92,66 @@ public class MySQLSchema extends AbstractSchema {
         return preparedStatementTypeMapping;
     }
 
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new MySQLBulkLoader();
+    }
+
+    /**
+     * Uses INSERT ... ON DUPLICATE KEY UPDATE. MySQL doesn't write rows whose
+     * values don't change, so unchanged rows are skipped without comparing
+     * the row hash explicitly.
+     */
+    @Override
+    public String getUpsertQuery(String table, String sourceTable,
+                                 String[] columnNames, String[] keyColumns) {
+
+        List<String> keys = Arrays.asList(keyColumns);
+        List<String> assignments = new ArrayList<String>();
+        for (String column : columnNames) {
+            if (!keys.contains(column)) {
+                assignments.add(column + " = VALUES(" + column + ")");
+            }
+        }
+
+        StringBuilder upsertQuery = new StringBuilder();
+        upsertQuery.append("INSERT INTO ");
+        upsertQuery.append(table);
+        upsertQuery.append(" (");
+        upsertQuery.append(String.join(",", columnNames));
+        upsertQuery.append(") SELECT ");
+        upsertQuery.append(String.join(",", columnNames));
+        upsertQuery.append(" FROM ");
+        upsertQuery.append(sourceTable);
+        upsertQuery.append("\nON DUPLICATE KEY UPDATE ");
+        upsertQuery.append(String.join(", ", assignments));
+        return upsertQuery.toString();
+    }
+
+    /**
+     * TEXT columns can only be indexed by a prefix, keys sharing the prefix
+     * would collide. String keys are stored as VARCHAR instead, longer keys
+     * are rejected by the server as truncation error.
+     */
+    @Override
+    protected String getKeyColumnType(String columnType) {
+        if ("text".equals(columnType)) {
+            return "varchar(" + JDBC_MYSQL_MAX_KEY_LENGTH + ")";
+        }
+        return columnType;
+    }
+
+    /**
+     * MySQL doesn't support transactional DDL, but renames multiple tables
+     * atomically within a single RENAME TABLE statement.
+     */
+    @Override
+    public List<String> getSwapTableQueries(String table, String shadowTable,
+                                            String backupTable) {
+        return Collections.singletonList("RENAME TABLE " + table + " TO "
+                + backupTable + ", " + shadowTable + " TO " + table);
+    }
+
     @Override
     protected String getCreateTableSuffix() {
         return " ENGINE="
@@ -96,6 +166,10 @@ public class MySQLSchema extends AbstractSchema {
         props.setProperty(JDBC_USE_UNICODE_IDENTIFIER, JDBC_USE_UNICODE);
         props.setProperty(JDBC_CHARACTER_ENCODING_IDENTIFIER,
                 JDBC_CHARACTER_ENCODING);
+        props.setProperty(JDBC_COMPLIANT_TRUNCATION_IDENTIFIER, "true");
+        if (isBulkLoad()) {
+            props.setProperty(JDBC_ALLOW_LOCAL_INFILE_IDENTIFIER, "true");
+        }
         return props;
     }
 }
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.jdbc.outputschema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Loads data into PostgreSQL using COPY ... FROM STDIN through the
+ * CopyManager of the PostgreSQL JDBC driver. The driver is only available at
+ * runtime, so it is accessed via reflection.
+ */
+public class PostgreSQLBulkLoader implements BulkLoader {
+
+    private static final String BASE_CONNECTION_CLASS = "org.postgresql.core.BaseConnection";
+
+    private static final String COPY_MANAGER_CLASS = "org.postgresql.copy.CopyManager";
+
+    private static final String NULL_TOKEN = "\\N";
+
+    @Override
+    public String getNullToken() {
+        return NULL_TOKEN;
+    }
+
+    @Override
+    public long load(Connection connection, String table, String[] columnNames,
+                     InputStream data) throws SQLException, IOException {
+
+        try {
+            Class<?> baseConnectionClass = Class.forName(BASE_CONNECTION_CLASS);
+            Class<?> copyManagerClass = Class.forName(COPY_MANAGER_CLASS);
+
+            Constructor<?> constructor = copyManagerClass
+                    .getConstructor(baseConnectionClass);
+            Object copyManager = constructor.newInstance(connection
+                    .unwrap(baseConnectionClass));
+
+            Method copyIn = copyManagerClass.getMethod("copyIn", String.class,
+                    InputStream.class);
+            return (Long) copyIn.invoke(copyManager,
+                    getCopyStatement(table, columnNames), data);
+
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new SQLException("PostgreSQL CopyManager not available", e);
+        }
+    }
+
+    /**
+     * Creates the COPY statement for the given table.
+     *
+     * @param table       The table to load the data into.
+     * @param columnNames The column names.
+     * @return The COPY statement.
+     */
+    public String getCopyStatement(String table, String[] columnNames) {
+
+        StringBuilder copyStatement = new StringBuilder();
+        copyStatement.append("COPY ");
+        copyStatement.append(table);
+        copyStatement.append(" (");
+        copyStatement.append(String.join(",", columnNames));
+        copyStatement.append(") FROM STDIN WITH CSV NULL '");
+        copyStatement.append(NULL_TOKEN);
+        copyStatement.append("'");
+        return copyStatement.toString();
+    }
+}
@@ -79,4 +79,45 @@ public class PostgreSQLSchema extends AbstractSchema {
     public Map<String, String> getPreparedStatementTypeMapping() {
         return preparedStatementTypeMapping;
     }
+
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new PostgreSQLBulkLoader();
+    }
+
+    @Override
+    public String getRenameTableQuery(String table, String newName) {
+        return "ALTER TABLE " + table + " RENAME TO " + newName;
+    }
+
+    /**
+     * Uses INSERT ... ON CONFLICT, unchanged rows are skipped by the WHERE
+     * clause of the update.
+     */
+    @Override
+    public String getUpsertQuery(String table, String sourceTable,
+                                 String[] columnNames, String[] keyColumns) {
+
+        StringBuilder upsertQuery = new StringBuilder();
+        upsertQuery.append("INSERT INTO ");
+        upsertQuery.append(table);
+        upsertQuery.append(" (");
+        upsertQuery.append(String.join(",", columnNames));
+        upsertQuery.append(") SELECT ");
+        upsertQuery.append(String.join(",", columnNames));
+        upsertQuery.append(" FROM ");
+        upsertQuery.append(sourceTable);
+        upsertQuery.append("\nON CONFLICT (");
+        upsertQuery.append(String.join(",", keyColumns));
+        upsertQuery.append(") DO UPDATE SET ");
+        upsertQuery.append(getUpdateAssignments(columnNames, keyColumns,
+                "EXCLUDED."));
+        upsertQuery.append("\nWHERE ");
+        upsertQuery.append(table);
+        upsertQuery.append(".");
+        upsertQuery.append(JDBC_ROW_HASH_COLUMN);
+        upsertQuery.append(" IS DISTINCT FROM EXCLUDED.");
+        upsertQuery.append(JDBC_ROW_HASH_COLUMN);
+        return upsertQuery.toString();
+    }
 }
@@ -20,6 +20,7 @@ import org.apache.hadoop.conf.Configuration;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -43,6 +44,15 @@ public interface Schema {
     public static final String JDBC_OUTPUT_COLUMN_TYPES = "jdbc.output.column.types";
     public static final String JDBC_MYSQL_STORAGE_ENGINE = "jdbc.mysql.storage.engine";
     public static final String JDBC_EXASOL_DISTRIBUTE_CLAUSE = "jdbc.exasol.distribute.clause";
+    public static final String JDBC_BULK_LOAD = "jdbc.bulk.load";
+    public static final String JDBC_ATOMIC_SWAP = "jdbc.atomic.swap";
+    public static final String JDBC_MERGE_PARALLELISM = "jdbc.merge.parallelism";
+    public static final String JDBC_BATCH_MAX_BYTES = "jdbc.batch.max.bytes";
+    public static final String JDBC_MAX_RETRIES = "jdbc.max.retries";
+    public static final String JDBC_RETRY_BACKOFF_MS = "jdbc.retry.backoff.ms";
+    public static final String JDBC_ASYNC_WRITE = "jdbc.async.write";
+    public static final String JDBC_UPSERT_KEYS = "jdbc.upsert.keys";
+    public static final String JDBC_ROW_HASH_COLUMN = "row_hash";
     public static final String JDBC_USERNAME_IDENTIFIER = "user";
     public static final String JDBC_PASSWORD_IDENTIFIER = "password";
     public static final String JDBC_USE_UNICODE_IDENTIFIER = "useUnicode";
@@ -135,6 +145,48 @@ public interface Schema {
      */
     public String getCreateTableQuery();
 
+    /**
+     * Returns the create table statement for a table with the same columns
+     * as the output table but a different name, e.g. a temporary table.
+     *
+     * @param table The name of the table to create.
+     * @return Create table statement.
+     */
+    public String getCreateTableQuery(String table);
+
+    /**
+     * Returns the create table statement for a table with the same columns
+     * as the output table and a primary key.
+     *
+     * @param table      The name of the table to create.
+     * @param primaryKey The primary key columns.
+     * @return Create table statement.
+     */
+    public String getCreateTableQuery(String table, String[] primaryKey);
+
+    /**
+     * Returns the key columns of the upsert mode. In upsert mode the rows of
+     * the partitions are merged into the output table by key, instead of
+     * replacing the table or the filtered rows.
+     *
+     * @return The key columns, an empty array if upsert mode is disabled.
+     */
+    public String[] getUpsertKeys();
+
+    /**
+     * Returns the statement to merge all rows of a source table into a
+     * table by key. Rows with a new key are inserted, rows with an existing
+     * key are updated unless their row hash column is unchanged.
+     *
+     * @param table       The table to merge the rows into.
+     * @param sourceTable The table to read the rows from.
+     * @param columnNames The column names, including the row hash column.
+     * @param keyColumns  The key columns.
+     * @return The upsert statement.
+     */
+    public String getUpsertQuery(String table, String sourceTable,
+                                 String[] columnNames, String[] keyColumns);
+
     /**
      * Returns the number of partitons, defines how many JDBC database writer
      * are running in parallel.
@@ -151,6 +203,30 @@ public interface Schema {
      */
     public int getCommitSize();
 
+    /**
+     * Returns the maximum size of a batch in bytes, a batch is executed and
+     * committed once either the commit size or this size is reached.
+     *
+     * @return The maximum batch size in bytes.
+     */
+    public long getBatchMaxBytes();
+
+    /**
+     * Returns the number of times a batch is retried if the database reports
+     * a transient error, e.g. a deadlock.
+     *
+     * @return The number of retries.
+     */
+    public int getMaxRetries();
+
+    /**
+     * Returns the time to wait before the first retry, the time doubles with
+     * every further retry.
+     *
+     * @return The backoff in milliseconds.
+     */
+    public long getRetryBackoff();
+
     /**
      * Returns the currently used filter.
      *
@@ -165,6 +241,70 @@ public interface Schema {
      */
     public Configuration getConf();
 
+    /**
+     * Returns true if rows should be written with the native bulk loader of
+     * the database dialect instead of batched inserts.
+     *
+     * @return The bulk load flag.
+     */
+    public boolean isBulkLoad();
+
+    /**
+     * Returns the native bulk loader of the database dialect.
+     *
+     * @return The bulk loader, null if the dialect only supports batched
+     * inserts.
+     */
+    public BulkLoader getBulkLoader();
+
+    /**
+     * Returns true if batches should be written by a background thread while
+     * the task fills the next batch.
+     *
+     * @return The async write flag.
+     */
+    public boolean isAsyncWrite();
+
+    /**
+     * Returns true if the output table should be built under a shadow name
+     * and swapped into place after all partitions have been merged, instead
+     * of being emptied and refilled in place.
+     *
+     * @return The atomic swap flag.
+     */
+    public boolean isAtomicSwap();
+
+    /**
+     * Returns the number of connections used to merge the partition tables
+     * into the output table.
+     *
+     * @return The merge parallelism.
+     */
+    public int getMergeParallelism();
+
+    /**
+     * Returns the statements to replace a table with a shadow table. The
+     * statements are executed within a single transaction, after they have
+     * been executed the shadow table carries the name of the table and the
+     * former table the name of the backup table.
+     *
+     * @param table       The table to replace.
+     * @param shadowTable The table replacing the table.
+     * @param backupTable The new name of the replaced table.
+     * @return The swap statements.
+     */
+    public List<String> getSwapTableQueries(String table, String shadowTable,
+                                            String backupTable);
+
+    /**
+     * Returns the statement to rename a table.
+     *
+     * @param table   The table to rename.
+     * @param newName The new table name.
+     * @return The rename statement.
+     */
+    public String getRenameTableQuery(String table, String newName);
+
     /**
      * Returns the JDBC driver name.
      *
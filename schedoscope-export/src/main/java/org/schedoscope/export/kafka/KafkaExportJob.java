@@ -39,6 +39,7 @@ import org.schedoscope.export.kafka.options.CompressionCodec;
 import org.schedoscope.export.kafka.options.OutputEncoding;
 import org.schedoscope.export.kafka.options.ProducerType;
 import org.schedoscope.export.kafka.outputformat.KafkaOutputFormat;
+import org.schedoscope.export.metrics.MeteredHCatInputFormat;
 
 /**
  * The MR driver to run the Hive to Kafka export. Depending on the cmdl params
@@ -69,12 +70,21 @@ public class KafkaExportJob extends BaseExportJob {
     @Option(name = "-r", usage = "replication factor, defaults to 1")
     private int replicationFactor = 1;
 
-    @Option(name = "-x", usage = "compression codec, either 'none', 'snappy' or 'gzip'")
+    @Option(name = "-x", usage = "compression codec, either 'none', 'snappy', 'gzip' or 'lz4'")
     private CompressionCodec codec = CompressionCodec.none;
 
     @Option(name = "-o", usage = "output encoding, either 'string' or 'avro'")
     private OutputEncoding encoding = OutputEncoding.string;
 
+    @Option(name = "-L", usage = "time in ms to wait for more records before sending a batch (async producer only), defaults to 10")
+    private int lingerMs = KafkaOutputFormat.KAFKA_EXPORT_DEFAULT_LINGER_MS;
+
+    @Option(name = "-B", usage = "maximum batch size per partition in bytes, defaults to 65536")
+    private int batchSize = KafkaOutputFormat.KAFKA_EXPORT_DEFAULT_BATCH_SIZE;
+
+    @Option(name = "-F", usage = "maximum number of unacknowledged records (async producer only), defaults to 10000")
+    private int maxInFlight = KafkaOutputFormat.KAFKA_EXPORT_DEFAULT_MAX_IN_FLIGHT;
+
     @Override
     public int run(String[] args) throws Exception {
 
@@ -123,6 +133,52 @@ public class KafkaExportJob extends BaseExportJob {
                          OutputEncoding outputEncoding, String[] anonFields,
                          String exportSalt) throws Exception {
 
+        return configure(isSecured, metaStoreUris, principal, inputDatabase,
+                inputTable, inputFilter, keyName, brokers, zookeepers,
+                producerType, cleanupPolicy, numPartitions, replicationFactor,
+                numReducer, codec, outputEncoding, anonFields, exportSalt,
+                KafkaOutputFormat.KAFKA_EXPORT_DEFAULT_LINGER_MS,
+                KafkaOutputFormat.KAFKA_EXPORT_DEFAULT_BATCH_SIZE,
+                KafkaOutputFormat.KAFKA_EXPORT_DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param isSecured         A flag indicating if Kerberos is enabled
+     * @param metaStoreUris     The Hive metastore uri(s)
+     * @param principal         The Kerberos principal
+     * @param inputDatabase     The Hive input database
+     * @param inputTable        Hive input table
+     * @param inputFilter       An optional filter
+     * @param keyName           The name of the database column used as key
+     * @param brokers           A list of Kafka brokers
+     * @param zookeepers        A list of zookeeper brokers
+     * @param producerType      The Kafka producer type (sync / async)
+     * @param cleanupPolicy     The cleanup policy (delete / compact)
+     * @param numPartitions     Num of partitions for the Kafka topic
+     * @param replicationFactor The replication factor for the topic
+     * @param numReducer        The number of reducers
+     * @param codec             The compression codec (gzip / snappy / lz4 / none)
+     * @param outputEncoding    Output encoding (string / avro)
+     * @param anonFields        A list of fields to anonymize
+     * @param exportSalt        An optional salt when anonymizing fields
+     * @param lingerMs          The time to wait for more records before a
+     *                          batch is sent
+     * @param batchSize         The maximum batch size per partition in bytes
+     * @param maxInFlight       The maximum number of unacknowledged records
+     *                          (async producer only)
+     * @return A configured Job instance
+     * @throws Exception Is thrown if an error occurs
+     */
+    public Job configure(boolean isSecured, String metaStoreUris,
+                         String principal, String inputDatabase, String inputTable,
+                         String inputFilter, String keyName, String brokers,
+                         String zookeepers, ProducerType producerType,
+                         CleanupPolicy cleanupPolicy, int numPartitions,
+                         int replicationFactor, int numReducer, CompressionCodec codec,
+                         OutputEncoding outputEncoding, String[] anonFields,
+                         String exportSalt, int lingerMs, int batchSize,
+                         int maxInFlight) throws Exception {
+
         this.isSecured = isSecured;
         this.metaStoreUris = metaStoreUris;
         this.principal = principal;
@@ -141,6 +197,9 @@ public class KafkaExportJob extends BaseExportJob {
         this.encoding = outputEncoding;
         this.anonFields = anonFields.clone();
         this.exportSalt = exportSalt;
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
         return configure();
     }
 
@@ -180,11 +239,13 @@ public class KafkaExportJob extends BaseExportJob {
                 zookeeperHosts, producerType, cleanupPolicy, keyName,
                 inputTable, inputDatabase, numPartitions, replicationFactor,
                 codec, encoding);
+        KafkaOutputFormat.setProducerOptions(job.getConfiguration(), lingerMs,
+                batchSize, maxInFlight);
 
         job.setMapperClass(KafkaExportMapper.class);
         job.setReducerClass(Reducer.class);
         job.setNumReduceTasks(numReducer);
-        job.setInputFormatClass(HCatInputFormat.class);
+        job.setInputFormatClass(MeteredHCatInputFormat.class);
         job.setOutputFormatClass(KafkaOutputFormat.class);
 
         job.setMapOutputKeyClass(Text.class);
@@ -31,7 +31,8 @@ import org.schedoscope.export.BaseExportJob;
 import org.schedoscope.export.kafka.avro.HCatToAvroRecordConverter;
 import org.schedoscope.export.kafka.avro.HCatToAvroSchemaConverter;
 import org.schedoscope.export.kafka.outputformat.KafkaOutputFormat;
-import org.schedoscope.export.utils.HCatRecordJsonSerializer;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 import org.schedoscope.export.utils.HCatUtils;
 
 import java.io.IOException;
@@ -52,13 +53,14 @@ public class KafkaExportMapper
 
     private HCatToAvroRecordConverter converter;
 
-    private Schema avroSchema;
+    private ExportMetrics metrics;
 
     @Override
     protected void setup(Context context) throws IOException,
             InterruptedException {
 
         super.setup(context);
+        metrics = new ExportMetrics(context);
         Configuration conf = context.getConfiguration();
         hcatSchema = HCatInputFormat.getTableSchema(conf);
 
@@ -70,24 +72,29 @@ public class KafkaExportMapper
         Set<String> anonFields = ImmutableSet.copyOf(conf.getStrings(
                 BaseExportJob.EXPORT_ANON_FIELDS, new String[0]));
         String salt = conf.get(BaseExportJob.EXPORT_ANON_SALT, "");
-        HCatRecordJsonSerializer serializer = new HCatRecordJsonSerializer(
-                conf, hcatSchema);
-        converter = new HCatToAvroRecordConverter(serializer, anonFields, salt);
 
         HCatToAvroSchemaConverter schemaConverter = new HCatToAvroSchemaConverter(
                 anonFields);
-        avroSchema = schemaConverter.convertSchema(hcatSchema, tableName);
+        Schema avroSchema = schemaConverter.convertSchema(hcatSchema,
+                tableName);
+
+        // the map output is serialized on write if there is a reduce phase
+        converter = new HCatToAvroRecordConverter(hcatSchema, avroSchema,
+                anonFields, salt, context.getNumReduceTasks() > 0);
     }
 
     @Override
     protected void map(WritableComparable<?> key, HCatRecord value,
                        Context context) throws IOException, InterruptedException {
 
+        long start = metrics.start();
         Text kafkaKey = new Text(value.getString(keyName, hcatSchema));
-        GenericRecord record = converter.convert(value, avroSchema);
+        GenericRecord record = converter.convert(value);
         AvroValue<GenericRecord> recordWrapper = new AvroValue<GenericRecord>(
                 record);
 
+        metrics.stop(ExportCounter.CONVERSION_TIME_MS, start);
+
         context.write(kafkaKey, recordWrapper);
     }
 }
@@ -16,184 +16,215 @@
 
 package org.schedoscope.export.kafka.avro;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.avro.Schema;
-import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
-import org.apache.avro.generic.GenericRecordBuilder;
 import org.apache.hive.hcatalog.data.HCatRecord;
-import org.schedoscope.export.utils.HCatRecordJsonSerializer;
+import org.apache.hive.hcatalog.data.schema.HCatFieldSchema;
+import org.apache.hive.hcatalog.data.schema.HCatSchema;
 import org.schedoscope.export.utils.HCatUtils;
 
 import java.io.IOException;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * This class converts an HCatRecord to an AvroRecord. It uses the Avro schema
- * to recursively construct the record, requesting the fields from the JsonNode
- * as needed.
+ * This class converts an HCatRecord to an AvroRecord. The HCatalog values are
+ * converted directly, following a plan of per-field converters which is built
+ * once from the HCatalog schema and the Avro schema derived by the
+ * {@link HCatToAvroSchemaConverter}.
  */
 public class HCatToAvroRecordConverter {
 
-    private HCatRecordJsonSerializer serializer;
+    private final Set<String> anonFields;
 
-    private Set<String> anonFields;
+    private final String salt;
 
-    private String salt;
+    private final Schema avroSchema;
+
+    private final ValueConverter[] fieldConverters;
+
+    private final boolean reuseRecord;
+
+    private GenericData.Record record;
 
     /**
-     * Create a new record converter instance, pass in a json serializer and a
-     * list with field names to anonymize.
+     * Create a new record converter instance, pass in a list with field names
+     * to anonymize.
      *
-     * @param serializer A Json serializer
-     * @param anonFields A list with fields to anonymize
-     * @param salt       An optional salt to use when anonymizing fields
+     * @param hcatSchema  The HCatalog schema of the records.
+     * @param avroSchema  The Avro schema derived from the HCatalog schema.
+     * @param anonFields  A list with fields to anonymize
+     * @param salt        An optional salt to use when anonymizing fields
+     * @param reuseRecord A flag indicating if the returned record may be
+     *                    reused by the next conversion, only safe if the
+     *                    caller serializes the record right away.
+     * @throws IOException Is thrown if the schemas don't match.
      */
-    public HCatToAvroRecordConverter(HCatRecordJsonSerializer serializer,
-                                     Set<String> anonFields, String salt) {
+    public HCatToAvroRecordConverter(HCatSchema hcatSchema, Schema avroSchema,
+                                     Set<String> anonFields, String salt, boolean reuseRecord)
+            throws IOException {
 
-        this.serializer = serializer;
         this.anonFields = anonFields;
         this.salt = salt;
+        this.avroSchema = avroSchema;
+        this.fieldConverters = createFieldConverters(hcatSchema, avroSchema);
+        this.reuseRecord = reuseRecord;
     }
 
     /**
-     * Create a new record converter instance, pass in a json serializer.
+     * Create a new record converter instance.
      *
-     * @param serializer A Json serializer.
+     * @param hcatSchema The HCatalog schema of the records.
+     * @param avroSchema The Avro schema derived from the HCatalog schema.
+     * @throws IOException Is thrown if the schemas don't match.
      */
-    public HCatToAvroRecordConverter(HCatRecordJsonSerializer serializer) {
+    public HCatToAvroRecordConverter(HCatSchema hcatSchema, Schema avroSchema)
+            throws IOException {
 
-        this.serializer = serializer;
-        this.anonFields = new HashSet<String>(0);
-        this.salt = "";
+        this(hcatSchema, avroSchema, new HashSet<String>(0), "", false);
     }
 
     /**
      * This function converts an HCatRecord to an Avro GenericRecord.
      *
      * @param hcatRecord The HCatRecord
-     * @param avroSchema The Avro Schema
      * @return Returns an Avro GenericRecord
      * @throws IOException Is thrown if an error occurs
      */
-    public GenericRecord convert(HCatRecord hcatRecord, Schema avroSchema)
-            throws IOException {
+    public GenericRecord convert(HCatRecord hcatRecord) throws IOException {
+
+        if (record == null || !reuseRecord) {
+            record = new GenericData.Record(avroSchema);
+        }
 
-        JsonNode json = serializer.getRecordAsJson(hcatRecord);
-        GenericRecord avroRecord = convertRecord(json, avroSchema);
-        return avroRecord;
+        for (int i = 0; i < fieldConverters.length; i++) {
+            record.put(i, fieldConverters[i].convert(hcatRecord.get(i)));
+        }
+        return record;
     }
 
-    private GenericRecord convertRecord(JsonNode json, Schema schema)
-            throws IOException {
+    private ValueConverter[] createFieldConverters(HCatSchema structSchema,
+                                                   Schema recordSchema) throws IOException {
 
-        GenericRecordBuilder builder = new GenericRecordBuilder(schema);
-        List<Field> fields = schema.getFields();
-
-        if (!json.isNull()) {
-            for (Field f : fields) {
-
-                for (Schema s : f.schema().getTypes()) {
-                    if (s.getType().equals(Schema.Type.STRING)) {
-                        builder.set(f.name(), HCatUtils.getHashValueIfInList(
-                                f.name(), json.get(f.name()).asText(),
-                                anonFields, salt));
-                    } else if (s.getType().equals(Schema.Type.INT)) {
-                        builder.set(f.name(), json.get(f.name()).asInt());
-                    } else if (s.getType().equals(Schema.Type.LONG)) {
-                        builder.set(f.name(), json.get(f.name()).asLong());
-                    } else if (s.getType().equals(Schema.Type.BOOLEAN)) {
-                        builder.set(f.name(), json.get(f.name()).asBoolean());
-                    } else if (s.getType().equals(Schema.Type.DOUBLE)) {
-                        builder.set(f.name(), json.get(f.name()).asDouble());
-                    } else if (s.getType().equals(Schema.Type.FLOAT)) {
-                        builder.set(f.name(), json.get(f.name()).asDouble());
-                    } else if (s.getType().equals(Schema.Type.RECORD)) {
-                        builder.set(f.name(),
-                                convertRecord(json.get(f.name()), s));
-                    } else if (s.getType().equals(Schema.Type.ARRAY)) {
-                        builder.set(f.name(),
-                                convertArray(json.get(f.name()), s));
-                    } else if (s.getType().equals(Schema.Type.MAP)) {
-                        builder.set(f.name(), convertMap(json.get(f.name()), s));
-                    }
-                }
-            }
+        List<Schema.Field> avroFields = recordSchema.getFields();
+        if (avroFields.size() != structSchema.size()) {
+            throw new IllegalArgumentException("schema mismatch: "
+                    + structSchema.getSchemaAsTypeString() + " / "
+                    + recordSchema.getName());
+        }
+
+        ValueConverter[] converters = new ValueConverter[avroFields.size()];
+        for (int i = 0; i < converters.length; i++) {
+            converters[i] = createConverter(structSchema.get(i),
+                    avroFields.get(i).schema());
         }
-        return builder.build();
+        return converters;
     }
 
-    private Map<String, Object> convertMap(JsonNode json, Schema schema)
-            throws IOException {
+    private ValueConverter createConverter(HCatFieldSchema fieldSchema,
+                                           Schema schema) throws IOException {
+
+        Schema valueSchema = getNonNullType(schema);
 
-        Map<String, Object> res = new HashMap<>();
-        Iterator<Map.Entry<String, JsonNode>> it = json.fields();
-
-        while (it.hasNext()) {
-
-            Map.Entry<String, JsonNode> n = it.next();
-
-            if (!n.getValue().isNull()) {
-                for (Schema s : schema.getValueType().getTypes()) {
-                    if (s.getType().equals(Schema.Type.STRING)) {
-                        res.put(n.getKey(), n.getValue().asText());
-                    } else if (s.getType().equals(Schema.Type.INT)) {
-                        res.put(n.getKey(), n.getValue().asInt());
-                    } else if (s.getType().equals(Schema.Type.LONG)) {
-                        res.put(n.getKey(), n.getValue().asLong());
-                    } else if (s.getType().equals(Schema.Type.BOOLEAN)) {
-                        res.put(n.getKey(), n.getValue().asBoolean());
-                    } else if (s.getType().equals(Schema.Type.DOUBLE)) {
-                        res.put(n.getKey(), n.getValue().asDouble());
-                    } else if (s.getType().equals(Schema.Type.FLOAT)) {
-                        res.put(n.getKey(), n.getValue().asDouble());
-                    } else if (s.getType().equals(Schema.Type.RECORD)) {
-                        res.put(n.getKey(), convertRecord(n.getValue(), s));
-                    } else if (s.getType().equals(Schema.Type.ARRAY)) {
-                        res.put(n.getKey(), convertArray(n.getValue(), s));
-                    } else if (s.getType().equals(Schema.Type.MAP)) {
-                        res.put(n.getKey(), convertMap(n.getValue(), s));
+        switch (fieldSchema.getCategory()) {
+            case STRUCT: {
+                ValueConverter[] converters = createFieldConverters(
+                        fieldSchema.getStructSubSchema(), valueSchema);
+                return value -> {
+                    List<?> values = (List<?>) value;
+                    GenericData.Record struct = new GenericData.Record(valueSchema);
+                    for (int i = 0; i < converters.length; i++) {
+                        struct.put(i, converters[i].convert(values.get(i)));
+                    }
+                    return struct;
+                };
+            }
+            case ARRAY: {
+                ValueConverter converter = createConverter(fieldSchema
+                                .getArrayElementSchema().get(0),
+                        valueSchema.getElementType());
+                return value -> {
+                    List<?> values = (List<?>) value;
+                    List<Object> array = new ArrayList<Object>(values.size());
+                    for (Object element : values) {
+                        array.add(converter.convert(element));
                     }
-                }
+                    return array;
+                };
             }
+            case MAP: {
+                ValueConverter converter = createConverter(fieldSchema
+                        .getMapValueSchema().get(0), valueSchema.getValueType());
+                return value -> {
+                    Map<?, ?> values = (Map<?, ?>) value;
+                    Map<String, Object> map = new HashMap<String, Object>(
+                            values.size() * 2);
+                    for (Map.Entry<?, ?> entry : values.entrySet()) {
+                        map.put(String.valueOf(entry.getKey()),
+                                converter.convert(entry.getValue()));
+                    }
+                    return map;
+                };
+            }
+            default:
+                return createPrimitiveConverter(fieldSchema.getName(),
+                        valueSchema.getType());
         }
-        return res;
     }
 
-    private List<Object> convertArray(JsonNode json, Schema schema)
-            throws IOException {
+    private ValueConverter createPrimitiveConverter(String fieldName,
+                                                    Schema.Type type) {
 
-        List<Object> res = new ArrayList<>();
-        Iterator<JsonNode> it = json.elements();
-
-        while (it.hasNext()) {
-
-            JsonNode n = it.next();
-            if (!n.isNull()) {
-                for (Schema s : schema.getElementType().getTypes()) {
-                    if (s.getType().equals(Schema.Type.STRING)) {
-                        res.add(n.asText());
-                    } else if (s.getType().equals(Schema.Type.INT)) {
-                        res.add(n.asInt());
-                    } else if (s.getType().equals(Schema.Type.LONG)) {
-                        res.add(n.asLong());
-                    } else if (s.getType().equals(Schema.Type.BOOLEAN)) {
-                        res.add(n.asBoolean());
-                    } else if (s.getType().equals(Schema.Type.DOUBLE)) {
-                        res.add(n.asDouble());
-                    } else if (s.getType().equals(Schema.Type.FLOAT)) {
-                        res.add(n.asDouble());
-                    } else if (s.getType().equals(Schema.Type.RECORD)) {
-                        res.add(convertRecord(n, s));
-                    } else if (s.getType().equals(Schema.Type.ARRAY)) {
-                        res.addAll(convertArray(n, s));
-                    } else if (s.getType().equals(Schema.Type.MAP)) {
-                        res.add(convertMap(n, s));
-                    }
-                }
+        // the schema converter turns anonymized fields into strings
+        if (anonFields.contains(fieldName)) {
+            return value -> HCatUtils.getHashValueIfInList(fieldName,
+                    value.toString(), anonFields, salt);
+        }
+
+        switch (type) {
+            case STRING:
+                return Object::toString;
+            case INT:
+                return value -> ((Number) value).intValue();
+            case LONG:
+                return value -> ((Number) value).longValue();
+            case FLOAT:
+                return value -> ((Number) value).floatValue();
+            case DOUBLE:
+                return value -> ((Number) value).doubleValue();
+            default:
+                return value -> value;
+        }
+    }
+
+    private static Schema getNonNullType(Schema schema) {
+
+        if (schema.getType() != Schema.Type.UNION) {
+            return schema;
+        }
+        for (Schema s : schema.getTypes()) {
+            if (s.getType() != Schema.Type.NULL) {
+                return s;
             }
         }
-        return res;
+        throw new IllegalArgumentException("union without value type: "
+                + schema);
+    }
+
+    /**
+     * Converts a single non null HCatalog value into its Avro representation.
+     */
+    private interface ValueConverter {
+
+        Object convertValue(Object value);
+
+        default Object convert(Object value) {
+            return value == null ? null : convertValue(value);
+        }
     }
 }
@@ -18,7 +18,7 @@ package org.schedoscope.export.kafka.options;
 
 /**
  * An enum representing the different compression codecs Kafka can use (gzip /
- * snappy / none).
+ * snappy / lz4 / none).
  */
 public enum CompressionCodec {
     none {
@@ -38,5 +38,11 @@ public enum CompressionCodec {
         public String toString() {
             return "gzip";
         }
+    },
+    lz4 {
+        @Override
+        public String toString() {
+            return "lz4";
+        }
     }
 }
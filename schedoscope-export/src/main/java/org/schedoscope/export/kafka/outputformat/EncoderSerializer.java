@@ -0,0 +1,105 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.kafka.outputformat;
+
+import kafka.serializer.Encoder;
+import kafka.utils.VerifiableProperties;
+import org.apache.kafka.common.serialization.Serializer;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Adapts a legacy Kafka encoder to the serializer interface of the Kafka
+ * producer, so existing encoders (e.g. the Avro serde) can still be used.
+ *
+ * @param <T> The type to serialize.
+ */
+public class EncoderSerializer<T> implements Serializer<T> {
+
+    private final Encoder<T> encoder;
+
+    private ExportMetrics metrics = new ExportMetrics(null);
+
+    /**
+     * Creates a serializer delegating to the given encoder.
+     *
+     * @param encoder The encoder.
+     */
+    public EncoderSerializer(Encoder<T> encoder) {
+
+        this.encoder = encoder;
+    }
+
+    /**
+     * Instantiates an encoder class the same way the legacy producer does,
+     * passing the producer properties to its constructor.
+     *
+     * @param encoderClass The name of the encoder class.
+     * @param props        The producer properties.
+     * @param <T>          The type to serialize.
+     * @return A serializer delegating to the encoder.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EncoderSerializer<T> forClass(String encoderClass,
+                                                    Properties props) {
+
+        try {
+            Encoder<T> encoder = (Encoder<T>) Class.forName(encoderClass)
+                    .getConstructor(VerifiableProperties.class)
+                    .newInstance(new VerifiableProperties(props));
+            return new EncoderSerializer<T>(encoder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("can not instantiate encoder "
+                    + encoderClass, e);
+        }
+    }
+
+    /**
+     * Sets the metrics to record the serialization time and the serialized
+     * bytes in.
+     *
+     * @param metrics The metrics of the task.
+     */
+    public void setMetrics(ExportMetrics metrics) {
+
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+
+        if (data == null) {
+            return null;
+        }
+        long start = metrics.start();
+        byte[] bytes = encoder.toBytes(data);
+        metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+        metrics.addBytes(bytes.length);
+        return bytes;
+    }
+
+    @Override
+    public void close() {
+    }
+}
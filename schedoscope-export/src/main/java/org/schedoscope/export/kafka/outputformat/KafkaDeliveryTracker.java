@@ -0,0 +1,123 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.kafka.outputformat;
+
+import org.apache.kafka.clients.producer.Callback;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tracks the records handed to an asynchronous Kafka producer. The number of
+ * unacknowledged records is bounded, a sender blocks once the limit is
+ * reached. The first delivery error is kept and reported to the sender, so
+ * the task fails instead of silently dropping records.
+ */
+public class KafkaDeliveryTracker {
+
+    private final int maxInFlight;
+
+    private final Semaphore permits;
+
+    private final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+    private final Callback callback = (metadata, exception) -> {
+        if (exception != null) {
+            failure.compareAndSet(null, exception);
+        }
+        release();
+    };
+
+    /**
+     * Creates a new tracker.
+     *
+     * @param maxInFlight The maximum number of unacknowledged records.
+     */
+    public KafkaDeliveryTracker(int maxInFlight) {
+
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+    }
+
+    /**
+     * Reserves a slot for a new record, blocks until one is available.
+     *
+     * @return The callback to pass to the producer along with the record.
+     * @throws IOException Is thrown if a previous record failed.
+     */
+    public Callback acquire() throws IOException {
+
+        checkFailure();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for Kafka");
+        }
+        if (failure.get() != null) {
+            permits.release();
+            checkFailure();
+        }
+        return callback;
+    }
+
+    /**
+     * Releases a slot without waiting for the callback, e.g. if the record
+     * couldn't be handed to the producer.
+     */
+    public void release() {
+
+        permits.release();
+    }
+
+    /**
+     * Waits until all records are acknowledged.
+     *
+     * @throws IOException Is thrown if a record failed.
+     */
+    public void awaitAll() throws IOException {
+
+        try {
+            permits.acquire(maxInFlight);
+            permits.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for Kafka");
+        }
+        checkFailure();
+    }
+
+    /**
+     * Returns the number of records not acknowledged yet.
+     *
+     * @return The number of records in flight.
+     */
+    public int getInFlight() {
+
+        return maxInFlight - permits.availablePermits();
+    }
+
+    private void checkFailure() throws IOException {
+
+        Exception e = failure.get();
+        if (e != null) {
+            throw new IOException("could not deliver record to Kafka", e);
+        }
+    }
+}
@@ -17,9 +17,6 @@
 package org.schedoscope.export.kafka.outputformat;
 
 import kafka.admin.AdminUtils;
-import kafka.javaapi.producer.Producer;
-import kafka.producer.KeyedMessage;
-import kafka.producer.ProducerConfig;
 import kafka.utils.ZKStringSerializer$;
 import org.I0Itec.zkclient.ZkClient;
 import org.apache.avro.generic.GenericRecord;
@@ -29,12 +26,21 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.*;
 import org.apache.hadoop.mapreduce.lib.output.NullOutputFormat;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.schedoscope.export.kafka.options.CleanupPolicy;
 import org.schedoscope.export.kafka.options.CompressionCodec;
 import org.schedoscope.export.kafka.options.OutputEncoding;
 import org.schedoscope.export.kafka.options.ProducerType;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Properties;
 
 /**
@@ -73,6 +79,18 @@ public class KafkaOutputFormat<K extends Text, V extends AvroValue<GenericRecord
 
     public static final String KAFKA_EXPORT_AVRO_ENCODING = "com.lambdanow.avro.serde.AvroKafka08SerdeGeneric";
 
+    public static final String KAFKA_EXPORT_LINGER_MS = "kafka.export.linger.ms";
+
+    public static final String KAFKA_EXPORT_BATCH_SIZE = "kafka.export.batch.size";
+
+    public static final String KAFKA_EXPORT_MAX_IN_FLIGHT = "kafka.export.max.in.flight";
+
+    public static final int KAFKA_EXPORT_DEFAULT_LINGER_MS = 10;
+
+    public static final int KAFKA_EXPORT_DEFAULT_BATCH_SIZE = 64 * 1024;
+
+    public static final int KAFKA_EXPORT_DEFAULT_MAX_IN_FLIGHT = 10000;
+
     @Override
     public void checkOutputSpecs(JobContext context) throws IOException {
     }
@@ -89,42 +107,92 @@ public class KafkaOutputFormat<K extends Text, V extends AvroValue<GenericRecord
 
         Configuration conf = context.getConfiguration();
 
+        int maxInFlight = getMaxInFlight(conf);
+        Properties producerProps = getProducerProperties(conf, maxInFlight);
+
+        EncoderSerializer<GenericRecord> valueSerializer;
+        if (conf.get(KAFKA_EXPORT_OUTPUT_ENCODING).equals(
+                OutputEncoding.avro.toString())) {
+            valueSerializer = EncoderSerializer.forClass(
+                    KAFKA_EXPORT_AVRO_ENCODING, producerProps);
+        } else {
+            valueSerializer = new EncoderSerializer<GenericRecord>(
+                    record -> record.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        ExportMetrics metrics = new ExportMetrics(context);
+        valueSerializer.setMetrics(metrics);
+
+        Producer<String, GenericRecord> producer = new KafkaProducer<String, GenericRecord>(
+                producerProps, new StringSerializer(), valueSerializer);
+        return new KafkaRecordWriter(producer, getTopicName(conf),
+                new KafkaDeliveryTracker(maxInFlight), metrics);
+    }
+
+    /**
+     * Returns the maximum number of records not yet acknowledged, a sync
+     * producer waits for the ack of every single record.
+     *
+     * @param conf The Hadoop configuration object.
+     * @return The maximum number of records in flight.
+     */
+    static int getMaxInFlight(Configuration conf) {
+
+        if (conf.get(KAFKA_EXPORT_PRODUCER_TYPE, ProducerType.sync.toString())
+                .equals(ProducerType.async.toString())) {
+            return conf.getInt(KAFKA_EXPORT_MAX_IN_FLIGHT,
+                    KAFKA_EXPORT_DEFAULT_MAX_IN_FLIGHT);
+        }
+        return 1;
+    }
+
+    /**
+     * Returns the properties of the Kafka producer.
+     *
+     * @param conf        The Hadoop configuration object.
+     * @param maxInFlight The maximum number of records not yet acknowledged.
+     * @return The producer properties.
+     */
+    static Properties getProducerProperties(Configuration conf, int maxInFlight) {
+
         Properties producerProps = new Properties();
-        producerProps.setProperty(KAFKA_EXPORT_METADATA_BROKER_LIST,
+        producerProps.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG,
                 conf.get(KAFKA_EXPORT_METADATA_BROKER_LIST));
-        producerProps.setProperty(KAFKA_EXPORT_KEY_SERIALIZER_CLASS,
-                KAFKA_EXPORT_STRING_ENCODING);
-        producerProps.setProperty(
-                KAFKA_EXPORT_COMPRESSION_CODEC,
+        producerProps.setProperty(ProducerConfig.COMPRESSION_TYPE_CONFIG,
                 conf.get(KAFKA_EXPORT_COMPRESSION_CODEC,
                         CompressionCodec.gzip.toString()));
-        producerProps.setProperty(
-                KAFKA_EXPORT_PRODUCER_TYPE,
-                conf.get(KAFKA_EXPORT_PRODUCER_TYPE,
-                        ProducerType.sync.toString()));
-        producerProps.setProperty(KAFKA_EXPORT_REQUEST_REQUIRED_ACKS,
+        producerProps.setProperty(ProducerConfig.ACKS_CONFIG,
                 conf.get(KAFKA_EXPORT_REQUEST_REQUIRED_ACKS, "1"));
+        producerProps.setProperty(ProducerConfig.BATCH_SIZE_CONFIG, String
+                .valueOf(conf.getInt(KAFKA_EXPORT_BATCH_SIZE,
+                        KAFKA_EXPORT_DEFAULT_BATCH_SIZE)));
+
+        // with a single record in flight there is nothing to batch, lingering
+        // would only delay every record
+        int lingerMs = maxInFlight > 1 ? conf.getInt(KAFKA_EXPORT_LINGER_MS,
+                KAFKA_EXPORT_DEFAULT_LINGER_MS) : 0;
+        producerProps.setProperty(ProducerConfig.LINGER_MS_CONFIG,
+                String.valueOf(lingerMs));
+
+        return producerProps;
+    }
 
-        String topic = getTopicName(conf);
-
-        if (conf.get(KAFKA_EXPORT_OUTPUT_ENCODING).equals(
-                OutputEncoding.avro.toString())) {
-
-            producerProps.setProperty(KAFKA_EXPORT_SERIALIZER_CLASS,
-                    KAFKA_EXPORT_AVRO_ENCODING);
-            ProducerConfig config = new ProducerConfig(producerProps);
-            Producer<String, GenericRecord> producer = new Producer<String, GenericRecord>(
-                    config);
-            return new KafkaAvroGenericRecordWriter(producer, topic);
+    /**
+     * Sets the options of the Kafka producer.
+     *
+     * @param conf        The Hadoop configuration object.
+     * @param lingerMs    The time to wait for more records before a batch
+     *                    is sent.
+     * @param batchSize   The maximum size of a batch per partition in bytes.
+     * @param maxInFlight The maximum number of records not yet acknowledged
+     *                    by Kafka (async producer only).
+     */
+    public static void setProducerOptions(Configuration conf, int lingerMs,
+                                          int batchSize, int maxInFlight) {
 
-        } else {
-            producerProps.setProperty(KAFKA_EXPORT_SERIALIZER_CLASS,
-                    KAFKA_EXPORT_STRING_ENCODING);
-            ProducerConfig config = new ProducerConfig(producerProps);
-            Producer<String, String> producer = new Producer<String, String>(
-                    config);
-            return new KafkaStringRecordWriter(producer, topic);
-        }
+        conf.setInt(KAFKA_EXPORT_LINGER_MS, lingerMs);
+        conf.setInt(KAFKA_EXPORT_BATCH_SIZE, batchSize);
+        conf.setInt(KAFKA_EXPORT_MAX_IN_FLIGHT, maxInFlight);
     }
 
     /**
@@ -140,7 +208,7 @@ public class KafkaOutputFormat<K extends Text, V extends AvroValue<GenericRecord
      * @param databaseName      The name of the Hive database.
      * @param numPartitions     The number of partitions for the given topic.
      * @param replicationFactor The replication factor for the given topic.
-     * @param codec             The compression codec to use (none / snappy / gzip).
+     * @param codec             The compression codec to use (none / snappy / gzip / lz4).
      * @param enc               The outputencoding to use (string / avro).
      */
     public static void setOutput(Configuration conf, String brokerList,
@@ -189,14 +257,19 @@ public class KafkaOutputFormat<K extends Text, V extends AvroValue<GenericRecord
     }
 
     /**
-     * The Kafka Record Writer is used to write data into Kafka. It takes a
-     * GenericRecord but writes the JSON representation into Kafka.
+     * The Kafka Record Writer is used to write data into Kafka. The records
+     * are sent asynchronously, the number of records not yet acknowledged is
+     * bounded by the delivery tracker. A failed delivery fails the task.
      */
-    public class KafkaStringRecordWriter extends RecordWriter<K, V> {
+    public class KafkaRecordWriter extends RecordWriter<K, V> {
+
+        private final Producer<String, GenericRecord> producer;
+
+        private final String topic;
 
-        private Producer<String, String> producer;
+        private final KafkaDeliveryTracker tracker;
 
-        private String topic;
+        private final ExportMetrics metrics;
 
         /**
          * Inializes a new Kafka Record Writer using a Kafka producer under the
@@ -204,65 +277,79 @@ public class KafkaOutputFormat<K extends Text, V extends AvroValue<GenericRecord
          *
          * @param producer The configured Kafka producer.
          * @param topic    The Kafka topic to send the data to.
+         * @param tracker  The tracker for the records in flight.
          */
-        public KafkaStringRecordWriter(Producer<String, String> producer,
-                                       String topic) {
+        public KafkaRecordWriter(Producer<String, GenericRecord> producer,
+                                 String topic, KafkaDeliveryTracker tracker) {
 
-            this.producer = producer;
-            this.topic = topic;
-        }
-
-        @Override
-        public void write(K key, V value) {
-
-            KeyedMessage<String, String> message = new KeyedMessage<String, String>(
-                    topic, key.toString(), value.datum().toString());
-            producer.send(message);
+            this(producer, topic, tracker, new ExportMetrics(null));
         }
 
-        @Override
-        public void close(TaskAttemptContext context) throws IOException {
-
-            producer.close();
-        }
-    }
-
-    /**
-     * The Kafka Record Writer is used to write data into Kafka. It takes a
-     * GenericRecord but writes the JSON representation into Kafka.
-     */
-    public class KafkaAvroGenericRecordWriter extends RecordWriter<K, V> {
-
-        private Producer<String, GenericRecord> producer;
-
-        private String topic;
-
         /**
-         * Inializes a new Kafka Record Writer using a Kafka producer under the
-         * hood. This one writes avro generic records to Kafka.
+         * Inializes a new Kafka Record Writer recording the export metrics.
+         * The write time is the time spent waiting for Kafka to acknowledge
+         * records, the producer serializes the records itself.
          *
          * @param producer The configured Kafka producer.
          * @param topic    The Kafka topic to send the data to.
+         * @param tracker  The tracker for the records in flight.
+         * @param metrics  The metrics of the task.
          */
-        public KafkaAvroGenericRecordWriter(
-                Producer<String, GenericRecord> producer, String topic) {
+        public KafkaRecordWriter(Producer<String, GenericRecord> producer,
+                                 String topic, KafkaDeliveryTracker tracker,
+                                 ExportMetrics metrics) {
 
             this.producer = producer;
             this.topic = topic;
+            this.tracker = tracker;
+            this.metrics = metrics;
         }
 
         @Override
-        public void write(K key, V value) {
+        public void write(K key, V value) throws IOException {
 
-            KeyedMessage<String, GenericRecord> message = new KeyedMessage<String, GenericRecord>(
+            ProducerRecord<String, GenericRecord> record = new ProducerRecord<String, GenericRecord>(
                     topic, key.toString(), value.datum());
-            producer.send(message);
+
+            long start = metrics.start();
+            Callback callback;
+            try {
+                callback = tracker.acquire();
+            } catch (IOException e) {
+                countFailure(e);
+                throw e;
+            }
+            metrics.stop(ExportCounter.WRITE_TIME_MS, start);
+
+            try {
+                producer.send(record, callback);
+            } catch (RuntimeException e) {
+                tracker.release();
+                metrics.addError(e);
+                throw new IOException("could not send record to Kafka", e);
+            }
+            metrics.addRows(1);
         }
 
         @Override
         public void close(TaskAttemptContext context) throws IOException {
 
+            // closing the producer blocks until all sent records completed
+            long start = metrics.start();
             producer.close();
+            try {
+                tracker.awaitAll();
+            } catch (IOException e) {
+                countFailure(e);
+                throw e;
+            }
+            metrics.stop(ExportCounter.WRITE_TIME_MS, start);
+        }
+
+        private void countFailure(IOException e) {
+
+            // delivery failures are wrapped by the tracker
+            metrics.addError(e.getCause() != null ? e.getCause() : e);
         }
     }
 }
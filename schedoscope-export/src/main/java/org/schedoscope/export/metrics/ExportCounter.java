@@ -0,0 +1,31 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.metrics;
+
+/**
+ * The counters all export jobs share. The time counters sum up the time
+ * spent in each stage of an export in milliseconds: reading from HCatalog,
+ * converting the HCat records, serializing them for the sink, writing them
+ * over the network and committing. Together with the rows and bytes
+ * written they give the throughput of a sink and show which stage is slow.
+ * The errors are additionally counted per exception class in the group
+ * {@link ExportMetrics#ERROR_COUNTER_GROUP}.
+ */
+public enum ExportCounter {
+    HCAT_READ_TIME_MS, CONVERSION_TIME_MS, SERIALIZATION_TIME_MS, WRITE_TIME_MS, COMMIT_TIME_MS,
+    ROWS_OUT, BYTES_OUT, RETRIES, ERRORS
+}
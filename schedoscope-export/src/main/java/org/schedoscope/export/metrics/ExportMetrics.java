@@ -0,0 +1,176 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.metrics;
+
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.CounterGroup;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the {@link ExportCounter}s of a mapper, record writer or
+ * committer. Stage times are measured in nanoseconds and added to the
+ * counters in whole milliseconds, so timing single records does not lose
+ * the time below a millisecond. Without a task context (e.g. in unit tests
+ * of a record writer) nothing is recorded.
+ */
+public class ExportMetrics {
+
+    public static final String ERROR_COUNTER_GROUP = "Export errors";
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final TaskAttemptContext context;
+
+    private final Counter[] counters;
+
+    private final long[] nanos;
+
+    /**
+     * The constructor to initialize the metrics.
+     *
+     * @param context The task context to take the counters from, can be null.
+     */
+    public ExportMetrics(TaskAttemptContext context) {
+
+        this.context = context;
+        this.counters = new Counter[ExportCounter.values().length];
+        this.nanos = new long[ExportCounter.values().length];
+
+        if (context != null) {
+            for (ExportCounter counter : ExportCounter.values()) {
+                counters[counter.ordinal()] = context.getCounter(counter);
+            }
+        }
+    }
+
+    /**
+     * Returns the start time to pass to {@link #stop(ExportCounter, long)}.
+     *
+     * @return The current time in nanoseconds.
+     */
+    public long start() {
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the given start time to a time counter.
+     *
+     * @param counter The time counter of the stage.
+     * @param start   The start time as returned by {@link #start()}.
+     * @return The current time in nanoseconds, to start the next stage.
+     */
+    public long stop(ExportCounter counter, long start) {
+
+        long now = System.nanoTime();
+        addNanos(counter, now - start);
+        return now;
+    }
+
+    /**
+     * Adds a time in nanoseconds to a time counter.
+     *
+     * @param counter The time counter of the stage.
+     * @param time    The time in nanoseconds.
+     */
+    public void addNanos(ExportCounter counter, long time) {
+
+        int i = counter.ordinal();
+        long before = nanos[i] / NANOS_PER_MILLI;
+        nanos[i] += time;
+        increment(counter, nanos[i] / NANOS_PER_MILLI - before);
+    }
+
+    public void addRows(long rows) {
+
+        increment(ExportCounter.ROWS_OUT, rows);
+    }
+
+    public void addBytes(long bytes) {
+
+        increment(ExportCounter.BYTES_OUT, bytes);
+    }
+
+    public void addRetries(long retries) {
+
+        increment(ExportCounter.RETRIES, retries);
+    }
+
+    /**
+     * Counts an error, in total and by its exception class.
+     *
+     * @param error The error.
+     */
+    public void addError(Throwable error) {
+
+        increment(ExportCounter.ERRORS, 1);
+        Counter c = context == null ? null : context.getCounter(ERROR_COUNTER_GROUP, error.getClass().getName());
+        if (c != null) {
+            c.increment(1);
+        }
+    }
+
+    private void increment(ExportCounter counter, long value) {
+
+        Counter c = counters[counter.ordinal()];
+        if (c != null && value != 0) {
+            c.increment(value);
+        }
+    }
+
+    /**
+     * Summarizes the export counters of a job, e.g. to show them in a status
+     * page. The map is empty if the job recorded no export counters.
+     *
+     * @param counters  The job counters.
+     * @param elapsedMs The run time of the job so far in milliseconds.
+     * @return The summary as an ordered map.
+     */
+    public static Map<String, String> summarize(Counters counters, long elapsedMs) {
+
+        Map<String, String> summary = new LinkedHashMap<String, String>();
+
+        long rows = counters.findCounter(ExportCounter.ROWS_OUT).getValue();
+        long bytes = counters.findCounter(ExportCounter.BYTES_OUT).getValue();
+        if (rows == 0 && bytes == 0 && counters.findCounter(ExportCounter.HCAT_READ_TIME_MS).getValue() == 0) {
+            return summary;
+        }
+
+        long seconds = Math.max(1, elapsedMs / 1000);
+        summary.put("rows", String.valueOf(rows));
+        summary.put("bytes", String.valueOf(bytes));
+        summary.put("rows/s", String.valueOf(rows / seconds));
+        summary.put("KB/s", String.valueOf(bytes / 1024 / seconds));
+        summary.put("hcat read ms", String.valueOf(counters.findCounter(ExportCounter.HCAT_READ_TIME_MS).getValue()));
+        summary.put("conversion ms", String.valueOf(counters.findCounter(ExportCounter.CONVERSION_TIME_MS).getValue()));
+        summary.put("serialization ms", String.valueOf(counters.findCounter(ExportCounter.SERIALIZATION_TIME_MS).getValue()));
+        summary.put("write ms", String.valueOf(counters.findCounter(ExportCounter.WRITE_TIME_MS).getValue()));
+        summary.put("commit ms", String.valueOf(counters.findCounter(ExportCounter.COMMIT_TIME_MS).getValue()));
+        summary.put("retries", String.valueOf(counters.findCounter(ExportCounter.RETRIES).getValue()));
+        summary.put("errors", String.valueOf(counters.findCounter(ExportCounter.ERRORS).getValue()));
+
+        CounterGroup errors = counters.getGroup(ERROR_COUNTER_GROUP);
+        for (Counter error : errors) {
+            summary.put("error " + error.getName(), String.valueOf(error.getValue()));
+        }
+        return summary;
+    }
+}
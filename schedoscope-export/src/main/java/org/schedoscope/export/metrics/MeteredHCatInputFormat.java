@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.metrics;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hive.hcatalog.data.HCatRecord;
+import org.apache.hive.hcatalog.mapreduce.HCatInputFormat;
+
+import java.io.IOException;
+
+/**
+ * An HCatInputFormat that counts the time spent reading the records in
+ * {@link ExportCounter#HCAT_READ_TIME_MS}. It is configured with
+ * {@link HCatInputFormat#setInput} the same way.
+ */
+public class MeteredHCatInputFormat extends HCatInputFormat {
+
+    @Override
+    public RecordReader<WritableComparable, HCatRecord> createRecordReader(InputSplit split,
+                                                                           TaskAttemptContext context)
+            throws IOException, InterruptedException {
+
+        return new MeteredRecordReader(super.createRecordReader(split, context), new ExportMetrics(context));
+    }
+
+    private static class MeteredRecordReader extends RecordReader<WritableComparable, HCatRecord> {
+
+        private final RecordReader<WritableComparable, HCatRecord> reader;
+
+        private final ExportMetrics metrics;
+
+        MeteredRecordReader(RecordReader<WritableComparable, HCatRecord> reader, ExportMetrics metrics) {
+
+            this.reader = reader;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+
+            long start = metrics.start();
+            reader.initialize(split, context);
+            metrics.stop(ExportCounter.HCAT_READ_TIME_MS, start);
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException, InterruptedException {
+
+            long start = metrics.start();
+            boolean next = reader.nextKeyValue();
+            metrics.stop(ExportCounter.HCAT_READ_TIME_MS, start);
+            return next;
+        }
+
+        @Override
+        public WritableComparable getCurrentKey() throws IOException, InterruptedException {
+            return reader.getCurrentKey();
+        }
+
+        @Override
+        public HCatRecord getCurrentValue() throws IOException, InterruptedException {
+            return reader.getCurrentValue();
+        }
+
+        @Override
+        public float getProgress() throws IOException, InterruptedException {
+            return reader.getProgress();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hive.hcatalog.data.HCatRecord;
+import org.apache.hive.hcatalog.data.schema.HCatSchema;
+import org.apache.hive.hcatalog.mapreduce.HCatInputFormat;
+import org.schedoscope.export.BaseExportJob;
+import org.schedoscope.export.kafka.avro.HCatToAvroRecordConverter;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
+import org.schedoscope.export.redis.options.RedisCompression;
+import org.schedoscope.export.redis.outputformat.RedisBinaryWritable;
+import org.schedoscope.export.redis.outputformat.RedisOutputFormat;
+import org.schedoscope.export.redis.outputformat.RedisValueCodec;
+import org.schedoscope.export.utils.HCatUtils;
+import org.schedoscope.export.utils.StatCounter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * A mapper to read a full Hive table via HCatalog and emit every row as a
+ * single, optionally compressed, binary Avro value. The writer schema is
+ * registered under a side key, see
+ * {@link RedisOutputFormat#getValueSchemaKey(Configuration)}.
+ */
+public class RedisBinaryExportMapper extends
+        Mapper<WritableComparable<?>, HCatRecord, Text, RedisBinaryWritable> {
+
+    private HCatSchema schema;
+
+    private String keyName;
+
+    private String keyPrefix;
+
+    private HCatToAvroRecordConverter converter;
+
+    private GenericDatumWriter<GenericRecord> datumWriter;
+
+    private Buffer buffer;
+
+    private BinaryEncoder encoder;
+
+    private RedisValueCodec codec;
+
+    private ExportMetrics metrics;
+
+    @Override
+    protected void setup(Context context) throws IOException,
+            InterruptedException {
+
+        super.setup(context);
+        metrics = new ExportMetrics(context);
+        Configuration conf = context.getConfiguration();
+        schema = HCatInputFormat.getTableSchema(conf);
+
+        HCatUtils.checkKeyType(schema,
+                conf.get(RedisOutputFormat.REDIS_EXPORT_KEY_NAME));
+
+        keyName = conf.get(RedisOutputFormat.REDIS_EXPORT_KEY_NAME);
+        keyPrefix = RedisOutputFormat.getExportKeyPrefix(conf);
+
+        Set<String> anonFields = ImmutableSet.copyOf(conf.getStrings(
+                BaseExportJob.EXPORT_ANON_FIELDS, new String[0]));
+        String salt = conf.get(BaseExportJob.EXPORT_ANON_SALT, "");
+
+        Schema avroSchema = new Schema.Parser().parse(conf
+                .get(RedisOutputFormat.REDIS_EXPORT_VALUE_SCHEMA));
+
+        // the record is encoded right away, so it can be reused
+        converter = new HCatToAvroRecordConverter(schema, avroSchema,
+                anonFields, salt, true);
+        datumWriter = new GenericDatumWriter<GenericRecord>(avroSchema);
+        buffer = new Buffer();
+
+        codec = new RedisValueCodec(RedisCompression.valueOf(conf.get(
+                RedisOutputFormat.REDIS_EXPORT_VALUE_COMPRESSION,
+                RedisCompression.none.toString())));
+    }
+
+    @Override
+    protected void map(WritableComparable<?> key, HCatRecord value,
+                       Context context) throws IOException, InterruptedException {
+
+        long start = metrics.start();
+        Text redisKey = new Text(keyPrefix + value.getString(keyName, schema));
+        GenericRecord record = converter.convert(value);
+        start = metrics.stop(ExportCounter.CONVERSION_TIME_MS, start);
+
+        buffer.reset();
+        encoder = EncoderFactory.get().binaryEncoder(buffer, encoder);
+        datumWriter.write(record, encoder);
+        encoder.flush();
+
+        byte[] data = codec.compress(buffer.getBuffer(), buffer.size());
+        metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+
+        context.getCounter(StatCounter.SUCCESS).increment(1);
+        context.write(redisKey, new RedisBinaryWritable(redisKey, data));
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.schedoscope.export.redis;
 
+import com.google.common.collect.ImmutableSet;
+import org.apache.avro.Schema;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Job;
@@ -27,9 +29,16 @@ import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
 import org.schedoscope.export.BaseExportJob;
+import org.schedoscope.export.kafka.avro.HCatToAvroSchemaConverter;
+import org.schedoscope.export.metrics.MeteredHCatInputFormat;
+import org.schedoscope.export.redis.options.RedisCompression;
+import org.schedoscope.export.redis.options.RedisMode;
+import org.schedoscope.export.redis.options.RedisValueEncoding;
+import org.schedoscope.export.redis.outputformat.RedisBinaryWritable;
 import org.schedoscope.export.redis.outputformat.RedisHashWritable;
 import org.schedoscope.export.redis.outputformat.RedisOutputFormat;
 import org.schedoscope.export.utils.RedisMRJedisFactory;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 
 /**
@@ -71,6 +80,27 @@ public class RedisExportJob extends BaseExportJob {
     @Option(name = "-x", usage = "commit size for pipeline mode", depends = {"-l"})
     private int commitSize = 10000;
 
+    @Option(name = "-M", usage = "redis mode, either 'standalone', 'cluster' or 'sharded'")
+    private RedisMode mode = RedisMode.standalone;
+
+    @Option(name = "-N", usage = "list of redis nodes: host1:6379,host2:6379, seed nodes in cluster mode, defaults to -h / -P")
+    private String nodes;
+
+    @Option(name = "-I", usage = "max time in ms between two syncs of a shard in cluster / sharded mode, defaults to 1000")
+    private long flushInterval = 1000;
+
+    @Option(name = "-V", usage = "versioned export, writes a new generation of keys and switches the pointer key <prefix>_current on success")
+    private boolean versioned = false;
+
+    @Option(name = "-T", usage = "time in s until the keys of the previous generation expire, defaults to 3600", depends = {"-V"})
+    private int generationTtl = 3600;
+
+    @Option(name = "-e", usage = "value encoding of a full table export, either 'hash' (one field per column) or 'avro' (one binary value per row), defaults to 'hash'")
+    private RedisValueEncoding encoding = RedisValueEncoding.hash;
+
+    @Option(name = "-z", usage = "compression of avro encoded values, either 'none', 'snappy' or 'lz4', defaults to 'none'")
+    private RedisCompression compression = RedisCompression.none;
+
     @Override
     public int run(String[] args) throws Exception {
 
@@ -124,6 +154,60 @@ public class RedisExportJob extends BaseExportJob {
                          boolean pipeline, boolean flush, int commitSize,
                          String[] anonFields, String exportSalt) throws Exception {
 
+        return configure(isSecured, metaStoreUris, principal, redisHost,
+                redisPort, password, redisDb, inputDatabase, inputTable,
+                inputFilter, keyName, valueName, keyPrefix, numReducer,
+                replace, pipeline, flush, commitSize, anonFields, exportSalt,
+                RedisMode.standalone, null, 1000, false, 3600,
+                RedisValueEncoding.hash, RedisCompression.none);
+    }
+
+    /**
+     * This function takes all required parameters and returns a configured job
+     * object.
+     *
+     * @param isSecured     A flag indicating if Kerberos is enabled.
+     * @param metaStoreUris A string containing the Hive meta store URI
+     * @param principal     The Kerberos principal.
+     * @param redisHost     The Redis host.
+     * @param redisPort     The Redis port.
+     * @param password      The password to authenticate
+     * @param redisDb       The Redis key space / database.
+     * @param inputDatabase The Hive input database
+     * @param inputTable    The Hive inut table.
+     * @param inputFilter   An optional filter for Hive.
+     * @param keyName       The field name to use as key.
+     * @param valueName     The fields name to use a value, can be null.
+     * @param keyPrefix     An optional key prefix.
+     * @param numReducer    Number of reducers / partitions.
+     * @param replace       A flag indicating of data should be replaced.
+     * @param pipeline      A flag to set the Redis client pipeline mode.
+     * @param flush         A flag indicating Redis key space should be flushed.
+     * @param commitSize    The batch size for storing records in Redis in pipline
+     *                      mode, per shard in cluster / sharded mode
+     * @param anonFields    A list of fields to anonymize.
+     * @param exportSalt    An optional salt when anonymizing fields
+     * @param mode          The Redis mode (standalone / cluster / sharded)
+     * @param nodes         A comma separated list of Redis nodes, can be null
+     * @param flushInterval The max time in ms between two syncs of a shard
+     * @param versioned     A flag to write a new generation of keys
+     * @param generationTtl The time in s until the previous generation expires
+     * @param encoding      The value encoding of a full table export
+     * @param compression   The compression of avro encoded values
+     * @return A configured job instance
+     * @throws Exception is thrown if an error occurs.
+     */
+    public Job configure(boolean isSecured, String metaStoreUris,
+                         String principal, String redisHost, int redisPort, String password,
+                         int redisDb, String inputDatabase, String inputTable,
+                         String inputFilter, String keyName, String valueName,
+                         String keyPrefix, int numReducer, boolean replace,
+                         boolean pipeline, boolean flush, int commitSize,
+                         String[] anonFields, String exportSalt, RedisMode mode,
+                         String nodes, long flushInterval, boolean versioned,
+                         int generationTtl, RedisValueEncoding encoding,
+                         RedisCompression compression) throws Exception {
+
         this.isSecured = isSecured;
         this.metaStoreUris = metaStoreUris;
         this.principal = principal;
@@ -144,6 +228,13 @@ public class RedisExportJob extends BaseExportJob {
         this.commitSize = commitSize;
         this.anonFields = anonFields.clone();
         this.exportSalt = exportSalt;
+        this.mode = mode;
+        this.nodes = nodes;
+        this.flushInterval = flushInterval;
+        this.versioned = versioned;
+        this.generationTtl = generationTtl;
+        this.encoding = encoding;
+        this.compression = compression;
         return configure();
     }
 
@@ -177,8 +268,18 @@ public class RedisExportJob extends BaseExportJob {
                     redisPort, password, redisDb, keyName, keyPrefix, replace,
                     pipeline, commitSize);
 
-            job.setMapperClass(RedisFullTableExportMapper.class);
-            OutputClazz = RedisHashWritable.class;
+            if (encoding == RedisValueEncoding.avro) {
+                Schema avroSchema = new HCatToAvroSchemaConverter(ImmutableSet
+                        .copyOf(anonFields)).convertSchema(hcatSchema, inputTable);
+                RedisOutputFormat.setValueEncoding(job.getConfiguration(),
+                        encoding, compression, avroSchema);
+
+                job.setMapperClass(RedisBinaryExportMapper.class);
+                OutputClazz = RedisBinaryWritable.class;
+            } else {
+                job.setMapperClass(RedisFullTableExportMapper.class);
+                OutputClazz = RedisHashWritable.class;
+            }
 
         } else {
             RedisOutputFormat.setOutput(job.getConfiguration(), redisHost,
@@ -189,15 +290,21 @@ public class RedisExportJob extends BaseExportJob {
                     valueName);
         }
 
+        RedisOutputFormat.setShardedOutput(job.getConfiguration(), mode,
+                nodes, flushInterval);
+
+        if (versioned) {
+            RedisOutputFormat.setVersionedOutput(job.getConfiguration(),
+                    String.valueOf(System.currentTimeMillis()), generationTtl);
+        }
+
         if (flush) {
-            Jedis jedis = RedisMRJedisFactory.getJedisClient(job
-                    .getConfiguration());
-            jedis.flushDB();
+            flush(job.getConfiguration());
         }
 
         job.setReducerClass(Reducer.class);
         job.setNumReduceTasks(numReducer);
-        job.setInputFormatClass(HCatInputFormat.class);
+        job.setInputFormatClass(MeteredHCatInputFormat.class);
         job.setOutputFormatClass(RedisOutputFormat.class);
 
         job.setMapOutputKeyClass(Text.class);
@@ -207,6 +314,27 @@ public class RedisExportJob extends BaseExportJob {
         return job;
     }
 
+    private void flush(Configuration conf) {
+
+        if (mode == RedisMode.standalone) {
+            Jedis jedis = RedisMRJedisFactory.getJedisClient(conf);
+            jedis.flushDB();
+            return;
+        }
+
+        // every shard holds a part of the key space
+        for (HostAndPort node : RedisOutputFormat.getShardRouter(conf, mode)
+                .getShards()) {
+            Jedis jedis = RedisMRJedisFactory.getJedisClient(conf, node,
+                    mode == RedisMode.sharded);
+            try {
+                jedis.flushDB();
+            } finally {
+                jedis.close();
+            }
+        }
+    }
+
     /**
      * The entry point when called from the command line.
      *
@@ -27,6 +27,8 @@ import org.apache.hive.hcatalog.data.schema.HCatFieldSchema;
 import org.apache.hive.hcatalog.data.schema.HCatSchema;
 import org.apache.hive.hcatalog.mapreduce.HCatInputFormat;
 import org.schedoscope.export.BaseExportJob;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 import org.schedoscope.export.redis.outputformat.*;
 import org.schedoscope.export.utils.HCatUtils;
 import org.schedoscope.export.utils.StatCounter;
@@ -56,11 +58,14 @@ public class RedisExportMapper extends
 
     private String salt;
 
+    private ExportMetrics metrics;
+
     @Override
     protected void setup(Context context) throws IOException,
             InterruptedException {
 
         super.setup(context);
+        metrics = new ExportMetrics(context);
         conf = context.getConfiguration();
         schema = HCatInputFormat.getTableSchema(conf);
 
@@ -83,6 +88,7 @@ public class RedisExportMapper extends
     protected void map(WritableComparable<?> key, HCatRecord value,
                        Context context) throws IOException, InterruptedException {
 
+        long start = metrics.start();
         Text redisKey = new Text(keyPrefix + value.getString(keyName, schema));
         RedisWritable redisValue = null;
         boolean write = false;
@@ -140,6 +146,8 @@ public class RedisExportMapper extends
                 break;
         }
 
+        metrics.stop(ExportCounter.CONVERSION_TIME_MS, start);
+
         if (write) {
             context.write(redisKey, redisValue);
             context.getCounter(StatCounter.SUCCESS).increment(1);
@@ -26,6 +26,8 @@ import org.apache.hive.hcatalog.data.HCatRecord;
 import org.apache.hive.hcatalog.data.schema.HCatSchema;
 import org.apache.hive.hcatalog.mapreduce.HCatInputFormat;
 import org.schedoscope.export.BaseExportJob;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
 import org.schedoscope.export.redis.outputformat.RedisHashWritable;
 import org.schedoscope.export.redis.outputformat.RedisOutputFormat;
 import org.schedoscope.export.utils.HCatRecordJsonSerializer;
@@ -56,11 +58,14 @@ public class RedisFullTableExportMapper extends
 
     private String salt;
 
+    private ExportMetrics metrics;
+
     @Override
     protected void setup(Context context) throws IOException,
             InterruptedException {
 
         super.setup(context);
+        metrics = new ExportMetrics(context);
         conf = context.getConfiguration();
         schema = HCatInputFormat.getTableSchema(conf);
 
@@ -81,19 +86,23 @@ public class RedisFullTableExportMapper extends
     protected void map(WritableComparable<?> key, HCatRecord value,
                        Context context) throws IOException, InterruptedException {
 
+        long start = metrics.start();
         Text redisKey = new Text(keyPrefix + value.getString(keyName, schema));
 
         MapWritable redisValue = new MapWritable();
         boolean write = false;
 
-        for (String f : schema.getFieldNames()) {
+        String[] json = serializer.getComplexFieldsAsJson(value);
+
+        for (int i = 0; i < schema.size(); i++) {
 
-            Object obj = value.get(f, schema);
+            String f = schema.get(i).getName();
+            Object obj = value.get(i);
             if (obj != null) {
                 String jsonString;
 
-                if (schema.get(f).isComplex()) {
-                    jsonString = serializer.getFieldAsJson(value, f);
+                if (json[i] != null) {
+                    jsonString = json[i];
                 } else {
                     jsonString = obj.toString();
                     jsonString = HCatUtils.getHashValueIfInList(f, jsonString,
@@ -104,6 +113,8 @@ public class RedisFullTableExportMapper extends
             }
         }
 
+        metrics.stop(ExportCounter.CONVERSION_TIME_MS, start);
+
         if (write) {
             context.getCounter(StatCounter.SUCCESS).increment(1);
             context.write(redisKey, new RedisHashWritable(redisKey, redisValue));
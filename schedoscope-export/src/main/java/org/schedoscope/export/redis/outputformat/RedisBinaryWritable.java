@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.util.SafeEncoder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A writable to store a binary value as a plain Redis string. A SET replaces
+ * the previous value, so no delete is needed in replace mode.
+ */
+public class RedisBinaryWritable implements RedisWritable, Writable {
+
+    private Text key;
+
+    private BytesWritable value;
+
+    /**
+     * Default constructor, initializes the internal writables.
+     */
+    public RedisBinaryWritable() {
+
+        key = new Text();
+        value = new BytesWritable();
+    }
+
+    /**
+     * A constructor setting the internal writables.
+     *
+     * @param key   The Redis key
+     * @param value The Redis value
+     */
+    public RedisBinaryWritable(Text key, byte[] value) {
+
+        this.key = key;
+        this.value = new BytesWritable(value);
+    }
+
+    /**
+     * Returns the binary value.
+     *
+     * @return The value.
+     */
+    public byte[] getValue() {
+
+        return value.copyBytes();
+    }
+
+    @Override
+    public void write(Jedis jedis, boolean replace) {
+
+        jedis.set(SafeEncoder.encode(key.toString()), value.copyBytes());
+    }
+
+    @Override
+    public void write(Pipeline jedis, boolean replace) {
+
+        jedis.set(SafeEncoder.encode(key.toString()), value.copyBytes());
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+
+        key.write(out);
+        value.write(out);
+    }
+
+    @Override
+    public void readFields(Jedis jedis, String key) {
+
+        byte[] data = jedis.get(SafeEncoder.encode(key));
+        this.value = new BytesWritable(data == null ? new byte[0] : data);
+        this.key = new Text(key);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+
+        key.readFields(in);
+        value.readFields(in);
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.util.JedisClusterCRC16;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Routes keys to the master nodes of a Redis Cluster, using the hash slot
+ * mapping as returned by CLUSTER SLOTS.
+ */
+public class RedisClusterRouter implements RedisShardRouter {
+
+    private static final int NUM_SLOTS = 16384;
+
+    private final List<HostAndPort> shards = new ArrayList<HostAndPort>();
+
+    private final int[] slots = new int[NUM_SLOTS];
+
+    /**
+     * Creates a router from the output of CLUSTER SLOTS, every entry holds
+     * the first and last slot of a range, followed by the master node and
+     * its replicas.
+     *
+     * @param clusterSlots The slot ranges.
+     */
+    public RedisClusterRouter(List<Object> clusterSlots) {
+
+        for (int i = 0; i < NUM_SLOTS; i++) {
+            slots[i] = -1;
+        }
+
+        for (Object range : clusterSlots) {
+            List<?> slotInfo = (List<?>) range;
+            int start = ((Number) slotInfo.get(0)).intValue();
+            int end = ((Number) slotInfo.get(1)).intValue();
+            List<?> master = (List<?>) slotInfo.get(2);
+            HostAndPort node = new HostAndPort(
+                    SafeEncoder.encode((byte[]) master.get(0)),
+                    ((Number) master.get(1)).intValue());
+
+            int shard = shards.indexOf(node);
+            if (shard < 0) {
+                shard = shards.size();
+                shards.add(node);
+            }
+            for (int slot = start; slot <= end; slot++) {
+                slots[slot] = shard;
+            }
+        }
+    }
+
+    @Override
+    public List<HostAndPort> getShards() {
+
+        return Collections.unmodifiableList(shards);
+    }
+
+    @Override
+    public int getShard(String key) {
+
+        int shard = slots[JedisClusterCRC16.getSlot(key)];
+        if (shard < 0) {
+            throw new IllegalStateException("hash slot of key " + key
+                    + " is not served by any node");
+        }
+        return shard;
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.util.Sharded;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes keys to a list of independent Redis nodes by consistent hashing.
+ * The distribution is the one of Jedis' ShardedJedis, so clients reading
+ * with ShardedJedis and the same node list find the exported keys.
+ */
+public class RedisConsistentHashRouter implements RedisShardRouter {
+
+    private final List<HostAndPort> shards;
+
+    private final Sharded<?, JedisShardInfo> sharded;
+
+    private final Map<JedisShardInfo, Integer> shardIndex = new IdentityHashMap<JedisShardInfo, Integer>();
+
+    /**
+     * Creates a router for the given nodes.
+     *
+     * @param shards The Redis nodes, the order must match the one of the
+     *               reading clients.
+     */
+    public RedisConsistentHashRouter(List<HostAndPort> shards) {
+
+        this.shards = new ArrayList<HostAndPort>(shards);
+
+        List<JedisShardInfo> shardInfos = new ArrayList<JedisShardInfo>();
+        for (int i = 0; i < shards.size(); i++) {
+            JedisShardInfo info = new JedisShardInfo(shards.get(i).getHost(),
+                    shards.get(i).getPort());
+            shardInfos.add(info);
+            shardIndex.put(info, i);
+        }
+        this.sharded = new Sharded<>(shardInfos);
+    }
+
+    @Override
+    public List<HostAndPort> getShards() {
+
+        return shards;
+    }
+
+    @Override
+    public int getShard(String key) {
+
+        return shardIndex.get(sharded.getShardInfo(key));
+    }
+}
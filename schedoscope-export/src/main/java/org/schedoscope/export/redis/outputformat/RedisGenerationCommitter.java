@@ -0,0 +1,216 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobStatus;
+import org.schedoscope.export.redis.options.RedisMode;
+import org.schedoscope.export.utils.RedisMRJedisFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The output committer of the versioned Redis export. The tasks write all
+ * keys below a new generation prefix, once the job succeeds the pointer key
+ * is switched to the new generation and the keys of the previous generation
+ * are set to expire, so readers always see a complete generation. If the job
+ * fails, the keys of the new generation are deleted.
+ */
+public class RedisGenerationCommitter extends RedisOutputCommitter {
+
+    private static final Log LOG = LogFactory.getLog(RedisGenerationCommitter.class);
+
+    private static final int SCAN_COUNT = 1000;
+
+    @Override
+    public void commitJob(JobContext jobContext) throws IOException {
+
+        // the schema is stored below the new generation, register it first
+        super.commitJob(jobContext);
+
+        Configuration conf = jobContext.getConfiguration();
+
+        RedisMode mode = RedisMode.valueOf(conf.get(
+                RedisOutputFormat.REDIS_EXPORT_MODE,
+                RedisMode.standalone.toString()));
+        String pointerKey = RedisOutputFormat.getGenerationPointerKey(conf);
+        String generation = conf.get(RedisOutputFormat.REDIS_EXPORT_GENERATION);
+        int ttl = conf.getInt(RedisOutputFormat.REDIS_EXPORT_GENERATION_TTL, 3600);
+
+        List<HostAndPort> nodes = getGenerationNodes(conf, mode);
+
+        String previous;
+        Jedis jedis = RedisMRJedisFactory.getJedisClient(conf,
+                RedisOutputFormat.getNodeForKey(conf, pointerKey),
+                mode != RedisMode.cluster);
+        try {
+            previous = jedis.getSet(pointerKey, generation);
+        } finally {
+            jedis.close();
+        }
+        LOG.info("switched " + pointerKey + " from generation " + previous
+                + " to " + generation);
+
+        if (previous == null || previous.equals(generation)) {
+            return;
+        }
+
+        String pattern = getGenerationPattern(conf, previous);
+        for (HostAndPort node : nodes) {
+            jedis = RedisMRJedisFactory.getJedisClient(conf, node,
+                    mode != RedisMode.cluster);
+            try {
+                long expired = expireKeys(jedis, pattern, ttl);
+                LOG.info("expiring " + expired + " keys of generation "
+                        + previous + " on " + node + " in " + ttl + "s");
+            } finally {
+                jedis.close();
+            }
+        }
+    }
+
+    /**
+     * Deletes the keys of the generation written by a failed or killed job,
+     * nothing points to them. The keys are kept if the pointer key already
+     * refers to the generation, i.e. the job failed after the switch.
+     */
+    @Override
+    public void abortJob(JobContext jobContext, JobStatus.State state)
+            throws IOException {
+
+        Configuration conf = jobContext.getConfiguration();
+
+        RedisMode mode = RedisMode.valueOf(conf.get(
+                RedisOutputFormat.REDIS_EXPORT_MODE,
+                RedisMode.standalone.toString()));
+        String pointerKey = RedisOutputFormat.getGenerationPointerKey(conf);
+        String generation = conf.get(RedisOutputFormat.REDIS_EXPORT_GENERATION);
+
+        Jedis jedis = RedisMRJedisFactory.getJedisClient(conf,
+                RedisOutputFormat.getNodeForKey(conf, pointerKey),
+                mode != RedisMode.cluster);
+        try {
+            if (generation.equals(jedis.get(pointerKey))) {
+                LOG.warn("not deleting generation " + generation + ", "
+                        + pointerKey + " already points to it");
+                return;
+            }
+        } finally {
+            jedis.close();
+        }
+
+        String pattern = getGenerationPattern(conf, generation);
+        for (HostAndPort node : getGenerationNodes(conf, mode)) {
+            try {
+                jedis = RedisMRJedisFactory.getJedisClient(conf, node,
+                        mode != RedisMode.cluster);
+                try {
+                    long deleted = deleteKeys(jedis, pattern);
+                    LOG.info("deleted " + deleted + " keys of aborted generation "
+                            + generation + " on " + node);
+                } finally {
+                    jedis.close();
+                }
+            } catch (RuntimeException e) {
+                // the job failed anyway, clean up the other nodes
+                LOG.warn("could not delete keys of aborted generation "
+                        + generation + " on " + node, e);
+            }
+        }
+    }
+
+    private List<HostAndPort> getGenerationNodes(Configuration conf,
+                                                 RedisMode mode) {
+
+        if (mode == RedisMode.standalone) {
+            return Collections.singletonList(RedisOutputFormat.getNodes(conf)
+                    .get(0));
+        }
+        return RedisOutputFormat.getShardRouter(conf, mode).getShards();
+    }
+
+    private String getGenerationPattern(Configuration conf, String generation) {
+
+        return RedisOutputFormat.getExportKeyPrefix(conf, generation)
+                .replaceAll("([\\\\*?\\[\\]])", "\\\\$1") + "*";
+    }
+
+    /**
+     * Deletes all keys matching the given pattern.
+     *
+     * @param jedis   The Redis client.
+     * @param pattern The key pattern.
+     * @return The number of keys.
+     */
+    long deleteKeys(Jedis jedis, String pattern) {
+
+        ScanParams params = new ScanParams().match(pattern).count(SCAN_COUNT);
+        Pipeline pipeline = jedis.pipelined();
+        String cursor = ScanParams.SCAN_POINTER_START;
+        long deleted = 0;
+
+        do {
+            ScanResult<String> result = jedis.scan(cursor, params);
+            for (String key : result.getResult()) {
+                pipeline.del(key);
+                deleted++;
+            }
+            pipeline.sync();
+            cursor = result.getStringCursor();
+        } while (!cursor.equals(ScanParams.SCAN_POINTER_START));
+
+        return deleted;
+    }
+
+    /**
+     * Sets a time to live on all keys matching the given pattern.
+     *
+     * @param jedis   The Redis client.
+     * @param pattern The key pattern.
+     * @param ttl     The time to live in seconds.
+     * @return The number of keys.
+     */
+    long expireKeys(Jedis jedis, String pattern, int ttl) {
+
+        ScanParams params = new ScanParams().match(pattern).count(SCAN_COUNT);
+        Pipeline pipeline = jedis.pipelined();
+        String cursor = ScanParams.SCAN_POINTER_START;
+        long expired = 0;
+
+        do {
+            ScanResult<String> result = jedis.scan(cursor, params);
+            for (String key : result.getResult()) {
+                pipeline.expire(key, ttl);
+                expired++;
+            }
+            pipeline.sync();
+            cursor = result.getStringCursor();
+        } while (!cursor.equals(ScanParams.SCAN_POINTER_START));
+
+        return expired;
+    }
+}
@@ -16,17 +16,29 @@
 
 package org.schedoscope.export.redis.outputformat;
 
+import org.apache.avro.Schema;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.*;
-import org.apache.hadoop.mapreduce.lib.output.NullOutputFormat;
 import org.apache.hive.hcatalog.data.schema.HCatFieldSchema;
 import org.apache.hive.hcatalog.data.schema.HCatSchema;
+import org.schedoscope.export.metrics.ExportCounter;
+import org.schedoscope.export.metrics.ExportMetrics;
+import org.schedoscope.export.redis.options.RedisCompression;
+import org.schedoscope.export.redis.options.RedisMode;
+import org.schedoscope.export.redis.options.RedisValueEncoding;
 import org.schedoscope.export.utils.RedisMRJedisFactory;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisDataException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The Redis output format is responsible to write data into Redis, initializes
@@ -58,6 +70,26 @@ public class RedisOutputFormat<K, V extends RedisWritable> extends
 
     public static final String REDIS_EXPORT_AUTH_PASSWORD = "redis.export.auth.password";
 
+    public static final String REDIS_EXPORT_MODE = "redis.export.mode";
+
+    public static final String REDIS_EXPORT_NODES = "redis.export.nodes";
+
+    public static final String REDIS_EXPORT_FLUSH_INTERVAL = "redis.export.flush.interval";
+
+    public static final String REDIS_EXPORT_GENERATION = "redis.export.generation";
+
+    public static final String REDIS_EXPORT_GENERATION_TTL = "redis.export.generation.ttl";
+
+    public static final String REDIS_EXPORT_VALUE_ENCODING = "redis.export.value.encoding";
+
+    public static final String REDIS_EXPORT_VALUE_COMPRESSION = "redis.export.value.compression";
+
+    public static final String REDIS_EXPORT_VALUE_SCHEMA = "redis.export.value.schema";
+
+    public static final String REDIS_EXPORT_SHARD_COUNTER_GROUP = "Redis shards";
+
+    private static final Log LOG = LogFactory.getLog(RedisOutputFormat.class);
+
     @Override
     public void checkOutputSpecs(JobContext context) throws IOException {
 
@@ -71,8 +103,11 @@ public class RedisOutputFormat<K, V extends RedisWritable> extends
     @Override
     public OutputCommitter getOutputCommitter(TaskAttemptContext context) {
 
-        return (new NullOutputFormat<NullWritable, NullWritable>())
-                .getOutputCommitter(context);
+        if (isVersioned(context.getConfiguration())) {
+            return new RedisGenerationCommitter();
+        }
+
+        return new RedisOutputCommitter();
     }
 
     @Override
@@ -80,17 +115,42 @@ public class RedisOutputFormat<K, V extends RedisWritable> extends
 
         Configuration conf = context.getConfiguration();
 
-        Jedis jedis = RedisMRJedisFactory.getJedisClient(conf);
-
         boolean replace = conf.getBoolean(REDIS_EXPORT_VALUE_REPLACE, true);
 
+        if (isVersioned(conf)) {
+            // a new generation has no keys to delete, unless a previous
+            // attempt of this task already wrote some of them
+            TaskAttemptID attempt = context.getTaskAttemptID();
+            replace = attempt != null && attempt.getId() > 0;
+        }
+
+        RedisMode mode = RedisMode.valueOf(conf.get(REDIS_EXPORT_MODE,
+                RedisMode.standalone.toString()));
+
+        if (mode != RedisMode.standalone) {
+            RedisShardRouter router = getShardRouter(conf, mode);
+            List<Jedis> clients = new ArrayList<Jedis>();
+            for (HostAndPort node : router.getShards()) {
+                clients.add(RedisMRJedisFactory.getJedisClient(conf, node,
+                        mode == RedisMode.sharded));
+            }
+            LOG.info("writing to " + clients.size() + " shards in " + mode
+                    + " mode");
+            return new ShardedRedisRecordWriter(clients, router, replace,
+                    conf.getInt(REDIS_EXPORT_COMMIT_SIZE, 10000),
+                    conf.getLong(REDIS_EXPORT_FLUSH_INTERVAL, 1000), context);
+        }
+
+        Jedis jedis = RedisMRJedisFactory.getJedisClient(conf);
+
         if (conf.getBoolean(REDIS_EXPORT_PIPELINE_MODE, false)) {
             int commitSize = conf.getInt(REDIS_EXPORT_COMMIT_SIZE, 10000);
             Pipeline pipelinedJedis = jedis.pipelined();
             return new PipelinedRedisRecordWriter(pipelinedJedis, replace,
-                    commitSize);
+                    commitSize, new ExportMetrics(context));
         } else {
-            return new RedisRecordWriter(jedis, replace);
+            return new RedisRecordWriter(jedis, replace,
+                    new ExportMetrics(context));
         }
     }
 
@@ -102,14 +162,203 @@ public class RedisOutputFormat<K, V extends RedisWritable> extends
      */
     public static String getExportKeyPrefix(Configuration conf) {
 
+        return getExportKeyPrefix(conf, conf.get(REDIS_EXPORT_GENERATION));
+    }
+
+    /**
+     * Returns the key prefix of the given generation of a versioned export.
+     *
+     * @param conf       The Hadoop configuration object.
+     * @param generation The generation, null if the export is not versioned.
+     * @return The prefix as string.
+     */
+    public static String getExportKeyPrefix(Configuration conf,
+                                            String generation) {
+
         String prefix = conf.get(REDIS_EXPORT_KEY_PREFIX, "");
         StringBuilder keyPrefixBuilder = new StringBuilder();
         if (!prefix.isEmpty()) {
             keyPrefixBuilder.append(prefix).append("_");
         }
+        if (generation != null) {
+            keyPrefixBuilder.append(generation).append("_");
+        }
         return keyPrefixBuilder.toString();
     }
 
+    /**
+     * Returns the key holding the current generation of a versioned export,
+     * readers resolve it first and then read the keys below the generation's
+     * prefix.
+     *
+     * @param conf The Hadoop configuration object.
+     * @return The pointer key.
+     */
+    public static String getGenerationPointerKey(Configuration conf) {
+
+        return getExportKeyPrefix(conf, null) + "current";
+    }
+
+    /**
+     * Returns the side key holding the Avro schema and the compression of a
+     * binary full table export.
+     *
+     * @param conf The Hadoop configuration object.
+     * @return The schema key.
+     */
+    public static String getValueSchemaKey(Configuration conf) {
+
+        return getExportKeyPrefix(conf) + "schema";
+    }
+
+    /**
+     * Returns the Redis node storing the given key.
+     *
+     * @param conf The Hadoop configuration object.
+     * @param key  The Redis key.
+     * @return The node.
+     */
+    public static HostAndPort getNodeForKey(Configuration conf, String key) {
+
+        RedisMode mode = RedisMode.valueOf(conf.get(REDIS_EXPORT_MODE,
+                RedisMode.standalone.toString()));
+
+        if (mode == RedisMode.standalone) {
+            return getNodes(conf).get(0);
+        }
+
+        RedisShardRouter router = getShardRouter(conf, mode);
+        return router.getShards().get(router.getShard(key));
+    }
+
+    /**
+     * Registers the Avro schema and the compression of a binary full table
+     * export under the schema key, readers use it to decode the values.
+     *
+     * @param conf The Hadoop configuration object.
+     */
+    public static void writeValueSchema(Configuration conf) {
+
+        String schemaKey = getValueSchemaKey(conf);
+        boolean cluster = RedisMode.cluster.toString().equals(
+                conf.get(REDIS_EXPORT_MODE));
+
+        Map<String, String> schemaInfo = new HashMap<String, String>();
+        schemaInfo.put("schema", conf.get(REDIS_EXPORT_VALUE_SCHEMA));
+        schemaInfo.put("compression", conf.get(REDIS_EXPORT_VALUE_COMPRESSION,
+                RedisCompression.none.toString()));
+
+        Jedis jedis = RedisMRJedisFactory.getJedisClient(conf,
+                getNodeForKey(conf, schemaKey), !cluster);
+        try {
+            jedis.del(schemaKey);
+            jedis.hmset(schemaKey, schemaInfo);
+        } finally {
+            jedis.close();
+        }
+    }
+
+    /**
+     * Returns true if the export writes into a new generation.
+     *
+     * @param conf The Hadoop configuration object.
+     * @return A flag indicating a versioned export.
+     */
+    public static boolean isVersioned(Configuration conf) {
+
+        return conf.get(REDIS_EXPORT_GENERATION) != null;
+    }
+
+    /**
+     * Returns the configured Redis nodes, a comma separated list of host:port
+     * pairs. Falls back to the configured server if no nodes are set.
+     *
+     * @param conf The Hadoop configuration object.
+     * @return The list of nodes.
+     */
+    public static List<HostAndPort> getNodes(Configuration conf) {
+
+        String[] nodes = conf.getTrimmedStrings(REDIS_EXPORT_NODES);
+        List<HostAndPort> result = new ArrayList<HostAndPort>();
+
+        if (nodes.length == 0) {
+            result.add(new HostAndPort(conf.get(REDIS_EXPORT_SERVER_HOST,
+                    "localhost"), conf.getInt(REDIS_EXPORT_SERVER_PORT, 6379)));
+        }
+
+        for (String node : nodes) {
+            int sep = node.lastIndexOf(':');
+            if (sep < 0) {
+                result.add(new HostAndPort(node, 6379));
+            } else {
+                result.add(new HostAndPort(node.substring(0, sep), Integer
+                        .parseInt(node.substring(sep + 1))));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sends the pipelined commands and checks their replies. Pipeline.sync()
+     * discards the replies, errors like MOVED, ASK or OOM would go unnoticed
+     * and the records would be lost.
+     *
+     * @param pipeline The pipeline to sync.
+     * @throws IOException Is thrown if any command failed.
+     */
+    static void syncPipeline(Pipeline pipeline) throws IOException {
+
+        List<Object> replies = pipeline.syncAndReturnAll();
+        JedisDataException error = null;
+        int errors = 0;
+        for (Object reply : replies) {
+            if (reply instanceof JedisDataException) {
+                if (error == null) {
+                    error = (JedisDataException) reply;
+                }
+                errors++;
+            }
+        }
+        if (error != null) {
+            throw new IOException(errors + " of " + replies.size()
+                    + " pipelined commands failed", error);
+        }
+    }
+
+    /**
+     * Creates the router mapping keys to shards. In cluster mode the slot
+     * mapping is fetched from the first reachable node, a later resharding
+     * during the export lets the task fail with a MOVED error and the task is
+     * retried, see {@link #syncPipeline(Pipeline)}.
+     *
+     * @param conf The Hadoop configuration object.
+     * @param mode The Redis mode, either cluster or sharded.
+     * @return The shard router.
+     */
+    public static RedisShardRouter getShardRouter(Configuration conf,
+                                                  RedisMode mode) {
+
+        List<HostAndPort> nodes = getNodes(conf);
+
+        if (mode == RedisMode.sharded) {
+            return new RedisConsistentHashRouter(nodes);
+        }
+
+        RuntimeException lastError = null;
+        for (HostAndPort node : nodes) {
+            Jedis seed = RedisMRJedisFactory.getJedisClient(conf, node, false);
+            try {
+                return new RedisClusterRouter(seed.clusterSlots());
+            } catch (RuntimeException e) {
+                LOG.warn("could not fetch cluster slots from " + node, e);
+                lastError = e;
+            } finally {
+                seed.close();
+            }
+        }
+        throw new IllegalStateException("no cluster node reachable", lastError);
+    }
+
     /**
      * Initializes the RedisOutputFormat.
      *
@@ -153,6 +402,62 @@ public class RedisOutputFormat<K, V extends RedisWritable> extends
                 keyPrefix, "", replace, pipeline, commitSize);
     }
 
+    /**
+     * Configures the Redis topology to write to.
+     *
+     * @param conf          The Hadoop configuration object.
+     * @param mode          The Redis mode (standalone, cluster, sharded).
+     * @param nodes         The comma separated list of host:port pairs, in
+     *                      cluster mode these are the seed nodes.
+     * @param flushInterval The max time in ms records are buffered per shard.
+     */
+    public static void setShardedOutput(Configuration conf, RedisMode mode,
+                                        String nodes, long flushInterval) {
+
+        conf.set(REDIS_EXPORT_MODE, mode.toString());
+        if (nodes != null && !nodes.isEmpty()) {
+            conf.set(REDIS_EXPORT_NODES, nodes);
+        }
+        conf.setLong(REDIS_EXPORT_FLUSH_INTERVAL, flushInterval);
+    }
+
+    /**
+     * Enables the versioned export, all keys are written below a generation
+     * prefix and the pointer key is switched to the generation when the job
+     * commits.
+     *
+     * @param conf       The Hadoop configuration object.
+     * @param generation The new generation.
+     * @param ttl        The time in seconds until the keys of the previous
+     *                   generation expire.
+     */
+    public static void setVersionedOutput(Configuration conf,
+                                          String generation, int ttl) {
+
+        conf.set(REDIS_EXPORT_GENERATION, generation);
+        conf.setInt(REDIS_EXPORT_GENERATION_TTL, ttl);
+    }
+
+    /**
+     * Configures the value encoding of a full table export.
+     *
+     * @param conf        The Hadoop configuration object.
+     * @param encoding    The value encoding (hash / avro).
+     * @param compression The compression of binary values.
+     * @param avroSchema  The Avro schema of the rows, only used for the avro
+     *                    encoding.
+     */
+    public static void setValueEncoding(Configuration conf,
+                                        RedisValueEncoding encoding, RedisCompression compression,
+                                        Schema avroSchema) {
+
+        conf.set(REDIS_EXPORT_VALUE_ENCODING, encoding.toString());
+        conf.set(REDIS_EXPORT_VALUE_COMPRESSION, compression.toString());
+        if (encoding == RedisValueEncoding.avro) {
+            conf.set(REDIS_EXPORT_VALUE_SCHEMA, avroSchema.toString());
+        }
+    }
+
     /**
      * A function to return the writable depending on the name of the value
      * field.
@@ -197,6 +502,8 @@ public class RedisOutputFormat<K, V extends RedisWritable> extends
 
         boolean replace;
 
+        private ExportMetrics metrics;
+
         /**
          * The constructor to initialize the record writer.
          *
@@ -205,14 +512,37 @@ public class RedisOutputFormat<K, V extends RedisWritable> extends
          */
         public RedisRecordWriter(Jedis jedis, boolean replace) {
 
+            this(jedis, replace, new ExportMetrics(null));
+        }
+
+        /**
+         * The constructor to initialize the record writer recording the
+         * export metrics.
+         *
+         * @param jedis   The redis client.
+         * @param replace A flag to enable replace mode.
+         * @param metrics The metrics of the task.
+         */
+        public RedisRecordWriter(Jedis jedis, boolean replace,
+                                 ExportMetrics metrics) {
+
             this.jedis = jedis;
             this.replace = replace;
+            this.metrics = metrics;
         }
 
         @Override
         public void write(K key, V value) {
 
-            value.write(jedis, replace);
+            long start = metrics.start();
+            try {
+                value.write(jedis, replace);
+            } catch (RuntimeException e) {
+                metrics.addError(e);
+                throw e;
+            }
+            metrics.stop(ExportCounter.WRITE_TIME_MS, start);
+            metrics.addRows(1);
         }
 
         @Override
@@ -236,6 +566,10 @@ public class RedisOutputFormat<K, V extends RedisWritable> extends
 
         private int written;
 
+        private int pending;
+
+        private ExportMetrics metrics;
+
         /**
          * The constructor to initialize the pipelined writer.
          *
@@ -246,27 +580,186 @@ public class RedisOutputFormat<K, V extends RedisWritable> extends
         public PipelinedRedisRecordWriter(Pipeline jedis, boolean replace,
                                           int commitSize) {
 
+            this(jedis, replace, commitSize, new ExportMetrics(null));
+        }
+
+        /**
+         * The constructor to initialize the pipelined writer recording the
+         * export metrics. Queueing a command counts as serialization, the
+         * sync as write.
+         *
+         * @param jedis      The pipelined Redis client.
+         * @param replace    A flag to enable replace mode.
+         * @param commitSize The number of records between a sync.
+         * @param metrics    The metrics of the task.
+         */
+        public PipelinedRedisRecordWriter(Pipeline jedis, boolean replace,
+                                          int commitSize, ExportMetrics metrics) {
+
             this.jedis = jedis;
             this.replace = replace;
             this.commitSize = commitSize;
             this.written = 0;
+            this.metrics = metrics;
         }
 
         @Override
-        public void write(K key, V value) {
+        public void write(K key, V value) throws IOException {
 
+            long start = metrics.start();
             value.write(jedis, replace);
+            metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+            pending++;
             written++;
             if ((written % commitSize) == 0) {
-                jedis.sync();
+                sync();
+            }
+        }
+
+        private void sync() throws IOException {
+
+            long start = metrics.start();
+            try {
+                syncPipeline(jedis);
+            } catch (IOException | RuntimeException e) {
+                metrics.addError(e);
+                throw e;
             }
+            metrics.stop(ExportCounter.WRITE_TIME_MS, start);
+            metrics.addRows(pending);
+            pending = 0;
         }
 
         @Override
         public void close(TaskAttemptContext context) throws IOException {
 
-            jedis.sync();
+            sync();
             jedis.close();
         }
     }
+
+    /**
+     * A Redis Record Writer writing to several shards, either the masters of a
+     * Redis Cluster or independent nodes. Every shard has its own pipelined
+     * connection, which is synced if the number of buffered records reaches
+     * the commit size or the flush interval has passed.
+     */
+    public class ShardedRedisRecordWriter extends RecordWriter<K, V> {
+
+        private final List<Jedis> clients;
+
+        private final RedisShardRouter router;
+
+        private final boolean replace;
+
+        private final int commitSize;
+
+        private final long flushInterval;
+
+        private final Pipeline[] pipelines;
+
+        private final int[] pending;
+
+        private final Counter[] recordCounters;
+
+        private final Counter[] flushCounters;
+
+        private final ExportMetrics metrics;
+
+        private long lastFlush;
+
+        /**
+         * The constructor to initialize the sharded writer.
+         *
+         * @param clients       The Redis clients, one per shard in the order of
+         *                      the router's shards.
+         * @param router        The router mapping keys to shards.
+         * @param replace       A flag to enable replace mode.
+         * @param commitSize    The number of records per shard between a sync.
+         * @param flushInterval The max time in ms between two syncs.
+         * @param context       The task context providing the counters.
+         */
+        public ShardedRedisRecordWriter(List<Jedis> clients,
+                                        RedisShardRouter router, boolean replace, int commitSize,
+                                        long flushInterval, TaskAttemptContext context) {
+
+            this.clients = clients;
+            this.router = router;
+            this.replace = replace;
+            this.commitSize = commitSize;
+            this.flushInterval = flushInterval;
+            this.metrics = new ExportMetrics(context);
+
+            int numShards = clients.size();
+            this.pipelines = new Pipeline[numShards];
+            this.pending = new int[numShards];
+            this.recordCounters = new Counter[numShards];
+            this.flushCounters = new Counter[numShards];
+
+            for (int i = 0; i < numShards; i++) {
+                String shard = router.getShards().get(i).toString();
+                pipelines[i] = clients.get(i).pipelined();
+                recordCounters[i] = context.getCounter(
+                        REDIS_EXPORT_SHARD_COUNTER_GROUP, shard + " records");
+                flushCounters[i] = context.getCounter(
+                        REDIS_EXPORT_SHARD_COUNTER_GROUP, shard + " flushes");
+            }
+            this.lastFlush = System.currentTimeMillis();
+        }
+
+        @Override
+        public void write(K key, V value) throws IOException {
+
+            int shard = router.getShard(key.toString());
+            long start = metrics.start();
+            value.write(pipelines[shard], replace);
+            metrics.stop(ExportCounter.SERIALIZATION_TIME_MS, start);
+            recordCounters[shard].increment(1);
+
+            if (++pending[shard] >= commitSize) {
+                flush(shard);
+            }
+
+            if (System.currentTimeMillis() - lastFlush >= flushInterval) {
+                flushAll();
+            }
+        }
+
+        private void flush(int shard) throws IOException {
+
+            long start = metrics.start();
+            try {
+                syncPipeline(pipelines[shard]);
+            } catch (IOException | RuntimeException e) {
+                metrics.addError(e);
+                throw e;
+            }
+            metrics.stop(ExportCounter.WRITE_TIME_MS, start);
+            metrics.addRows(pending[shard]);
+            pending[shard] = 0;
+            flushCounters[shard].increment(1);
+        }
+
+        private void flushAll() throws IOException {
+
+            for (int i = 0; i < pipelines.length; i++) {
+                if (pending[i] > 0) {
+                    flush(i);
+                }
+            }
+            lastFlush = System.currentTimeMillis();
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) throws IOException {
+
+            try {
+                flushAll();
+            } finally {
+                for (Jedis client : clients) {
+                    client.close();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import redis.clients.jedis.HostAndPort;
+
+import java.util.List;
+
+/**
+ * Maps Redis keys to the shard they are stored on.
+ */
+public interface RedisShardRouter {
+
+    /**
+     * Returns all shards, the position in the list is the shard index.
+     *
+     * @return The list of shards.
+     */
+    List<HostAndPort> getShards();
+
+    /**
+     * Returns the index of the shard the given key is stored on.
+     *
+     * @param key The Redis key.
+     * @return The shard index.
+     */
+    int getShard(String key);
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import org.schedoscope.export.redis.options.RedisCompression;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses binary Redis values. Snappy values are raw Snappy blocks, LZ4
+ * values are an LZ4 block prefixed by the uncompressed length as 4 byte big
+ * endian integer.
+ */
+public class RedisValueCodec {
+
+    private final RedisCompression compression;
+
+    private LZ4Compressor lz4Compressor;
+
+    private byte[] buffer = new byte[0];
+
+    /**
+     * Creates a codec for the given compression.
+     *
+     * @param compression The compression codec.
+     */
+    public RedisValueCodec(RedisCompression compression) {
+
+        this.compression = compression;
+        if (compression == RedisCompression.lz4) {
+            lz4Compressor = LZ4Factory.fastestInstance().fastCompressor();
+        }
+    }
+
+    /**
+     * Compresses the given bytes.
+     *
+     * @param data   The data to compress.
+     * @param length The number of bytes to compress.
+     * @return The compressed data.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    public byte[] compress(byte[] data, int length) throws IOException {
+
+        switch (compression) {
+            case snappy:
+                ensureBuffer(Snappy.maxCompressedLength(length));
+                int snappyLength = Snappy.compress(data, 0, length, buffer, 0);
+                return copyOf(buffer, snappyLength);
+            case lz4:
+                ensureBuffer(4 + lz4Compressor.maxCompressedLength(length));
+                ByteBuffer.wrap(buffer).putInt(length);
+                int lz4Length = lz4Compressor.compress(data, 0, length, buffer, 4);
+                return copyOf(buffer, 4 + lz4Length);
+            default:
+                return copyOf(data, length);
+        }
+    }
+
+    /**
+     * Decompresses a value written by {@link #compress(byte[], int)}.
+     *
+     * @param compression The compression codec.
+     * @param data        The compressed value.
+     * @return The uncompressed data.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    public static byte[] decompress(RedisCompression compression, byte[] data)
+            throws IOException {
+
+        switch (compression) {
+            case snappy:
+                return Snappy.uncompress(data);
+            case lz4:
+                int length = ByteBuffer.wrap(data).getInt();
+                return LZ4Factory.fastestInstance().fastDecompressor()
+                        .decompress(data, 4, length);
+            default:
+                return data;
+        }
+    }
+
+    private void ensureBuffer(int size) {
+
+        if (buffer.length < size) {
+            buffer = new byte[size];
+        }
+    }
+
+    private static byte[] copyOf(byte[] data, int length) {
+
+        byte[] copy = new byte[length];
+        System.arraycopy(data, 0, copy, 0, length);
+        return copy;
+    }
+}
@@ -16,6 +16,7 @@
 package org.schedoscope.export.utils;
 
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.NoCredentials;
 import com.google.cloud.bigquery.*;
 
 import java.io.ByteArrayInputStream;
@@ -60,8 +61,30 @@ public class BigQueryUtils {
      * @throws IOException
      */
     static public BigQuery bigQueryService(String projectId, String gcpKey) throws IOException {
+        return bigQueryService(projectId, gcpKey, null);
+    }
+
+    /**
+     * Retrieve an instance of the BigQuery web service, authenticated using the given GCP key and a given project ID,
+     * talking to the given host instead of the public endpoint. Without a key, no credentials are sent to such a host.
+     *
+     * @param projectId the GCP project id to use.
+     * @param gcpKey    the JSON formatted GCP key.
+     * @param host      the root URL of the BigQuery API, e.g., http://localhost:8080, or null for the public endpoint.
+     * @return the service instance.
+     * @throws IOException
+     */
+    static public BigQuery bigQueryService(String projectId, String gcpKey, String host) throws IOException {
         BigQueryOptions.Builder builder = BigQueryOptions.newBuilder();
 
+        if (host != null) {
+            builder.setHost(host);
+
+            if (gcpKey == null) {
+                builder.setCredentials(NoCredentials.getInstance());
+            }
+        }
+
         if (projectId != null) {
             builder.setProjectId(projectId);
         }
@@ -245,8 +268,21 @@ public class BigQueryUtils {
      * @param cloudStoragePathsToData the list of gs:// URLs to the blobs to load into the table.
      */
     static public void loadTable(BigQuery bigQueryService, TableId table, List<String> cloudStoragePathsToData) {
+        loadTable(bigQueryService, table, cloudStoragePathsToData, FormatOptions.json());
+    }
+
+    /**
+     * Load a table (partition) from a list of GCP Cloud Storage blobs of the given format. To load a partition, use a
+     * partition selector in the table ID.
+     *
+     * @param bigQueryService         the BigQuery web service instance to use
+     * @param table                   the ID of the table to load
+     * @param cloudStoragePathsToData the list of gs:// URLs to the blobs to load into the table.
+     * @param format                  the format of the blobs, e.g., JSON or Avro
+     */
+    static public void loadTable(BigQuery bigQueryService, TableId table, List<String> cloudStoragePathsToData, FormatOptions format) {
         Table t = bigQueryService.getTable(table);
-        Job loadJob = t.load(FormatOptions.json(), cloudStoragePathsToData);
+        Job loadJob = t.load(format, cloudStoragePathsToData);
 
         try {
             loadJob = loadJob.waitFor();
@@ -261,6 +297,40 @@ public class BigQueryUtils {
         }
     }
 
+    /**
+     * Replace the contents of a table (partition) with all rows of another table by means of a query job. In contrast
+     * to a copy job, the query also sees the rows still in the streaming buffer of the source table. To replace a
+     * partition, use a partition selector in the target table ID.
+     *
+     * @param bigQueryService the BigQuery web service instance to use
+     * @param source          the ID of the table to read the rows from
+     * @param target          the ID of the table (partition) to replace
+     */
+    static public void replaceTable(BigQuery bigQueryService, TableId source, TableId target) {
+        String sourceTable = (source.getProject() != null ? source.getProject() + "." : "") + source.getDataset() + "." + source.getTable();
+
+        QueryJobConfiguration query = QueryJobConfiguration
+                .newBuilder("SELECT * FROM `" + sourceTable + "`")
+                .setUseLegacySql(false)
+                .setDestinationTable(target)
+                .setWriteDisposition(JobInfo.WriteDisposition.WRITE_TRUNCATE)
+                .build();
+
+        Job queryJob = bigQueryService.create(JobInfo.of(query));
+
+        try {
+            queryJob = queryJob.waitFor();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } catch (TimeoutException e) {
+            e.printStackTrace();
+        }
+
+        if (queryJob.getStatus().getError() != null) {
+            throw new BigQueryException(999, "Could not replace BigQuery table " + target + " with " + source + ": " + queryJob.getStatus().getError());
+        }
+    }
+
     /**
      * Stream data into a table (partition). To stream into a partition, use a partition selector
      * in the table ID.
@@ -271,12 +341,26 @@ public class BigQueryUtils {
      */
     static public void insertIntoTable(BigQuery bigQueryService, TableId table, Map<String, Object>... rowsToInsert) {
 
+        insertIntoTable(bigQueryService, table,
+                Arrays.stream(rowsToInsert)
+                        .map(InsertAllRequest.RowToInsert::of)
+                        .collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Stream data into a table (partition). To stream into a partition, use a partition selector
+     * in the table ID. Rows carrying an insert ID are deduplicated by BigQuery on a best effort basis, which makes
+     * retrying a request safe.
+     *
+     * @param bigQueryService the BigQuery web service instance to use
+     * @param table           the ID of the table to load
+     * @param rowsToInsert    the rows to stream into the table
+     */
+    static public void insertIntoTable(BigQuery bigQueryService, TableId table, List<InsertAllRequest.RowToInsert> rowsToInsert) {
+
         InsertAllRequest insertAllRequest = InsertAllRequest.newBuilder(table)
-                .setRows(
-                        Arrays.stream(rowsToInsert)
-                                .map(InsertAllRequest.RowToInsert::of)
-                                .collect(Collectors.toList())
-                )
+                .setRows(rowsToInsert)
                 .build();
 
         InsertAllResponse result = bigQueryService.insertAll(insertAllRequest);
@@ -17,16 +17,21 @@ package org.schedoscope.export.utils;
 
 import com.google.api.gax.paging.Page;
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
 public class CloudStorageUtils {
 
+    static private final int MAX_COMPOSE_SOURCES = 32;
+
     /**
      * Return an instance of the Google Cloud Storage web service authenticated using the GCP standard authentication
      * mechanism.
@@ -181,4 +186,69 @@ public class CloudStorageUtils {
     static public Blob createBlobIfNotExists(Storage storageService, String bucket, String blobName, String region) {
         return createBlobIfNotExists(storageService, BlobId.of(bucket, blobName), region);
     }
+
+    /**
+     * Upload data to a blob using a resumable upload session. The data is sent in chunks, failed chunks are retried
+     * by the session.
+     *
+     * @param storageService the storage service instance to use
+     * @param bucket         the name of the bucket to create the blob in. It must exist.
+     * @param blobName       the name of the blob to create or overwrite
+     * @param data           the buffer holding the data
+     * @param length         the number of bytes of the buffer to upload
+     * @throws IOException if the upload failed
+     */
+    static public void uploadBlob(Storage storageService, String bucket, String blobName, byte[] data, int length) throws IOException {
+        ByteBuffer content = ByteBuffer.wrap(data, 0, length);
+
+        try (WriteChannel channel = storageService.writer(BlobInfo.newBuilder(bucket, blobName).setContentType("application/json").build())) {
+            while (content.hasRemaining())
+                channel.write(content);
+        }
+    }
+
+    /**
+     * Concatenate blobs into a single blob. If there are more source blobs than a single compose request accepts,
+     * they are appended to the target blob with several requests.
+     *
+     * @param storageService the storage service instance to use
+     * @param bucket         the name of the bucket holding the blobs
+     * @param sourceBlobs    the names of the blobs to concatenate, in order
+     * @param blobName       the name of the resulting blob
+     */
+    static public void composeBlobs(Storage storageService, String bucket, List<String> sourceBlobs, String blobName) {
+        BlobInfo target = BlobInfo.newBuilder(bucket, blobName).setContentType("application/json").build();
+
+        int composed = 0;
+
+        while (composed < sourceBlobs.size()) {
+            List<String> sources = new ArrayList<>();
+
+            if (composed > 0)
+                sources.add(blobName);
+
+            int batch = Math.min(MAX_COMPOSE_SOURCES - sources.size(), sourceBlobs.size() - composed);
+            sources.addAll(sourceBlobs.subList(composed, composed + batch));
+
+            storageService.compose(Storage.ComposeRequest.of(sources, target));
+
+            composed += batch;
+        }
+    }
+
+    /**
+     * Delete the given blobs of a bucket.
+     *
+     * @param storageService the storage service instance to use
+     * @param bucket         the name of the bucket holding the blobs
+     * @param blobNames      the names of the blobs to delete
+     */
+    static public void deleteBlobs(Storage storageService, String bucket, List<String> blobNames) {
+        List<BlobId> blobs = new ArrayList<>();
+
+        for (String blobName : blobNames)
+            blobs.add(BlobId.of(bucket, blobName));
+
+        storageService.delete(blobs);
+    }
 }
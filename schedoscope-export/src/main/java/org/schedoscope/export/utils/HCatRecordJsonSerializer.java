@@ -15,31 +15,46 @@
  */
 package org.schedoscope.export.utils;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.hive.serde.serdeConstants;
-import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
 import org.apache.hive.hcatalog.data.HCatRecord;
-import org.apache.hive.hcatalog.data.JsonSerDe;
 import org.apache.hive.hcatalog.data.schema.HCatFieldSchema;
 import org.apache.hive.hcatalog.data.schema.HCatSchema;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Properties;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 
 /**
- * The CustomHCatSerializer serializes complex HCatalog types into Json.
+ * The CustomHCatSerializer serializes complex HCatalog types into Json. The
+ * values are written by walking the HCatalog schema with a Jackson
+ * JsonGenerator, the output follows the format of the HCatalog JsonSerDe.
+ * Instances are not thread safe and meant to be reused across records.
  */
 public class HCatRecordJsonSerializer {
 
-    private ObjectMapper jsonMapper;
+    private final ObjectMapper jsonMapper;
 
-    private JsonSerDe serde;
+    private final JsonFactory jsonFactory;
+
+    private final HCatSchema schema;
+
+    private final boolean[] complex;
+
+    private final String[] complexFields;
+
+    private final Buffer buffer = new Buffer();
 
     /**
-     * The constructor initializes the JsonSerDe and Jackson ObjectMapper.
+     * The constructor initializes the Jackson ObjectMapper.
      *
      * @param conf   The Hadoop configuration object.
      * @param schema The HCatalog Schema
@@ -50,34 +65,59 @@ public class HCatRecordJsonSerializer {
         jsonMapper
                 .configure(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS, true);
 
-        StringBuilder columnNameProperty = new StringBuilder();
-        StringBuilder columnTypeProperty = new StringBuilder();
+        // NaN and Infinity are written unquoted, like the JsonSerDe does
+        jsonFactory = new JsonFactory();
+        jsonFactory.disable(JsonGenerator.Feature.QUOTE_NON_NUMERIC_NUMBERS);
+        jsonFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        this.schema = schema;
+        this.complex = new boolean[schema.size()];
+        this.complexFields = new String[schema.size()];
+        for (int i = 0; i < complex.length; i++) {
+            complex[i] = schema.get(i).isComplex();
+        }
+    }
+
+    /**
+     * Serializes all complex fields of a HCatalog record in a single pass.
+     * The returned array is indexed by field position and holds the Json of
+     * every complex field that is not null, all other entries are null. The
+     * array is reused, its content is overwritten by the next call.
+     *
+     * @param value The HCatalogRecord
+     * @return The complex fields as Json.
+     * @throws IOException Is thrown if an error occurs.
+     */
+    public String[] getComplexFieldsAsJson(HCatRecord value)
+            throws IOException {
+
+        JsonGenerator generator = null;
+        for (int i = 0; i < complex.length; i++) {
 
-        String prefix = "";
-        serde = new JsonSerDe();
-        for (HCatFieldSchema f : schema.getFields()) {
-            columnNameProperty.append(prefix);
-            columnTypeProperty.append(prefix);
-            prefix = ",";
-            columnNameProperty.append(f.getName());
-            columnTypeProperty.append(f.getTypeString());
+            complexFields[i] = null;
+            Object obj = value.get(i);
+            if (!complex[i] || obj == null) {
+                continue;
+            }
 
+            if (generator == null) {
+                generator = createGenerator();
+            }
+            writeValue(generator, schema.get(i), obj);
+            generator.flush();
+            complexFields[i] = buffer.drain();
         }
 
-        Properties tblProps = new Properties();
-        tblProps.setProperty(serdeConstants.LIST_COLUMNS,
-                columnNameProperty.toString());
-        tblProps.setProperty(serdeConstants.LIST_COLUMN_TYPES,
-                columnTypeProperty.toString());
-        try {
-            serde.initialize(conf, tblProps);
-        } catch (SerDeException e) {
-            throw new IllegalArgumentException(e.getMessage());
+        if (generator != null) {
+            generator.close();
         }
+        return complexFields;
     }
 
     /**
-     * Extracts a complex field as Json from a HCatalog record.
+     * Extracts a complex field as Json from a HCatalog record. Prefer
+     * {@link #getComplexFieldsAsJson(HCatRecord)} if more than one field of
+     * a record is needed.
      *
      * @param value     The HCatalogRecord
      * @param fieldName The field to extract.
@@ -87,18 +127,16 @@ public class HCatRecordJsonSerializer {
     public String getFieldAsJson(HCatRecord value, String fieldName)
             throws IOException {
 
-        String json = null;
-        try {
-            json = serde.serialize(value, serde.getObjectInspector())
-                    .toString();
-        } catch (SerDeException e) {
-            throw new IllegalArgumentException(e.getMessage());
-        }
-        return jsonMapper.readTree(json).get(fieldName).toString();
+        JsonGenerator generator = createGenerator();
+        writeValue(generator, schema.get(fieldName),
+                value.get(fieldName, schema));
+        generator.close();
+        return buffer.drain();
     }
 
     /**
-     * Converts a HCatRecord to Json.
+     * Converts a HCatRecord to Json. The tree is built from the generated
+     * tokens directly, without an intermediate string.
      *
      * @param value The HCatRecord
      * @return A JsonNode representing the complete HCatRecord.
@@ -106,13 +144,110 @@ public class HCatRecordJsonSerializer {
      */
     public JsonNode getRecordAsJson(HCatRecord value) throws IOException {
 
-        String json = null;
-        try {
-            json = serde.serialize(value, serde.getObjectInspector())
-                    .toString();
-        } catch (SerDeException e) {
-            throw new IllegalArgumentException(e.getMessage());
+        TokenBuffer tokens = new TokenBuffer(jsonMapper, false);
+        writeStruct(tokens, schema, value.getAll());
+        tokens.close();
+        return jsonMapper.readTree(tokens.asParser());
+    }
+
+    private JsonGenerator createGenerator() throws IOException {
+
+        buffer.reset();
+        JsonGenerator generator = jsonFactory.createGenerator(buffer);
+        // the fields are taken from the buffer one by one, so no separator
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    private void writeValue(JsonGenerator generator,
+                            HCatFieldSchema fieldSchema, Object value) throws IOException {
+
+        if (value == null) {
+            generator.writeNull();
+            return;
+        }
+
+        switch (fieldSchema.getCategory()) {
+            case STRUCT:
+                writeStruct(generator, fieldSchema.getStructSubSchema(),
+                        (List<?>) value);
+                break;
+            case ARRAY:
+                HCatFieldSchema elementSchema = fieldSchema
+                        .getArrayElementSchema().get(0);
+                generator.writeStartArray();
+                for (Object element : (List<?>) value) {
+                    writeValue(generator, elementSchema, element);
+                }
+                generator.writeEndArray();
+                break;
+            case MAP:
+                HCatFieldSchema valueSchema = fieldSchema.getMapValueSchema()
+                        .get(0);
+                generator.writeStartObject();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    generator.writeFieldName(String.valueOf(entry.getKey()));
+                    writeValue(generator, valueSchema, entry.getValue());
+                }
+                generator.writeEndObject();
+                break;
+            default:
+                writePrimitive(generator, value);
+        }
+    }
+
+    private void writeStruct(JsonGenerator generator, HCatSchema structSchema,
+                             List<?> values) throws IOException {
+
+        generator.writeStartObject();
+        for (int i = 0; i < structSchema.size(); i++) {
+            HCatFieldSchema fieldSchema = structSchema.get(i);
+            generator.writeFieldName(fieldSchema.getName());
+            writeValue(generator, fieldSchema,
+                    i < values.size() ? values.get(i) : null);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writePrimitive(JsonGenerator generator, Object value)
+            throws IOException {
+
+        if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            generator.writeNumber(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Float) {
+            // widen via the decimal representation, so 0.1f is read back
+            // as 0.1 and not as 0.10000000149
+            generator.writeNumber(Double.parseDouble(value.toString()));
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof HiveDecimal) {
+            generator.writeNumber(((HiveDecimal) value).bigDecimalValue());
+        } else if (value instanceof byte[]) {
+            generator.writeBinary((byte[]) value);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    /**
+     * A reusable output buffer, whose content can be decoded without copying
+     * the underlying array first.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(1024);
+        }
+
+        String drain() {
+            String result = new String(buf, 0, count, StandardCharsets.UTF_8);
+            reset();
+            return result;
         }
-        return jsonMapper.readTree(json);
     }
 }
@@ -21,8 +21,19 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * A utility class to generate and execute various database related statements
@@ -83,6 +94,114 @@ public class JdbcQueryUtils {
         }
     }
 
+    /**
+     * Drops the given temporary tables from a database underneath a
+     * connection object.
+     *
+     * @param tables     The tables to drop.
+     * @param connection The JDBC connection to use.
+     */
+    public static void dropTemporaryOutputTables(List<String> tables,
+                                                 Connection connection) {
+
+        for (String table : tables) {
+            dropTable(table, connection);
+        }
+    }
+
+    /**
+     * Finds all temporary tables belonging to a given output table, i.e. all
+     * tables named after the output table followed by "_" and the id of the
+     * task that created it. The lookup uses the database meta data, so only
+     * the tables actually created by the tasks are returned.
+     *
+     * @param table      The temporary table name without the task suffix.
+     * @param connection The JDBC connection to use.
+     * @return The names of the temporary tables, ordered by task id.
+     * @throws SQLException Is thrown if the meta data can't be read.
+     */
+    public static List<String> findTemporaryOutputTables(String table,
+                                                         Connection connection) throws SQLException {
+
+        table = table.replace(";", "");
+
+        Pattern tablePattern = Pattern.compile(Pattern.quote(table) + "_(\\d+)",
+                Pattern.CASE_INSENSITIVE);
+
+        Set<String> tables = new LinkedHashSet<String>();
+        for (String name : getTableNames(table + "_%", connection)) {
+            if (tablePattern.matcher(name).matches()) {
+                tables.add(name);
+            }
+        }
+
+        List<String> result = new ArrayList<String>(tables);
+        result.sort((a, b) -> Long.compare(getTaskId(tablePattern, a),
+                getTaskId(tablePattern, b)));
+
+        LOG.info("Found temporary tables: " + result);
+        return result;
+    }
+
+    /**
+     * Checks if a table exists in the database underneath the connection
+     * object.
+     *
+     * @param table      The table name.
+     * @param connection The JDBC connection to use.
+     * @return True if the table exists.
+     * @throws SQLException Is thrown if the meta data can't be read.
+     */
+    public static boolean tableExists(String table, Connection connection)
+            throws SQLException {
+
+        table = table.replace(";", "");
+
+        for (String name : getTableNames(table, connection)) {
+            if (name.equalsIgnoreCase(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> getTableNames(String namePattern,
+                                             Connection connection) throws SQLException {
+
+        // identifiers may be stored in upper or lower case, depending on the
+        // database, so look up all variants of the name
+        Set<String> namePatterns = new LinkedHashSet<String>();
+        namePatterns.add(namePattern);
+        namePatterns.add(namePattern.toUpperCase(Locale.ENGLISH));
+        namePatterns.add(namePattern.toLowerCase(Locale.ENGLISH));
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        Set<String> tables = new LinkedHashSet<String>();
+
+        for (String pattern : namePatterns) {
+            ResultSet rs = null;
+            try {
+                rs = metaData.getTables(connection.getCatalog(), null,
+                        pattern, new String[]{"TABLE"});
+                while (rs.next()) {
+                    String name = rs.getString("TABLE_NAME");
+                    if (name != null) {
+                        tables.add(name);
+                    }
+                }
+            } finally {
+                DbUtils.closeQuietly(rs);
+            }
+        }
+        return tables;
+    }
+
+    private static long getTaskId(Pattern tablePattern, String table) {
+
+        Matcher m = tablePattern.matcher(table);
+        return m.matches() ? Long.parseLong(m.group(1)) : -1;
+    }
+
     /**
      * Deletes existing rows from a given table, conditions are passed in as
      * well
@@ -145,6 +264,125 @@ public class JdbcQueryUtils {
         executeStatement(mergeOutputQuery.toString(), connection);
     }
 
+    /**
+     * Merges the given temporary tables into the final output table, structure
+     * must be the same, uses "UNION ALL" for merging.
+     *
+     * @param table      The final table containing the merged result.
+     * @param tmpTables  The temporary tables to merge.
+     * @param connection The JDBC connection object.
+     */
+    public static void mergeOutput(String table, List<String> tmpTables,
+                                   Connection connection) {
+
+        if (tmpTables.isEmpty()) {
+            LOG.info("No temporary tables to merge into " + table);
+            return;
+        }
+
+        executeStatement(createMergeQuery(table, tmpTables), connection);
+    }
+
+    /**
+     * Creates the statement to merge the given temporary tables into a table,
+     * structure must be the same, uses "UNION ALL" for merging.
+     *
+     * @param table     The table to insert the merged rows into.
+     * @param tmpTables The temporary tables to merge.
+     * @return The merge statement.
+     */
+    public static String createMergeQuery(String table, List<String> tmpTables) {
+
+        StringBuilder mergeOutputQuery = new StringBuilder();
+        mergeOutputQuery.append("INSERT INTO ");
+        mergeOutputQuery.append(table);
+
+        for (int i = 0; i < tmpTables.size(); i++) {
+            mergeOutputQuery.append("\n");
+            mergeOutputQuery.append("SELECT * FROM ");
+            mergeOutputQuery.append(tmpTables.get(i));
+            if (i != tmpTables.size() - 1) {
+                mergeOutputQuery.append("\n");
+                mergeOutputQuery.append("UNION ALL");
+            }
+        }
+
+        LOG.info("Merge output: ");
+        LOG.info(mergeOutputQuery);
+
+        return mergeOutputQuery.toString();
+    }
+
+    /**
+     * Creates the statement to copy all rows of a table into another table,
+     * except the rows written with the given filter.
+     *
+     * @param table       The table to insert the rows into.
+     * @param sourceTable The table to copy the rows from.
+     * @param filter      The filter of the rows to skip.
+     * @return The copy statement.
+     */
+    public static String createCopyRowsQuery(String table, String sourceTable,
+                                             String filter) {
+
+        filter = filter.replace(";", "");
+
+        StringBuilder copyRowsQuery = new StringBuilder();
+        copyRowsQuery.append("INSERT INTO ");
+        copyRowsQuery.append(table);
+        copyRowsQuery.append(" SELECT * FROM ");
+        copyRowsQuery.append(sourceTable);
+        copyRowsQuery.append(" WHERE USED_FILTER IS NULL OR USED_FILTER <> '");
+        copyRowsQuery.append(filter);
+        copyRowsQuery.append("'");
+
+        LOG.info("Copy rows: ");
+        LOG.info(copyRowsQuery);
+
+        return copyRowsQuery.toString();
+    }
+
+    /**
+     * Executes the given statements within a single transaction, either all
+     * or none of the statements take effect.
+     *
+     * @param queries    The SQL statements to execute.
+     * @param connection The JDBC connection object.
+     * @throws SQLException Is thrown if a statement fails, the transaction
+     *                      is rolled back then.
+     */
+    public static void executeInTransaction(List<String> queries,
+                                            Connection connection) throws SQLException {
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (String query : queries) {
+                LOG.info(query);
+                executeStatementWithoutErrorHandling(query, connection);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Executes the given statement, errors are passed on to the caller.
+     *
+     * @param query      The SQL statement to execute.
+     * @param connection The JDBC connection object.
+     * @throws SQLException Is thrown if the statement fails.
+     */
+    public static void executeUpdate(String query, Connection connection)
+            throws SQLException {
+
+        executeStatementWithoutErrorHandling(query, connection);
+    }
+
     /**
      * Executes a given CREATE TABLE ... statement.
      *
@@ -202,6 +440,30 @@ public class JdbcQueryUtils {
         return insertQuery.toString();
     }
 
+    /**
+     * Checks if an exception reports a transient error, i.e. the failed
+     * statements may succeed if they are executed again after rolling back
+     * the transaction, e.g. after a deadlock or a serialization failure.
+     *
+     * @param e The exception to check.
+     * @return True if the error is transient.
+     */
+    public static boolean isTransient(SQLException e) {
+
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if (cause instanceof SQLTransientException
+                    && !(cause instanceof SQLTransientConnectionException)) {
+                return true;
+            }
+            // SQL state class 40: transaction rollback
+            String state = cause.getSQLState();
+            if (state != null && state.startsWith("40")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static void executeStatementIfExists(String query, Connection connection) {
         try {
             executeStatementWithoutErrorHandling(query, connection);
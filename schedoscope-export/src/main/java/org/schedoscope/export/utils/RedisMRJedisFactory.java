@@ -18,6 +18,7 @@ package org.schedoscope.export.utils;
 
 import org.apache.hadoop.conf.Configuration;
 import org.schedoscope.export.redis.outputformat.RedisOutputFormat;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 
 /**
@@ -66,4 +67,34 @@ public class RedisMRJedisFactory {
         jedis.select(redisDb);
         return jedis;
     }
+
+    /**
+     * Returns a new Redis client connected to the given node, used to open one
+     * connection per shard. The caller is responsible for closing it.
+     *
+     * @param conf     The Hadoop configuration object.
+     * @param node     The Redis node to connect to.
+     * @param selectDb A flag to select the configured database, Redis Cluster
+     *                 only supports database 0.
+     * @return The configured Redis client.
+     */
+    public static Jedis getJedisClient(Configuration conf, HostAndPort node,
+                                       boolean selectDb) {
+        if (jedisMock != null)
+            return jedisMock;
+
+        Jedis client = new Jedis(node.getHost(), node.getPort(), 1800);
+
+        String password = conf.get(
+                RedisOutputFormat.REDIS_EXPORT_AUTH_PASSWORD, "");
+        if (!password.equals("")) {
+            client.auth(password);
+        }
+
+        if (selectDb) {
+            client.select(conf.getInt(
+                    RedisOutputFormat.REDIS_EXPORT_SERVER_DB, 0));
+        }
+        return client;
+    }
 }
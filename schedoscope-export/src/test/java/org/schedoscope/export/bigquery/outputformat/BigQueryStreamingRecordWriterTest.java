@@ -0,0 +1,134 @@
+/**
+ * Copyright 2015 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.bigquery.outputformat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.TableId;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hadoop.io.Text;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.schedoscope.export.utils.BigQueryUtils.bigQueryService;
+
+/**
+ * Streams rows against a local HTTP stand-in of the insertAll endpoint.
+ */
+public class BigQueryStreamingRecordWriterTest {
+
+    private HttpServer server;
+
+    private BigQuery bigQuery;
+
+    private List<JsonNode> requests = new CopyOnWriteArrayList<>();
+
+    private volatile String response = "{\"kind\":\"bigquery#tableDataInsertAllResponse\"}";
+
+    @Before
+    public void setUp() throws IOException {
+        ObjectMapper jsonFactory = new ObjectMapper();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            InputStream in = exchange.getRequestBody();
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding")))
+                in = new GZIPInputStream(in);
+            requests.add(jsonFactory.readTree(in));
+
+            byte[] body = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        bigQuery = bigQueryService("test-project", null, "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private BigQueryStreamingRecordWriter<Object> createWriter() {
+        return new BigQueryStreamingRecordWriter<>(bigQuery, TableId.of("test-project", "dataset", "table$20171001"), "task_0001_m_000000-", 2, 2);
+    }
+
+    @Test
+    public void testStreamingInBatches() throws IOException {
+        BigQueryStreamingRecordWriter<Object> writer = createWriter();
+
+        for (int i = 0; i < 5; i++)
+            writer.write(null, new Text("{\"id\":" + i + ",\"name\":\"row" + i + "\"}\n"));
+
+        writer.close(null);
+
+        assertEquals(3, requests.size());
+
+        Set<String> insertIds = new HashSet<>();
+        Set<Integer> ids = new HashSet<>();
+        for (JsonNode request : requests) {
+            assertTrue(request.get("rows").size() <= 2);
+
+            for (JsonNode row : request.get("rows")) {
+                insertIds.add(row.get("insertId").asText());
+                ids.add(row.get("json").get("id").asInt());
+            }
+        }
+
+        assertEquals(5, insertIds.size());
+        assertTrue(insertIds.contains("task_0001_m_000000-4"));
+        assertEquals(5, ids.size());
+    }
+
+    @Test
+    public void testInsertErrorsFailTheTask() throws IOException {
+        response = "{\"kind\":\"bigquery#tableDataInsertAllResponse\",\"insertErrors\":[{\"index\":0,\"errors\":[{\"reason\":\"invalid\",\"message\":\"no such field\"}]}]}";
+
+        BigQueryStreamingRecordWriter<Object> writer = createWriter();
+        writer.write(null, new Text("{\"id\":1}\n"));
+
+        try {
+            writer.close(null);
+            fail("insert errors must fail the writer");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("table$20171001"));
+        }
+
+        // the request is retried before giving up
+        assertEquals(4, requests.size());
+    }
+}
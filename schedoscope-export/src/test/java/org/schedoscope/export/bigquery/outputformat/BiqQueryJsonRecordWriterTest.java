@@ -0,0 +1,204 @@
+/**
+ * Copyright 2015 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.bigquery.outputformat;
+
+import com.google.cloud.RestorableState;
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Bucket;
+import com.google.cloud.storage.Storage;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Uploads records against a mocked storage service keeping the blobs in memory.
+ */
+public class BiqQueryJsonRecordWriterTest {
+
+    private static final String BUCKET = "bucket";
+
+    private static final String BLOB = "folder/attempt_0.gz";
+
+    private Storage storage;
+
+    private Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+
+    private AtomicInteger failingUploads = new AtomicInteger();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        storage = mock(Storage.class);
+
+        when(storage.get(anyString())).thenReturn(mock(Bucket.class));
+
+        when(storage.writer(any(BlobInfo.class))).thenAnswer(new Answer<WriteChannel>() {
+            @Override
+            public WriteChannel answer(InvocationOnMock invocation) throws Throwable {
+                return new InMemoryChannel(((BlobInfo) invocation.getArguments()[0]).getName());
+            }
+        });
+
+        when(storage.compose(any(Storage.ComposeRequest.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Storage.ComposeRequest request = (Storage.ComposeRequest) invocation.getArguments()[0];
+
+                ByteArrayOutputStream composed = new ByteArrayOutputStream();
+                for (Storage.ComposeRequest.SourceBlob source : request.getSourceBlobs())
+                    composed.write(blobs.get(source.getName()));
+
+                blobs.put(request.getTarget().getName(), composed.toByteArray());
+                return null;
+            }
+        });
+
+        when(storage.delete((Iterable<BlobId>) any(Iterable.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                for (BlobId blob : (Iterable<BlobId>) invocation.getArguments()[0])
+                    blobs.remove(blob.getName());
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testSmallOutputIsUploadedAsSingleBlob() throws IOException {
+        BiqQueryJsonRecordWriter<Object> writer = new BiqQueryJsonRecordWriter<>(storage, BUCKET, BLOB, null, 1024 * 1024, 2);
+
+        String expected = writeRecords(writer, 3);
+        writer.close(null);
+
+        assertEquals(1, blobs.size());
+        assertEquals(expected, decompress(blobs.get(BLOB)));
+        verify(storage, never()).compose(any(Storage.ComposeRequest.class));
+    }
+
+    @Test
+    public void testPartsAreComposedInOrder() throws IOException {
+        // every record fills a part
+        BiqQueryJsonRecordWriter<Object> writer = new BiqQueryJsonRecordWriter<>(storage, BUCKET, BLOB, null, 1, 3);
+
+        String expected = writeRecords(writer, 70);
+        writer.close(null);
+
+        assertEquals(1, blobs.size());
+        assertEquals(expected, decompress(blobs.get(BLOB)));
+        // 70 parts need three compose requests of at most 32 sources
+        verify(storage, times(3)).compose(any(Storage.ComposeRequest.class));
+    }
+
+    @Test
+    public void testFailedPartUploadIsRetried() throws IOException {
+        failingUploads.set(2);
+
+        BiqQueryJsonRecordWriter<Object> writer = new BiqQueryJsonRecordWriter<>(storage, BUCKET, BLOB, null, 1, 2);
+
+        String expected = writeRecords(writer, 5);
+        writer.close(null);
+
+        assertEquals(expected, decompress(blobs.get(BLOB)));
+        assertEquals(0, failingUploads.get());
+    }
+
+    private String writeRecords(BiqQueryJsonRecordWriter<Object> writer, int count) throws IOException {
+        StringBuilder records = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            String record = "{\"id\":" + i + "}\n";
+            records.append(record);
+            writer.write(null, new Text(record));
+        }
+
+        return records.toString();
+    }
+
+    private String decompress(byte[] blob) throws IOException {
+        assertTrue(blob != null && blob.length > 0);
+
+        return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(blob)), StandardCharsets.UTF_8);
+    }
+
+    private class InMemoryChannel implements WriteChannel {
+
+        private final String name;
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        private boolean open = true;
+
+        InMemoryChannel(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int length = src.remaining();
+            byte[] bytes = new byte[length];
+            src.get(bytes);
+            content.write(bytes);
+            return length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!open)
+                return;
+            open = false;
+
+            if (failingUploads.getAndUpdate(n -> Math.max(0, n - 1)) > 0)
+                throw new IOException("upload of " + name + " failed");
+
+            blobs.put(name, content.toByteArray());
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void setChunkSize(int chunkSize) {
+        }
+
+        @Override
+        public RestorableState<WriteChannel> capture() {
+            return null;
+        }
+    }
+}
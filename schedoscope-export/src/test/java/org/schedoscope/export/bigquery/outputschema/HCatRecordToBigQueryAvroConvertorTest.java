@@ -0,0 +1,218 @@
+/**
+ * Copyright 2015 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.bigquery.outputschema;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.file.SeekableByteArrayInput;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hive.hcatalog.common.HCatException;
+import org.apache.hive.hcatalog.data.DefaultHCatRecord;
+import org.apache.hive.hcatalog.data.schema.HCatFieldSchema;
+import org.apache.hive.hcatalog.data.schema.HCatSchema;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.schedoscope.export.bigquery.outputschema.BigQuerySchemaToAvroSchemaConverter.convertSchemaToAvroSchema;
+import static org.schedoscope.export.bigquery.outputschema.HCatSchemaToBigQuerySchemaConverter.convertSchemaToBigQuerySchema;
+
+public class HCatRecordToBigQueryAvroConvertorTest {
+
+    private HCatSchema hcatSchema;
+
+    private Schema avroSchema;
+
+    @Before
+    public void setUp() throws HCatException {
+
+        PrimitiveTypeInfo hcatStringType = new PrimitiveTypeInfo();
+        hcatStringType.setTypeName("string");
+        PrimitiveTypeInfo hcatIntType = new PrimitiveTypeInfo();
+        hcatIntType.setTypeName("int");
+        PrimitiveTypeInfo hcatFloatType = new PrimitiveTypeInfo();
+        hcatFloatType.setTypeName("float");
+        PrimitiveTypeInfo hcatBooleanType = new PrimitiveTypeInfo();
+        hcatBooleanType.setTypeName("boolean");
+
+        HCatSchema nestedStructSchema = new HCatSchema(
+                Arrays.asList(
+                        new HCatFieldSchema("aString", hcatStringType, "a string field")
+                )
+        );
+
+        hcatSchema = new HCatSchema(
+                Arrays.asList(
+                        new HCatFieldSchema("anInt", hcatIntType, "an int field"),
+                        new HCatFieldSchema("aFloat", hcatFloatType, "a float field"),
+                        new HCatFieldSchema("aBoolean", hcatBooleanType, "a boolean field"),
+                        new HCatFieldSchema("aStruct",
+                                HCatFieldSchema.Type.STRUCT,
+                                new HCatSchema(
+                                        Arrays.asList(
+                                                new HCatFieldSchema("anInt", hcatIntType, "an int field"),
+                                                new HCatFieldSchema("aNestedStruct", HCatFieldSchema.Type.STRUCT, nestedStructSchema, "a nested struct field")
+                                        )
+                                ),
+                                "a struct field"),
+                        new HCatFieldSchema("listOfStructs",
+                                HCatFieldSchema.Type.ARRAY,
+                                new HCatSchema(
+                                        Arrays.asList(
+                                                new HCatFieldSchema(null, HCatFieldSchema.Type.STRUCT, nestedStructSchema, null)
+                                        )
+                                ),
+                                "a list of structs field"),
+                        new HCatFieldSchema("listOfInts",
+                                HCatFieldSchema.Type.ARRAY,
+                                new HCatSchema(
+                                        Arrays.asList(
+                                                new HCatFieldSchema(null, hcatIntType, null)
+                                        )
+                                ),
+                                "a list of ints field"),
+                        HCatFieldSchema.createMapTypeFieldSchema("aMap", hcatStringType,
+                                new HCatSchema(
+                                        Arrays.asList(
+                                                new HCatFieldSchema(null, hcatIntType, null)
+                                        )
+                                ),
+                                "a map field")
+                )
+        );
+
+        avroSchema = convertSchemaToAvroSchema(convertSchemaToBigQuerySchema(hcatSchema));
+    }
+
+    @Test
+    public void testSchemaConversion() {
+
+        assertEquals(Schema.Type.UNION, avroSchema.getField("_USED_HCAT_FILTER").schema().getType());
+        assertEquals(Schema.Type.UNION, avroSchema.getField("anInt").schema().getType());
+        assertEquals(Schema.Type.LONG, avroSchema.getField("anInt").schema().getTypes().get(1).getType());
+        assertEquals(Schema.Type.DOUBLE, avroSchema.getField("aFloat").schema().getTypes().get(1).getType());
+        assertEquals(Schema.Type.STRING, avroSchema.getField("aMap").schema().getTypes().get(1).getType());
+
+        assertEquals(Schema.Type.ARRAY, avroSchema.getField("listOfInts").schema().getType());
+        assertEquals(Schema.Type.LONG, avroSchema.getField("listOfInts").schema().getElementType().getType());
+
+        Schema struct = avroSchema.getField("aStruct").schema().getTypes().get(1);
+        Schema nestedStruct = struct.getField("aNestedStruct").schema().getTypes().get(1);
+        Schema listStruct = avroSchema.getField("listOfStructs").schema().getElementType();
+
+        assertEquals("root.aStruct", struct.getFullName());
+        assertEquals("root.aStruct.aNestedStruct", nestedStruct.getFullName());
+        assertEquals("root.listOfStructs", listStruct.getFullName());
+    }
+
+    @Test
+    public void testRecordConversionRoundTrip() throws IOException {
+
+        HashMap<String, Integer> map = new HashMap<>();
+        map.put("key", 1);
+
+        DefaultHCatRecord hcatRecord = new DefaultHCatRecord(Arrays.asList(
+                42,
+                1.5f,
+                true,
+                Arrays.asList(7, Arrays.asList("nested")),
+                Arrays.asList(Arrays.asList("first"), null, Arrays.asList("second")),
+                null,
+                map
+        ));
+
+        DefaultHCatRecord recordWithNulls = new DefaultHCatRecord(Arrays.asList(
+                null, null, null, null, null, Collections.emptyList(), null
+        ));
+
+        HCatRecordToBigQueryAvroConvertor convertor = new HCatRecordToBigQueryAvroConvertor(hcatSchema, avroSchema);
+
+        List<GenericRecord> records = writeAndRead(convertor, hcatRecord, recordWithNulls);
+
+        assertEquals(2, records.size());
+
+        GenericRecord record = records.get(0);
+        assertEquals("year='2017'", record.get("_USED_HCAT_FILTER").toString());
+        assertEquals(42L, record.get("anInt"));
+        assertEquals(1.5d, record.get("aFloat"));
+        assertEquals(true, record.get("aBoolean"));
+        assertEquals(7L, ((GenericRecord) record.get("aStruct")).get("anInt"));
+        assertEquals("nested", ((GenericRecord) ((GenericRecord) record.get("aStruct")).get("aNestedStruct")).get("aString").toString());
+
+        List<?> listOfStructs = (List<?>) record.get("listOfStructs");
+        assertEquals(2, listOfStructs.size());
+        assertEquals("second", ((GenericRecord) listOfStructs.get(1)).get("aString").toString());
+
+        assertTrue(((List<?>) record.get("listOfInts")).isEmpty());
+        assertEquals("{\"key\":1}", record.get("aMap").toString());
+
+        GenericRecord nullRecord = records.get(1);
+        assertNull(nullRecord.get("anInt"));
+        assertNull(nullRecord.get("aStruct"));
+        assertNull(nullRecord.get("aMap"));
+        assertTrue(((List<?>) nullRecord.get("listOfStructs")).isEmpty());
+    }
+
+    private List<GenericRecord> writeAndRead(HCatRecordToBigQueryAvroConvertor convertor, DefaultHCatRecord... hcatRecords) throws IOException {
+
+        GenericDatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<>(avroSchema);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+
+        DataFileWriter<GenericRecord> fileWriter = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(avroSchema))
+                .setCodec(CodecFactory.snappyCodec())
+                .create(avroSchema, file);
+
+        BinaryEncoder encoder = null;
+
+        for (DefaultHCatRecord hcatRecord : hcatRecords) {
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            encoder = EncoderFactory.get().binaryEncoder(encoded, encoder);
+            datumWriter.write(convertor.convert(hcatRecord, "year='2017'"), encoder);
+            encoder.flush();
+
+            // this is how the record writer appends the records coming from the mapper
+            fileWriter.appendEncoded(ByteBuffer.wrap(encoded.toByteArray()));
+        }
+
+        fileWriter.close();
+
+        DataFileReader<GenericRecord> fileReader = new DataFileReader<>(new SeekableByteArrayInput(file.toByteArray()), new GenericDatumReader<GenericRecord>());
+
+        List<GenericRecord> records = new ArrayList<>();
+        while (fileReader.hasNext())
+            records.add(fileReader.next());
+
+        fileReader.close();
+
+        return records;
+    }
+}
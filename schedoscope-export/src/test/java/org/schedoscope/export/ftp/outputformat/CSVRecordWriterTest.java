@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.outputformat;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.QuoteMode;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.Test;
+import org.schedoscope.export.writables.TextPairArrayWritable;
+import org.schedoscope.export.writables.TextPairWritable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class CSVRecordWriterTest {
+
+    private static final String[] HEADER = {"id", "name", "comment"};
+
+    private static final String[][] RECORDS = {
+            {"1", "plain", "text"},
+            {"2", "  padded\t", "\"quoted\" and \"\"double\"\""},
+            {"3", "", "   "},
+            {"4", "umlauts äöü, € and 😀", "line\nbreak;delimiter,"}};
+
+    @Test
+    public void testSameOutputAsCSVPrinter() throws IOException {
+
+        assertEquals(printWithCommonsCsv(HEADER, ','), write(HEADER, ','));
+        assertEquals(printWithCommonsCsv(null, ';'), write(null, ';'));
+        assertEquals(printWithCommonsCsv(HEADER, '§'), write(HEADER, '§'));
+    }
+
+    @Test
+    public void testNoHeaderWithoutRecords() throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CSVRecordWriter<LongWritable, TextPairArrayWritable> writer =
+                new CSVRecordWriter<>(new DataOutputStream(bytes), HEADER, ',');
+        writer.close(null);
+
+        assertEquals(0, bytes.size());
+    }
+
+    private String write(String[] header, char delimiter) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CSVRecordWriter<LongWritable, TextPairArrayWritable> writer =
+                new CSVRecordWriter<>(new DataOutputStream(bytes), header, delimiter);
+
+        for (String[] record : RECORDS) {
+            TextPairWritable[] values = new TextPairWritable[record.length];
+            for (int i = 0; i < record.length; i++) {
+                values[i] = new TextPairWritable(HEADER[i], record[i]);
+            }
+            writer.write(new LongWritable(0), new TextPairArrayWritable(values));
+        }
+        writer.close(null);
+
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String printWithCommonsCsv(String[] header, char delimiter) throws IOException {
+
+        StringBuilder buffer = new StringBuilder();
+        CSVPrinter printer = CSVFormat.DEFAULT.withTrim(true).withQuoteMode(QuoteMode.ALL).withHeader(header)
+                .withDelimiter(delimiter).print(buffer);
+
+        for (String[] record : RECORDS) {
+            printer.printRecord((Object[]) record);
+        }
+        return buffer.toString();
+    }
+}
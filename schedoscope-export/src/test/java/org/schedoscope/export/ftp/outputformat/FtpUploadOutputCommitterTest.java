@@ -0,0 +1,67 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.ftp.outputformat;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FtpUploadOutputCommitterTest {
+
+    private Configuration conf;
+
+    private JobContext context;
+
+    @Before
+    public void setUp() {
+
+        conf = new Configuration();
+        context = mock(JobContext.class);
+        when(context.getConfiguration()).thenReturn(conf);
+    }
+
+    @Test
+    public void testNumberOfFilesWithReducers() {
+
+        conf.setInt(MRJobConfig.NUM_MAPS, 100);
+        when(context.getNumReduceTasks()).thenReturn(2);
+
+        assertEquals(2, FtpUploadOutputCommitter.getNumberOfFiles(context));
+    }
+
+    @Test
+    public void testNumberOfFilesMapOnly() {
+
+        conf.setInt(MRJobConfig.NUM_MAPS, 100);
+        when(context.getNumReduceTasks()).thenReturn(0);
+
+        assertEquals(100, FtpUploadOutputCommitter.getNumberOfFiles(context));
+    }
+
+    @Test
+    public void testNumberOfFilesUnknown() {
+
+        when(context.getNumReduceTasks()).thenReturn(0);
+
+        assertEquals(Integer.MAX_VALUE, FtpUploadOutputCommitter.getNumberOfFiles(context));
+    }
+}
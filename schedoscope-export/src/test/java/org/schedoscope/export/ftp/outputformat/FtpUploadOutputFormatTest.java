@@ -0,0 +1,240 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.outputformat;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.schedoscope.export.ftp.upload.FileCompressionCodec;
+import org.schedoscope.export.ftp.upload.RemoteConnectionPool;
+import org.schedoscope.export.testsupport.EmbeddedFtpSftpServer;
+import org.schedoscope.export.writables.TextPairArrayWritable;
+import org.schedoscope.export.writables.TextPairWritable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FtpUploadOutputFormatTest {
+
+    private static final String EXPECTED_CONTENT = "\"1\",\"a\"\r\n\"2\",\"b\"\r\n";
+
+    private static EmbeddedFtpSftpServer server;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Configuration conf;
+
+    private Counters counters;
+
+    private String remoteDir;
+
+    @BeforeClass
+    public static void setUpServer() throws Exception {
+
+        server = new EmbeddedFtpSftpServer();
+        server.startEmbeddedSftpServer();
+    }
+
+    @AfterClass
+    public static void tearDownServer() throws InterruptedException {
+
+        RemoteConnectionPool.closeAll();
+        server.stopEmbeddedSftpServer();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+
+        remoteDir = "stream-" + RandomStringUtils.randomNumeric(10);
+
+        conf = new Configuration();
+        conf.set(FileOutputFormat.OUTDIR, folder.newFolder("output").getAbsolutePath());
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_ENDPOINT, "sftp://localhost:12222/" + remoteDir);
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_USER, EmbeddedFtpSftpServer.FTP_USER_FOR_TESTING);
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_PASS, EmbeddedFtpSftpServer.FTP_PASS_FOR_TESTING);
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_FILE_PREFIX, "table-");
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_CVS_DELIMITER, ",");
+        conf.set("ftp.export.file.type", FileOutputType.csv.toString());
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_SPOOL_DIR, folder.newFolder("spool").getAbsolutePath());
+
+        counters = new Counters();
+    }
+
+    @Test
+    public void testDirectStreaming() throws Exception {
+
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_STAGING_MODE, FtpStagingMode.direct.toString());
+        TaskAttemptContext context = createContext();
+        FtpUploadOutputFormat<LongWritable, TextPairArrayWritable> format = new FtpUploadOutputFormat<>();
+
+        writeRecords(format, context);
+
+        assertEquals(EXPECTED_CONTENT, readRemote(FtpUploadOutputFormat.getRemoteTmpFileName(context)));
+        assertFalse(remoteFile("table-0-1").exists());
+        assertFalse(FtpUploadOutputFormat.getSpoolFile(context).exists());
+
+        OutputCommitter committer = format.getOutputCommitter(context);
+        assertTrue(committer.needsTaskCommit(context));
+        committer.commitTask(context);
+
+        assertEquals(EXPECTED_CONTENT, readRemote("table-0-1"));
+        assertFalse(remoteFile(FtpUploadOutputFormat.getRemoteTmpFileName(context)).exists());
+        assertEquals(EXPECTED_CONTENT.length(), counters.findCounter(FtpUploadCounter.BYTES_UPLOADED).getValue());
+    }
+
+    @Test
+    public void testLocalSpool() throws Exception {
+
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_STAGING_MODE, FtpStagingMode.local.toString());
+        TaskAttemptContext context = createContext();
+        FtpUploadOutputFormat<LongWritable, TextPairArrayWritable> format = new FtpUploadOutputFormat<>();
+
+        writeRecords(format, context);
+        assertTrue(FtpUploadOutputFormat.getSpoolFile(context).exists());
+
+        format.getOutputCommitter(context).commitTask(context);
+
+        assertEquals(EXPECTED_CONTENT, readRemote("table-0-1"));
+        assertFalse(FtpUploadOutputFormat.getSpoolFile(context).exists());
+        assertEquals(1, counters.findCounter(FtpUploadCounter.FILES).getValue());
+    }
+
+    @Test
+    public void testDirectFallbackToSpool() throws Exception {
+
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_ENDPOINT, "sftp://localhost:1/" + remoteDir);
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_STAGING_MODE, FtpStagingMode.direct.toString());
+        TaskAttemptContext context = createContext();
+        FtpUploadOutputFormat<LongWritable, TextPairArrayWritable> format = new FtpUploadOutputFormat<>();
+
+        writeRecords(format, context);
+
+        File spoolFile = FtpUploadOutputFormat.getSpoolFile(context);
+        assertEquals(EXPECTED_CONTENT, new String(Files.readAllBytes(spoolFile.toPath()), StandardCharsets.UTF_8));
+
+        format.getOutputCommitter(context).abortTask(context);
+        assertFalse(spoolFile.exists());
+    }
+
+    @Test
+    public void testCompressedRoundTrip() throws Exception {
+
+        conf.set(FtpUploadOutputFormat.FTP_EXPORT_STAGING_MODE, FtpStagingMode.local.toString());
+
+        for (FileCompressionCodec codec : FileCompressionCodec.values()) {
+            if (codec == FileCompressionCodec.none) {
+                continue;
+            }
+            Class<? extends CompressionCodec> codecClass = FtpUploadOutputFormat.getCompressionCodec(codec);
+            conf.setBoolean(FileOutputFormat.COMPRESS, true);
+            conf.setClass(FileOutputFormat.COMPRESS_CODEC, codecClass, CompressionCodec.class);
+
+            TaskAttemptContext context = createContext();
+            writeRecords(new FtpUploadOutputFormat<LongWritable, TextPairArrayWritable>(), context);
+
+            CompressionCodec compressionCodec = ReflectionUtils.newInstance(codecClass, conf);
+            InputStream in = compressionCodec.createInputStream(
+                    Files.newInputStream(FtpUploadOutputFormat.getSpoolFile(context).toPath()));
+            try {
+                assertEquals(codec.toString(), EXPECTED_CONTENT, IOUtils.toString(in, StandardCharsets.UTF_8));
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    private TaskAttemptContext createContext() {
+
+        StatusReporter reporter = new StatusReporter() {
+
+            @Override
+            public Counter getCounter(Enum<?> name) {
+                return counters.findCounter(name);
+            }
+
+            @Override
+            public Counter getCounter(String group, String name) {
+                return counters.findCounter(group, name);
+            }
+
+            @Override
+            public void progress() {
+            }
+
+            @Override
+            public float getProgress() {
+                return 0;
+            }
+
+            @Override
+            public void setStatus(String status) {
+            }
+        };
+
+        TaskAttemptID id = new TaskAttemptID("jt", 1, TaskType.REDUCE, 0, 0);
+        return new TaskAttemptContextImpl(conf, id, reporter);
+    }
+
+    private void writeRecords(FtpUploadOutputFormat<LongWritable, TextPairArrayWritable> format,
+                              TaskAttemptContext context) throws IOException, InterruptedException {
+
+        RecordWriter<LongWritable, TextPairArrayWritable> writer = format.getRecordWriter(context);
+        writer.write(new LongWritable(0), new TextPairArrayWritable(new TextPairWritable[]{
+                new TextPairWritable("id", "1"), new TextPairWritable("name", "a")}));
+        writer.write(new LongWritable(1), new TextPairArrayWritable(new TextPairWritable[]{
+                new TextPairWritable("id", "2"), new TextPairWritable("name", "b")}));
+        writer.close(context);
+    }
+
+    private File remoteFile(String name) {
+
+        return new File(EmbeddedFtpSftpServer.FTP_SERVER_DIR + "/" + remoteDir + "/" + name);
+    }
+
+    private String readRemote(String name) throws IOException {
+
+        return new String(Files.readAllBytes(Paths.get(remoteFile(name).getPath())), StandardCharsets.UTF_8);
+    }
+}
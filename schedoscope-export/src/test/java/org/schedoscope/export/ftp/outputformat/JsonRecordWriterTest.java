@@ -0,0 +1,89 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.outputformat;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.mapred.AvroValue;
+import org.apache.avro.util.Utf8;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonRecordWriterTest {
+
+    private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"test\", "
+            + "\"fields\": ["
+            + "{\"name\": \"id\", \"type\": \"long\"},"
+            + "{\"name\": \"score\", \"type\": [\"null\", \"double\"]},"
+            + "{\"name\": \"name\", \"type\": \"string\"},"
+            + "{\"name\": \"tags\", \"type\": {\"type\": \"array\", \"items\": \"string\"}},"
+            + "{\"name\": \"attributes\", \"type\": {\"type\": \"map\", \"values\": \"int\"}},"
+            + "{\"name\": \"payload\", \"type\": \"bytes\"},"
+            + "{\"name\": \"nested\", \"type\": {\"type\": \"record\", \"name\": \"nested\", \"fields\": ["
+            + "{\"name\": \"flag\", \"type\": \"boolean\"}]}}]}");
+
+    @Test
+    public void testSameOutputAsToString() throws IOException {
+
+        GenericRecord nested = new GenericData.Record(SCHEMA.getField("nested").schema());
+        nested.put("flag", true);
+
+        Map<String, Integer> attributes = new LinkedHashMap<>();
+        attributes.put("a", 1);
+        attributes.put("b\"", 2);
+
+        GenericRecord first = new GenericData.Record(SCHEMA);
+        first.put("id", 1L);
+        first.put("score", 0.5);
+        first.put("name", "quote \" backslash \\ slash / tab \t control \u0001 \u0085   umlauts äöü 😀");
+        first.put("tags", Arrays.asList(new Utf8("x"), "y", "z"));
+        first.put("attributes", attributes);
+        first.put("payload", ByteBuffer.wrap(new byte[]{'a', 0, -1, 127}));
+        first.put("nested", nested);
+
+        GenericRecord second = new GenericData.Record(SCHEMA);
+        second.put("id", -2L);
+        second.put("score", null);
+        second.put("name", "");
+        second.put("tags", Arrays.asList());
+        second.put("attributes", new LinkedHashMap<>());
+        second.put("payload", ByteBuffer.allocate(0));
+        second.put("nested", nested);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonRecordWriter<LongWritable, AvroValue<GenericRecord>> writer =
+                new JsonRecordWriter<>(new DataOutputStream(bytes));
+        writer.write(new LongWritable(0), new AvroValue<>(first));
+        writer.write(new LongWritable(1), new AvroValue<>(second));
+        writer.close(null);
+
+        assertEquals(first.toString() + "\n" + second.toString() + "\n",
+                new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.export.ftp.outputformat;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Lz4FrameCodecTest {
+
+    private final Lz4FrameCodec codec = new Lz4FrameCodec();
+
+    @Test
+    public void testEmptyFrame() throws IOException {
+
+        // the output of 'lz4 -c < /dev/null'
+        byte[] expected = new byte[]{0x04, 0x22, 0x4D, 0x18, 0x64, 0x70, (byte) 0xB9,
+                0x00, 0x00, 0x00, 0x00, 0x05, 0x5D, (byte) 0xCC, 0x02};
+
+        assertArrayEquals(expected, compress(new byte[0]));
+        assertArrayEquals(new byte[0], decompress(expected));
+    }
+
+    @Test
+    public void testRoundTripMultipleBlocks() throws IOException {
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 3 * Lz4FrameOutputStream.BLOCK_SIZE; i++) {
+            text.append("\"").append(i).append("\",\"value ").append(i % 100).append("\"\r\n");
+        }
+        byte[] data = text.toString().getBytes(StandardCharsets.UTF_8);
+
+        byte[] compressed = compress(data);
+
+        assertTrue(compressed.length < data.length / 2);
+        assertArrayEquals(data, decompress(compressed));
+    }
+
+    @Test
+    public void testRoundTripIncompressible() throws IOException {
+
+        byte[] data = new byte[Lz4FrameOutputStream.BLOCK_SIZE + 1000];
+        new Random(1).nextBytes(data);
+
+        assertArrayEquals(data, decompress(compress(data)));
+    }
+
+    @Test
+    public void testConcatenatedFrames() throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CompressionOutputStream out = codec.createOutputStream(bytes);
+        out.write("first ".getBytes(StandardCharsets.UTF_8));
+        out.finish();
+        out.resetState();
+        out.write("second".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        assertArrayEquals("first second".getBytes(StandardCharsets.UTF_8), decompress(bytes.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testContentChecksumMismatch() throws IOException {
+
+        byte[] compressed = compress("some content".getBytes(StandardCharsets.UTF_8));
+        compressed[compressed.length - 1] ^= 1;
+
+        decompress(compressed);
+    }
+
+    private byte[] compress(byte[] data) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CompressionOutputStream out = codec.createOutputStream(bytes);
+        // write in chunks not aligned with the block size
+        for (int off = 0; off < data.length; off += 7777) {
+            out.write(data, off, Math.min(7777, data.length - off));
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private byte[] decompress(byte[] data) throws IOException {
+
+        InputStream in = codec.createInputStream(new ByteArrayInputStream(data));
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.ftp.upload;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.schedoscope.export.testsupport.EmbeddedFtpSftpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ParallelUploaderTest {
+
+    private static EmbeddedFtpSftpServer server;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileSystem fs;
+
+    private Path src;
+
+    private byte[] content;
+
+    private String remoteDir;
+
+    @BeforeClass
+    public static void setUpServer() throws Exception {
+
+        server = new EmbeddedFtpSftpServer();
+        server.startEmbeddedFtpServer();
+        server.startEmbeddedSftpServer();
+    }
+
+    @AfterClass
+    public static void tearDownServer() throws InterruptedException {
+
+        RemoteConnectionPool.closeAll();
+        server.stopEmbeddedFtpServer();
+        server.stopEmbeddedSftpServer();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+
+        content = new byte[3500];
+        new Random(42).nextBytes(content);
+
+        File file = folder.newFile("export.csv.gz");
+        Files.write(file.toPath(), content);
+
+        fs = FileSystem.getLocal(new Configuration());
+        src = new Path(file.getAbsolutePath());
+        remoteDir = "upload-" + RandomStringUtils.randomNumeric(10);
+    }
+
+    @Test
+    public void testSftpUpload() throws IOException {
+
+        RemoteConnectionPool pool = new RemoteConnectionPool(sftpEndpoint(null, EmbeddedFtpSftpServer.FTP_PASS_FOR_TESTING));
+        ParallelUploader uploader = new ParallelUploader(pool, 1, 1000, 3);
+
+        assertEquals(1, uploader.upload(fs, src, pool.getEndpoint().resolve("file1"), null));
+        assertEquals(1, uploader.upload(fs, src, pool.getEndpoint().resolve("file2"), null));
+
+        assertArrayEquals(content, readRemote("file1"));
+        assertArrayEquals(content, readRemote("file2"));
+        assertFalse(new File(remoteFile("file1") + ParallelUploader.TMP_SUFFIX).exists());
+        assertEquals(1, pool.getConnectionsCreated());
+        pool.close();
+    }
+
+    @Test
+    public void testSftpUploadWithKey() throws IOException {
+
+        String key = new String(Files.readAllBytes(Paths.get("src/test/resources/keys/id_rsa_encrypted")),
+                StandardCharsets.US_ASCII);
+        String passphrase = new String(Files.readAllBytes(Paths.get("src/test/resources/keys/passphrase")),
+                StandardCharsets.US_ASCII).trim();
+
+        RemoteConnectionPool pool = new RemoteConnectionPool(sftpEndpoint(key, passphrase));
+        new ParallelUploader(pool, 1, 1000, 3).upload(fs, src, pool.getEndpoint().resolve("file"), null);
+
+        assertArrayEquals(content, readRemote("file"));
+        pool.close();
+    }
+
+    @Test
+    public void testSftpUploadInParts() throws IOException {
+
+        RemoteConnectionPool pool = new RemoteConnectionPool(sftpEndpoint(null, EmbeddedFtpSftpServer.FTP_PASS_FOR_TESTING));
+        ParallelUploader uploader = new ParallelUploader(pool, 3, 1000, 3);
+
+        assertEquals(4, uploader.upload(fs, src, pool.getEndpoint().resolve("file"), null));
+
+        List<String> manifest = Files.readAllLines(Paths.get(remoteFile("file") + ParallelUploader.MANIFEST_SUFFIX));
+        assertEquals(4, manifest.size());
+        assertEquals("file.part-00000\t1000", manifest.get(0));
+        assertEquals("file.part-00003\t500", manifest.get(3));
+
+        ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+        for (String line : manifest) {
+            concatenated.write(readRemote(line.split("\t")[0]));
+        }
+        assertArrayEquals(content, concatenated.toByteArray());
+        assertFalse(new File(remoteFile("file")).exists());
+        pool.close();
+    }
+
+    @Test
+    public void testFtpUpload() throws IOException {
+
+        RemoteConnectionPool pool = new RemoteConnectionPool(new RemoteEndpoint("ftp://localhost:2221/" + remoteDir,
+                EmbeddedFtpSftpServer.FTP_USER_FOR_TESTING, EmbeddedFtpSftpServer.FTP_PASS_FOR_TESTING, null, true, true));
+        ParallelUploader uploader = new ParallelUploader(pool, 2, 2000, 3);
+
+        assertEquals(2, uploader.upload(fs, src, pool.getEndpoint().resolve("file"), null));
+
+        ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+        concatenated.write(readRemote("file.part-00000"));
+        concatenated.write(readRemote("file.part-00001"));
+        assertArrayEquals(content, concatenated.toByteArray());
+        pool.close();
+    }
+
+    @Test
+    public void testResumeBrokenTransfer() throws IOException {
+
+        RemoteConnectionPool pool = new RemoteConnectionPool(sftpEndpoint(null, EmbeddedFtpSftpServer.FTP_PASS_FOR_TESTING)) {
+
+            @Override
+            protected RemoteConnection connect() throws IOException {
+                RemoteConnection connection = super.connect();
+                return getConnectionsCreated() == 1 ? new BreakingConnection(connection, 2000) : connection;
+            }
+        };
+        ParallelUploader uploader = new ParallelUploader(pool, 1, 1000, 3);
+
+        uploader.upload(fs, src, pool.getEndpoint().resolve("file"), null);
+
+        assertArrayEquals(content, readRemote("file"));
+        assertEquals(1, uploader.getRetries());
+        assertEquals(2, pool.getConnectionsCreated());
+        pool.close();
+    }
+
+    private RemoteEndpoint sftpEndpoint(String key, String pass) {
+
+        return new RemoteEndpoint("sftp://localhost:12222/" + remoteDir, EmbeddedFtpSftpServer.FTP_USER_FOR_TESTING,
+                pass, key, true, true);
+    }
+
+    private String remoteFile(String name) {
+
+        return EmbeddedFtpSftpServer.FTP_SERVER_DIR + "/" + remoteDir + "/" + name;
+    }
+
+    private byte[] readRemote(String name) throws IOException {
+
+        return Files.readAllBytes(Paths.get(remoteFile(name)));
+    }
+
+    /**
+     * A connection whose first transfer breaks after a number of bytes.
+     */
+    private static class BreakingConnection implements RemoteConnection {
+
+        private final RemoteConnection connection;
+
+        private long bytesLeft;
+
+        BreakingConnection(RemoteConnection connection, long bytesLeft) {
+
+            this.connection = connection;
+            this.bytesLeft = bytesLeft;
+        }
+
+        @Override
+        public long getSize(String path) throws IOException {
+            return connection.getSize(path);
+        }
+
+        @Override
+        public OutputStream openOutputStream(String path, boolean append) throws IOException {
+
+            return new FilterOutputStream(connection.openOutputStream(path, append)) {
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+
+                    if (len > bytesLeft) {
+                        out.write(b, off, (int) bytesLeft);
+                        out.flush();
+                        throw new IOException("connection reset");
+                    }
+                    out.write(b, off, len);
+                    bytesLeft -= len;
+                }
+            };
+        }
+
+        @Override
+        public void rename(String from, String to) throws IOException {
+            connection.rename(from, to);
+        }
+
+        @Override
+        public void delete(String path) throws IOException {
+            connection.delete(path);
+        }
+
+        @Override
+        public void makeDirectories(String path) throws IOException {
+            connection.makeDirectories(path);
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connection.isConnected();
+        }
+
+        @Override
+        public void close() throws IOException {
+            connection.close();
+        }
+    }
+}
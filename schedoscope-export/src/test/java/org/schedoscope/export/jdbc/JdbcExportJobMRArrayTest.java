@@ -29,7 +29,7 @@ import org.json.JSONException;
 import org.junit.Before;
 import org.junit.Test;
 import org.schedoscope.export.HiveUnitBaseTest;
-import org.schedoscope.export.jdbc.outputformat.JdbcOutputWritable;
+import org.schedoscope.export.jdbc.outputformat.JdbcRowWritable;
 
 import java.io.IOException;
 import java.util.Iterator;
@@ -40,9 +40,9 @@ import static org.junit.Assert.assertNotNull;
 
 public class JdbcExportJobMRArrayTest extends HiveUnitBaseTest {
 
-    MapDriver<WritableComparable<?>, HCatRecord, LongWritable, JdbcOutputWritable> mapDriver;
-    ReduceDriver<LongWritable, JdbcOutputWritable, LongWritable, JdbcOutputWritable> reduceDriver;
-    MapReduceDriver<WritableComparable<?>, HCatRecord, LongWritable, JdbcOutputWritable, LongWritable, JdbcOutputWritable> mapReduceDriver;
+    MapDriver<WritableComparable<?>, HCatRecord, LongWritable, JdbcRowWritable> mapDriver;
+    ReduceDriver<LongWritable, JdbcRowWritable, LongWritable, JdbcRowWritable> reduceDriver;
+    MapReduceDriver<WritableComparable<?>, HCatRecord, LongWritable, JdbcRowWritable, LongWritable, JdbcRowWritable> mapReduceDriver;
 
     @Override
     @SuppressWarnings("deprecation")
@@ -53,7 +53,7 @@ public class JdbcExportJobMRArrayTest extends HiveUnitBaseTest {
         mapDriver = MapDriver.newMapDriver(mapper);
         mapDriver.setConfiguration(conf);
 
-        Reducer<LongWritable, JdbcOutputWritable, LongWritable, JdbcOutputWritable> reducer = new Reducer<>();
+        Reducer<LongWritable, JdbcRowWritable, LongWritable, JdbcRowWritable> reducer = new Reducer<>();
         reduceDriver = ReduceDriver.newReduceDriver(reducer);
         reduceDriver.setConfiguration(conf);
 
@@ -72,10 +72,10 @@ public class JdbcExportJobMRArrayTest extends HiveUnitBaseTest {
             HCatRecord record = it.next();
             mapDriver.withInput(NullWritable.get(), record);
         }
-        List<Pair<LongWritable, JdbcOutputWritable>> out = mapDriver.run();
+        List<Pair<LongWritable, JdbcRowWritable>> out = mapDriver.run();
         assertEquals(10, out.size());
 
-        for (Pair<LongWritable, JdbcOutputWritable> p : out) {
+        for (Pair<LongWritable, JdbcRowWritable> p : out) {
             assertNotNull(p.getSecond());
         }
     }
@@ -88,7 +88,7 @@ public class JdbcExportJobMRArrayTest extends HiveUnitBaseTest {
             HCatRecord record = it.next();
             mapReduceDriver.withInput(NullWritable.get(), record);
         }
-        List<Pair<LongWritable, JdbcOutputWritable>> out = mapReduceDriver
+        List<Pair<LongWritable, JdbcRowWritable>> out = mapReduceDriver
                 .run();
         assertEquals(10, out.size());
     }
@@ -27,10 +27,11 @@ import org.junit.Test;
 import org.schedoscope.export.BaseExportJob;
 import org.schedoscope.export.HiveUnitBaseTest;
 import org.schedoscope.export.jdbc.outputformat.JdbcOutputFormat;
-import org.schedoscope.export.jdbc.outputformat.JdbcOutputWritable;
+import org.schedoscope.export.jdbc.outputformat.JdbcRowWritable;
 import org.schedoscope.export.jdbc.outputschema.Schema;
 import org.schedoscope.export.jdbc.outputschema.SchemaFactory;
 import org.schedoscope.export.jdbc.outputschema.SchemaUtils;
+import org.schedoscope.export.utils.JdbcQueryUtils;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -39,6 +40,7 @@ import java.sql.Statement;
 import java.util.HashSet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class JdbcExportJobMRFullTest extends HiveUnitBaseTest {
@@ -88,9 +90,9 @@ public class JdbcExportJobMRFullTest extends HiveUnitBaseTest {
         job.setOutputFormatClass(JdbcOutputFormat.class);
 
         job.setMapOutputKeyClass(LongWritable.class);
-        job.setMapOutputValueClass(JdbcOutputWritable.class);
+        job.setMapOutputValueClass(JdbcRowWritable.class);
         job.setOutputKeyClass(LongWritable.class);
-        job.setOutputValueClass(JdbcOutputWritable.class);
+        job.setOutputValueClass(JdbcRowWritable.class);
 
         assertTrue(job.waitForCompletion(true));
         JdbcOutputFormat.finalizeOutput(job.getConfiguration());
@@ -112,6 +114,46 @@ public class JdbcExportJobMRFullTest extends HiveUnitBaseTest {
         }
     }
 
+    @Test
+    public void testRunMrJobMapOnly() throws Exception {
+
+        setUpHiveServer("src/test/resources/test_map_data.txt",
+                "src/test/resources/test_map.hql", "test_map");
+
+        Job job = Job.getInstance(conf);
+
+        job.setMapperClass(JdbcExportMapper.class);
+        job.setNumReduceTasks(0);
+
+        Schema outputSchema = SchemaFactory.getSchema(CONNECTION_STRING,
+                job.getConfiguration());
+
+        String[] columnNames = SchemaUtils.getColumnNamesFromHcatSchema(
+                hcatInputSchema, outputSchema);
+        String[] columnTypes = SchemaUtils.getColumnTypesFromHcatSchema(
+                hcatInputSchema, outputSchema, new HashSet<String>(0));
+
+        JdbcOutputFormat.setOutput(job.getConfiguration(), CONNECTION_STRING,
+                null, null, "testing", null, NUM_PARTITIONS, 10000, null, null,
+                columnNames, columnTypes);
+
+        job.setInputFormatClass(HCatInputFormat.class);
+        job.setOutputFormatClass(JdbcOutputFormat.class);
+
+        job.setOutputKeyClass(LongWritable.class);
+        job.setOutputValueClass(JdbcRowWritable.class);
+
+        assertTrue(job.waitForCompletion(true));
+        JdbcOutputFormat.finalizeOutput(job.getConfiguration());
+
+        Connection conn = outputSchema.getConnection();
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM testing");
+        while (rs.next()) {
+            assertEquals(10, rs.getInt(1));
+        }
+    }
+
     @Test
     public void testRunMrJobArray() throws Exception {
 
@@ -140,9 +182,9 @@ public class JdbcExportJobMRFullTest extends HiveUnitBaseTest {
         job.setOutputFormatClass(JdbcOutputFormat.class);
 
         job.setMapOutputKeyClass(LongWritable.class);
-        job.setMapOutputValueClass(JdbcOutputWritable.class);
+        job.setMapOutputValueClass(JdbcRowWritable.class);
         job.setOutputKeyClass(LongWritable.class);
-        job.setOutputValueClass(JdbcOutputWritable.class);
+        job.setOutputValueClass(JdbcRowWritable.class);
 
         assertTrue(job.waitForCompletion(true));
         JdbcOutputFormat.finalizeOutput(job.getConfiguration());
@@ -198,9 +240,9 @@ public class JdbcExportJobMRFullTest extends HiveUnitBaseTest {
         job.setOutputFormatClass(JdbcOutputFormat.class);
 
         job.setMapOutputKeyClass(LongWritable.class);
-        job.setMapOutputValueClass(JdbcOutputWritable.class);
+        job.setMapOutputValueClass(JdbcRowWritable.class);
         job.setOutputKeyClass(LongWritable.class);
-        job.setOutputValueClass(JdbcOutputWritable.class);
+        job.setOutputValueClass(JdbcRowWritable.class);
 
         assertTrue(job.waitForCompletion(true));
         JdbcOutputFormat.finalizeOutput(job.getConfiguration());
@@ -250,9 +292,9 @@ public class JdbcExportJobMRFullTest extends HiveUnitBaseTest {
         job.setOutputFormatClass(JdbcOutputFormat.class);
 
         job.setMapOutputKeyClass(LongWritable.class);
-        job.setMapOutputValueClass(JdbcOutputWritable.class);
+        job.setMapOutputValueClass(JdbcRowWritable.class);
         job.setOutputKeyClass(LongWritable.class);
-        job.setOutputValueClass(JdbcOutputWritable.class);
+        job.setOutputValueClass(JdbcRowWritable.class);
 
         assertTrue(job.waitForCompletion(true));
         JdbcOutputFormat.finalizeOutput(job.getConfiguration());
@@ -276,4 +318,55 @@ public class JdbcExportJobMRFullTest extends HiveUnitBaseTest {
                     .asText());
         }
     }
+
+    @Test
+    public void testRunMrJobAtomicSwap() throws Exception {
+
+        setUpHiveServer("src/test/resources/test_map_data.txt",
+                "src/test/resources/test_map.hql", "test_map");
+
+        Job job = Job.getInstance(conf);
+
+        job.setMapperClass(JdbcExportMapper.class);
+        job.setReducerClass(Reducer.class);
+        job.setNumReduceTasks(NUM_PARTITIONS);
+
+        Schema outputSchema = SchemaFactory.getSchema(CONNECTION_STRING,
+                job.getConfiguration());
+
+        String[] columnNames = SchemaUtils.getColumnNamesFromHcatSchema(
+                hcatInputSchema, outputSchema);
+        String[] columnTypes = SchemaUtils.getColumnTypesFromHcatSchema(
+                hcatInputSchema, outputSchema, new HashSet<String>(0));
+
+        JdbcOutputFormat.setOutput(job.getConfiguration(), CONNECTION_STRING,
+                null, null, "testing_swap", null, NUM_PARTITIONS, 10000, null,
+                null, columnNames, columnTypes);
+        JdbcOutputFormat.setFinalizeStrategy(job.getConfiguration(), true,
+                NUM_PARTITIONS);
+
+        job.setInputFormatClass(HCatInputFormat.class);
+        job.setOutputFormatClass(JdbcOutputFormat.class);
+
+        job.setMapOutputKeyClass(LongWritable.class);
+        job.setMapOutputValueClass(JdbcRowWritable.class);
+        job.setOutputKeyClass(LongWritable.class);
+        job.setOutputValueClass(JdbcRowWritable.class);
+
+        Connection conn = outputSchema.getConnection();
+        conn.createStatement().executeUpdate(
+                "CREATE TABLE testing_swap (id VARCHAR(10))");
+
+        assertTrue(job.waitForCompletion(true));
+        JdbcOutputFormat.finalizeOutput(job.getConfiguration());
+
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM testing_swap");
+        while (rs.next()) {
+            assertEquals(10, rs.getInt(1));
+        }
+
+        assertFalse(JdbcQueryUtils.tableExists("TMP_testing_swap_SHADOW", conn));
+        assertFalse(JdbcQueryUtils.tableExists("TMP_testing_swap_BACKUP", conn));
+    }
 }
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.jdbc.outputformat;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class JdbcRecordWriterTest {
+
+    private static final JdbcColumnType[] TYPES = {JdbcColumnType.STRING,
+            JdbcColumnType.LONG};
+
+    Connection conn;
+    PreparedStatement stmt;
+    TaskAttemptContext context;
+    Counters counters;
+
+    @Before
+    public void setUp() throws SQLException {
+        conn = mock(Connection.class);
+        stmt = mock(PreparedStatement.class);
+        context = mock(TaskAttemptContext.class);
+        counters = new Counters();
+        when(context.getCounter(any(Enum.class))).thenAnswer(
+                new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) {
+                        return counters.findCounter((Enum<?>) invocation
+                                .getArguments()[0]);
+                    }
+                });
+    }
+
+    private JdbcOutputFormat<LongWritable, JdbcRowWritable>.JdbcRecordWriter createWriter(
+            int commitSize, long maxBatchBytes, int maxRetries) throws SQLException {
+
+        return new JdbcOutputFormat<LongWritable, JdbcRowWritable>().new JdbcRecordWriter(
+                conn, stmt, commitSize, maxBatchBytes, maxRetries, 0, context);
+    }
+
+    private JdbcRowWritable row(long i) {
+        JdbcRowWritable row = new JdbcRowWritable(TYPES);
+        row.setString(0, "row" + i);
+        row.setLong(1, i);
+        return row;
+    }
+
+    private long count(JdbcWriteCounter counter) {
+        return counters.findCounter(counter).getValue();
+    }
+
+    @Test
+    public void testPeriodicCommits() throws Exception {
+
+        JdbcOutputFormat<LongWritable, JdbcRowWritable>.JdbcRecordWriter writer = createWriter(
+                2, Long.MAX_VALUE, 0);
+        for (int i = 0; i < 5; i++) {
+            writer.write(new LongWritable(i), row(i));
+        }
+        verify(stmt, times(2)).executeBatch();
+        verify(conn, times(2)).commit();
+
+        writer.close(context);
+        verify(stmt, times(3)).executeBatch();
+        verify(conn, times(3)).commit();
+        verify(conn).close();
+
+        assertEquals(5, count(JdbcWriteCounter.ROWS_WRITTEN));
+        assertEquals(3, count(JdbcWriteCounter.BATCHES));
+        assertEquals(3, count(JdbcWriteCounter.COMMITS));
+        assertEquals(0, count(JdbcWriteCounter.RETRIES));
+    }
+
+    @Test
+    public void testBatchBytesBound() throws Exception {
+
+        JdbcOutputFormat<LongWritable, JdbcRowWritable>.JdbcRecordWriter writer = createWriter(
+                1000, 1, 0);
+        writer.write(new LongWritable(1), row(1));
+        writer.write(new LongWritable(2), row(2));
+
+        verify(stmt, times(2)).executeBatch();
+        verify(conn, times(2)).commit();
+    }
+
+    @Test
+    public void testRetryTransientError() throws Exception {
+
+        when(stmt.executeBatch()).thenThrow(
+                new SQLException("deadlock detected", "40P01")).thenReturn(
+                new int[]{1, 1});
+
+        JdbcOutputFormat<LongWritable, JdbcRowWritable>.JdbcRecordWriter writer = createWriter(
+                2, Long.MAX_VALUE, 3);
+        writer.write(new LongWritable(1), row(1));
+        writer.write(new LongWritable(2), row(2));
+
+        verify(conn).rollback();
+        verify(stmt).clearBatch();
+        // both rows are bound again for the replay
+        verify(stmt, times(2)).setString(1, "row1");
+        verify(stmt, times(2)).setLong(2, 2L);
+        verify(stmt, times(4)).addBatch();
+        verify(conn).commit();
+
+        assertEquals(1, count(JdbcWriteCounter.RETRIES));
+        assertEquals(2, count(JdbcWriteCounter.ROWS_WRITTEN));
+    }
+
+    @Test
+    public void testFailOnPermanentError() throws Exception {
+
+        when(stmt.executeBatch()).thenThrow(
+                new SQLException("table not found", "42X05"));
+
+        JdbcOutputFormat<LongWritable, JdbcRowWritable>.JdbcRecordWriter writer = createWriter(
+                1, Long.MAX_VALUE, 3);
+        try {
+            writer.write(new LongWritable(1), row(1));
+            fail("exception expected");
+        } catch (IOException e) {
+            assertEquals("table not found", e.getMessage());
+        }
+
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+        assertEquals(0, count(JdbcWriteCounter.RETRIES));
+    }
+
+    @Test
+    public void testAsyncWrite() throws Exception {
+
+        JdbcOutputFormat<LongWritable, JdbcRowWritable>.JdbcAsyncRecordWriter writer = new JdbcOutputFormat<LongWritable, JdbcRowWritable>().new JdbcAsyncRecordWriter(
+                createWriter(2, Long.MAX_VALUE, 0), 2, Long.MAX_VALUE);
+
+        // the row is reused, like the value of a reducer
+        JdbcRowWritable row = new JdbcRowWritable(TYPES);
+        for (int i = 0; i < 5; i++) {
+            row.setString(0, "row" + i);
+            row.setLong(1, i);
+            writer.write(new LongWritable(i), row);
+        }
+        writer.close(context);
+
+        for (int i = 0; i < 5; i++) {
+            verify(stmt).setString(1, "row" + i);
+            verify(stmt).setLong(2, (long) i);
+        }
+        verify(stmt, times(5)).addBatch();
+        verify(stmt, times(3)).executeBatch();
+        verify(conn, times(3)).commit();
+        verify(conn).close();
+
+        assertEquals(5, count(JdbcWriteCounter.ROWS_WRITTEN));
+        assertEquals(3, count(JdbcWriteCounter.BATCHES));
+    }
+
+    @Test
+    public void testAsyncWriteFailure() throws Exception {
+
+        when(stmt.executeBatch()).thenThrow(
+                new SQLException("table not found", "42X05"));
+
+        JdbcOutputFormat<LongWritable, JdbcRowWritable>.JdbcAsyncRecordWriter writer = new JdbcOutputFormat<LongWritable, JdbcRowWritable>().new JdbcAsyncRecordWriter(
+                createWriter(1, Long.MAX_VALUE, 0), 1, Long.MAX_VALUE);
+
+        try {
+            // the failure of the first batch is reported when handing over
+            // the second batch at the latest
+            writer.write(new LongWritable(1), row(1));
+            writer.write(new LongWritable(2), row(2));
+            writer.write(new LongWritable(3), row(3));
+            fail("exception expected");
+        } catch (IOException e) {
+            assertEquals("table not found", e.getMessage());
+        }
+
+        writer.close(context);
+        verify(stmt).executeBatch();
+        verify(conn, never()).commit();
+        verify(conn).close();
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.jdbc.outputformat;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class JdbcRowWritableTest {
+
+    private static final JdbcColumnType[] TYPES = {JdbcColumnType.STRING,
+            JdbcColumnType.LONG, JdbcColumnType.INTEGER, JdbcColumnType.DOUBLE,
+            JdbcColumnType.BOOLEAN, JdbcColumnType.STRING};
+
+    JdbcRowWritable row;
+
+    @Before
+    public void setUp() {
+        row = new JdbcRowWritable(TYPES);
+        row.setString(0, "value");
+        row.setLong(1, 9876543210L);
+        row.setLong(2, 42);
+        row.setDouble(3, 3.25);
+        row.setBoolean(4, true);
+        row.setNull(5);
+    }
+
+    @Test
+    public void testSerializationRoundTrip() throws IOException {
+
+        DataOutputBuffer out = new DataOutputBuffer();
+        row.write(out);
+
+        DataInputBuffer in = new DataInputBuffer();
+        in.reset(out.getData(), out.getLength());
+
+        JdbcRowWritable copy = new JdbcRowWritable();
+        copy.readFields(in);
+
+        assertEquals(TYPES.length, copy.size());
+        assertEquals(JdbcColumnType.LONG, copy.getType(1));
+        assertEquals("value", copy.getString(0));
+        assertEquals(9876543210L, copy.getLong(1));
+        assertEquals(42, copy.getLong(2));
+        assertEquals(3.25, copy.getDouble(3), 0.0);
+        assertTrue(copy.getBoolean(4));
+        assertTrue(copy.isNull(5));
+        assertNull(copy.getString(5));
+        assertFalse(copy.isNull(0));
+    }
+
+    @Test
+    public void testReuseClearsNulls() {
+
+        row.setString(5, "filter");
+        assertFalse(row.isNull(5));
+
+        row.setNull(1);
+        assertTrue(row.isNull(1));
+        assertFalse(row.isNull(2));
+    }
+
+    @Test
+    public void testBindPreparedStatement() throws SQLException {
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        row.write(ps);
+
+        verify(ps).setString(1, "value");
+        verify(ps).setLong(2, 9876543210L);
+        verify(ps).setInt(3, 42);
+        verify(ps).setDouble(4, 3.25);
+        verify(ps).setBoolean(5, true);
+        verify(ps).setNull(6, Types.VARCHAR);
+    }
+
+    @Test
+    public void testWriteCsv() throws IOException {
+
+        row.setString(0, "say \"hi\", bye");
+        row.setBoolean(4, false);
+
+        StringWriter out = new StringWriter();
+        row.writeCsv(out, "\\N");
+
+        assertEquals("\"say \"\"hi\"\", bye\",9876543210,42,3.25,0,\\N\n",
+                out.toString());
+    }
+
+    @Test
+    public void testContentHash() {
+
+        String hash = row.contentHash(5);
+        assertEquals(32, hash.length());
+        assertEquals(hash, row.contentHash(5));
+
+        // the columns after the hashed ones don't change the hash
+        row.setString(5, "filter");
+        assertEquals(hash, row.contentHash(5));
+
+        row.setLong(2, 43);
+        assertFalse(hash.equals(row.contentHash(5)));
+
+        row.setLong(2, 42);
+        row.setNull(2);
+        assertFalse(hash.equals(row.contentHash(5)));
+    }
+}
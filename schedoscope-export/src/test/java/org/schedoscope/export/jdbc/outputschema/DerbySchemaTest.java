@@ -21,6 +21,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.sql.SQLException;
+import java.util.Arrays;
 
 import static org.hamcrest.CoreMatchers.allOf;
 import static org.hamcrest.CoreMatchers.containsString;
@@ -95,4 +96,40 @@ public class DerbySchemaTest {
         assertEquals("org.apache.derby.jdbc.EmbeddedDriver",
                 schema.getDriverName());
     }
+
+    @Test
+    public void testGetBulkLoader() {
+        assertNull(schema.getBulkLoader());
+    }
+
+    @Test
+    public void testGetSwapTableQueries() {
+        assertEquals(Arrays.asList(
+                "RENAME TABLE derby_test TO derby_test_old",
+                "RENAME TABLE derby_test_new TO derby_test"),
+                schema.getSwapTableQueries(TABLE_NAME, TABLE_NAME + "_new",
+                        TABLE_NAME + "_old"));
+    }
+
+    @Test
+    public void testGetUpsertQuery() {
+        assertEquals("MERGE INTO derby_test tgt USING tmp_derby_test_0 src "
+                        + "ON tgt.id = src.id\n"
+                        + "WHEN MATCHED AND tgt.row_hash <> src.row_hash "
+                        + "THEN UPDATE SET name = src.name, row_hash = src.row_hash\n"
+                        + "WHEN NOT MATCHED THEN INSERT (id,name,row_hash) "
+                        + "VALUES (src.id,src.name,src.row_hash)",
+                schema.getUpsertQuery(TABLE_NAME, "tmp_derby_test_0",
+                        new String[]{"id", "name", "row_hash"},
+                        new String[]{"id"}));
+    }
+
+    @Test
+    public void testGetCreateTableQueryWithPrimaryKey() {
+        assertThat(schema.getCreateTableQuery(TABLE_NAME, new String[]{"id"}),
+                allOf(containsString("CREATE TABLE derby_test"),
+                        containsString("PRIMARY KEY (id)")));
+        assertFalse(schema.getCreateTableQuery(TABLE_NAME).contains(
+                "PRIMARY KEY"));
+    }
 }
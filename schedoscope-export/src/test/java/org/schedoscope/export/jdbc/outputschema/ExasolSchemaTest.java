@@ -109,4 +109,29 @@ public class ExasolSchemaTest {
     public void testGetDriverName() {
         assertEquals("com.exasol.jdbc.EXADriver", schema.getDriverName());
     }
+
+    @Test
+    public void testGetBulkLoader() {
+        assertTrue(schema.getBulkLoader() instanceof ExasolBulkLoader);
+
+        ExasolBulkLoader loader = (ExasolBulkLoader) schema.getBulkLoader();
+        assertThat(
+                loader.getImportStatement(TABLE_NAME, COLUMN_NAMES,
+                        "/tmp/data.csv"),
+                allOf(containsString("IMPORT INTO " + TABLE_NAME),
+                        containsString("FROM LOCAL CSV FILE '/tmp/data.csv'")));
+    }
+
+    @Test
+    public void testGetUpsertQuery() {
+        assertEquals("MERGE INTO exasol_test tgt USING tmp_exasol_test_0 src "
+                        + "ON (tgt.username = src.username)\n"
+                        + "WHEN MATCHED THEN UPDATE SET pass = src.pass, row_hash = src.row_hash "
+                        + "WHERE tgt.row_hash <> src.row_hash\n"
+                        + "WHEN NOT MATCHED THEN INSERT (username,pass,row_hash) "
+                        + "VALUES (src.username,src.pass,src.row_hash)",
+                schema.getUpsertQuery(TABLE_NAME, "tmp_exasol_test_0",
+                        new String[]{"username", "pass", "row_hash"},
+                        new String[]{"username"}));
+    }
 }
@@ -20,6 +20,8 @@ import org.apache.hadoop.conf.Configuration;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
+
 import static org.hamcrest.CoreMatchers.allOf;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.*;
@@ -118,4 +120,44 @@ public class MySQLSchemaTest {
     public void testGetDriverName() {
         assertEquals("com.mysql.jdbc.Driver", schema.getDriverName());
     }
+
+    @Test
+    public void testGetBulkLoader() {
+        assertTrue(schema.getBulkLoader() instanceof MySQLBulkLoader);
+
+        MySQLBulkLoader loader = (MySQLBulkLoader) schema.getBulkLoader();
+        assertThat(
+                loader.getLoadStatement(TABLE_NAME, COLUMN_NAMES),
+                allOf(containsString("LOAD DATA LOCAL INFILE"),
+                        containsString("INTO TABLE " + TABLE_NAME),
+                        containsString("ESCAPED BY ''")));
+    }
+
+    @Test
+    public void testGetSwapTableQueries() {
+        assertEquals(Collections.singletonList(
+                "RENAME TABLE mysql_test TO mysql_test_old, mysql_test_new TO mysql_test"),
+                schema.getSwapTableQueries(TABLE_NAME, TABLE_NAME + "_new",
+                        TABLE_NAME + "_old"));
+    }
+
+    @Test
+    public void testGetUpsertQuery() {
+        assertEquals("INSERT INTO mysql_test (username,pass,row_hash) "
+                        + "SELECT username,pass,row_hash FROM tmp_mysql_test_0\n"
+                        + "ON DUPLICATE KEY UPDATE pass = VALUES(pass), row_hash = VALUES(row_hash)",
+                schema.getUpsertQuery(TABLE_NAME, "tmp_mysql_test_0",
+                        new String[]{"username", "pass", "row_hash"},
+                        new String[]{"username"}));
+    }
+
+    @Test
+    public void testGetCreateTableQueryWithPrimaryKey() {
+        schema.setOutput("jdbc:mysql://localhost:3306/testing", "user", "pass",
+                TABLE_NAME, null, NUM_PARTITIONS, COMMIT_SIZE, null, null,
+                COLUMN_NAMES, new String[]{"int", "text"});
+        String query = schema.getCreateTableQuery(TABLE_NAME, COLUMN_NAMES);
+        assertThat(query, containsString("password varchar(255)"));
+        assertThat(query, containsString("PRIMARY KEY (username,password)"));
+    }
 }
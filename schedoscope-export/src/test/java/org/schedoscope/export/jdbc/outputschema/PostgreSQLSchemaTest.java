@@ -20,6 +20,8 @@ import org.apache.hadoop.conf.Configuration;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.hamcrest.CoreMatchers.allOf;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.*;
@@ -90,4 +92,37 @@ public class PostgreSQLSchemaTest {
     public void testGetDriverName() {
         assertEquals("org.postgresql.Driver", schema.getDriverName());
     }
+
+    @Test
+    public void testGetBulkLoader() {
+        assertFalse(schema.isBulkLoad());
+        assertTrue(schema.getBulkLoader() instanceof PostgreSQLBulkLoader);
+
+        PostgreSQLBulkLoader loader = (PostgreSQLBulkLoader) schema
+                .getBulkLoader();
+        assertEquals(
+                "COPY postgre_test (identifier,userpass) FROM STDIN WITH CSV NULL '\\N'",
+                loader.getCopyStatement(TABLE_NAME, COLUMN_NAMES));
+    }
+
+    @Test
+    public void testGetSwapTableQueries() {
+        assertEquals(Arrays.asList(
+                "ALTER TABLE postgre_test RENAME TO postgre_test_old",
+                "ALTER TABLE postgre_test_new RENAME TO postgre_test"),
+                schema.getSwapTableQueries(TABLE_NAME, TABLE_NAME + "_new",
+                        TABLE_NAME + "_old"));
+    }
+
+    @Test
+    public void testGetUpsertQuery() {
+        assertEquals("INSERT INTO postgre_test (identifier,userpass,row_hash) "
+                        + "SELECT identifier,userpass,row_hash FROM tmp_postgre_test_0\n"
+                        + "ON CONFLICT (identifier) DO UPDATE SET "
+                        + "userpass = EXCLUDED.userpass, row_hash = EXCLUDED.row_hash\n"
+                        + "WHERE postgre_test.row_hash IS DISTINCT FROM EXCLUDED.row_hash",
+                schema.getUpsertQuery(TABLE_NAME, "tmp_postgre_test_0",
+                        new String[]{"identifier", "userpass", "row_hash"},
+                        new String[]{"identifier"}));
+    }
 }
@@ -16,18 +16,38 @@
 
 package org.schedoscope.export.kafka.avro;
 
+import com.google.common.collect.ImmutableSet;
 import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hive.hcatalog.data.DefaultHCatRecord;
+import org.apache.hive.hcatalog.data.HCatRecord;
 import org.apache.hive.hcatalog.data.schema.HCatFieldSchema;
 import org.apache.hive.hcatalog.data.schema.HCatSchema;
+import org.apache.hive.hcatalog.data.schema.HCatSchemaUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.schedoscope.export.utils.HCatUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class HCatToAvroRecordConverterSchemaTest {
 
@@ -202,4 +222,93 @@ public class HCatToAvroRecordConverterSchemaTest {
         assertEquals(schemaComplete.getSchemaAsTypeString(),
                 avroSchema.getDoc());
     }
+
+    private HCatSchema createRecordSchema() throws IOException {
+
+        return HCatSchemaUtils.getHCatSchema(Arrays.asList(
+                new FieldSchema("id", "bigint", null),
+                new FieldSchema("name", "string", null),
+                new FieldSchema("score", "float", null),
+                new FieldSchema("events", "array<struct<type:string,count:int>>", null),
+                new FieldSchema("props", "map<string,array<int>>", null)));
+    }
+
+    private HCatRecord createRecord(long id, String name) {
+
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("a", Arrays.asList(1, null, 3));
+
+        return new DefaultHCatRecord(Arrays.<Object>asList(id, name, 0.5f,
+                Arrays.asList(Arrays.asList("click", 2), null), props));
+    }
+
+    @Test
+    public void testRecordConversion() throws IOException {
+
+        HCatSchema hcatSchema = createRecordSchema();
+        Schema avroSchema = new HCatToAvroSchemaConverter().convertSchema(
+                hcatSchema, "my_table");
+        HCatToAvroRecordConverter converter = new HCatToAvroRecordConverter(
+                hcatSchema, avroSchema);
+
+        GenericRecord record = converter.convert(createRecord(1L, null));
+
+        assertEquals(1L, record.get("id"));
+        assertNull(record.get("name"));
+        assertEquals(0.5f, record.get("score"));
+
+        List<?> events = (List<?>) record.get("events");
+        assertEquals(2, events.size());
+        assertEquals("click", ((GenericRecord) events.get(0)).get("type"));
+        assertEquals(2, ((GenericRecord) events.get(0)).get("count"));
+        assertNull(events.get(1));
+
+        Map<?, ?> props = (Map<?, ?>) record.get("props");
+        assertEquals(Arrays.asList(1, null, 3), props.get("a"));
+
+        // the record must be serializable with the derived schema
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(avroSchema).write(record, encoder);
+        encoder.flush();
+        assertTrue(out.size() > 0);
+    }
+
+    @Test
+    public void testAnonymizedRecordConversion() throws IOException {
+
+        Set<String> anonFields = ImmutableSet.of("id");
+        HCatSchema hcatSchema = createRecordSchema();
+        Schema avroSchema = new HCatToAvroSchemaConverter(anonFields)
+                .convertSchema(hcatSchema, "my_table");
+        HCatToAvroRecordConverter converter = new HCatToAvroRecordConverter(
+                hcatSchema, avroSchema, anonFields, "salt", false);
+
+        GenericRecord record = converter.convert(createRecord(1L, "name"));
+
+        assertEquals(HCatUtils.getHashValueIfInList("id", "1", anonFields,
+                "salt"), record.get("id"));
+        assertEquals("name", record.get("name"));
+    }
+
+    @Test
+    public void testRecordReuse() throws IOException {
+
+        HCatSchema hcatSchema = createRecordSchema();
+        Schema avroSchema = new HCatToAvroSchemaConverter().convertSchema(
+                hcatSchema, "my_table");
+
+        HCatToAvroRecordConverter converter = new HCatToAvroRecordConverter(
+                hcatSchema, avroSchema, new HashSet<String>(), "", true);
+        GenericRecord first = converter.convert(createRecord(1L, "a"));
+        GenericRecord second = converter.convert(createRecord(2L, "b"));
+        assertSame(first, second);
+        assertEquals(2L, second.get("id"));
+
+        converter = new HCatToAvroRecordConverter(hcatSchema, avroSchema);
+        first = converter.convert(createRecord(1L, "a"));
+        second = converter.convert(createRecord(2L, "b"));
+        assertNotSame(first, second);
+        assertEquals(1L, first.get("id"));
+    }
 }
@@ -22,7 +22,6 @@ import org.apache.hive.hcatalog.data.HCatRecord;
 import org.junit.Before;
 import org.junit.Test;
 import org.schedoscope.export.HiveUnitBaseTest;
-import org.schedoscope.export.utils.HCatRecordJsonSerializer;
 
 import java.util.Iterator;
 
@@ -43,19 +42,17 @@ public class HCatToAvroRecordConverterTest extends HiveUnitBaseTest {
         setUpHiveServer("src/test/resources/test_map_data.txt",
                 "src/test/resources/test_map.hql", "test_map");
 
-        HCatRecordJsonSerializer serializer = new HCatRecordJsonSerializer(
-                conf, hcatInputSchema);
         HCatToAvroSchemaConverter schemaConverter = new HCatToAvroSchemaConverter();
         Schema schema = schemaConverter.convertSchema(hcatInputSchema,
                 "MyRecord");
         HCatToAvroRecordConverter conv = new HCatToAvroRecordConverter(
-                serializer);
+                hcatInputSchema, schema);
 
         Iterator<HCatRecord> it = hcatRecordReader.read();
         while (it.hasNext()) {
 
             HCatRecord record = it.next();
-            GenericRecord rec = conv.convert(record, schema);
+            GenericRecord rec = conv.convert(record);
             assertNotNull(rec);
         }
     }
@@ -66,19 +63,17 @@ public class HCatToAvroRecordConverterTest extends HiveUnitBaseTest {
         setUpHiveServer("src/test/resources/test_array_data.txt",
                 "src/test/resources/test_array.hql", "test_array");
 
-        HCatRecordJsonSerializer serializer = new HCatRecordJsonSerializer(
-                conf, hcatInputSchema);
         HCatToAvroSchemaConverter schemaConverter = new HCatToAvroSchemaConverter();
         Schema schema = schemaConverter.convertSchema(hcatInputSchema,
                 "MyRecord");
         HCatToAvroRecordConverter conv = new HCatToAvroRecordConverter(
-                serializer);
+                hcatInputSchema, schema);
 
         Iterator<HCatRecord> it = hcatRecordReader.read();
         while (it.hasNext()) {
 
             HCatRecord record = it.next();
-            GenericRecord rec = conv.convert(record, schema);
+            GenericRecord rec = conv.convert(record);
             assertNotNull(rec);
         }
     }
@@ -89,19 +84,17 @@ public class HCatToAvroRecordConverterTest extends HiveUnitBaseTest {
         setUpHiveServer("src/test/resources/test_struct_data.txt",
                 "src/test/resources/test_struct.hql", "test_struct");
 
-        HCatRecordJsonSerializer serializer = new HCatRecordJsonSerializer(
-                conf, hcatInputSchema);
         HCatToAvroSchemaConverter schemaConverter = new HCatToAvroSchemaConverter();
         Schema schema = schemaConverter.convertSchema(hcatInputSchema,
                 "MyRecord");
         HCatToAvroRecordConverter conv = new HCatToAvroRecordConverter(
-                serializer);
+                hcatInputSchema, schema);
 
         Iterator<HCatRecord> it = hcatRecordReader.read();
         while (it.hasNext()) {
 
             HCatRecord record = it.next();
-            GenericRecord rec = conv.convert(record, schema);
+            GenericRecord rec = conv.convert(record);
             assertNotNull(rec);
         }
     }
@@ -112,19 +105,17 @@ public class HCatToAvroRecordConverterTest extends HiveUnitBaseTest {
         setUpHiveServer("src/test/resources/test_maparray_data.txt",
                 "src/test/resources/test_maparray.hql", "test_maparray");
 
-        HCatRecordJsonSerializer serializer = new HCatRecordJsonSerializer(
-                conf, hcatInputSchema);
         HCatToAvroSchemaConverter schemaConverter = new HCatToAvroSchemaConverter();
         Schema schema = schemaConverter.convertSchema(hcatInputSchema,
                 "MyRecord");
         HCatToAvroRecordConverter conv = new HCatToAvroRecordConverter(
-                serializer);
+                hcatInputSchema, schema);
 
         Iterator<HCatRecord> it = hcatRecordReader.read();
         while (it.hasNext()) {
 
             HCatRecord record = it.next();
-            GenericRecord rec = conv.convert(record, schema);
+            GenericRecord rec = conv.convert(record);
             assertNotNull(rec);
         }
     }
@@ -135,19 +126,17 @@ public class HCatToAvroRecordConverterTest extends HiveUnitBaseTest {
         setUpHiveServer("src/test/resources/test_structstruct_data.txt",
                 "src/test/resources/test_structstruct.hql", "test_structstruct");
 
-        HCatRecordJsonSerializer serializer = new HCatRecordJsonSerializer(
-                conf, hcatInputSchema);
         HCatToAvroSchemaConverter schemaConverter = new HCatToAvroSchemaConverter();
         Schema schema = schemaConverter.convertSchema(hcatInputSchema,
                 "MyRecord");
         HCatToAvroRecordConverter conv = new HCatToAvroRecordConverter(
-                serializer);
+                hcatInputSchema, schema);
 
         Iterator<HCatRecord> it = hcatRecordReader.read();
         while (it.hasNext()) {
 
             HCatRecord record = it.next();
-            GenericRecord rec = conv.convert(record, schema);
+            GenericRecord rec = conv.convert(record);
             assertNotNull(rec);
         }
     }
@@ -157,19 +146,17 @@ public class HCatToAvroRecordConverterTest extends HiveUnitBaseTest {
         setUpHiveServer("src/test/resources/test_arraystruct_data.txt",
                 "src/test/resources/test_arraystruct.hql", "test_arraystruct");
 
-        HCatRecordJsonSerializer serializer = new HCatRecordJsonSerializer(
-                conf, hcatInputSchema);
         HCatToAvroSchemaConverter schemaConverter = new HCatToAvroSchemaConverter();
         Schema schema = schemaConverter.convertSchema(hcatInputSchema,
                 "MyRecord");
         HCatToAvroRecordConverter conv = new HCatToAvroRecordConverter(
-                serializer);
+                hcatInputSchema, schema);
 
         Iterator<HCatRecord> it = hcatRecordReader.read();
         while (it.hasNext()) {
 
             HCatRecord record = it.next();
-            GenericRecord rec = conv.convert(record, schema);
+            GenericRecord rec = conv.convert(record);
             assertNotNull(rec);
         }
     }
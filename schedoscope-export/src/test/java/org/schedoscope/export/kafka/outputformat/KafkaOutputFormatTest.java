@@ -0,0 +1,215 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.kafka.outputformat;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.mapred.AvroValue;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.Before;
+import org.junit.Test;
+import org.schedoscope.export.kafka.options.ProducerType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class KafkaOutputFormatTest {
+
+    private Schema schema;
+
+    private FakeProducer producer;
+
+    @Before
+    public void setUp() {
+
+        schema = SchemaBuilder.record("test").fields().requiredString("id")
+                .endRecord();
+        producer = new FakeProducer();
+    }
+
+    private KafkaOutputFormat<Text, AvroValue<GenericRecord>>.KafkaRecordWriter createWriter(
+            int maxInFlight) {
+
+        return new KafkaOutputFormat<Text, AvroValue<GenericRecord>>().new KafkaRecordWriter(
+                producer, "topic", new KafkaDeliveryTracker(maxInFlight));
+    }
+
+    private void write(KafkaOutputFormat<Text, AvroValue<GenericRecord>>.KafkaRecordWriter writer,
+                       String id) throws IOException {
+
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("id", id);
+        writer.write(new Text(id), new AvroValue<GenericRecord>(record));
+    }
+
+    @Test
+    public void testAsyncWrite() throws Exception {
+
+        KafkaOutputFormat<Text, AvroValue<GenericRecord>>.KafkaRecordWriter writer = createWriter(10);
+        write(writer, "1");
+        write(writer, "2");
+
+        assertEquals(2, producer.records.size());
+        assertEquals("topic", producer.records.get(0).topic());
+        assertEquals("2", producer.records.get(1).key());
+
+        // records are acknowledged when the producer is closed
+        writer.close(null);
+        assertTrue(producer.closed);
+    }
+
+    @Test
+    public void testBoundedInFlight() throws Exception {
+
+        KafkaOutputFormat<Text, AvroValue<GenericRecord>>.KafkaRecordWriter writer = createWriter(1);
+        write(writer, "1");
+
+        Thread sender = new Thread(() -> {
+            try {
+                write(writer, "2");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        sender.start();
+        sender.join(200);
+        assertTrue(sender.isAlive());
+        assertEquals(1, producer.records.size());
+
+        producer.complete(0, null);
+        sender.join(5000);
+        assertFalse(sender.isAlive());
+        assertEquals(2, producer.records.size());
+        writer.close(null);
+    }
+
+    @Test
+    public void testDeliveryFailure() throws Exception {
+
+        KafkaOutputFormat<Text, AvroValue<GenericRecord>>.KafkaRecordWriter writer = createWriter(10);
+        write(writer, "1");
+        producer.complete(0, new RuntimeException("broker down"));
+
+        try {
+            write(writer, "2");
+            fail("delivery error not reported");
+        } catch (IOException e) {
+            assertEquals("broker down", e.getCause().getMessage());
+        }
+        assertEquals(1, producer.records.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testDeliveryFailureOnClose() throws Exception {
+
+        KafkaOutputFormat<Text, AvroValue<GenericRecord>>.KafkaRecordWriter writer = createWriter(10);
+        write(writer, "1");
+        producer.failOnClose = true;
+        writer.close(null);
+    }
+
+    /**
+     * A producer keeping the sent records and their callbacks, callbacks
+     * not completed before are completed on close.
+     */
+    @Test
+    public void testSyncProducerDoesNotLinger() {
+
+        Configuration conf = new Configuration();
+        conf.set(KafkaOutputFormat.KAFKA_EXPORT_METADATA_BROKER_LIST, "localhost:9092");
+        conf.setInt(KafkaOutputFormat.KAFKA_EXPORT_LINGER_MS, 10);
+
+        conf.set(KafkaOutputFormat.KAFKA_EXPORT_PRODUCER_TYPE, ProducerType.sync.toString());
+        int maxInFlight = KafkaOutputFormat.getMaxInFlight(conf);
+        Properties props = KafkaOutputFormat.getProducerProperties(conf, maxInFlight);
+        assertEquals(1, maxInFlight);
+        assertEquals("0", props.getProperty(ProducerConfig.LINGER_MS_CONFIG));
+
+        conf.set(KafkaOutputFormat.KAFKA_EXPORT_PRODUCER_TYPE, ProducerType.async.toString());
+        props = KafkaOutputFormat.getProducerProperties(conf, KafkaOutputFormat.getMaxInFlight(conf));
+        assertEquals("10", props.getProperty(ProducerConfig.LINGER_MS_CONFIG));
+    }
+
+    private static class FakeProducer implements Producer<String, GenericRecord> {
+
+        final List<ProducerRecord<String, GenericRecord>> records = new ArrayList<>();
+
+        final List<Callback> callbacks = new ArrayList<>();
+
+        boolean closed;
+
+        boolean failOnClose;
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, GenericRecord> record) {
+            return send(record, null);
+        }
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, GenericRecord> record,
+                                                        Callback callback) {
+            records.add(record);
+            callbacks.add(callback);
+            return null;
+        }
+
+        synchronized void complete(int i, Exception exception) {
+            Callback callback = callbacks.set(i, null);
+            callback.onCompletion(null, exception);
+        }
+
+        @Override
+        public List<PartitionInfo> partitionsFor(String topic) {
+            return null;
+        }
+
+        @Override
+        public Map<MetricName, ? extends Metric> metrics() {
+            return null;
+        }
+
+        @Override
+        public synchronized void close() {
+            for (int i = 0; i < callbacks.size(); i++) {
+                if (callbacks.get(i) != null) {
+                    complete(i, failOnClose ? new RuntimeException("failed") : null);
+                }
+            }
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.metrics;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExportMetricsTest {
+
+    private Counters counters;
+
+    private ExportMetrics metrics;
+
+    @Before
+    public void setUp() {
+
+        counters = new Counters();
+        metrics = new ExportMetrics(createContext());
+    }
+
+    @Test
+    public void testTimesBelowOneMillisecondAddUp() {
+
+        for (int i = 0; i < 10; i++) {
+            metrics.addNanos(ExportCounter.SERIALIZATION_TIME_MS, 300000);
+        }
+
+        assertEquals(3, counters.findCounter(ExportCounter.SERIALIZATION_TIME_MS).getValue());
+        assertEquals(0, counters.findCounter(ExportCounter.WRITE_TIME_MS).getValue());
+    }
+
+    @Test
+    public void testErrorsByClass() {
+
+        metrics.addError(new SQLException());
+        metrics.addError(new SQLException());
+        metrics.addError(new IOException());
+
+        assertEquals(3, counters.findCounter(ExportCounter.ERRORS).getValue());
+        assertEquals(2, counters.findCounter(ExportMetrics.ERROR_COUNTER_GROUP, SQLException.class.getName()).getValue());
+        assertEquals(1, counters.findCounter(ExportMetrics.ERROR_COUNTER_GROUP, IOException.class.getName()).getValue());
+    }
+
+    @Test
+    public void testSummarize() {
+
+        assertTrue(ExportMetrics.summarize(counters, 1000).isEmpty());
+
+        metrics.addRows(1000);
+        metrics.addBytes(2048 * 10);
+        metrics.addRetries(2);
+        metrics.addNanos(ExportCounter.WRITE_TIME_MS, 5000000);
+        metrics.addError(new IOException());
+
+        Map<String, String> summary = ExportMetrics.summarize(counters, 10000);
+
+        assertEquals("1000", summary.get("rows"));
+        assertEquals("100", summary.get("rows/s"));
+        assertEquals("2", summary.get("KB/s"));
+        assertEquals("5", summary.get("write ms"));
+        assertEquals("2", summary.get("retries"));
+        assertEquals("1", summary.get("error " + IOException.class.getName()));
+        assertEquals("rows", summary.keySet().iterator().next());
+    }
+
+    @Test
+    public void testNothingRecordedWithoutContext() {
+
+        ExportMetrics withoutContext = new ExportMetrics(null);
+        withoutContext.addRows(1);
+        withoutContext.addNanos(ExportCounter.WRITE_TIME_MS, 5000000);
+        withoutContext.addError(new IOException());
+
+        assertEquals(0, counters.findCounter(ExportCounter.ROWS_OUT).getValue());
+    }
+
+    private TaskAttemptContext createContext() {
+
+        StatusReporter reporter = new StatusReporter() {
+
+            @Override
+            public Counter getCounter(Enum<?> name) {
+                return counters.findCounter(name);
+            }
+
+            @Override
+            public Counter getCounter(String group, String name) {
+                return counters.findCounter(group, name);
+            }
+
+            @Override
+            public void progress() {
+            }
+
+            @Override
+            public float getProgress() {
+                return 0;
+            }
+
+            @Override
+            public void setStatus(String status) {
+            }
+        };
+
+        TaskAttemptID id = new TaskAttemptID("jt", 1, TaskType.MAP, 0, 0);
+        return new TaskAttemptContextImpl(new Configuration(), id, reporter);
+    }
+}
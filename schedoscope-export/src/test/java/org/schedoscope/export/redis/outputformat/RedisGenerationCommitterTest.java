@@ -0,0 +1,157 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.schedoscope.export.utils.RedisMRJedisFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class RedisGenerationCommitterTest {
+
+    Configuration conf;
+    JobContext context;
+    Jedis jedis;
+    Pipeline pipeline;
+
+    @Before
+    public void setUp() {
+        conf = new Configuration();
+        RedisOutputFormat.setOutput(conf, "localhost", 6379, null, 0, "id",
+                "users", true, true, 100);
+        RedisOutputFormat.setVersionedOutput(conf, "200", 60);
+
+        context = mock(JobContext.class);
+        when(context.getConfiguration()).thenReturn(conf);
+
+        jedis = mock(Jedis.class);
+        pipeline = mock(Pipeline.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        RedisMRJedisFactory.setJedisMock(jedis);
+    }
+
+    @After
+    public void tearDown() {
+        RedisMRJedisFactory.setJedisMock(null);
+    }
+
+    @Test
+    public void testKeyPrefix() {
+        assertTrue(RedisOutputFormat.isVersioned(conf));
+        assertEquals("users_200_", RedisOutputFormat.getExportKeyPrefix(conf));
+        assertEquals("users_current",
+                RedisOutputFormat.getGenerationPointerKey(conf));
+    }
+
+    @Test
+    public void testSwitchAndExpirePreviousGeneration() throws IOException {
+        when(jedis.getSet("users_current", "200")).thenReturn("100");
+        when(jedis.scan(eq(ScanParams.SCAN_POINTER_START), any(ScanParams.class)))
+                .thenReturn(new ScanResult<String>("7", Arrays.asList(
+                        "users_100_1", "users_100_2")));
+        when(jedis.scan(eq("7"), any(ScanParams.class))).thenReturn(
+                new ScanResult<String>(ScanParams.SCAN_POINTER_START,
+                        Arrays.asList("users_100_3")));
+
+        new RedisGenerationCommitter().commitJob(context);
+
+        verify(jedis).getSet("users_current", "200");
+        verify(pipeline).expire("users_100_1", 60);
+        verify(pipeline).expire("users_100_2", 60);
+        verify(pipeline).expire("users_100_3", 60);
+        verify(pipeline, times(2)).sync();
+        verify(jedis, never()).del(anyString());
+    }
+
+    @Test
+    public void testFirstGeneration() throws IOException {
+        when(jedis.getSet("users_current", "200")).thenReturn(null);
+
+        new RedisGenerationCommitter().commitJob(context);
+
+        verify(jedis).getSet("users_current", "200");
+        verify(jedis, never()).scan(anyString(), any(ScanParams.class));
+        verify(pipeline, never()).expire(anyString(), anyInt());
+    }
+
+    @Test
+    public void testAbortDeletesGeneration() throws IOException {
+        final Set<String> keys = new HashSet<String>(Arrays.asList(
+                "users_100_1", "users_200_1", "users_200_2", "users_200_schema"));
+        when(jedis.get("users_current")).thenReturn("100");
+        when(jedis.scan(eq(ScanParams.SCAN_POINTER_START), any(ScanParams.class)))
+                .thenAnswer(new Answer<ScanResult<String>>() {
+                    @Override
+                    public ScanResult<String> answer(InvocationOnMock invocation) {
+                        List<String> matching = new ArrayList<String>();
+                        for (String key : keys) {
+                            if (key.startsWith("users_200_")) {
+                                matching.add(key);
+                            }
+                        }
+                        return new ScanResult<String>(ScanParams.SCAN_POINTER_START, matching);
+                    }
+                });
+        when(pipeline.del(anyString())).thenAnswer(new Answer<Response<Long>>() {
+            @Override
+            public Response<Long> answer(InvocationOnMock invocation) {
+                keys.remove(invocation.getArguments()[0]);
+                return null;
+            }
+        });
+
+        new RedisGenerationCommitter().abortJob(context, JobStatus.State.FAILED);
+
+        assertEquals(Collections.singleton("users_100_1"), keys);
+        verify(jedis, never()).getSet(anyString(), anyString());
+    }
+
+    @Test
+    public void testAbortKeepsSwitchedGeneration() throws IOException {
+        when(jedis.get("users_current")).thenReturn("200");
+
+        new RedisGenerationCommitter().abortJob(context, JobStatus.State.FAILED);
+
+        verify(jedis, never()).scan(anyString(), any(ScanParams.class));
+        verify(pipeline, never()).del(anyString());
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import org.apache.avro.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.schedoscope.export.redis.options.RedisCompression;
+import org.schedoscope.export.redis.options.RedisValueEncoding;
+import org.schedoscope.export.utils.RedisMRJedisFactory;
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class RedisOutputCommitterTest {
+
+    private static final String SCHEMA = "{\"type\":\"record\",\"name\":\"users\","
+            + "\"fields\":[{\"name\":\"id\",\"type\":\"string\"}]}";
+
+    Configuration conf;
+    JobContext context;
+    Jedis jedis;
+
+    @Before
+    public void setUp() {
+        conf = new Configuration();
+        RedisOutputFormat.setOutput(conf, "localhost", 6379, null, 0, "id",
+                "users", true, true, 100);
+
+        context = mock(JobContext.class);
+        when(context.getConfiguration()).thenReturn(conf);
+
+        jedis = mock(Jedis.class);
+        RedisMRJedisFactory.setJedisMock(jedis);
+    }
+
+    @After
+    public void tearDown() {
+        RedisMRJedisFactory.setJedisMock(null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCommitWritesSchema() throws IOException {
+        RedisOutputFormat.setValueEncoding(conf, RedisValueEncoding.avro,
+                RedisCompression.snappy, new Schema.Parser().parse(SCHEMA));
+
+        new RedisOutputCommitter().commitJob(context);
+
+        ArgumentCaptor<Map> schemaInfo = ArgumentCaptor.forClass(Map.class);
+        verify(jedis).hmset(eq("users_schema"), schemaInfo.capture());
+        assertEquals(SCHEMA, schemaInfo.getValue().get("schema"));
+        assertEquals("snappy", schemaInfo.getValue().get("compression"));
+    }
+
+    @Test
+    public void testFailedJobKeepsSchema() throws IOException {
+        RedisOutputFormat.setValueEncoding(conf, RedisValueEncoding.avro,
+                RedisCompression.none, new Schema.Parser().parse(SCHEMA));
+
+        new RedisOutputCommitter().abortJob(context, JobStatus.State.FAILED);
+
+        verify(jedis, never()).del(anyString());
+        verify(jedis, never()).hmset(anyString(), anyMapOf(String.class, String.class));
+    }
+
+    @Test
+    public void testHashEncodingWritesNoSchema() throws IOException {
+        RedisOutputFormat.setValueEncoding(conf, RedisValueEncoding.hash,
+                RedisCompression.none, null);
+
+        new RedisOutputCommitter().commitJob(context);
+
+        verifyZeroInteractions(jedis);
+    }
+
+    @Test
+    public void testVersionedSchemaWrittenBeforeSwitch() throws IOException {
+        RedisOutputFormat.setVersionedOutput(conf, "200", 60);
+        RedisOutputFormat.setValueEncoding(conf, RedisValueEncoding.avro,
+                RedisCompression.none, new Schema.Parser().parse(SCHEMA));
+
+        new RedisGenerationCommitter().commitJob(context);
+
+        InOrder inOrder = inOrder(jedis);
+        inOrder.verify(jedis).hmset(eq("users_200_schema"),
+                anyMapOf(String.class, String.class));
+        inOrder.verify(jedis).getSet("users_current", "200");
+    }
+}
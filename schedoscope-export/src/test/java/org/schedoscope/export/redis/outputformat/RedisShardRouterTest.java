@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.util.JedisClusterCRC16;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class RedisShardRouterTest {
+
+    private static List<Object> slotRange(long start, long end, String host,
+                                          long port) {
+        List<Object> master = Arrays.<Object>asList(
+                host.getBytes(StandardCharsets.UTF_8), port);
+        return Arrays.<Object>asList(start, end, master);
+    }
+
+    @Test
+    public void testClusterRouting() {
+        List<Object> slots = new ArrayList<Object>();
+        slots.add(slotRange(0, 5460, "redis1", 7000));
+        slots.add(slotRange(5461, 10922, "redis2", 7001));
+        slots.add(slotRange(10923, 16383, "redis1", 7000));
+
+        RedisClusterRouter router = new RedisClusterRouter(slots);
+
+        assertEquals(Arrays.asList(new HostAndPort("redis1", 7000),
+                new HostAndPort("redis2", 7001)), router.getShards());
+
+        for (int i = 0; i < 100; i++) {
+            String key = "key" + i;
+            int slot = JedisClusterCRC16.getSlot(key);
+            int expected = (slot >= 5461 && slot <= 10922) ? 1 : 0;
+            assertEquals(expected, router.getShard(key));
+        }
+
+        // keys with the same hash tag end up on the same shard
+        assertEquals(router.getShard("{user1}.a"), router.getShard("{user1}.b"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUncoveredSlot() {
+        List<Object> slots = new ArrayList<Object>();
+        slots.add(slotRange(0, 100, "redis1", 7000));
+
+        new RedisClusterRouter(slots).getShard("foo");
+    }
+
+    @Test
+    public void testConsistentHashRouting() {
+        List<HostAndPort> nodes = Arrays.asList(new HostAndPort("redis1", 6379),
+                new HostAndPort("redis2", 6379), new HostAndPort("redis3", 6379));
+
+        RedisConsistentHashRouter router = new RedisConsistentHashRouter(nodes);
+        RedisConsistentHashRouter other = new RedisConsistentHashRouter(nodes);
+
+        Set<Integer> used = new HashSet<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            int shard = router.getShard("key" + i);
+            assertEquals(shard, other.getShard("key" + i));
+            used.add(shard);
+        }
+        assertEquals(3, used.size());
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Test;
+import org.schedoscope.export.redis.options.RedisCompression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RedisValueCodecTest {
+
+    private static final int NUM_COLUMNS = 40;
+
+    private static byte[] encodeRow(Schema schema, int row) throws IOException {
+        GenericRecord record = new GenericData.Record(schema);
+        for (int i = 0; i < NUM_COLUMNS; i++) {
+            record.put("column_" + i, "value_" + (row % 3));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(schema).write(record, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    private static Schema createSchema() {
+        SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder
+                .record("test").fields();
+        for (int i = 0; i < NUM_COLUMNS; i++) {
+            fields = fields.optionalString("column_" + i);
+        }
+        return fields.endRecord();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] data = encodeRow(createSchema(), 1);
+        for (RedisCompression compression : RedisCompression.values()) {
+            RedisValueCodec codec = new RedisValueCodec(compression);
+            byte[] compressed = codec.compress(data, data.length);
+            assertArrayEquals(compression.toString(), data,
+                    RedisValueCodec.decompress(compression, compressed));
+        }
+    }
+
+    @Test
+    public void testSizeAgainstHashLayout() throws IOException {
+        Schema schema = createSchema();
+        byte[] data = encodeRow(schema, 1);
+
+        // the payload of the hash layout, not counting the per field
+        // overhead of Redis itself
+        int hashSize = 0;
+        for (int i = 0; i < NUM_COLUMNS; i++) {
+            hashSize += ("column_" + i).getBytes(StandardCharsets.UTF_8).length;
+            hashSize += "value_1".getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        assertTrue(data.length < hashSize);
+
+        for (RedisCompression compression : RedisCompression.values()) {
+            byte[] compressed = new RedisValueCodec(compression).compress(data,
+                    data.length);
+            assertTrue(compression.toString(), compressed.length <= data.length + 4);
+        }
+
+        byte[] lz4 = new RedisValueCodec(RedisCompression.lz4).compress(data,
+                data.length);
+        assertTrue(lz4.length < data.length);
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.redis.outputformat;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ShardedRedisRecordWriterTest {
+
+    private static final List<HostAndPort> SHARDS = Arrays.asList(
+            new HostAndPort("redis1", 6379), new HostAndPort("redis2", 6379));
+
+    // keys starting with 'a' go to the first shard, all others to the second
+    private static final RedisShardRouter ROUTER = new RedisShardRouter() {
+
+        @Override
+        public List<HostAndPort> getShards() {
+            return SHARDS;
+        }
+
+        @Override
+        public int getShard(String key) {
+            return key.startsWith("a") ? 0 : 1;
+        }
+    };
+
+    Jedis jedis1;
+    Jedis jedis2;
+    Pipeline pipeline1;
+    Pipeline pipeline2;
+    TaskAttemptContext context;
+    Counters counters;
+
+    @Before
+    public void setUp() {
+        jedis1 = mock(Jedis.class);
+        jedis2 = mock(Jedis.class);
+        pipeline1 = mock(Pipeline.class);
+        pipeline2 = mock(Pipeline.class);
+        when(jedis1.pipelined()).thenReturn(pipeline1);
+        when(jedis2.pipelined()).thenReturn(pipeline2);
+
+        context = mock(TaskAttemptContext.class);
+        counters = new Counters();
+        when(context.getCounter(anyString(), anyString())).thenAnswer(
+                new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) {
+                        Object[] args = invocation.getArguments();
+                        return counters.findCounter((String) args[0],
+                                (String) args[1]);
+                    }
+                });
+    }
+
+    private RedisOutputFormat<Text, RedisStringWritable>.ShardedRedisRecordWriter createWriter(
+            int commitSize, long flushInterval) {
+        return new RedisOutputFormat<Text, RedisStringWritable>().new ShardedRedisRecordWriter(
+                Arrays.asList(jedis1, jedis2), ROUTER, true, commitSize,
+                flushInterval, context);
+    }
+
+    private void write(RedisOutputFormat<Text, RedisStringWritable>.ShardedRedisRecordWriter writer,
+                       String key) throws IOException {
+        writer.write(new Text(key), new RedisStringWritable(key, "value"));
+    }
+
+    private long count(String name) {
+        return counters.findCounter(
+                RedisOutputFormat.REDIS_EXPORT_SHARD_COUNTER_GROUP, name)
+                .getValue();
+    }
+
+    @Test
+    public void testRoutingAndFlushPerShard() throws IOException {
+        RedisOutputFormat<Text, RedisStringWritable>.ShardedRedisRecordWriter writer = createWriter(
+                2, Long.MAX_VALUE);
+
+        write(writer, "a1");
+        write(writer, "b1");
+        write(writer, "a2");
+        write(writer, "a3");
+
+        verify(pipeline1, times(3)).set(startsWith("a"), eq("value"));
+        verify(pipeline2, times(1)).set("b1", "value");
+        verify(pipeline1, times(1)).syncAndReturnAll();
+        verify(pipeline2, never()).syncAndReturnAll();
+
+        writer.close(context);
+        verify(pipeline1, times(2)).syncAndReturnAll();
+        verify(pipeline2, times(1)).syncAndReturnAll();
+        verify(jedis1).close();
+        verify(jedis2).close();
+
+        assertEquals(3, count("redis1:6379 records"));
+        assertEquals(2, count("redis1:6379 flushes"));
+        assertEquals(1, count("redis2:6379 records"));
+        assertEquals(1, count("redis2:6379 flushes"));
+    }
+
+    @Test
+    public void testFlushOnInterval() throws IOException {
+        RedisOutputFormat<Text, RedisStringWritable>.ShardedRedisRecordWriter writer = createWriter(
+                1000, 0);
+
+        write(writer, "a1");
+        write(writer, "b1");
+
+        verify(pipeline1, times(1)).syncAndReturnAll();
+        verify(pipeline2, times(1)).syncAndReturnAll();
+
+        // empty shards are not synced
+        writer.close(context);
+        verify(pipeline1, times(1)).syncAndReturnAll();
+        verify(pipeline2, times(1)).syncAndReturnAll();
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailOnErrorReply() throws IOException {
+        RedisOutputFormat<Text, RedisStringWritable>.ShardedRedisRecordWriter writer = createWriter(
+                2, Long.MAX_VALUE);
+        when(pipeline1.syncAndReturnAll()).thenReturn(Arrays.<Object>asList("OK",
+                new JedisDataException("MOVED 3999 127.0.0.1:6381")));
+
+        write(writer, "a1");
+        write(writer, "a2");
+    }
+
+    @Test
+    public void testErrorRepliesAreCounted() throws IOException {
+        when(pipeline1.syncAndReturnAll()).thenReturn(Arrays.<Object>asList(
+                new JedisDataException("OOM"), "OK", new JedisDataException("OOM")));
+
+        try {
+            RedisOutputFormat.syncPipeline(pipeline1);
+            fail("error replies were ignored");
+        } catch (IOException e) {
+            assertEquals("2 of 3 pipelined commands failed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSuccessfulReplies() throws IOException {
+        when(pipeline1.syncAndReturnAll()).thenReturn(Collections.<Object>singletonList("OK"));
+
+        RedisOutputFormat.syncPipeline(pipeline1);
+    }
+}
@@ -124,7 +124,8 @@ public class EmbeddedFtpSftpServer {
 
             sshd.setPasswordAuthenticator(new SimplePasswordAuthenticator());
             sshd.setPublickeyAuthenticator(new SimplePubkeyAuthenticator());
-            sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+            // newer JDKs refuse to sign with the default 2048 bit DSA key and SHA-1
+            sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(null, "RSA", 2048));
             sshd.setSubsystemFactories(Arrays.<NamedFactory<Command>>asList(new SftpSubsystem.Factory()));
             sshd.setCommandFactory(new ScpCommandFactory());
             sshd.setFileSystemFactory(new VirtualFileSystemFactory(FTP_SERVER_DIR));
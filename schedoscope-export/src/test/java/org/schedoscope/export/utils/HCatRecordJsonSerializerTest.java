@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.schedoscope.export.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hive.hcatalog.data.DefaultHCatRecord;
+import org.apache.hive.hcatalog.data.HCatRecord;
+import org.apache.hive.hcatalog.data.schema.HCatSchema;
+import org.apache.hive.hcatalog.data.schema.HCatSchemaUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HCatRecordJsonSerializerTest {
+
+    private HCatSchema schema;
+
+    private HCatRecordJsonSerializer serializer;
+
+    @Before
+    public void setUp() throws Exception {
+
+        List<FieldSchema> fields = Arrays.asList(
+                new FieldSchema("id", "int", null),
+                new FieldSchema("tags", "array<string>", null),
+                new FieldSchema("props", "map<string,double>", null),
+                new FieldSchema("user", "struct<name:string,ids:array<bigint>,active:boolean>", null));
+        schema = HCatSchemaUtils.getHCatSchema(fields);
+        serializer = new HCatRecordJsonSerializer(new Configuration(), schema);
+    }
+
+    private HCatRecord createRecord(int id, String tag, Object name) {
+
+        Map<String, Double> props = new LinkedHashMap<String, Double>();
+        props.put("a", 1.5);
+        props.put("b", null);
+
+        return new DefaultHCatRecord(Arrays.<Object>asList(id,
+                Arrays.asList(tag, "x\"y"), props,
+                Arrays.asList(name, Arrays.asList(1L, 2L), true)));
+    }
+
+    @Test
+    public void testGetComplexFieldsAsJson() throws Exception {
+
+        String[] json = serializer.getComplexFieldsAsJson(createRecord(1,
+                "t1", "bob"));
+        assertNull(json[0]);
+        assertEquals("[\"t1\",\"x\\\"y\"]", json[1]);
+        assertEquals("{\"a\":1.5,\"b\":null}", json[2]);
+        assertEquals("{\"name\":\"bob\",\"ids\":[1,2],\"active\":true}",
+                json[3]);
+
+        // the array is reused for the next record
+        HCatRecord record = createRecord(2, "t2", null);
+        record.set(2, null);
+        json = serializer.getComplexFieldsAsJson(record);
+        assertEquals("[\"t2\",\"x\\\"y\"]", json[1]);
+        assertNull(json[2]);
+        assertEquals("{\"name\":null,\"ids\":[1,2],\"active\":true}", json[3]);
+    }
+
+    @Test
+    public void testGetFieldAsJson() throws Exception {
+
+        HCatRecord record = createRecord(1, "t1", "bob");
+        assertEquals("{\"name\":\"bob\",\"ids\":[1,2],\"active\":true}",
+                serializer.getFieldAsJson(record, "user"));
+        assertEquals("[\"t1\",\"x\\\"y\"]",
+                serializer.getFieldAsJson(record, "tags"));
+    }
+
+    @Test
+    public void testGetRecordAsJson() throws Exception {
+
+        JsonNode json = serializer.getRecordAsJson(createRecord(1, "t1", "bob"));
+        assertEquals(1, json.get("id").asInt());
+        assertEquals("x\"y", json.get("tags").get(1).asText());
+        assertEquals(1.5, json.get("props").get("a").asDouble(), 0.0);
+        assertEquals(2L, json.get("user").get("ids").get(1).asLong());
+        assertEquals("bob", json.get("user").get("name").asText());
+    }
+}
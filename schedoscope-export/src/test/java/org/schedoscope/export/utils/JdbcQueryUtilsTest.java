@@ -21,13 +21,20 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.allOf;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 public class JdbcQueryUtilsTest {
@@ -96,6 +103,135 @@ public class JdbcQueryUtilsTest {
         verify(stmt).close();
     }
 
+    @Test
+    public void testMergeOutputTables() throws SQLException {
+
+        ArgumentCaptor<String> argumentCaptor = ArgumentCaptor
+                .forClass(String.class);
+        JdbcQueryUtils.mergeOutput("her_table",
+                Arrays.asList("TMP_HER_TABLE_0", "TMP_HER_TABLE_3"), conn);
+
+        verify(stmt).executeUpdate(argumentCaptor.capture());
+        String sqlStmt = argumentCaptor.getValue();
+
+        assertThat(
+                sqlStmt,
+                allOf(containsString("INSERT INTO her_table"),
+                        containsString("SELECT * FROM TMP_HER_TABLE_0"),
+                        containsString("UNION ALL"),
+                        containsString("SELECT * FROM TMP_HER_TABLE_3")));
+
+        verify(stmt).close();
+    }
+
+    @Test
+    public void testMergeOutputNoTables() throws SQLException {
+
+        JdbcQueryUtils.mergeOutput("her_table", Arrays.<String>asList(), conn);
+
+        verify(stmt, never()).executeUpdate(anyString());
+    }
+
+    @Test
+    public void testFindTemporaryOutputTables() throws SQLException {
+
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        ResultSet rs = mock(ResultSet.class);
+        ResultSet empty = mock(ResultSet.class);
+        when(conn.getMetaData()).thenReturn(metaData);
+        when(metaData.getTables(anyString(), anyString(), eq("TMP_my_table_%"),
+                any(String[].class))).thenReturn(empty);
+        when(metaData.getTables(anyString(), anyString(), eq("TMP_MY_TABLE_%"),
+                any(String[].class))).thenReturn(rs);
+        when(metaData.getTables(anyString(), anyString(), eq("tmp_my_table_%"),
+                any(String[].class))).thenReturn(empty);
+        when(rs.next()).thenReturn(true, true, true, true, false);
+        when(rs.getString("TABLE_NAME")).thenReturn("TMP_MY_TABLE_10",
+                "TMP_MY_TABLE_2", "TMP_MY_TABLE_OLD", "TMP_MY_TABLE_X_1");
+
+        List<String> tables = JdbcQueryUtils.findTemporaryOutputTables(
+                "TMP_my_table", conn);
+
+        assertEquals(Arrays.asList("TMP_MY_TABLE_2", "TMP_MY_TABLE_10"), tables);
+    }
+
+    @Test
+    public void testTableExists() throws SQLException {
+
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        ResultSet rs = mock(ResultSet.class);
+        ResultSet empty = mock(ResultSet.class);
+        when(conn.getMetaData()).thenReturn(metaData);
+        when(metaData.getTables(anyString(), anyString(), anyString(),
+                any(String[].class))).thenReturn(empty);
+        when(metaData.getTables(anyString(), anyString(), eq("MY_TABLE"),
+                any(String[].class))).thenReturn(rs);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getString("TABLE_NAME")).thenReturn("MY_TABLE");
+
+        assertTrue(JdbcQueryUtils.tableExists("my_table", conn));
+        assertFalse(JdbcQueryUtils.tableExists("my_other_table", conn));
+    }
+
+    @Test
+    public void testCreateCopyRowsQuery() {
+
+        assertEquals(
+                "INSERT INTO new_table SELECT * FROM my_table WHERE USED_FILTER IS NULL OR USED_FILTER <> 'year=2014'",
+                JdbcQueryUtils.createCopyRowsQuery("new_table", "my_table",
+                        "year=2014"));
+    }
+
+    @Test
+    public void testExecuteInTransaction() throws SQLException {
+
+        when(conn.getAutoCommit()).thenReturn(true);
+        JdbcQueryUtils.executeInTransaction(
+                Arrays.asList("RENAME TABLE a TO b", "RENAME TABLE c TO a"),
+                conn);
+
+        verify(conn).setAutoCommit(false);
+        verify(stmt).executeUpdate("RENAME TABLE a TO b");
+        verify(stmt).executeUpdate("RENAME TABLE c TO a");
+        verify(conn).commit();
+        verify(conn).setAutoCommit(true);
+    }
+
+    @Test
+    public void testExecuteInTransactionRollback() throws SQLException {
+
+        when(conn.getAutoCommit()).thenReturn(true);
+        when(stmt.executeUpdate("RENAME TABLE c TO a")).thenThrow(
+                new SQLException("table exists"));
+
+        try {
+            JdbcQueryUtils.executeInTransaction(
+                    Arrays.asList("RENAME TABLE a TO b", "RENAME TABLE c TO a"),
+                    conn);
+            fail("exception expected");
+        } catch (SQLException e) {
+            assertEquals("table exists", e.getMessage());
+        }
+
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+        verify(conn).setAutoCommit(true);
+    }
+
+    @Test
+    public void testIsTransient() {
+
+        assertTrue(JdbcQueryUtils.isTransient(new SQLException("deadlock",
+                "40001")));
+        assertFalse(JdbcQueryUtils.isTransient(new SQLException("syntax",
+                "42000")));
+        assertFalse(JdbcQueryUtils.isTransient(new SQLException("no state")));
+
+        SQLException batchException = new SQLException("batch failed");
+        batchException.setNextException(new SQLException("deadlock", "40P01"));
+        assertTrue(JdbcQueryUtils.isTransient(batchException));
+    }
+
     @Test
     public void testCreateTable() throws SQLException {
         JdbcQueryUtils.createTable("CREATE TABLE bla bla", conn);
@@ -40,6 +40,9 @@ public class MetascopeConfig {
 
     /* Schedoscope settings */
     private List<SchedoscopeInstance> schedoscopeInstances;
+    private int syncThreads;
+    private long syncInterval;
+    private long fullSyncInterval;
 
     /* Authentication settings */
     private String authenticationMethod;
@@ -78,6 +81,8 @@ public class MetascopeConfig {
 
     /* Solr settings */
     private String solrUrl;
+    private int solrBatchSize;
+    private long solrBatchMaxDelay;
 
     /* Logging settings */
     private String logfilePath;
@@ -99,6 +104,10 @@ public class MetascopeConfig {
             }
         }
 
+        this.syncThreads = config.metascopeSyncThreads();
+        this.syncInterval = config.metascopeSyncInterval();
+        this.fullSyncInterval = config.metascopeFullSyncInterval();
+
         this.authenticationMethod = getString(config.metascopeAuthMethod());
         this.ldapUrl = getString(config.metascopeLdapUrl());
         this.managerDn = getString(config.metascopeLdapManagerDn());
@@ -128,6 +137,8 @@ public class MetascopeConfig {
         this.metastoreJdbcPassword = getString(config.metascopeMetastoreJdbcPw());
 
         this.solrUrl = getString(config.metascopeSolrUrl());
+        this.solrBatchSize = config.metascopeSolrBatchSize();
+        this.solrBatchMaxDelay = config.metascopeSolrBatchMaxDelay();
 
         this.logfilePath = getString(config.metascopeLoggingFile());
         this.logLevel = getString(config.metascopeLoggingLevel());
@@ -148,6 +159,18 @@ public class MetascopeConfig {
         return schedoscopeInstances;
     }
 
+    public int getSyncThreads() {
+        return syncThreads;
+    }
+
+    public long getSyncInterval() {
+        return syncInterval;
+    }
+
+    public long getFullSyncInterval() {
+        return fullSyncInterval;
+    }
+
     public String getAuthenticationMethod() {
         return authenticationMethod;
     }
@@ -240,6 +263,14 @@ public class MetascopeConfig {
         return solrUrl;
     }
 
+    public int getSolrBatchSize() {
+        return solrBatchSize;
+    }
+
+    public long getSolrBatchMaxDelay() {
+        return solrBatchMaxDelay;
+    }
+
     public String getLogLevel() {
         return logLevel;
     }
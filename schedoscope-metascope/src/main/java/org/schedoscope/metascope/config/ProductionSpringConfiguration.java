@@ -162,7 +162,7 @@ public class ProductionSpringConfiguration extends WebSecurityConfigurerAdapter
     @Bean
     public SolrFacade solrFacade() {
         MetascopeConfig config = metascopeConfig();
-        return new SolrFacade(config.getSolrUrl());
+        return new SolrFacade(config.getSolrUrl(), config.getSolrBatchSize(), config.getSolrBatchMaxDelay());
     }
 
     @Bean
@@ -197,10 +197,10 @@ public class ProductionSpringConfiguration extends WebSecurityConfigurerAdapter
         return new StatusTask();
     }
 
-    @Scheduled(initialDelay = 1000, fixedRate = 14400000)
+    @Scheduled(initialDelay = 1000, fixedRate = 60000)
     @Transactional
     public void runMetascopeTask() {
-        metascopeTask().run();
+        metascopeTask().runScheduled();
     }
 
     @Scheduled(initialDelay = 1000, fixedRate = 60000)
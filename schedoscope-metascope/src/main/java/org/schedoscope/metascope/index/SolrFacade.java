@@ -27,10 +27,10 @@ import org.schedoscope.metascope.service.MetascopeFieldService;
 import org.schedoscope.metascope.service.MetascopeTableService;
 import org.schedoscope.metascope.service.MetascopeViewService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
@@ -49,6 +49,8 @@ public class SolrFacade {
     private MetascopeFieldService metascopeParameterService;
 
     private String solrUrl;
+    private int batchSize = SolrUpdateHandler.DEFAULT_BATCH_SIZE;
+    private long batchMaxDelay = SolrUpdateHandler.DEFAULT_BATCH_MAX_DELAY;
     private SolrClient solrClient;
     private SolrUpdateHandler solrUpdateHandler;
     private SolrQueryExecutor solrQueryExecutor;
@@ -60,6 +62,12 @@ public class SolrFacade {
         this.solrUrl = solrUrl;
     }
 
+    public SolrFacade(String solrUrl, int batchSize, long batchMaxDelay) {
+        this.solrUrl = solrUrl;
+        this.batchSize = batchSize;
+        this.batchMaxDelay = batchMaxDelay;
+    }
+
     @PostConstruct
     public void init() {
         if (solrClient == null && solrUrl != null) {
@@ -71,6 +79,25 @@ public class SolrFacade {
                 coreContainer.load();
                 initSolrFacade(new EmbeddedSolrServer(coreContainer, METASCOPE_CORE));
             }
+            /*
+             * the dictionary is not built on startup of the core, suggestions would be empty until the first sync.
+             * Building it can take a while on a large index, so it does not block the startup
+             */
+            Thread suggesterBuild = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    solrQueryExecutor.buildSuggester();
+                }
+            }, "solr-suggester-build");
+            suggesterBuild.setDaemon(true);
+            suggesterBuild.start();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (solrUpdateHandler != null) {
+            solrUpdateHandler.close();
         }
     }
 
@@ -100,12 +127,10 @@ public class SolrFacade {
     }
 
     /**
-     * Refer to {@link SolrUpdateHandler#updateTableEntity(MetascopeTable, boolean)}.
-     * The method is executed asynchronous.
+     * Refer to {@link SolrUpdateHandler#updateTableEntityAsync(MetascopeTable, boolean)}
      *
      * @return future to wait for completion
      */
-    @Async
     public Future<Void> updateTableEntityAsync(MetascopeTable table, boolean commit) {
         return solrUpdateHandler.updateTableEntityAsync(table, commit);
     }
@@ -134,12 +159,10 @@ public class SolrFacade {
     }
 
     /**
-     * Refer to {@link SolrUpdateHandler#updateViewEntity(MetascopeView, boolean)}.
-     * The method is executed asynchronous.
+     * Refer to {@link SolrUpdateHandler#updateViewEntityAsync(MetascopeView, boolean)}
      *
      * @return future to wait for completion
      */
-    @Async
     public Future<Void> updateViewEntityAsync(MetascopeView view, boolean commit) {
         return solrUpdateHandler.updateViewEntityAsync(view, commit);
     }
@@ -151,6 +174,17 @@ public class SolrFacade {
         solrUpdateHandler.commit();
     }
 
+    /**
+     * Commits the index and rebuilds the suggester dictionary, if the index was changed since the last build.
+     * Refer to {@link SolrQueryExecutor#buildSuggester()}
+     */
+    public void buildSuggester() {
+        if (solrUpdateHandler.resetChanged()) {
+            solrUpdateHandler.commit();
+            solrQueryExecutor.buildSuggester();
+        }
+    }
+
     /**
      * Refer to {@link SolrQueryExecutor#suggest(String)}
      */
@@ -167,7 +201,7 @@ public class SolrFacade {
 
     public void initSolrFacade(SolrClient solrClient) {
         this.solrClient = solrClient;
-        this.solrUpdateHandler = new SolrUpdateHandler(solrClient);
+        this.solrUpdateHandler = new SolrUpdateHandler(solrClient, batchSize, batchMaxDelay);
         this.solrQueryExecutor = new SolrQueryExecutor(solrClient, metascopeTableService,
                 metascopeViewService, metascopeParameterService);
     }
@@ -15,9 +15,14 @@
  */
 package org.schedoscope.metascope.index;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrQuery.ORDER;
+import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.FacetField.Count;
 import org.apache.solr.client.solrj.response.QueryResponse;
@@ -34,13 +39,19 @@ import org.schedoscope.metascope.service.MetascopeFieldService;
 import org.schedoscope.metascope.service.MetascopeTableService;
 import org.schedoscope.metascope.service.MetascopeViewService;
 import org.schedoscope.metascope.util.URLUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
 //TODO this class should be refactored..
 public class SolrQueryExecutor {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SolrQueryExecutor.class);
+
     public static final String ID = "id";
     public static final String TYPE = "type";
     public static final String SCHEDOSCOPE_ID = "schedoscopeId";
@@ -71,6 +82,10 @@ public class SolrQueryExecutor {
     public static final String FILTER_CATEGORY_OBJECT = "Category Object";
     public static final String FILTER_TAGS = "Tags";
 
+    private static final String SUGGEST_DICTIONARY = "metascope";
+    private static final int SUGGESTION_CACHE_SIZE = 10000;
+    private static final int SUGGESTION_CACHE_TTL_MINUTES = 5;
+
     private final MetascopeTableService metascopeTableService;
     private final MetascopeViewService metascopeViewService;
     private final MetascopeFieldService metascopeParameterService;
@@ -78,6 +93,7 @@ public class SolrQueryExecutor {
     private SolrClient solrClient;
     private List<SolrQueryParameter> facetFields;
     private List<SolrFacetQuery> facetQueries;
+    private LoadingCache<String, List<String>> suggestionCache;
 
     public SolrQueryExecutor(SolrClient solrClient, MetascopeTableService metascopeTableService,
                              MetascopeViewService metascopeViewService, MetascopeFieldService metascopeParameterService) {
@@ -87,6 +103,14 @@ public class SolrQueryExecutor {
         this.metascopeParameterService = metascopeParameterService;
         this.facetFields = new LinkedList<SolrQueryParameter>();
         this.facetQueries = new LinkedList<SolrFacetQuery>();
+        this.suggestionCache = CacheBuilder.newBuilder().maximumSize(SUGGESTION_CACHE_SIZE)
+                .expireAfterWrite(SUGGESTION_CACHE_TTL_MINUTES, TimeUnit.MINUTES)
+                .build(new CacheLoader<String, List<String>>() {
+                    @Override
+                    public List<String> load(String userInput) throws Exception {
+                        return querySuggestions(userInput);
+                    }
+                });
         this.facetFields.add(new SolrQueryParameter(FILTER_SCHEDOSCOPE, SCHEDOSCOPE_ID, false, FilterType.AND, FacetSort.COUNT));
         this.facetFields.add(new SolrQueryParameter(FILTER_DATABASE, DATABASE_NAME, true, FilterType.OR, FacetSort.COUNT));
         this.facetFields.add(new SolrQueryParameter(FILTER_TABLE, TABLE_NAME, false, FilterType.AND, FacetSort.COUNT));
@@ -111,23 +135,53 @@ public class SolrQueryExecutor {
                 .withRange(new SolrHourRange("last year", 8760)).withRange(new SolrHourRange("older", Long.MAX_VALUE)));
     }
 
+    /**
+     * Returns the suggestions for the given user input. The suggestions are cached for a while, concurrent
+     * requests for the same input are answered by a single request to solr.
+     *
+     * @param userInput the input to complete
+     * @return the suggestions, ordered by weight
+     */
     public List<String> suggest(String userInput) {
-        List<String> suggestions = new LinkedList<String>();
+        if (userInput == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return suggestionCache.getUnchecked(userInput);
+        } catch (UncheckedExecutionException e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+    }
 
+    /**
+     * Rebuilds the suggester dictionary from the committed documents of the index and drops the cached
+     * suggestions. Suggestions are looked up in the dictionary only, so it has to be rebuilt after the index
+     * was updated.
+     */
+    public void buildSuggester() {
         SolrQuery query = new SolrQuery();
         query.setParam(CommonParams.QT, "/suggest");
         query.setParam("suggest", true);
         query.setParam(SuggesterParams.SUGGEST_BUILD, true);
-        query.setParam(SuggesterParams.SUGGEST_DICT, "metascope");
-        query.setParam(SuggesterParams.SUGGEST_Q, userInput);
-
-    /* execute the query */
-        QueryResponse queryResponse = null;
+        query.setParam(SuggesterParams.SUGGEST_DICT, SUGGEST_DICTIONARY);
         try {
-            queryResponse = solrClient.query(query);
+            solrClient.query(query);
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.error("Could not build the suggester dictionary", e);
         }
+        suggestionCache.invalidateAll();
+    }
+
+    private List<String> querySuggestions(String userInput) throws SolrServerException, IOException {
+        SolrQuery query = new SolrQuery();
+        query.setParam(CommonParams.QT, "/suggest");
+        query.setParam("suggest", true);
+        query.setParam(SuggesterParams.SUGGEST_DICT, SUGGEST_DICTIONARY);
+        query.setParam(SuggesterParams.SUGGEST_Q, userInput);
+
+    /* execute the query */
+        QueryResponse queryResponse = solrClient.query(query);
 
         List<Suggestion> currentSuggestions = new LinkedList<Suggestion>();
         if (queryResponse != null) {
@@ -148,11 +202,12 @@ public class SolrQueryExecutor {
             }
         }
 
+        List<String> suggestions = new ArrayList<String>();
         for (Suggestion suggestion : currentSuggestions) {
             suggestions.add(suggestion.getTerm());
         }
 
-        return suggestions;
+        return Collections.unmodifiableList(suggestions);
     }
 
     /**
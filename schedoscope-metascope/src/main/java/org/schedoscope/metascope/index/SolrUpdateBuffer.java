@@ -0,0 +1,178 @@
+/**
+ * Copyright 2017 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.metascope.index;
+
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers documents and sends them to Solr in batches from a background thread. The buffer is sent as soon as
+ * it reaches the batch size, and at the latest after the maximum delay. All batches are sent by the same thread
+ * in the order the documents were added, so an update of a document never overtakes an earlier one.
+ */
+public class SolrUpdateBuffer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SolrUpdateBuffer.class);
+
+    private final SolrClient solrClient;
+    private final int batchSize;
+    private final ScheduledExecutorService sender;
+
+    private List<SolrInputDocument> pending = new ArrayList<>();
+    private SettableFuture<Void> pendingSent = SettableFuture.create();
+    private boolean sendScheduled;
+
+    public SolrUpdateBuffer(SolrClient solrClient, int batchSize, long maxDelayMs) {
+        this.solrClient = solrClient;
+        this.batchSize = batchSize;
+        this.sender = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "solr-update-buffer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.sender.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                send();
+            }
+        }, maxDelayMs, maxDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds a document to the buffer
+     *
+     * @param doc document to add or (atomically) update
+     * @return future which completes once the batch containing the document was sent, or fails if it could
+     * not be sent
+     */
+    public Future<Void> add(SolrInputDocument doc) {
+        Future<Void> sent;
+        synchronized (this) {
+            pending.add(doc);
+            sent = pendingSent;
+            if (pending.size() < batchSize || sendScheduled) {
+                return sent;
+            }
+            sendScheduled = true;
+        }
+        sender.execute(new Runnable() {
+            @Override
+            public void run() {
+                send();
+            }
+        });
+        return sent;
+    }
+
+    /**
+     * Sends all buffered documents in the background
+     *
+     * @param commit soft commit the index after the documents were sent
+     * @return future to wait for completion
+     */
+    public Future<Void> flushAsync(final boolean commit) {
+        return sender.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                send();
+                if (commit) {
+                    softCommit();
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Sends all buffered documents and waits until they are sent
+     *
+     * @param commit soft commit the index after the documents were sent
+     */
+    public void flush(boolean commit) {
+        try {
+            flushAsync(commit).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while flushing documents to Solr", e);
+        } catch (ExecutionException e) {
+            LOG.error("Could not flush documents to Solr", e.getCause());
+        }
+    }
+
+    /**
+     * Sends all buffered documents and stops the background thread
+     */
+    public void close() {
+        flush(false);
+        sender.shutdown();
+    }
+
+    /* runs on the sender thread only */
+    private void send() {
+        List<SolrInputDocument> docs;
+        SettableFuture<Void> sent;
+        synchronized (this) {
+            docs = pending;
+            sent = pendingSent;
+            pending = new ArrayList<>();
+            pendingSent = SettableFuture.create();
+            sendScheduled = false;
+        }
+        Exception error = null;
+        for (int i = 0; i < docs.size(); i += batchSize) {
+            List<SolrInputDocument> batch = docs.subList(i, Math.min(i + batchSize, docs.size()));
+            try {
+                solrClient.add(batch);
+            } catch (SolrServerException | IOException | RuntimeException e) {
+                LOG.error("Could not send " + batch.size() + " documents to Solr", e);
+                error = e;
+            }
+        }
+        if (error == null) {
+            sent.set(null);
+        } else {
+            sent.setException(error);
+        }
+    }
+
+    /* a soft commit makes the changes visible, the hard auto commit of the core persists them */
+    private void softCommit() {
+        try {
+            solrClient.commit(true, true, true);
+        } catch (SolrServerException | IOException | RuntimeException e) {
+            LOG.error("Could not commit to Solr", e);
+        }
+    }
+
+}
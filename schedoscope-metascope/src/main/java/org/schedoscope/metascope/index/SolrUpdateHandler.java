@@ -23,10 +23,11 @@ import org.apache.solr.common.SolrInputDocument;
 import org.schedoscope.metascope.model.MetascopeComment;
 import org.schedoscope.metascope.model.MetascopeTable;
 import org.schedoscope.metascope.model.MetascopeView;
-import org.springframework.scheduling.annotation.AsyncResult;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SolrUpdateHandler {
 
@@ -57,10 +58,27 @@ public class SolrUpdateHandler {
     public static final String TYPE_TABLE = "Table";
     public static final String TYPE_PARTITION = "Partition";
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final long DEFAULT_BATCH_MAX_DELAY = 1000;
+
+    private static final String SET = "set";
+
     private SolrClient solrClient;
+    private SolrUpdateBuffer updateBuffer;
+    private AtomicBoolean changed = new AtomicBoolean();
 
     public SolrUpdateHandler(SolrClient solrClient) {
+        this(solrClient, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_MAX_DELAY);
+    }
+
+    /**
+     * @param solrClient    client of the Solr core
+     * @param batchSize     number of documents sent to Solr at once
+     * @param batchMaxDelay maximum time in milliseconds a document is buffered before it is sent
+     */
+    public SolrUpdateHandler(SolrClient solrClient, int batchSize, long batchMaxDelay) {
         this.solrClient = solrClient;
+        this.updateBuffer = new SolrUpdateBuffer(solrClient, batchSize, batchMaxDelay);
     }
 
     /**
@@ -70,6 +88,26 @@ public class SolrUpdateHandler {
      * @param commit immediately commit change to index
      */
     public void updateTableEntity(MetascopeTable table, boolean commit) {
+        addDocument(tableDocument(table));
+        if (commit) {
+            commit();
+        }
+    }
+
+    /**
+     * Updates the Solr document for the given table entity asynchronously. Without commit the document is only
+     * buffered and the returned future completes once its batch was sent, with commit the buffer is sent right
+     * away and the future completes after the commit.
+     *
+     * @param table  table entity to update
+     * @param commit commit change to index after sending
+     * @return future to wait for completion
+     */
+    public Future<Void> updateTableEntityAsync(MetascopeTable table, boolean commit) {
+        return addDocumentAsync(tableDocument(table), commit);
+    }
+
+    private SolrInputDocument tableDocument(MetascopeTable table) {
         SolrInputDocument doc = new SolrInputDocument();
         doc.setField(ID, table.getFqdn());
         doc.setField(TYPE, TYPE_TABLE);
@@ -104,72 +142,56 @@ public class SolrUpdateHandler {
                 doc.setField(COMMENTS, comments);
             }
         }
-        addDocument(doc);
-        if (commit) {
-            commit();
-        }
-    }
-
-    /**
-     * Updates the Solr document for the given table entity asynchronly
-     *
-     * @param table  table entity to update
-     * @param commit immediately commit change to index
-     */
-    public Future<Void> updateTableEntityAsync(MetascopeTable table, boolean commit) {
-        updateTableEntity(table, commit);
-        return new AsyncResult<Void>(null);
+        return doc;
     }
 
     /**
      * Updates the Solr document for the given table entity. In contrast to
      * {@link SolrUpdateHandler#updateTableEntity(MetascopeTable, boolean)}, only
-     * some specific fields are updated
+     * some specific fields are updated, with an atomic update which keeps the
+     * other fields of the stored document
      *
      * @param table  table entity to update
      * @param commit immediately commit change to index
      */
     public void updateTablePartial(MetascopeTable table, boolean commit) {
-        SolrInputDocument doc = getDocument(table.getFqdn());
-        if (doc == null) {
-            doc = new SolrInputDocument();
-        }
+        SolrInputDocument doc = new SolrInputDocument();
         doc.setField(ID, table.getFqdn());
-        doc.setField(TYPE, TYPE_TABLE);
-        doc.setField(SCHEDOSCOPE_ID, table.getSchedoscopeId());
-        doc.setField(DATABASE_NAME, table.getDatabaseName());
-        doc.setField(TABLE_NAME, table.getTableName());
+        set(doc, TYPE, TYPE_TABLE);
+        set(doc, SCHEDOSCOPE_ID, table.getSchedoscopeId());
+        set(doc, DATABASE_NAME, table.getDatabaseName());
+        set(doc, TABLE_NAME, table.getTableName());
         if (table.getFields().size() > 0) {
-            doc.setField(FIELDS, table.getFieldNames());
+            set(doc, FIELDS, table.getFieldNames());
         }
         if (table.getParameters().size() > 0) {
-            doc.setField(PARAMETERS, table.getParameterNames());
+            set(doc, PARAMETERS, table.getParameterNames());
         }
-        doc.setField(TRANSFORMATION, table.getTransformation().getTransformationType().split(" -> ")[0]);
+        set(doc, TRANSFORMATION, table.getTransformation().getTransformationType().split(" -> ")[0]);
         if (table.getExports() != null) {
-            doc.setField(EXPORTS, table.getExportNames());
+            set(doc, EXPORTS, table.getExportNames());
         }
-        doc.setField(STORAGE_FORMAT, table.getStorageFormat());
-        doc.setField(MATERIALIZE_ONCE, table.isMaterializeOnce());
-        doc.setField(EXTERNAL, table.isExternalTable());
-        doc.setField(DESCRIPTION, table.getTableDescription());
+        set(doc, STORAGE_FORMAT, table.getStorageFormat());
+        set(doc, MATERIALIZE_ONCE, table.isMaterializeOnce());
+        set(doc, EXTERNAL, table.isExternalTable());
+        set(doc, DESCRIPTION, table.getTableDescription());
         if (table.getTableOwner() != null) {
-            doc.setField(OWNER, table.getTableOwner());
+            set(doc, OWNER, table.getTableOwner());
         }
         if (table.getCreatedAt() != 0) {
-            doc.setField(CREATED_AT, table.getCreatedAt() / 1000);
+            set(doc, CREATED_AT, table.getCreatedAt() / 1000);
         }
         if (table.getLastTransformation() != 0) {
-            doc.setField(TRANSFORMATIONTIMESTAMP, table.getLastTransformation() / 1000);
+            set(doc, TRANSFORMATIONTIMESTAMP, table.getLastTransformation() / 1000);
         }
         if (table.getTaxonomyNames() != null || table.getTaxonomyNames().size() > 0) {
-            doc.setField(TAXONOMIES, table.getTaxonomyNames());
+            set(doc, TAXONOMIES, table.getTaxonomyNames());
         }
         if (table.getCategoryNames() != null || table.getCategoryNames().size() > 0) {
-            doc.setField(CATEGORIES, table.getCategoryNames());
+            set(doc, CATEGORIES, table.getCategoryNames());
         }
         if (table.getCategoryObjectNames() != null || table.getCategoryObjectNames().size() > 0) {
-            doc.setField(CATEGORIE_OBJECTSS, table.getCategoryObjectNames());
+            set(doc, CATEGORIE_OBJECTSS, table.getCategoryObjectNames());
         }
         addDocument(doc);
         if (commit) {
@@ -177,19 +199,23 @@ public class SolrUpdateHandler {
         }
     }
 
+    /**
+     * Updates the creation and transformation timestamp of the Solr document for
+     * the given table entity with an atomic update
+     *
+     * @param table  table entity to update
+     * @param commit immediately commit change to index
+     */
     public void updateTableMetastoreData(MetascopeTable table, boolean commit) {
-        SolrInputDocument doc = getDocument(table.getFqdn());
-        if (doc == null) {
-            doc = new SolrInputDocument();
-        }
+        SolrInputDocument doc = new SolrInputDocument();
         doc.setField(ID, table.getFqdn());
         if (table.getCreatedAt() != 0) {
-            doc.setField(CREATED_AT, table.getCreatedAt() / 1000);
+            set(doc, CREATED_AT, table.getCreatedAt() / 1000);
         }
         if (table.getLastTransformation() != 0) {
-            doc.setField(TRANSFORMATIONTIMESTAMP, table.getLastTransformation() / 1000);
+            set(doc, TRANSFORMATIONTIMESTAMP, table.getLastTransformation() / 1000);
         }
-        addDocument(doc);
+        addAtomicUpdate(doc);
         if (commit) {
             commit();
         }
@@ -202,6 +228,25 @@ public class SolrUpdateHandler {
      * @param commit immediately commit change to index
      */
     public void updateViewEntity(MetascopeView view, boolean commit) {
+        addDocument(viewDocument(view));
+        if (commit) {
+            commit();
+        }
+    }
+
+    /**
+     * Updates the Solr document for the given view entity asynchronously, see
+     * {@link SolrUpdateHandler#updateTableEntityAsync(MetascopeTable, boolean)}
+     *
+     * @param view   view entity to update
+     * @param commit commit change to index after sending
+     * @return future to wait for completion
+     */
+    public Future<Void> updateViewEntityAsync(MetascopeView view, boolean commit) {
+        return addDocumentAsync(viewDocument(view), commit);
+    }
+
+    private SolrInputDocument viewDocument(MetascopeView view) {
         SolrInputDocument doc = new SolrInputDocument();
         doc.setField(ID, view.getViewId());
         doc.setField(TYPE, TYPE_PARTITION);
@@ -219,45 +264,28 @@ public class SolrUpdateHandler {
                 doc.addField(keyAndValue[0] + "_s", keyAndValue[1]);
             }
         }
-
-        addDocument(doc);
-        if (commit) {
-            commit();
-        }
-    }
-
-    /**
-     * Updates the Solr document for the given view entity asynchronly
-     *
-     * @param view   view entity to update
-     * @param commit immediately commit change to index
-     */
-    public Future<Void> updateViewEntityAsync(MetascopeView view, boolean commit) {
-        updateViewEntity(view, commit);
-        return new AsyncResult<Void>(null);
+        return doc;
     }
 
     /**
      * Updates the Solr document for the given view entity. In contrast to
      * {@link SolrUpdateHandler#updateViewEntity(MetascopeView, boolean)}, only the
-     * status, transformationEnd and createdAt fields are updated
+     * status, transformationEnd and createdAt fields are updated, with an atomic
+     * update
      *
      * @param view   view entity to update
      * @param commit immediately commit change to index
      */
     public void updateViewStatusInformation(MetascopeView view, Long transformationEnd, Long createdAt, boolean commit) {
-        SolrInputDocument doc = getDocument(view.getViewId());
-        if (doc == null) {
-            doc = new SolrInputDocument();
-        }
+        SolrInputDocument doc = new SolrInputDocument();
         doc.setField(ID, view.getViewId());
         if (transformationEnd != null) {
-            doc.setField(TRANSFORMATIONTIMESTAMP, transformationEnd / 1000);
+            set(doc, TRANSFORMATIONTIMESTAMP, transformationEnd / 1000);
         }
         if (createdAt != null) {
-            doc.setField(CREATED_AT, createdAt / 1000);
+            set(doc, CREATED_AT, createdAt / 1000);
         }
-        addDocument(doc);
+        addAtomicUpdate(doc);
         if (commit) {
             commit();
         }
@@ -286,22 +314,46 @@ public class SolrUpdateHandler {
     }
 
     /**
-     * Adds a document to solr index
+     * Adds a document to the update buffer, it is sent to the solr index with the next batch
      *
      * @param doc solr document to be added
+     * @return future which completes once the batch was sent
      */
-    private void addDocument(SolrInputDocument doc) {
-        try {
-            solrClient.add(doc);
-        } catch (SolrServerException | IOException e) {
-            e.printStackTrace();
+    private Future<Void> addDocument(SolrInputDocument doc) {
+        changed.set(true);
+        return updateBuffer.add(doc);
+    }
+
+    private Future<Void> addDocumentAsync(SolrInputDocument doc, boolean commit) {
+        Future<Void> sent = addDocument(doc);
+        return commit ? updateBuffer.flushAsync(true) : sent;
+    }
+
+    /**
+     * Adds an atomic update to the update buffer. An update without any field besides the id is skipped, Solr
+     * would replace the stored document with an empty one
+     *
+     * @param doc atomic update to be added
+     */
+    private void addAtomicUpdate(SolrInputDocument doc) {
+        if (doc.size() > 1) {
+            addDocument(doc);
         }
     }
 
+    /**
+     * Sets a field of an atomic update, the other fields of the stored document are kept
+     */
+    private void set(SolrInputDocument doc, String field, Object value) {
+        doc.setField(field, Collections.singletonMap(SET, value));
+    }
+
     /**
      * Delete all data stored in solr index
      */
     public void clearSolrData() {
+        updateBuffer.flush(false);
+        changed.set(true);
         try {
             solrClient.deleteByQuery("*:*");
         } catch (Exception e) {
@@ -310,14 +362,26 @@ public class SolrUpdateHandler {
     }
 
     /**
-     * Commit all previous changes since last commit call to solr index
+     * Sends all buffered documents and soft commits them to the solr index, which makes them visible to searches
      */
     public void commit() {
-        try {
-            solrClient.commit();
-        } catch (SolrServerException | IOException e) {
-            e.printStackTrace();
-        }
+        updateBuffer.flush(true);
+    }
+
+    /**
+     * Returns whether the index was changed since the last call
+     *
+     * @return true if documents were added or deleted
+     */
+    public boolean resetChanged() {
+        return changed.getAndSet(false);
+    }
+
+    /**
+     * Sends all buffered documents and stops the background thread sending them
+     */
+    public void close() {
+        updateBuffer.close();
     }
 
 }
@@ -64,6 +64,8 @@ public class MetascopeTable extends Documentable {
     @Column(columnDefinition = "int default 1")
     private int viewsSize;
     private String personResponsible;
+    private String schedoscopeFingerprint;
+    private String metastoreFingerprint;
     @Transient
     private Long commentId;
 
@@ -207,6 +209,22 @@ public class MetascopeTable extends Documentable {
         this.personResponsible = personResponsible;
     }
 
+    public String getSchedoscopeFingerprint() {
+        return schedoscopeFingerprint;
+    }
+
+    public void setSchedoscopeFingerprint(String schedoscopeFingerprint) {
+        this.schedoscopeFingerprint = schedoscopeFingerprint;
+    }
+
+    public String getMetastoreFingerprint() {
+        return metastoreFingerprint;
+    }
+
+    public void setMetastoreFingerprint(String metastoreFingerprint) {
+        this.metastoreFingerprint = metastoreFingerprint;
+    }
+
     public String getTableDescription() {
         return tableDescription;
     }
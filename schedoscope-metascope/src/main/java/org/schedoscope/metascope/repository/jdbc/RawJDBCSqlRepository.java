@@ -49,14 +49,27 @@ public class RawJDBCSqlRepository {
         this.jdbcMetascopeTableRepository.save(connection, table);
     }
 
+    public void saveTables(Connection connection, Collection<MetascopeTable> tables) {
+        this.jdbcMetascopeTableRepository.saveAll(connection, tables);
+    }
+
     public void saveTransformation(Connection connection, MetascopeTransformation transformation, String fqdn) {
         this.jdbcMetascopeTableRepository.saveTransformation(connection, transformation, fqdn);
     }
 
+    public void saveTransformations(Connection connection, Collection<MetascopeTable> tables) {
+        this.jdbcMetascopeTableRepository.saveTransformations(connection, tables);
+    }
+
     public void insertTableDependencies(Connection connection, Collection<MetascopeTable> currentTables, List<Dependency> tables) {
         this.jdbcMetascopeTableRepository.saveTableDependency(connection, currentTables, tables);
     }
 
+    public void insertTableDependencies(Connection connection, Collection<MetascopeTable> currentTables, List<Dependency> tables,
+                                        boolean ownDependenciesOnly) {
+        this.jdbcMetascopeTableRepository.saveTableDependency(connection, currentTables, tables, ownDependenciesOnly);
+    }
+
     public List<MetascopeTable> findAllTables(Connection connection) {
         return this.jdbcMetascopeTableRepository.findAll(connection);
     }
@@ -87,23 +100,44 @@ public class RawJDBCSqlRepository {
         return this.jdbcMetascopeFieldRepository.findField(connection, fieldFqdn);
     }
 
+    public List<MetascopeField> findAllFields(Connection connection) {
+        return this.jdbcMetascopeFieldRepository.findAll(connection);
+    }
+
     public void saveFields(Connection connection, Set<MetascopeField> fields, String fqdn, boolean isParameter) {
         this.jdbcMetascopeFieldRepository.saveFields(connection, fields, fqdn, isParameter);
     }
 
+    public void saveFields(Connection connection, Collection<MetascopeTable> tables, boolean isParameter) {
+        this.jdbcMetascopeFieldRepository.saveFields(connection, tables, isParameter);
+    }
+
     public void insertFieldDependencies(Connection connection, Collection<MetascopeTable> currentTables, List<Dependency> fieldDependencies) {
         this.jdbcMetascopeFieldRepository.insertFieldDependencies(connection, currentTables, fieldDependencies);
     }
 
+    public void insertFieldDependencies(Connection connection, Collection<MetascopeTable> currentTables, List<Dependency> fieldDependencies,
+                                        boolean ownDependenciesOnly) {
+        this.jdbcMetascopeFieldRepository.insertFieldDependencies(connection, currentTables, fieldDependencies, ownDependenciesOnly);
+    }
+
     /*### MetascopeExport ###*/
     public MetascopeExport findExport(Connection connection, String exportFqdn) {
         return this.jdbcMetascopeExportRepository.findExport(connection, exportFqdn);
     }
 
+    public List<MetascopeExport> findAllExports(Connection connection) {
+        return this.jdbcMetascopeExportRepository.findAll(connection);
+    }
+
     public void saveExports(Connection connection, List<MetascopeExport> exports, String fqdn) {
         this.jdbcMetascopeExportRepository.save(connection, exports, fqdn);
     }
 
+    public void saveExports(Connection connection, Collection<MetascopeTable> tables) {
+        this.jdbcMetascopeExportRepository.saveAll(connection, tables);
+    }
+
     /*### MetascopeMetadata ###*/
     public void saveMetadata(Connection connection, String key, String value) {
         this.jdbcMetascopeMetadataRepository.saveMetadata(connection, key, value);
@@ -2,6 +2,7 @@ package org.schedoscope.metascope.repository.jdbc.entity;
 
 import org.apache.commons.dbutils.DbUtils;
 import org.schedoscope.metascope.model.MetascopeExport;
+import org.schedoscope.metascope.model.MetascopeTable;
 import org.schedoscope.metascope.repository.jdbc.JDBCContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,8 +11,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 public class JDBCMetascopeExportRepository extends JDBCContext {
 
@@ -57,7 +57,58 @@ public class JDBCMetascopeExportRepository extends JDBCContext {
         return export;
     }
 
+    public List<MetascopeExport> findAll(Connection connection) {
+        Map<String, MetascopeExport> exports = new LinkedHashMap<>();
+        String findQuery = "select export_id, export_type, table_fqdn from metascope_export";
+        String findPropertiesQuery = "select metascope_export_export_id, export_properties_key, export_properties "
+          + "from metascope_export_export_properties";
+        PreparedStatement stmt = null;
+        PreparedStatement propertiesStmt = null;
+        ResultSet rs = null;
+        ResultSet propsRs = null;
+        try {
+            stmt = connection.prepareStatement(findQuery);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                MetascopeExport export = new MetascopeExport();
+                export.setExportId(rs.getString("export_id"));
+                export.setExportType(rs.getString("export_type"));
+                export.setTableFqdn(rs.getString("table_fqdn"));
+                exports.put(export.getExportId(), export);
+            }
+
+            propertiesStmt = connection.prepareStatement(findPropertiesQuery);
+            propsRs = propertiesStmt.executeQuery();
+            while (propsRs.next()) {
+                MetascopeExport export = exports.get(propsRs.getString("metascope_export_export_id"));
+                if (export != null) {
+                    export.addProperty(propsRs.getString("export_properties_key"), propsRs.getString("export_properties"));
+                }
+            }
+        } catch (SQLException e) {
+            LOG.error("Could not retrieve exports", e);
+        } finally {
+            DbUtils.closeQuietly(rs);
+            DbUtils.closeQuietly(propsRs);
+            DbUtils.closeQuietly(stmt);
+            DbUtils.closeQuietly(propertiesStmt);
+        }
+        return new ArrayList<>(exports.values());
+    }
+
     public void save(Connection connection, List<MetascopeExport> exports, String fqdn) {
+        save(connection, Collections.singletonMap(fqdn, exports));
+    }
+
+    public void saveAll(Connection connection, Collection<MetascopeTable> tables) {
+        Map<String, List<MetascopeExport>> exportsByTable = new LinkedHashMap<>();
+        for (MetascopeTable table : tables) {
+            exportsByTable.put(table.getFqdn(), table.getExports());
+        }
+        save(connection, exportsByTable);
+    }
+
+    private void save(Connection connection, Map<String, List<MetascopeExport>> exportsByTable) {
         String deleteQuery = "delete from metascope_export where table_fqdn = ?";
         String deletePropertyQuery = "delete from metascope_export_export_properties where metascope_export_export_id = ?";
         String deleteMappingQuery = "delete from metascope_table_exports where metascope_table_fqdn = ?";
@@ -80,21 +131,45 @@ public class JDBCMetascopeExportRepository extends JDBCContext {
             int batch = 0;
             disableChecks(connection);
 
+            List<MetascopeExport> exports = new ArrayList<>();
+            for (List<MetascopeExport> tableExports : exportsByTable.values()) {
+                if (tableExports != null) {
+                    exports.addAll(tableExports);
+                }
+            }
+
             deleteStmt = connection.prepareStatement(deleteQuery);
-            deleteStmt.setString(1, fqdn);
-            deleteStmt.execute();
+            deleteMappingStmt = connection.prepareStatement(deleteMappingQuery);
+            for (String fqdn : exportsByTable.keySet()) {
+                deleteStmt.setString(1, fqdn);
+                deleteStmt.addBatch();
+
+                deleteMappingStmt.setString(1, fqdn);
+                deleteMappingStmt.addBatch();
+
+                batch++;
+                if (batch % 1024 == 0) {
+                    deleteStmt.executeBatch();
+                    deleteMappingStmt.executeBatch();
+                }
+            }
+            deleteStmt.executeBatch();
+            deleteMappingStmt.executeBatch();
 
+            batch = 0;
+            deletePropsStmt = connection.prepareStatement(deletePropertyQuery);
             for (MetascopeExport export : exports) {
-                deletePropsStmt = connection.prepareStatement(deletePropertyQuery);
                 deletePropsStmt.setString(1, export.getExportId());
-                deletePropsStmt.execute();
-                deletePropsStmt.close();
-            }
+                deletePropsStmt.addBatch();
 
-            deleteMappingStmt = connection.prepareStatement(deleteMappingQuery);
-            deleteMappingStmt.setString(1, fqdn);
-            deleteMappingStmt.execute();
+                batch++;
+                if (batch % 1024 == 0) {
+                    deletePropsStmt.executeBatch();
+                }
+            }
+            deletePropsStmt.executeBatch();
 
+            batch = 0;
             stmt = connection.prepareStatement(insertTableSql);
             for (MetascopeExport export : exports) {
                 stmt.setString(1, export.getExportId());
@@ -130,7 +205,7 @@ public class JDBCMetascopeExportRepository extends JDBCContext {
             batch = 0;
             mappingStmt = connection.prepareStatement(insertMappingSql);
             for (MetascopeExport export : exports) {
-                mappingStmt.setString(1, fqdn);
+                mappingStmt.setString(1, export.getTableFqdn());
                 mappingStmt.setString(2, export.getExportId());
                 mappingStmt.addBatch();
 
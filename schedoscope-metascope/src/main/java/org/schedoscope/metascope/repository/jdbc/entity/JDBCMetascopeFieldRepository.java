@@ -9,9 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
-import java.util.Collection;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 public class JDBCMetascopeFieldRepository extends JDBCContext {
 
@@ -37,16 +35,7 @@ public class JDBCMetascopeFieldRepository extends JDBCContext {
             stmt.setString(1, fieldFqdn);
             rs = stmt.executeQuery();
             if (rs.next()) {
-                field = new MetascopeField();
-                field.setFieldId(rs.getString("field_id"));
-                field.setFieldName(rs.getString("field_name"));
-                field.setFieldType(rs.getString("field_type"));
-                field.setFieldOrder(rs.getInt("field_order"));
-                field.setParameter(rs.getBoolean("is_parameter"));
-                field.setDescription(rs.getString("description"));
-                field.setTableFqdn(rs.getString("table_fqdn"));
-                long commentId = rs.getLong("comment_id");
-                field.setCommentId(rs.wasNull() ? null : commentId);
+                field = getField(rs);
             }
         } catch (SQLException e) {
             LOG.error("Could not retrieve table", e);
@@ -57,7 +46,54 @@ public class JDBCMetascopeFieldRepository extends JDBCContext {
         return field;
     }
 
+    public List<MetascopeField> findAll(Connection connection) {
+        List<MetascopeField> fields = new ArrayList<>();
+        String findQuery = "select field_id, field_name, field_type, field_order, is_parameter, description, comment_id, table_fqdn "
+          + "from metascope_field";
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = connection.prepareStatement(findQuery);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                fields.add(getField(rs));
+            }
+        } catch (SQLException e) {
+            LOG.error("Could not retrieve fields", e);
+        } finally {
+            DbUtils.closeQuietly(rs);
+            DbUtils.closeQuietly(stmt);
+        }
+        return fields;
+    }
+
+    private MetascopeField getField(ResultSet rs) throws SQLException {
+        MetascopeField field = new MetascopeField();
+        field.setFieldId(rs.getString("field_id"));
+        field.setFieldName(rs.getString("field_name"));
+        field.setFieldType(rs.getString("field_type"));
+        field.setFieldOrder(rs.getInt("field_order"));
+        field.setParameter(rs.getBoolean("is_parameter"));
+        field.setDescription(rs.getString("description"));
+        field.setTableFqdn(rs.getString("table_fqdn"));
+        long commentId = rs.getLong("comment_id");
+        field.setCommentId(rs.wasNull() ? null : commentId);
+        return field;
+    }
+
     public void saveFields(Connection connection, Set<MetascopeField> fields, String fqdn, boolean isParameter) {
+        saveFields(connection, Collections.singletonMap(fqdn, fields), isParameter);
+    }
+
+    public void saveFields(Connection connection, Collection<MetascopeTable> tables, boolean isParameter) {
+        Map<String, Set<MetascopeField>> fieldsByTable = new LinkedHashMap<>();
+        for (MetascopeTable table : tables) {
+            fieldsByTable.put(table.getFqdn(), isParameter ? table.getParameters() : table.getFields());
+        }
+        saveFields(connection, fieldsByTable, isParameter);
+    }
+
+    private void saveFields(Connection connection, Map<String, Set<MetascopeField>> fieldsByTable, boolean isParameter) {
         String mappingTable = isParameter ? PARAMETER_MAPPING_TABLE : FIELD_MAPPING_TABLE;
         String mappingField = isParameter ? PARAMETER_MAPPING_FIELD : FIELD_MAPPING_FIELD;
 
@@ -79,19 +115,27 @@ public class JDBCMetascopeFieldRepository extends JDBCContext {
             disableChecks(connection);
 
             deleteStmt = connection.prepareStatement(deleteQuery);
-            deleteStmt.setString(1, fqdn);
-            deleteStmt.setBoolean(2, isParameter);
-            deleteStmt.executeUpdate();
-            deleteStmt.close();
-
             deleteMappingStmt = connection.prepareStatement(deleteFromMappingTable);
-            deleteMappingStmt.setString(1, fqdn);
-            deleteMappingStmt.execute();
-            deleteMappingStmt.close();
+            for (String fqdn : fieldsByTable.keySet()) {
+                deleteStmt.setString(1, fqdn);
+                deleteStmt.setBoolean(2, isParameter);
+                deleteStmt.addBatch();
+
+                deleteMappingStmt.setString(1, fqdn);
+                deleteMappingStmt.addBatch();
+                batch++;
+                if (batch % 1024 == 0) {
+                    deleteStmt.executeBatch();
+                    deleteMappingStmt.executeBatch();
+                }
+            }
+            deleteStmt.executeBatch();
+            deleteMappingStmt.executeBatch();
 
+            batch = 0;
             insertMain = connection.prepareStatement(insertIntoMetascopeField);
             insertMapping = connection.prepareStatement(insertIntoMappingTable);
-            for (MetascopeField field : fields) {
+            for (MetascopeField field : allFields(fieldsByTable)) {
                 insertMain.setString(1, field.getFieldId());
                 insertMain.setString(2, field.getFieldName());
                 insertMain.setString(3, field.getFieldType());
@@ -129,8 +173,30 @@ public class JDBCMetascopeFieldRepository extends JDBCContext {
         }
     }
 
+    private List<MetascopeField> allFields(Map<String, Set<MetascopeField>> fieldsByTable) {
+        List<MetascopeField> fields = new ArrayList<>();
+        for (Set<MetascopeField> tableFields : fieldsByTable.values()) {
+            if (tableFields != null) {
+                fields.addAll(tableFields);
+            }
+        }
+        return fields;
+    }
+
     public void insertFieldDependencies(Connection connection, Collection<MetascopeTable> currentTables, List<Dependency> fieldDependencies) {
-        String delSql = "delete from metascope_field_relationship where successor like ? or dependency like ?";
+        insertFieldDependencies(connection, currentTables, fieldDependencies, false);
+    }
+
+    /**
+     * Replaces the field dependencies of the given tables. If ownDependenciesOnly is set, only the relationships
+     * recorded for the fields of the given tables are deleted, see
+     * {@link JDBCMetascopeTableRepository#saveTableDependency(Connection, Collection, List, boolean)}.
+     */
+    public void insertFieldDependencies(Connection connection, Collection<MetascopeTable> currentTables, List<Dependency> fieldDependencies,
+                                        boolean ownDependenciesOnly) {
+        String delSql = ownDependenciesOnly
+          ? "delete from metascope_field_relationship where dependency like ?"
+          : "delete from metascope_field_relationship where successor like ? or dependency like ?";
         String sql = "insert into metascope_field_relationship (successor, dependency) values (?, ?) "
           + "on duplicate key update successor=values(successor), dependency=values(dependency)";
         PreparedStatement stmt = null;
@@ -142,7 +208,9 @@ public class JDBCMetascopeFieldRepository extends JDBCContext {
             delStmt = connection.prepareStatement(delSql);
             for (MetascopeTable t : currentTables) {
                 delStmt.setString(1, t.getFqdn() + "%");
-                delStmt.setString(2, t.getFqdn() + "%");
+                if (!ownDependenciesOnly) {
+                    delStmt.setString(2, t.getFqdn() + "%");
+                }
                 delStmt.addBatch();
                 batch++;
                 if (batch % 1024 == 0) {
@@ -11,6 +11,8 @@ import org.slf4j.LoggerFactory;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +20,43 @@ public class JDBCMetascopeTableRepository extends JDBCContext {
 
     private static final Logger LOG = LoggerFactory.getLogger(JDBCMetascopeTableRepository.class);
 
+    private static final String INSERT_TABLE_SQL = "insert into metascope_table (fqdn, schedoscope_id, database_name, table_name, view_path, "
+      + "external_table, table_description, storage_format, input_format, output_format, materialize_once, created_at, "
+      + "table_owner, data_path, data_size, permissions, rowcount, last_data, timestamp_field, timestamp_field_format, "
+      + "last_change, last_partition_created, last_schema_change, last_transformation_timestamp, view_count, views_size, "
+      + "person_responsible, comment_id, schedoscope_fingerprint, metastore_fingerprint) values "
+      + "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) on duplicate key update "
+      + "fqdn=values(fqdn), "
+      + "schedoscope_id=values(schedoscope_id), "
+      + "database_name=values(database_name), "
+      + "table_name=values(table_name), "
+      + "view_path=values(view_path), "
+      + "external_table=values(external_table), "
+      + "table_description=values(table_description), "
+      + "storage_format=values(storage_format), "
+      + "input_format=values(input_format), "
+      + "output_format=values(output_format), "
+      + "materialize_once=values(materialize_once), "
+      + "created_at=values(created_at), "
+      + "table_owner=values(table_owner), "
+      + "data_path=values(data_path), "
+      + "data_size=values(data_size), "
+      + "permissions=values(permissions), "
+      + "rowcount=values(rowcount), "
+      + "last_data=values(last_data), "
+      + "timestamp_field=values(timestamp_field), "
+      + "timestamp_field_format=values(timestamp_field_format), "
+      + "last_change=values(last_change), "
+      + "last_partition_created=values(last_partition_created), "
+      + "last_schema_change=values(last_schema_change), "
+      + "last_transformation_timestamp=values(last_transformation_timestamp), "
+      + "view_count=values(view_count), "
+      + "views_size=values(views_size), "
+      + "person_responsible=values(person_responsible), "
+      + "comment_id=values(comment_id), "
+      + "schedoscope_fingerprint=values(schedoscope_fingerprint), "
+      + "metastore_fingerprint=values(metastore_fingerprint)";
+
     public JDBCMetascopeTableRepository(boolean isMySQLDatabase, boolean isH2Database) {
         super(isMySQLDatabase, isH2Database);
     }
@@ -28,7 +67,7 @@ public class JDBCMetascopeTableRepository extends JDBCContext {
           + "external_table, table_description, storage_format, input_format, output_format, materialize_once, created_at, "
           + "table_owner, data_path, data_size, permissions, rowcount, last_data, timestamp_field, timestamp_field_format, "
           + "last_change, last_partition_created, last_schema_change, last_transformation_timestamp, view_count, views_size, "
-          + "person_responsible, comment_id "
+          + "person_responsible, comment_id, schedoscope_fingerprint, metastore_fingerprint "
           + "from metascope_table where fqdn = ?";
         PreparedStatement stmt = null;
         try {
@@ -66,6 +105,8 @@ public class JDBCMetascopeTableRepository extends JDBCContext {
                 table.setPersonResponsible(rs.getString("person_responsible"));
                 long comment_id = rs.getLong("comment_id");
                 table.setCommentId(rs.wasNull() ? null : comment_id);
+                table.setSchedoscopeFingerprint(rs.getString("schedoscope_fingerprint"));
+                table.setMetastoreFingerprint(rs.getString("metastore_fingerprint"));
             }
         } catch (SQLException e) {
             LOG.error("Could not retrieve table", e);
@@ -81,7 +122,7 @@ public class JDBCMetascopeTableRepository extends JDBCContext {
           + "external_table, table_description, storage_format, input_format, output_format, materialize_once, created_at, "
           + "table_owner, data_path, data_size, permissions, rowcount, last_data, timestamp_field, timestamp_field_format, "
           + "last_change, last_partition_created, last_schema_change, last_transformation_timestamp, view_count, views_size, "
-          + "person_responsible, comment_id "
+          + "person_responsible, comment_id, schedoscope_fingerprint, metastore_fingerprint "
           + "from metascope_table";
         PreparedStatement stmt = null;
         try {
@@ -118,6 +159,8 @@ public class JDBCMetascopeTableRepository extends JDBCContext {
                 table.setPersonResponsible(rs.getString("person_responsible"));
                 long comment_id = rs.getLong("comment_id");
                 table.setCommentId(rs.wasNull() ? null : comment_id);
+                table.setSchedoscopeFingerprint(rs.getString("schedoscope_fingerprint"));
+                table.setMetastoreFingerprint(rs.getString("metastore_fingerprint"));
                 metascopeTables.add(table);
             }
         } catch (SQLException e) {
@@ -129,76 +172,11 @@ public class JDBCMetascopeTableRepository extends JDBCContext {
     }
 
     public void save(Connection connection, MetascopeTable table) {
-        String insertTableSql = "insert into metascope_table (fqdn, schedoscope_id, database_name, table_name, view_path, "
-          + "external_table, table_description, storage_format, input_format, output_format, materialize_once, created_at, "
-          + "table_owner, data_path, data_size, permissions, rowcount, last_data, timestamp_field, timestamp_field_format, "
-          + "last_change, last_partition_created, last_schema_change, last_transformation_timestamp, view_count, views_size, "
-          + "person_responsible, comment_id) values "
-          + "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) on duplicate key update "
-          + "fqdn=values(fqdn), "
-          + "schedoscope_id=values(schedoscope_id), "
-          + "database_name=values(database_name), "
-          + "table_name=values(table_name), "
-          + "view_path=values(view_path), "
-          + "external_table=values(external_table), "
-          + "table_description=values(table_description), "
-          + "storage_format=values(storage_format), "
-          + "input_format=values(input_format), "
-          + "output_format=values(output_format), "
-          + "materialize_once=values(materialize_once), "
-          + "created_at=values(created_at), "
-          + "table_owner=values(table_owner), "
-          + "data_path=values(data_path), "
-          + "data_size=values(data_size), "
-          + "permissions=values(permissions), "
-          + "rowcount=values(rowcount), "
-          + "last_data=values(last_data), "
-          + "timestamp_field=values(timestamp_field), "
-          + "timestamp_field_format=values(timestamp_field_format), "
-          + "last_change=values(last_change), "
-          + "last_partition_created=values(last_partition_created), "
-          + "last_schema_change=values(last_schema_change), "
-          + "last_transformation_timestamp=values(last_transformation_timestamp), "
-          + "view_count=values(view_count), "
-          + "views_size=values(views_size), "
-          + "person_responsible=values(person_responsible), "
-          + "comment_id=values(comment_id)";
         PreparedStatement stmt = null;
         try {
             disableChecks(connection);
-            stmt = connection.prepareStatement(insertTableSql);
-            stmt.setString(1, table.getFqdn());
-            stmt.setString(2, table.getSchedoscopeId());
-            stmt.setString(3, table.getDatabaseName());
-            stmt.setString(4, table.getTableName());
-            stmt.setString(5, table.getViewPath());
-            stmt.setBoolean(6, table.isExternalTable());
-            stmt.setString(7, table.getTableDescription());
-            stmt.setString(8, table.getStorageFormat());
-            stmt.setString(9, table.getInputFormat());
-            stmt.setString(10, table.getOutputFormat());
-            stmt.setBoolean(11, table.isMaterializeOnce());
-            stmt.setLong(12, table.getCreatedAt());
-            stmt.setString(13, table.getTableOwner());
-            stmt.setString(14, table.getDataPath());
-            stmt.setLong(15, table.getDataSize());
-            stmt.setString(16, table.getPermissions());
-            stmt.setLong(17, table.getRowcount());
-            stmt.setString(18, table.getLastData());
-            stmt.setString(19, table.getTimestampField());
-            stmt.setString(20, table.getTimestampFieldFormat());
-            stmt.setLong(21, table.getLastChange());
-            stmt.setLong(22, table.getLastPartitionCreated());
-            stmt.setLong(23, table.getLastSchemaChange());
-            stmt.setLong(24, table.getLastTransformation());
-            stmt.setInt(25, table.getViewCount());
-            stmt.setInt(26, table.getViewsSize());
-            stmt.setString(27, table.getPersonResponsible());
-            if (table.getCommentId() == null) {
-                stmt.setNull(28, Types.BIGINT);
-            } else {
-                stmt.setLong(28, table.getCommentId());
-            }
+            stmt = connection.prepareStatement(INSERT_TABLE_SQL);
+            setTable(stmt, table);
             stmt.execute();
         } catch (SQLException e) {
             LOG.error("Could not save/update table", e);
@@ -207,7 +185,80 @@ public class JDBCMetascopeTableRepository extends JDBCContext {
         }
     }
 
+    public void saveAll(Connection connection, Collection<MetascopeTable> tables) {
+        PreparedStatement stmt = null;
+        try {
+            int batch = 0;
+            disableChecks(connection);
+            stmt = connection.prepareStatement(INSERT_TABLE_SQL);
+            for (MetascopeTable table : tables) {
+                setTable(stmt, table);
+                stmt.addBatch();
+                batch++;
+                if (batch % 1024 == 0) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+            connection.commit();
+            enableChecks(connection);
+        } catch (SQLException e) {
+            LOG.error("Could not save/update tables", e);
+        } finally {
+            DbUtils.closeQuietly(stmt);
+        }
+    }
+
+    private void setTable(PreparedStatement stmt, MetascopeTable table) throws SQLException {
+        stmt.setString(1, table.getFqdn());
+        stmt.setString(2, table.getSchedoscopeId());
+        stmt.setString(3, table.getDatabaseName());
+        stmt.setString(4, table.getTableName());
+        stmt.setString(5, table.getViewPath());
+        stmt.setBoolean(6, table.isExternalTable());
+        stmt.setString(7, table.getTableDescription());
+        stmt.setString(8, table.getStorageFormat());
+        stmt.setString(9, table.getInputFormat());
+        stmt.setString(10, table.getOutputFormat());
+        stmt.setBoolean(11, table.isMaterializeOnce());
+        stmt.setLong(12, table.getCreatedAt());
+        stmt.setString(13, table.getTableOwner());
+        stmt.setString(14, table.getDataPath());
+        stmt.setLong(15, table.getDataSize());
+        stmt.setString(16, table.getPermissions());
+        stmt.setLong(17, table.getRowcount());
+        stmt.setString(18, table.getLastData());
+        stmt.setString(19, table.getTimestampField());
+        stmt.setString(20, table.getTimestampFieldFormat());
+        stmt.setLong(21, table.getLastChange());
+        stmt.setLong(22, table.getLastPartitionCreated());
+        stmt.setLong(23, table.getLastSchemaChange());
+        stmt.setLong(24, table.getLastTransformation());
+        stmt.setInt(25, table.getViewCount());
+        stmt.setInt(26, table.getViewsSize());
+        stmt.setString(27, table.getPersonResponsible());
+        if (table.getCommentId() == null) {
+            stmt.setNull(28, Types.BIGINT);
+        } else {
+            stmt.setLong(28, table.getCommentId());
+        }
+        stmt.setString(29, table.getSchedoscopeFingerprint());
+        stmt.setString(30, table.getMetastoreFingerprint());
+    }
+
     public void saveTransformation(Connection connection, MetascopeTransformation transformation, String fqdn) {
+        saveTransformations(connection, Collections.singletonMap(fqdn, transformation));
+    }
+
+    public void saveTransformations(Connection connection, Collection<MetascopeTable> tables) {
+        Map<String, MetascopeTransformation> transformations = new LinkedHashMap<>();
+        for (MetascopeTable table : tables) {
+            transformations.put(table.getFqdn(), table.getTransformation());
+        }
+        saveTransformations(connection, transformations);
+    }
+
+    private void saveTransformations(Connection connection, Map<String, MetascopeTransformation> transformations) {
         String deleteQuery = "delete from metascope_transformation where table_fqdn = ?";
         String deletePropsQuery = "delete from metascope_transformation_properties where metascope_transformation_transformation_id = ?";
         String insertInto = "insert into metascope_transformation (transformation_id, transformation_type, table_fqdn) values " +
@@ -222,29 +273,51 @@ public class JDBCMetascopeTableRepository extends JDBCContext {
         PreparedStatement delStmt = null;
         PreparedStatement delPropsStmt = null;
         try {
+            int batch = 0;
             disableChecks(connection);
 
             delStmt = connection.prepareStatement(deleteQuery);
-            delStmt.setString(1, fqdn);
-            delStmt.execute();
-
             delPropsStmt = connection.prepareStatement(deletePropsQuery);
-            delPropsStmt.setString(1, transformation.getTransformationId());
-            delPropsStmt.execute();
-
             stmt = connection.prepareStatement(insertInto);
-            stmt.setString(1, transformation.getTransformationId());
-            stmt.setString(2, transformation.getTransformationType());
-            stmt.setString(3, fqdn);
-            stmt.execute();
+            for (Map.Entry<String, MetascopeTransformation> entry : transformations.entrySet()) {
+                delStmt.setString(1, entry.getKey());
+                delStmt.addBatch();
 
-            for (Map.Entry<String, String> entry : transformation.getProperties().entrySet()) {
-                propsStmt = connection.prepareStatement(insertIntoProps);
-                propsStmt.setString(1, transformation.getTransformationId());
-                propsStmt.setString(2, entry.getKey());
-                propsStmt.setString(3, entry.getValue());
-                propsStmt.execute();
+                delPropsStmt.setString(1, entry.getValue().getTransformationId());
+                delPropsStmt.addBatch();
+
+                stmt.setString(1, entry.getValue().getTransformationId());
+                stmt.setString(2, entry.getValue().getTransformationType());
+                stmt.setString(3, entry.getKey());
+                stmt.addBatch();
+
+                batch++;
+                if (batch % 1024 == 0) {
+                    delStmt.executeBatch();
+                    delPropsStmt.executeBatch();
+                    stmt.executeBatch();
+                }
             }
+            delStmt.executeBatch();
+            delPropsStmt.executeBatch();
+            stmt.executeBatch();
+
+            batch = 0;
+            propsStmt = connection.prepareStatement(insertIntoProps);
+            for (MetascopeTransformation transformation : transformations.values()) {
+                for (Map.Entry<String, String> entry : transformation.getProperties().entrySet()) {
+                    propsStmt.setString(1, transformation.getTransformationId());
+                    propsStmt.setString(2, entry.getKey());
+                    propsStmt.setString(3, entry.getValue());
+                    propsStmt.addBatch();
+
+                    batch++;
+                    if (batch % 1024 == 0) {
+                        propsStmt.executeBatch();
+                    }
+                }
+            }
+            propsStmt.executeBatch();
 
             enableChecks(connection);
         } catch (SQLException e) {
@@ -259,7 +332,19 @@ public class JDBCMetascopeTableRepository extends JDBCContext {
     }
 
     public void saveTableDependency(Connection connection, Collection<MetascopeTable> currentTables, List<Dependency> tableDependencies) {
-        String delSql = "delete from metascope_table_relationship where successor = ? or dependency = ?";
+        saveTableDependency(connection, currentTables, tableDependencies, false);
+    }
+
+    /**
+     * Replaces the dependencies of the given tables. If ownDependenciesOnly is set, only the relationships recorded
+     * for the given tables are deleted, the ones other tables recorded for them are kept. This is used when only a
+     * part of all tables is synchronized.
+     */
+    public void saveTableDependency(Connection connection, Collection<MetascopeTable> currentTables, List<Dependency> tableDependencies,
+                                    boolean ownDependenciesOnly) {
+        String delSql = ownDependenciesOnly
+          ? "delete from metascope_table_relationship where dependency = ?"
+          : "delete from metascope_table_relationship where successor = ? or dependency = ?";
         String sql = "insert into metascope_table_relationship (successor, dependency) values (?, ?) "
           + "on duplicate key update successor=values(successor), dependency=values(dependency)";
         PreparedStatement stmt = null;
@@ -271,7 +356,9 @@ public class JDBCMetascopeTableRepository extends JDBCContext {
             delStmt = connection.prepareStatement(delSql);
             for (MetascopeTable t : currentTables) {
                 delStmt.setString(1, t.getFqdn());
-                delStmt.setString(2, t.getFqdn());
+                if (!ownDependenciesOnly) {
+                    delStmt.setString(2, t.getFqdn());
+                }
                 delStmt.addBatch();
                 batch++;
                 if (batch % 1024 == 0) {
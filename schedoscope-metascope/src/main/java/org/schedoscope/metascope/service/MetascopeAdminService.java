@@ -49,7 +49,7 @@ public class MetascopeAdminService {
   public void syncIndex() {
     Iterable<MetascopeTable> tables = metascopeTableRepository.findAll();
     for (MetascopeTable table : tables) {
-      solr.updateTableEntityAsync(table, false);
+      solr.updateTableEntity(table, false);
     }
     solr.commit();
   }
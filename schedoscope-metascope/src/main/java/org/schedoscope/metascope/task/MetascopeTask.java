@@ -16,6 +16,7 @@
 package org.schedoscope.metascope.task;
 
 import org.schedoscope.metascope.config.MetascopeConfig;
+import org.schedoscope.metascope.index.SolrFacade;
 import org.schedoscope.metascope.repository.jdbc.RawJDBCSqlRepository;
 import org.schedoscope.metascope.task.metastore.MetastoreTask;
 import org.schedoscope.metascope.util.TaskMutex;
@@ -43,9 +44,37 @@ public class MetascopeTask implements Runnable {
     @Autowired
     private TaskMutex taskMutex;
 
+    @Autowired
+    private SolrFacade solrFacade;
+
+    private volatile long lastSync;
+
+    private volatile long lastFullSync;
+
+    /**
+     * Runs a full sync of all tables.
+     */
     @Override
     @Transactional
     public void run() {
+        sync(true);
+    }
+
+    /**
+     * Runs a full sync if the full sync interval elapsed since the last full sync, otherwise an incremental sync of
+     * the changed tables if the sync interval elapsed since the last sync.
+     */
+    @Transactional
+    public void runScheduled() {
+        long now = System.currentTimeMillis();
+        if (now - lastFullSync >= config.getFullSyncInterval()) {
+            sync(true);
+        } else if (now - lastSync >= config.getSyncInterval()) {
+            sync(false);
+        }
+    }
+
+    private void sync(boolean fullSync) {
         long ts = System.currentTimeMillis();
         boolean isH2Database = config.getRepositoryUrl().startsWith("jdbc:h2");
         boolean isMySQLDatabase = config.getRepositoryUrl().startsWith("jdbc:mysql");
@@ -53,10 +82,16 @@ public class MetascopeTask implements Runnable {
 
         if (!taskMutex.isSchedoscopeTaskRunning()) {
             taskMutex.setSchedoscopeTaskRunning(true);
+            LOG.info("Starting " + (fullSync ? "full" : "incremental") + " sync");
             for (SchedoscopeInstance schedoscopeInstance : config.getSchedoscopeInstances()) {
-                syncTask.forInstance(schedoscopeInstance).run(sqlRepository, ts);
+                syncTask.forInstance(schedoscopeInstance).withFullSync(fullSync).run(sqlRepository, ts);
+            }
+            metastoreSyncTask.withFullSync(fullSync).run(sqlRepository, ts);
+            solrFacade.buildSuggester();
+            lastSync = ts;
+            if (fullSync) {
+                lastFullSync = ts;
             }
-            metastoreSyncTask.run(sqlRepository, ts);
             taskMutex.setSchedoscopeTaskRunning(false);
         }
     }
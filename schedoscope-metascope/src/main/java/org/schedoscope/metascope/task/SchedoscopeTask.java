@@ -22,7 +22,9 @@ import org.schedoscope.metascope.index.SolrFacade;
 import org.schedoscope.metascope.model.*;
 import org.schedoscope.metascope.repository.jdbc.RawJDBCSqlRepository;
 import org.schedoscope.metascope.task.model.*;
+import org.schedoscope.metascope.util.FingerprintUtil;
 import org.schedoscope.metascope.util.SchedoscopeUtil;
+import org.schedoscope.metascope.util.ViewIndexUtil;
 import org.schedoscope.metascope.util.model.SchedoscopeInstance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +36,11 @@ import org.springframework.transaction.annotation.Transactional;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Component
 public class SchedoscopeTask extends Task {
@@ -43,6 +50,7 @@ public class SchedoscopeTask extends Task {
     private static final String OCCURRED_AT = "occurred_at";
     private static final String OCCURRED_UNTIL = "occurred_until";
     private static final String SCHEDOSCOPE_TIMESTAMP_FORMAT = "yyyy-MM-dd''T''HH:mm:ss.SSS''Z''";
+    private static final int TABLES_PER_CHUNK = 256;
 
     @Autowired
     private MetascopeConfig config;
@@ -53,12 +61,14 @@ public class SchedoscopeTask extends Task {
 
     private SchedoscopeInstance schedoscopeInstance;
 
+    private boolean fullSync = true;
+
     @Override
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public boolean run(RawJDBCSqlRepository sqlRepository, long start) {
-        Map<String, MetascopeTable> cachedTables = new HashMap<>();
-        Map<String, MetascopeField> cachedFields = new HashMap<>();
+    public boolean run(final RawJDBCSqlRepository sqlRepository, long start) {
+        final Map<String, MetascopeTable> cachedTables = new LinkedHashMap<>();
         Map<String, MetascopeView> cachedViews = new HashMap<>();
+        Map<String, List<View>> viewsByTable = new HashMap<>();
         List<MetascopeView> viewsToPersist = new ArrayList<>();
         List<Dependency> tableDependencies = new ArrayList<>();
         List<Dependency> viewDependencies = new ArrayList<>();
@@ -66,6 +76,9 @@ public class SchedoscopeTask extends Task {
 
         LOG.info("Retrieve and parse data from schedoscope instance \"" + schedoscopeInstance.getId() + "\"");
 
+        long syncStart = System.currentTimeMillis();
+        long phaseStart = syncStart;
+
         Connection connection;
         try {
             connection = dataSource.getConnection();
@@ -96,195 +109,132 @@ public class SchedoscopeTask extends Task {
 
         int size = viewStatus.getViews().size();
         LOG.info("Received " + size + " views");
+        phaseStart = logPhase("Retrieving views", phaseStart);
 
-        /** save tables to avoid foreign key constraint violation */
-        int tableCount = 0;
+        /** prefetch the existing tables, fields and exports, instead of looking up each of them */
+        final Map<String, MetascopeTable> existingTables = new HashMap<>();
+        for (MetascopeTable table : sqlRepository.findAllTables(connection)) {
+            existingTables.put(table.getFqdn(), table);
+        }
+        final Map<String, MetascopeField> existingFields = new HashMap<>();
+        for (MetascopeField field : sqlRepository.findAllFields(connection)) {
+            existingFields.put(field.getFieldId(), field);
+        }
+        final Map<String, MetascopeExport> existingExports = new HashMap<>();
+        for (MetascopeExport export : sqlRepository.findAllExports(connection)) {
+            existingExports.put(export.getExportId(), export);
+        }
+        LOG.info("Prefetched " + existingTables.size() + " tables, " + existingFields.size() + " fields and "
+          + existingExports.size() + " exports");
+        phaseStart = logPhase("Prefetching repository", phaseStart);
+
+        /** tables, only the ones whose fingerprint changed since the last sync unless this is a full sync */
+        final Map<String, List<View>> partitionIndex = ViewIndexUtil.partitionsByViewPath(viewStatus.getViews());
+        Set<String> receivedTables = new HashSet<>();
+        List<View> tableViews = new ArrayList<>();
         for (View view : viewStatus.getViews()) {
             if (view.isTable() && !view.isExternal()) {
                 String fqdn = view.getDatabase() + "." + view.getTableName();
-                MetascopeTable table = sqlRepository.findTable(connection, fqdn);
+                if (!receivedTables.add(fqdn)) {
+                    continue;
+                }
+                String fingerprint = FingerprintUtil.schedoscopeFingerprint(schedoscopeInstance.getId(), view,
+                  ViewIndexUtil.getPartitions(partitionIndex, view.viewPath()));
+                MetascopeTable table = existingTables.get(fqdn);
                 if (table == null) {
                     table = new MetascopeTable();
                     table.setFqdn(fqdn);
+                } else if (!fullSync && fingerprint.equals(table.getSchedoscopeFingerprint())) {
+                    continue;
                 }
+                table.setSchedoscopeFingerprint(fingerprint);
                 cachedTables.put(fqdn, table);
-                tableCount++;
+                tableViews.add(view);
             }
         }
-        LOG.info("Received " + tableCount + " tables");
-
-        for (View view : viewStatus.getViews()) {
-            if (view.isTable() && !view.isExternal()) {
-                String fqdn = view.getDatabase() + "." + view.getTableName();
+        LOG.info("Received " + receivedTables.size() + " tables, " + tableViews.size() + " of them "
+          + (fullSync ? "are synchronized (full sync)" : "changed since the last sync"));
+        phaseStart = logPhase("Computing fingerprints", phaseStart);
 
-                LOG.info("Consuming table " + fqdn);
-
-                MetascopeTable table = cachedTables.get(fqdn);
-                table.setSchedoscopeId(schedoscopeInstance.getId());
-                table.setDatabaseName(view.getDatabase());
-                table.setTableName(view.getTableName());
-                table.setViewPath(view.viewPath());
-                table.setExternalTable(view.isExternal());
-                table.setTableDescription(view.getComment());
-                table.setStorageFormat(view.getStorageFormat());
-                table.setMaterializeOnce(view.isMaterializeOnce());
-                for (ViewField field : view.getFields()) {
-                    if (field.getName().equals(OCCURRED_AT)) {
-                        table.setTimestampField(OCCURRED_AT);
-                        table.setTimestampFieldFormat(SCHEDOSCOPE_TIMESTAMP_FORMAT);
-                        break;
-                    } else if (field.getName().equals(OCCURRED_UNTIL)) {
-                        table.setTimestampField(OCCURRED_UNTIL);
-                        table.setTimestampFieldFormat(SCHEDOSCOPE_TIMESTAMP_FORMAT);
-                        break;
-                    }
-                }
-
-                /** fields */
-                Set<MetascopeField> tableFields = new HashSet<>();
-                int i = 0;
-                for (ViewField viewField : view.getFields()) {
-                    String fieldFqdn = fqdn + "." + viewField.getName();
-                    MetascopeField field = sqlRepository.findField(connection, fieldFqdn);
-                    if (field == null) {
-                        field = new MetascopeField();
-                        field.setFieldId(fieldFqdn);
-                        field.setTableFqdn(fqdn);
-                    }
-                    field.setFieldName(viewField.getName());
-                    field.setFieldType(viewField.getFieldtype());
-                    field.setFieldOrder(i++);
-                    field.setParameter(false);
-                    field.setDescription(viewField.getComment());
-
-                    //lineage
-                    if (view.getLineage() != null && view.getLineage().get(fieldFqdn) != null) {
-                        for (String dependencyField : view.getLineage().get(fieldFqdn)) {
-                            if (!dependencyField.equals(fieldFqdn)) {
-                                MetascopeField dField = cachedFields.get(dependencyField);
-                                if (dField == null) {
-                                    dField = new MetascopeField();
-                                    dField.setFieldId(dependencyField);
-                                    cachedFields.put(dependencyField, dField);
-                                }
-                                fieldDependencies.add(new Dependency(field.getFieldId(), dField.getFieldId()));
-                            }
-                        }
+        /** tables, fields, exports and transformations, chunks of tables are processed and written in parallel */
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.getSyncThreads()));
+        try {
+            List<Future<TableChunk>> chunks = new ArrayList<>();
+            for (int i = 0; i < tableViews.size(); i += TABLES_PER_CHUNK) {
+                final List<View> chunk = tableViews.subList(i, Math.min(i + TABLES_PER_CHUNK, tableViews.size()));
+                chunks.add(executor.submit(new Callable<TableChunk>() {
+                    @Override
+                    public TableChunk call() throws SQLException {
+                        return syncTables(sqlRepository, chunk, cachedTables, existingFields, existingExports, partitionIndex);
                     }
+                }));
+            }
 
-                    tableFields.add(field);
-                    cachedFields.put(field.getFieldId(), field);
+            for (Future<TableChunk> chunk : chunks) {
+                TableChunk result = chunk.get();
+                fieldDependencies.addAll(result.fieldDependencies);
+                viewsByTable.putAll(result.views);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted while synchronizing tables", e);
+            closeQuietly(connection);
+            return false;
+        } catch (ExecutionException e) {
+            LOG.error("Could not synchronize tables", e.getCause());
+            closeQuietly(connection);
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+        phaseStart = logPhase("Synchronizing tables", phaseStart);
+
+        /** views and dependencies */
+        for (View view : tableViews) {
+            String fqdn = view.getDatabase() + "." + view.getTableName();
+            MetascopeTable table = cachedTables.get(fqdn);
+
+            for (View partition : viewsByTable.get(fqdn)) {
+                MetascopeView metascopeView = cachedViews.get(partition.getName());
+                if (metascopeView == null) {
+                    metascopeView = new MetascopeView();
+                    metascopeView.setViewUrl(partition.getName());
+                    metascopeView.setViewId(partition.getName());
+                    cachedViews.put(partition.getName(), metascopeView);
                 }
-                table.setFields(tableFields);
-                sqlRepository.saveFields(connection, table.getFields(), table.getFqdn(), false);
-
-                /** parameter */
-                Set<MetascopeField> tableParameter = new HashSet<>();
-                i = 0;
-                for (ViewField viewField : view.getParameters()) {
-                    String parameterFqdn = fqdn + "." + viewField.getName();
-                    MetascopeField parameter = sqlRepository.findField(connection, parameterFqdn);
-                    if (parameter == null) {
-                        parameter = new MetascopeField();
-                        parameter.setFieldId(parameterFqdn);
-                        parameter.setTableFqdn(fqdn);
-                    }
-                    parameter.setFieldName(viewField.getName());
-                    parameter.setFieldType(viewField.getFieldtype());
-                    parameter.setFieldOrder(i++);
-                    parameter.setParameter(true);
-                    parameter.setDescription(viewField.getComment());
-
-                    parameter.setTable(table);
-                    tableParameter.add(parameter);
+                viewsToPersist.add(metascopeView);
+                if (table.getParameters() != null && table.getParameters().size() > 0) {
+                    String parameterString = getParameterString(partition.getName(), table);
+                    metascopeView.setParameterString(parameterString);
                 }
-                table.setParameters(tableParameter);
-                sqlRepository.saveFields(connection, table.getParameters(), table.getFqdn(), true);
-
-                /** exports */
-                List<MetascopeExport> tableExports = new ArrayList<>();
-                i = 0;
-                if (view.getExport() != null) {
-                    for (ViewTransformation viewExport : view.getExport()) {
-                        String exportFqdn = fqdn + "." + viewExport.getName() + "_" + i;
-                        MetascopeExport export = sqlRepository.findExport(connection, exportFqdn);
-                        if (export == null) {
-                            export = new MetascopeExport();
-                            export.setExportId(exportFqdn);
-                            export.setTableFqdn(fqdn);
+                for (List<String> dependencyLists : partition.getDependencies().values()) {
+                    for (String dependency : dependencyLists) {
+                        MetascopeView dependencyView = cachedViews.get(dependency);
+                        if (dependencyView == null) {
+                            dependencyView = new MetascopeView();
+                            dependencyView.setViewUrl(dependency);
+                            dependencyView.setViewId(dependency);
+                            cachedViews.put(dependency, dependencyView);
                         }
-                        export.setExportType(viewExport.getName());
-                        export.setProperties(viewExport.getProperties());
-
-                        export.setTable(table);
-                        tableExports.add(export);
-                        i++;
+                        metascopeView.addToDependencies(dependencyView);
+                        dependencyView.addToSuccessors(metascopeView);
+                        viewDependencies.add(new Dependency(metascopeView.getViewId(), dependencyView.getViewId()));
                     }
                 }
-                table.setExports(tableExports);
-                sqlRepository.saveExports(connection, table.getExports(), table.getFqdn());
-
-                /** transformation */
-                MetascopeTransformation metascopeTransformation = new MetascopeTransformation();
-                metascopeTransformation.setTransformationId(fqdn + "." + view.getTransformation().getName());
-                metascopeTransformation.setTransformationType(view.getTransformation().getName());
-                metascopeTransformation.setProperties(view.getTransformation().getProperties());
-                table.setTransformation(metascopeTransformation);
-                sqlRepository.saveTransformation(connection, table.getTransformation(), table.getFqdn());
-
-                /** views and dependencies */
-                LOG.info("Getting views for table " + fqdn);
-                List<View> views = getViewsForTable(table.getViewPath(), viewStatus.getViews());
-                LOG.info("Found " + views.size() + " views");
-
-                for (View partition : views) {
-                    MetascopeView metascopeView = cachedViews.get(partition.getName());
-                    if (metascopeView == null) {
-                        metascopeView = new MetascopeView();
-                        metascopeView.setViewUrl(partition.getName());
-                        metascopeView.setViewId(partition.getName());
-                        cachedViews.put(partition.getName(), metascopeView);
-                    }
-                    viewsToPersist.add(metascopeView);
-                    if (table.getParameters() != null && table.getParameters().size() > 0) {
-                        String parameterString = getParameterString(partition.getName(), table);
-                        metascopeView.setParameterString(parameterString);
-                    }
-                    for (List<String> dependencyLists : partition.getDependencies().values()) {
-                        for (String dependency : dependencyLists) {
-                            MetascopeView dependencyView = cachedViews.get(dependency);
-                            if (dependencyView == null) {
-                                dependencyView = new MetascopeView();
-                                dependencyView.setViewUrl(dependency);
-                                dependencyView.setViewId(dependency);
-                                cachedViews.put(dependency, dependencyView);
-                            }
-                            metascopeView.addToDependencies(dependencyView);
-                            dependencyView.addToSuccessors(metascopeView);
-                            viewDependencies.add(new Dependency(metascopeView.getViewId(), dependencyView.getViewId()));
-                        }
-                    }
-                    for (String dependency : partition.getDependencies().keySet()) {
-                        tableDependencies.add(new Dependency(fqdn, dependency));
-                    }
-                    cachedViews.put(partition.getName(), metascopeView);
-                    metascopeView.setTable(table);
+                for (String dependency : partition.getDependencies().keySet()) {
+                    tableDependencies.add(new Dependency(fqdn, dependency));
                 }
-
-                LOG.info("Processed all views for table " + fqdn);
-
-                table.setViewsSize(views.size());
-                sqlRepository.saveTable(connection, table);
-
-                LOG.info("Finished processing table " + fqdn);
+                cachedViews.put(partition.getName(), metascopeView);
+                metascopeView.setTable(table);
             }
         }
+        phaseStart = logPhase("Resolving views", phaseStart);
 
         try {
             LOG.info("Saving field dependency information (" + fieldDependencies.size() + ") ...");
-            sqlRepository.insertFieldDependencies(connection, cachedTables.values(), fieldDependencies);
+            sqlRepository.insertFieldDependencies(connection, cachedTables.values(), fieldDependencies, !fullSync);
             LOG.info("Saving table dependency information (" + tableDependencies.size() + ") ...");
-            sqlRepository.insertTableDependencies(connection, cachedTables.values(), tableDependencies);
+            sqlRepository.insertTableDependencies(connection, cachedTables.values(), tableDependencies, !fullSync);
             LOG.info("Saving views (" + viewsToPersist.size() + ")...");
             sqlRepository.insertOrUpdateViews(connection, viewsToPersist);
             LOG.info("Saving view dependency information (" + viewDependencies.size() + ") ...");
@@ -292,6 +242,7 @@ public class SchedoscopeTask extends Task {
         } catch (Exception e) {
             LOG.error("Error writing to database", e);
         }
+        phaseStart = logPhase("Saving views and dependencies", phaseStart);
 
         LOG.info("Saving to index");
         for (MetascopeTable table : cachedTables.values()) {
@@ -299,27 +250,170 @@ public class SchedoscopeTask extends Task {
         }
         solrFacade.commit();
         LOG.info("Finished index update");
+        logPhase("Updating index", phaseStart);
 
         sqlRepository.saveMetadata(connection, "schedoscopeTimestamp", String.valueOf(System.currentTimeMillis()));
 
-        try {
-            connection.close();
-        } catch (SQLException e) {
-            LOG.error("Could not close connection", e);
-        }
+        closeQuietly(connection);
 
-        LOG.info("Finished sync with schedoscope instance \"" + schedoscopeInstance.getId() + "\"");
+        LOG.info("Finished sync with schedoscope instance \"" + schedoscopeInstance.getId() + "\" in "
+          + (System.currentTimeMillis() - syncStart) + " ms");
         return true;
     }
 
-    private List<View> getViewsForTable(String viewPath, List<View> views) {
-        List<View> results = new ArrayList<>();
-        for (View view : views) {
-            if (view.getName().startsWith(viewPath) && !view.isTable()) {
-                results.add(view);
+    /**
+     * Builds the tables of a chunk with their fields, parameters, exports and transformation from the prefetched
+     * entities and writes them with batched statements on a connection of its own. The views of each table are
+     * collected for resolving the view dependencies afterwards.
+     */
+    private TableChunk syncTables(RawJDBCSqlRepository sqlRepository, List<View> chunk, Map<String, MetascopeTable> cachedTables,
+                                  Map<String, MetascopeField> existingFields, Map<String, MetascopeExport> existingExports,
+                                  Map<String, List<View>> partitionIndex) throws SQLException {
+        TableChunk result = new TableChunk();
+        List<MetascopeTable> tables = new ArrayList<>();
+
+        for (View view : chunk) {
+            String fqdn = view.getDatabase() + "." + view.getTableName();
+
+            LOG.debug("Consuming table " + fqdn);
+
+            MetascopeTable table = cachedTables.get(fqdn);
+            table.setSchedoscopeId(schedoscopeInstance.getId());
+            table.setDatabaseName(view.getDatabase());
+            table.setTableName(view.getTableName());
+            table.setViewPath(view.viewPath());
+            table.setExternalTable(view.isExternal());
+            table.setTableDescription(view.getComment());
+            table.setStorageFormat(view.getStorageFormat());
+            table.setMaterializeOnce(view.isMaterializeOnce());
+            for (ViewField field : view.getFields()) {
+                if (field.getName().equals(OCCURRED_AT)) {
+                    table.setTimestampField(OCCURRED_AT);
+                    table.setTimestampFieldFormat(SCHEDOSCOPE_TIMESTAMP_FORMAT);
+                    break;
+                } else if (field.getName().equals(OCCURRED_UNTIL)) {
+                    table.setTimestampField(OCCURRED_UNTIL);
+                    table.setTimestampFieldFormat(SCHEDOSCOPE_TIMESTAMP_FORMAT);
+                    break;
+                }
+            }
+
+            /** fields */
+            Set<MetascopeField> tableFields = new HashSet<>();
+            int i = 0;
+            for (ViewField viewField : view.getFields()) {
+                String fieldFqdn = fqdn + "." + viewField.getName();
+                MetascopeField field = existingFields.get(fieldFqdn);
+                if (field == null) {
+                    field = new MetascopeField();
+                    field.setFieldId(fieldFqdn);
+                    field.setTableFqdn(fqdn);
+                }
+                field.setFieldName(viewField.getName());
+                field.setFieldType(viewField.getFieldtype());
+                field.setFieldOrder(i++);
+                field.setParameter(false);
+                field.setDescription(viewField.getComment());
+
+                //lineage
+                if (view.getLineage() != null && view.getLineage().get(fieldFqdn) != null) {
+                    for (String dependencyField : view.getLineage().get(fieldFqdn)) {
+                        if (!dependencyField.equals(fieldFqdn)) {
+                            result.fieldDependencies.add(new Dependency(field.getFieldId(), dependencyField));
+                        }
+                    }
+                }
+
+                tableFields.add(field);
             }
+            table.setFields(tableFields);
+
+            /** parameter */
+            Set<MetascopeField> tableParameter = new HashSet<>();
+            i = 0;
+            for (ViewField viewField : view.getParameters()) {
+                String parameterFqdn = fqdn + "." + viewField.getName();
+                MetascopeField parameter = existingFields.get(parameterFqdn);
+                if (parameter == null) {
+                    parameter = new MetascopeField();
+                    parameter.setFieldId(parameterFqdn);
+                    parameter.setTableFqdn(fqdn);
+                }
+                parameter.setFieldName(viewField.getName());
+                parameter.setFieldType(viewField.getFieldtype());
+                parameter.setFieldOrder(i++);
+                parameter.setParameter(true);
+                parameter.setDescription(viewField.getComment());
+
+                parameter.setTable(table);
+                tableParameter.add(parameter);
+            }
+            table.setParameters(tableParameter);
+
+            /** exports */
+            List<MetascopeExport> tableExports = new ArrayList<>();
+            i = 0;
+            if (view.getExport() != null) {
+                for (ViewTransformation viewExport : view.getExport()) {
+                    String exportFqdn = fqdn + "." + viewExport.getName() + "_" + i;
+                    MetascopeExport export = existingExports.get(exportFqdn);
+                    if (export == null) {
+                        export = new MetascopeExport();
+                        export.setExportId(exportFqdn);
+                        export.setTableFqdn(fqdn);
+                    }
+                    export.setExportType(viewExport.getName());
+                    export.setProperties(viewExport.getProperties());
+
+                    export.setTable(table);
+                    tableExports.add(export);
+                    i++;
+                }
+            }
+            table.setExports(tableExports);
+
+            /** transformation */
+            MetascopeTransformation metascopeTransformation = new MetascopeTransformation();
+            metascopeTransformation.setTransformationId(fqdn + "." + view.getTransformation().getName());
+            metascopeTransformation.setTransformationType(view.getTransformation().getName());
+            metascopeTransformation.setProperties(view.getTransformation().getProperties());
+            table.setTransformation(metascopeTransformation);
+
+            /** views */
+            List<View> views = ViewIndexUtil.getPartitions(partitionIndex, table.getViewPath());
+            table.setViewsSize(views.size());
+            result.views.put(fqdn, views);
+
+            tables.add(table);
+        }
+
+        Connection connection = dataSource.getConnection();
+        try {
+            sqlRepository.saveTables(connection, tables);
+            sqlRepository.saveFields(connection, tables, false);
+            sqlRepository.saveFields(connection, tables, true);
+            sqlRepository.saveExports(connection, tables);
+            sqlRepository.saveTransformations(connection, tables);
+        } finally {
+            closeQuietly(connection);
+        }
+
+        LOG.info("Finished processing " + tables.size() + " tables");
+        return result;
+    }
+
+    private long logPhase(String phase, long phaseStart) {
+        long now = System.currentTimeMillis();
+        LOG.info(phase + " took " + (now - phaseStart) + " ms");
+        return now;
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOG.error("Could not close connection", e);
         }
-        return results;
     }
 
     public SchedoscopeTask forInstance(SchedoscopeInstance schedoscopeInstance) {
@@ -327,6 +421,15 @@ public class SchedoscopeTask extends Task {
         return this;
     }
 
+    /**
+     * A full sync reprocesses all tables, otherwise only the tables whose schedoscope fingerprint changed since the
+     * last sync are reprocessed.
+     */
+    public SchedoscopeTask withFullSync(boolean fullSync) {
+        this.fullSync = fullSync;
+        return this;
+    }
+
     private String getParameterString(String viewName, MetascopeTable table) {
         String parameterString = null;
         String parametersAsString = viewName.replace(table.getViewPath(), "");
@@ -344,4 +447,12 @@ public class SchedoscopeTask extends Task {
         return parameterString;
     }
 
-}
\ No newline at end of file
+    /**
+     * Field dependencies and views of the tables synchronized by one worker.
+     */
+    private static class TableChunk {
+        private final List<Dependency> fieldDependencies = new ArrayList<>();
+        private final Map<String, List<View>> views = new HashMap<>();
+    }
+
+}
@@ -9,6 +9,7 @@ import java.util.List;
 public abstract class MetastoreClient {
 
     protected static final String SCHEDOSCOPE_TRANSFORMATION_TIMESTAMP = "transformation.timestamp";
+    protected static final String LAST_DDL_TIME = "transient_lastDdlTime";
 
     protected MetascopeConfig config;
 
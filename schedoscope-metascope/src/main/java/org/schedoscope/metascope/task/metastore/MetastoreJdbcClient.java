@@ -86,19 +86,31 @@ public class MetastoreJdbcClient extends MetastoreClient {
         try {
             Statement stmt = connection.createStatement();
             String query = new StringBuilder()
-                    .append("select OWNER, CREATE_TIME, INPUT_FORMAT, OUTPUT_FORMAT, LOCATION, PARAM_VALUE ")
+                    .append("select OWNER, CREATE_TIME, INPUT_FORMAT, OUTPUT_FORMAT, LOCATION, PARAM_VALUE, LAST_DDL_TIME, LAST_PARTITION_DDL_TIME ")
                     .append("from (")
                     .append("  select TBL_ID, SD_ID, OWNER, CREATE_TIME from TBLS where TBL_NAME=\"" + tableName + "\" and DB_ID=" + databaseNameToDatabaseId.get(databaseName))
                     .append(") t ")
                     .append("join SDS sd on t.SD_ID = sd.SD_ID ")
                     .append("left join (")
                     .append("select * from TABLE_PARAMS where TBL_ID=3 and PARAM_KEY=\"" + SCHEDOSCOPE_TRANSFORMATION_TIMESTAMP + "\"")
-                    .append(") tp on t.TBL_ID = tp.TBL_ID")
+                    .append(") tp on t.TBL_ID = tp.TBL_ID ")
+                    .append("left join (")
+                    .append("select TBL_ID, PARAM_VALUE as LAST_DDL_TIME from TABLE_PARAMS where PARAM_KEY=\"" + LAST_DDL_TIME + "\"")
+                    .append(") td on t.TBL_ID = td.TBL_ID ")
+                    .append("left join (")
+                    .append("select p.TBL_ID, max(cast(pp.PARAM_VALUE as unsigned)) as LAST_PARTITION_DDL_TIME ")
+                    .append("from PARTITIONS p join PARTITION_PARAMS pp on p.PART_ID = pp.PART_ID ")
+                    .append("where p.TBL_ID=" + tableNameToTableId.get(databaseName + "." + tableName) + " and pp.PARAM_KEY=\"" + LAST_DDL_TIME + "\" ")
+                    .append("group by p.TBL_ID")
+                    .append(") pd on t.TBL_ID = pd.TBL_ID")
                     .toString();
             ResultSet rs = stmt.executeQuery(query);
             if (rs.next()) {
-                return new MetastoreTable(rs.getString("OWNER"), rs.getInt("CREATE_TIME") * 1000L, rs.getString("INPUT_FORMAT"),
+                MetastoreTable table = new MetastoreTable(rs.getString("OWNER"), rs.getInt("CREATE_TIME") * 1000L, rs.getString("INPUT_FORMAT"),
                         rs.getString("OUTPUT_FORMAT"), rs.getString("LOCATION"), rs.getString("PARAM_VALUE"));
+                table.setLastDdlTime(rs.getString("LAST_DDL_TIME"));
+                table.setLastPartitionDdlTime(rs.getString("LAST_PARTITION_DDL_TIME"));
+                return table;
             }
         } catch (SQLException e) {
             LOG.error("Could not retrieve table from metastore", e);
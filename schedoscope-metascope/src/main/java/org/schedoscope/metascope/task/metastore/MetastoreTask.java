@@ -29,6 +29,8 @@ import org.schedoscope.metascope.repository.jdbc.RawJDBCSqlRepository;
 import org.schedoscope.metascope.task.Task;
 import org.schedoscope.metascope.task.metastore.model.MetastorePartition;
 import org.schedoscope.metascope.task.metastore.model.MetastoreTable;
+import org.schedoscope.metascope.util.FingerprintUtil;
+import org.schedoscope.metascope.util.ViewIndexUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +44,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class MetastoreTask extends Task {
@@ -59,10 +62,21 @@ public class MetastoreTask extends Task {
 
     private MetastoreClient metastoreClient;
 
+    private boolean fullSync = true;
+
     public MetastoreTask(MetastoreClient metastoreClient) {
         this.metastoreClient = metastoreClient;
     }
 
+    /**
+     * A full sync reprocesses all tables, otherwise only the tables whose metastore fingerprint changed since the
+     * last sync are reprocessed.
+     */
+    public MetastoreTask withFullSync(boolean fullSync) {
+        this.fullSync = fullSync;
+        return this;
+    }
+
     @Override
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public boolean run(RawJDBCSqlRepository sqlRepository, long start) {
@@ -92,6 +106,7 @@ public class MetastoreTask extends Task {
         LOG.info("Connected to metastore (" + config.getMetastoreThriftUri() + ")");
 
         List<MetascopeTable> allTables = sqlRepository.findAllTables(connection);
+        int unchangedTables = 0;
 
         for (MetascopeTable table : allTables) {
             LOG.info("Get metastore information for table " + table.getFqdn());
@@ -104,6 +119,16 @@ public class MetastoreTask extends Task {
                     continue;
                 }
 
+                List<String> partitionNames = metastoreClient.listPartitionNames(table.getDatabaseName(), table.getTableName(), (short) -1);
+
+                String fingerprint = FingerprintUtil.metastoreFingerprint(table, mTable, partitionNames);
+                if (!fullSync && fingerprint.equals(table.getMetastoreFingerprint())) {
+                    LOG.debug("Table " + table.getFqdn() + " did not change since the last sync");
+                    unchangedTables++;
+                    continue;
+                }
+                table.setMetastoreFingerprint(fingerprint);
+
                 table.setTableOwner(mTable.getOwner());
                 table.setCreatedAt(mTable.getCreateTime() * 1000L);
                 table.setInputFormat(mTable.getInputFormat());
@@ -119,15 +144,14 @@ public class MetastoreTask extends Task {
 
                 long maxLastTransformation = -1;
 
-                List<String> partitionNames = metastoreClient.listPartitionNames(table.getDatabaseName(), table.getTableName(), (short) -1);
-
                 List<MetascopeView> views = sqlRepository.findViews(connection, table.getFqdn());
+                Map<List<String>, MetascopeView> viewIndex = ViewIndexUtil.viewsByParameterValues(views);
                 List<List<String>> groupedPartitions = metastoreClient.partitionLists(partitionNames, 10000);
                 for (List<String> groupedPartitionNames : groupedPartitions) {
                     List<MetastorePartition> partitions = metastoreClient.listPartitions(table.getDatabaseName(), table.getTableName(), groupedPartitionNames);
                     List<MetascopeView> changedViews = new ArrayList<>();
                     for (MetastorePartition partition : partitions) {
-                        MetascopeView view = getView(views, partition);
+                        MetascopeView view = viewIndex.get(partition.getValues());
                         if (view == null) {
                             //a view which is not registered as a partition in hive metastore should not exists ...
                             continue;
@@ -155,7 +179,6 @@ public class MetastoreTask extends Task {
                         changedViews.add(view);
                     }
                     sqlRepository.insertOrUpdateViewMetadata(connection, changedViews);
-                    solrFacade.commit();
                 }
 
                 if (maxLastTransformation != -1) {
@@ -173,7 +196,7 @@ public class MetastoreTask extends Task {
                 }
 
                 sqlRepository.saveTable(connection, table);
-                solrFacade.updateTableMetastoreData(table, true);
+                solrFacade.updateTableMetastoreData(table, false);
             } catch (Exception e) {
                 LOG.warn("Could not retrieve table from metastore", e);
                 continue;
@@ -181,7 +204,7 @@ public class MetastoreTask extends Task {
 
         }
 
-        /* commit to index */
+        /* a single commit to index for all tables */
         solrFacade.commit();
 
         metastoreClient.close();
@@ -198,19 +221,11 @@ public class MetastoreTask extends Task {
             LOG.error("Could not close connection", e);
         }
 
-        LOG.info("Sync with metastore finished");
+        LOG.info("Sync with metastore finished, " + (allTables.size() - unchangedTables) + " of " + allTables.size()
+          + " tables were processed");
         return true;
     }
 
-    private MetascopeView getView(List<MetascopeView> views, MetastorePartition partition) {
-        for (MetascopeView view : views) {
-            if (view.getParameterValues().equals(partition.getValues())) {
-                return view;
-            }
-        }
-        return null;
-    }
-
     private Long getDirectorySize(FileSystem fs, String path) {
         try {
             return fs.getContentSummary(new Path(path)).getSpaceConsumed();
@@ -51,8 +51,14 @@ public class MetastoreThriftClient extends MetastoreClient {
     public MetastoreTable getTable(String databaseName, String tableName) {
         try {
             Table t = client.getTable(databaseName, tableName);
-            return new MetastoreTable(t.getOwner(), t.getCreateTime() * 1000L, t.getSd().getInputFormat(),
+            MetastoreTable table = new MetastoreTable(t.getOwner(), t.getCreateTime() * 1000L, t.getSd().getInputFormat(),
               t.getSd().getOutputFormat(), t.getSd().getLocation(), t.getParameters().get(SCHEDOSCOPE_TRANSFORMATION_TIMESTAMP));
+            table.setLastDdlTime(t.getParameters().get(LAST_DDL_TIME));
+            /*
+             * the last partition ddl time is left out, the thrift api can only fetch all partitions, which is
+             * what the fingerprint check avoids. Changes of existing partitions are picked up by the next full sync
+             */
+            return table;
         } catch (TException e) {
             LOG.error("Could not retrieve table from metastore", e);
             return null;
@@ -17,6 +17,8 @@ public class MetastoreTable {
     private String outputFormat;
     private String location;
     private String schedoscopeTimestamp;
+    private String lastDdlTime;
+    private String lastPartitionDdlTime;
 
     public String getOwner() {
         return owner;
@@ -66,4 +68,20 @@ public class MetastoreTable {
         this.schedoscopeTimestamp = schedoscopeTimestamp;
     }
 
+    public String getLastDdlTime() {
+        return lastDdlTime;
+    }
+
+    public void setLastDdlTime(String lastDdlTime) {
+        this.lastDdlTime = lastDdlTime;
+    }
+
+    public String getLastPartitionDdlTime() {
+        return lastPartitionDdlTime;
+    }
+
+    public void setLastPartitionDdlTime(String lastPartitionDdlTime) {
+        this.lastPartitionDdlTime = lastPartitionDdlTime;
+    }
+
 }
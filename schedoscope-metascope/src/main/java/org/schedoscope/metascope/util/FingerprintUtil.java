@@ -0,0 +1,159 @@
+/**
+ * Copyright 2017 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.metascope.util;
+
+import org.schedoscope.metascope.model.MetascopeTable;
+import org.schedoscope.metascope.task.metastore.model.MetastoreTable;
+import org.schedoscope.metascope.task.model.View;
+import org.schedoscope.metascope.task.model.ViewField;
+import org.schedoscope.metascope.task.model.ViewTransformation;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Computes the change fingerprints of a table. The sync tasks only reprocess a table if its fingerprint differs
+ * from the one stored with the table by the last sync.
+ */
+public class FingerprintUtil {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Fingerprint of a table as defined in schedoscope: its fields, parameters, lineage, transformation and
+     * exports, and the names and dependencies of its partitions. The status of the views is left out, it is
+     * kept up to date by the status task.
+     *
+     * @param schedoscopeId the id of the schedoscope instance the table belongs to
+     * @param table         the table view
+     * @param partitions    the partition views of the table
+     * @return the fingerprint
+     */
+    public static String schedoscopeFingerprint(String schedoscopeId, View table, List<View> partitions) {
+        Fingerprint fingerprint = new Fingerprint();
+        fingerprint.add(schedoscopeId).add(table.getName()).add(table.getComment()).add(table.getStorageFormat())
+          .add(table.isExternal()).add(table.isMaterializeOnce());
+        addFields(fingerprint, table.getFields());
+        addFields(fingerprint, table.getParameters());
+        addMap(fingerprint, table.getLineage());
+        addTransformation(fingerprint, table.getTransformation());
+        if (table.getExport() != null) {
+            for (ViewTransformation export : table.getExport()) {
+                addTransformation(fingerprint, export);
+            }
+        }
+        for (View partition : partitions) {
+            fingerprint.add(partition.getName());
+            addMap(fingerprint, partition.getDependencies());
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Fingerprint of a table in the hive metastore: the DDL time of the table and its partitions, the
+     * transformation timestamp and the partition names. It includes the schedoscope fingerprint of the table,
+     * so the metastore data of a table is refreshed whenever its definition changed. The partition DDL time is
+     * only provided by the jdbc client, with the thrift client changes of existing partitions are picked up by
+     * the next full sync.
+     *
+     * @param table          the table in the repository
+     * @param metastoreTable the table in the metastore
+     * @param partitionNames the partition names of the table in the metastore
+     * @return the fingerprint
+     */
+    public static String metastoreFingerprint(MetascopeTable table, MetastoreTable metastoreTable, List<String> partitionNames) {
+        Fingerprint fingerprint = new Fingerprint();
+        fingerprint.add(table.getSchedoscopeFingerprint()).add(metastoreTable.getLastDdlTime())
+          .add(metastoreTable.getLastPartitionDdlTime()).add(metastoreTable.getSchedoscopeTimestamp())
+          .add(metastoreTable.getLocation());
+        for (String partitionName : partitionNames) {
+            fingerprint.add(partitionName);
+        }
+        return fingerprint.toString();
+    }
+
+    private static void addFields(Fingerprint fingerprint, List<ViewField> fields) {
+        if (fields == null) {
+            fingerprint.add(null);
+            return;
+        }
+        for (ViewField field : fields) {
+            fingerprint.add(field.getName()).add(field.getFieldtype()).add(field.getComment());
+        }
+    }
+
+    private static void addTransformation(Fingerprint fingerprint, ViewTransformation transformation) {
+        if (transformation == null) {
+            fingerprint.add(null);
+            return;
+        }
+        fingerprint.add(transformation.getName());
+        addMap(fingerprint, transformation.getProperties());
+    }
+
+    private static void addMap(Fingerprint fingerprint, Map<String, ?> map) {
+        if (map == null) {
+            fingerprint.add(null);
+            return;
+        }
+        /* sorted, the order of the map entries does not matter */
+        for (Map.Entry<String, ?> entry : new TreeMap<>(map).entrySet()) {
+            fingerprint.add(entry.getKey()).add(entry.getValue());
+        }
+    }
+
+    /**
+     * MD5 digest over the string values added, each value is terminated by a separator so that the digest of
+     * ("ab", "c") differs from the one of ("a", "bc").
+     */
+    private static class Fingerprint {
+
+        private static final byte SEPARATOR = 0;
+
+        private final MessageDigest digest;
+
+        private Fingerprint() {
+            try {
+                this.digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("MD5 is not available", e);
+            }
+        }
+
+        private Fingerprint add(Object value) {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update(SEPARATOR);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = digest.digest();
+            char[] chars = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+                chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+            }
+            return new String(chars);
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2017 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.metascope.util;
+
+import org.schedoscope.metascope.model.MetascopeView;
+import org.schedoscope.metascope.task.model.View;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds lookup maps for views in a single pass, so that the views of a table
+ * or the view of a partition can be found without scanning all views.
+ */
+public class ViewIndexUtil {
+
+    /**
+     * Groups the partition views (all views which are not a table) by the view
+     * path of their table, e.g. 'app.module/Table/'.
+     *
+     * @param views the views as returned by schedoscope
+     * @return the partition views per table view path
+     */
+    public static Map<String, List<View>> partitionsByViewPath(Collection<View> views) {
+        Map<String, List<View>> index = new HashMap<>();
+        for (View view : views) {
+            if (view.isTable()) {
+                continue;
+            }
+            String viewPath = view.viewPath();
+            List<View> partitions = index.get(viewPath);
+            if (partitions == null) {
+                partitions = new ArrayList<>();
+                index.put(viewPath, partitions);
+            }
+            partitions.add(view);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the partition views of a table from an index built by
+     * {@link #partitionsByViewPath(Collection)}.
+     *
+     * @param index    the partition views per table view path
+     * @param viewPath the view path of the table
+     * @return the partition views, an empty list if the table has none
+     */
+    public static List<View> getPartitions(Map<String, List<View>> index, String viewPath) {
+        List<View> partitions = index.get(viewPath);
+        if (partitions == null) {
+            return new ArrayList<>();
+        }
+        return partitions;
+    }
+
+    /**
+     * Maps the views of a table to their parameter values, the same values
+     * the hive metastore lists for the partition of a view. If two views have
+     * the same parameter values, the first one is kept.
+     *
+     * @param views the views of a table
+     * @return the views per parameter values
+     */
+    public static Map<List<String>, MetascopeView> viewsByParameterValues(Collection<MetascopeView> views) {
+        Map<List<String>, MetascopeView> index = new HashMap<>();
+        for (MetascopeView view : views) {
+            List<String> parameterValues = view.getParameterValues();
+            if (!index.containsKey(parameterValues)) {
+                index.put(parameterValues, view);
+            }
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2017 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.metascope.index;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.core.CoreContainer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.schedoscope.metascope.model.MetascopeField;
+import org.schedoscope.metascope.model.MetascopeTable;
+import org.schedoscope.metascope.model.MetascopeTransformation;
+import org.schedoscope.metascope.model.MetascopeView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Indexing throughput against an embedded core: one add and commit per document compared to the batched
+ * updates of the SolrUpdateHandler with a single commit. Not part of the test suite (surefire only picks up
+ * *Test classes), run it with -Dtest=SolrIndexingBenchmark.
+ */
+public class SolrIndexingBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SolrIndexingBenchmark.class);
+
+  private static final String SOLR_HOME = "src/main/resources/solr";
+
+  private static final int TABLES = 10;
+  private static final int VIEWS_PER_TABLE = 1000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private CoreContainer coreContainer;
+  private SolrClient solrClient;
+
+  @Before
+  public void setup() throws IOException {
+    File solrHome = folder.newFolder("solr");
+    copy(new File(SOLR_HOME), solrHome);
+    this.coreContainer = new CoreContainer(solrHome.getAbsolutePath());
+    coreContainer.load();
+    this.solrClient = new EmbeddedSolrServer(coreContainer, "metascope");
+  }
+
+  @After
+  public void tearDown() {
+    coreContainer.shutdown();
+  }
+
+  @Test
+  public void benchmarkSingleDocumentUpdates() throws Exception {
+    long start = System.currentTimeMillis();
+    for (int t = 0; t < TABLES; t++) {
+      for (int v = 0; v < VIEWS_PER_TABLE; v++) {
+        SolrInputDocument doc = new SolrInputDocument();
+        doc.setField(SolrUpdateHandler.ID, "test_db.table_" + t + "/year=" + v);
+        doc.setField(SolrUpdateHandler.TYPE, SolrUpdateHandler.TYPE_PARTITION);
+        doc.setField(SolrUpdateHandler.PARAMETERSTRING, "/year=" + v);
+        solrClient.add(doc);
+        solrClient.commit(true, true, true);
+      }
+    }
+    report("single document updates", start);
+  }
+
+  @Test
+  public void benchmarkBatchedUpdates() throws Exception {
+    SolrUpdateHandler solrUpdateHandler = new SolrUpdateHandler(solrClient, 1000, 1000);
+    long start = System.currentTimeMillis();
+    try {
+      for (int t = 0; t < TABLES; t++) {
+        MetascopeTable table = table("test_db.table_" + t);
+        for (int v = 0; v < VIEWS_PER_TABLE; v++) {
+          MetascopeView view = new MetascopeView();
+          view.setViewId(table.getFqdn() + "/year=" + v);
+          view.setParameterString("/year=" + v);
+          view.setTable(table);
+          solrUpdateHandler.updateViewEntity(view, false);
+        }
+      }
+      solrUpdateHandler.commit();
+    } finally {
+      solrUpdateHandler.close();
+    }
+    report("batched updates", start);
+  }
+
+  private void report(String name, long start) throws Exception {
+    long millis = Math.max(1, System.currentTimeMillis() - start);
+    int docs = TABLES * VIEWS_PER_TABLE;
+    SolrQuery query = new SolrQuery("type:" + SolrUpdateHandler.TYPE_PARTITION);
+    assertEquals(docs, solrClient.query(query).getResults().getNumFound());
+    LOG.info("{}: {} documents in {} ms, {} documents/s", name, docs, millis, docs * 1000L / millis);
+  }
+
+  private MetascopeTable table(String fqdn) {
+    MetascopeTransformation transformation = new MetascopeTransformation();
+    transformation.setTransformationType("hive");
+
+    MetascopeTable table = new MetascopeTable();
+    table.setFqdn(fqdn);
+    table.setSchedoscopeId("schedoscope");
+    table.setDatabaseName(fqdn.split("\\.")[0]);
+    table.setTableName(fqdn.split("\\.")[1]);
+    table.setFields(new HashSet<MetascopeField>());
+    table.setParameters(new HashSet<MetascopeField>());
+    table.setTransformation(transformation);
+    table.setTableDescription("description");
+    table.setCreatedAt(1000000L);
+    return table;
+  }
+
+  private void copy(File source, File target) throws IOException {
+    if (source.isDirectory()) {
+      target.mkdirs();
+      for (String child : source.list()) {
+        copy(new File(source, child), new File(target, child));
+      }
+    } else {
+      Files.copy(source.toPath(), target.toPath());
+    }
+  }
+
+}
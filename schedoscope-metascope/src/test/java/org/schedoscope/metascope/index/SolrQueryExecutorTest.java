@@ -0,0 +1,128 @@
+/**
+ * Copyright 2017 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.metascope.index;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.SuggesterResponse;
+import org.apache.solr.client.solrj.response.Suggestion;
+import org.apache.solr.common.params.SolrParams;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.schedoscope.metascope.service.MetascopeFieldService;
+import org.schedoscope.metascope.service.MetascopeTableService;
+import org.schedoscope.metascope.service.MetascopeViewService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class SolrQueryExecutorTest {
+
+  private SolrClient solrClient;
+  private QueryResponse queryResponse;
+  private SolrQueryExecutor solrQueryExecutor;
+
+  @Before
+  public void setup() {
+    this.solrClient = mock(SolrClient.class);
+    this.solrQueryExecutor = new SolrQueryExecutor(solrClient, mock(MetascopeTableService.class),
+        mock(MetascopeViewService.class), mock(MetascopeFieldService.class));
+
+    SuggesterResponse suggesterResponse = mock(SuggesterResponse.class);
+    List<Suggestion> suggestions = Arrays.asList(new Suggestion("table_b", 1, ""), new Suggestion("table_a", 5, ""));
+    when(suggesterResponse.getSuggestions()).thenReturn(Collections.singletonMap("metascope", suggestions));
+    this.queryResponse = mock(QueryResponse.class);
+    when(queryResponse.getSuggesterResponse()).thenReturn(suggesterResponse);
+  }
+
+  @Test
+  public void testSuggestionsAreCached() throws Exception {
+    when(solrClient.query(any(SolrParams.class))).thenReturn(queryResponse);
+
+    assertEquals(Arrays.asList("table_a", "table_b"), solrQueryExecutor.suggest("tab"));
+    assertEquals(Arrays.asList("table_a", "table_b"), solrQueryExecutor.suggest("tab"));
+
+    verify(solrClient, times(1)).query(any(SolrParams.class));
+  }
+
+  @Test
+  public void testBuildSuggesterInvalidatesCache() throws Exception {
+    when(solrClient.query(any(SolrParams.class))).thenReturn(queryResponse);
+
+    solrQueryExecutor.suggest("tab");
+    solrQueryExecutor.buildSuggester();
+    solrQueryExecutor.suggest("tab");
+
+    /* two lookups and the build */
+    verify(solrClient, times(3)).query(any(SolrParams.class));
+  }
+
+  @Test
+  public void testFailedSuggestionsAreNotCached() throws Exception {
+    when(solrClient.query(any(SolrParams.class))).thenThrow(new SolrServerException("unavailable"))
+        .thenReturn(queryResponse);
+
+    assertTrue(solrQueryExecutor.suggest("tab").isEmpty());
+    assertEquals(Arrays.asList("table_a", "table_b"), solrQueryExecutor.suggest("tab"));
+  }
+
+  @Test
+  public void testConcurrentSuggestionsAreCoalesced() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    doAnswer(new Answer<QueryResponse>() {
+      @Override
+      public QueryResponse answer(InvocationOnMock invocation) throws Throwable {
+        release.await();
+        return queryResponse;
+      }
+    }).when(solrClient).query(any(SolrParams.class));
+
+    final List<List<String>> results = Collections.synchronizedList(new ArrayList<List<String>>());
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          results.add(solrQueryExecutor.suggest("tab"));
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    Thread.sleep(200);
+    release.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(8, results.size());
+    for (List<String> result : results) {
+      assertEquals(Arrays.asList("table_a", "table_b"), result);
+    }
+    verify(solrClient, times(1)).query(any(SolrParams.class));
+  }
+
+}
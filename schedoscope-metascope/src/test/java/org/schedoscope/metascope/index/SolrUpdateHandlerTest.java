@@ -0,0 +1,231 @@
+/**
+ * Copyright 2017 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.metascope.index;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.client.solrj.util.ClientUtils;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.core.CoreContainer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.schedoscope.metascope.model.MetascopeField;
+import org.schedoscope.metascope.model.MetascopeTable;
+import org.schedoscope.metascope.model.MetascopeTransformation;
+import org.schedoscope.metascope.model.MetascopeView;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SolrUpdateHandlerTest {
+
+  private static final String SOLR_HOME = "src/main/resources/solr";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private CoreContainer coreContainer;
+  private SolrClient solrClient;
+  private SolrUpdateHandler solrUpdateHandler;
+
+  @Before
+  public void setup() throws IOException {
+    File solrHome = folder.newFolder("solr");
+    copy(new File(SOLR_HOME), solrHome);
+    this.coreContainer = new CoreContainer(solrHome.getAbsolutePath());
+    coreContainer.load();
+    this.solrClient = new EmbeddedSolrServer(coreContainer, "metascope");
+    this.solrUpdateHandler = new SolrUpdateHandler(solrClient, 100, 50);
+  }
+
+  @After
+  public void tearDown() {
+    solrUpdateHandler.close();
+    coreContainer.shutdown();
+  }
+
+  @Test
+  public void testPartialUpdateKeepsOtherFields() throws Exception {
+    MetascopeTable table = table("test_db.test_table");
+    table.setTags(Arrays.asList("tag1", "tag2"));
+    table.setPersonResponsible("owner");
+    solrUpdateHandler.updateTableEntity(table, true);
+
+    table.setTableDescription("new description");
+    table.setCreatedAt(2000000L);
+    solrUpdateHandler.updateTablePartial(table, true);
+
+    SolrDocument doc = stored("test_db.test_table");
+    assertEquals("new description", doc.getFieldValue(SolrUpdateHandler.DESCRIPTION));
+    assertEquals(2000L, doc.getFieldValue(SolrUpdateHandler.CREATED_AT));
+    assertEquals(Arrays.asList("tag1", "tag2"), doc.getFieldValues(SolrUpdateHandler.TAGS));
+    assertEquals("owner", doc.getFieldValue(SolrUpdateHandler.PERSON_RESPONSIBLE));
+  }
+
+  @Test
+  public void testMetastoreDataUpdateWithoutValuesKeepsDocument() throws Exception {
+    MetascopeTable table = table("test_db.test_table");
+    table.setTags(Arrays.asList("tag1"));
+    solrUpdateHandler.updateTableEntity(table, true);
+
+    /* neither a creation nor a transformation timestamp, there is nothing to update */
+    table.setCreatedAt(0);
+    solrUpdateHandler.updateTableMetastoreData(table, true);
+
+    SolrDocument doc = stored("test_db.test_table");
+    assertEquals(Arrays.asList("tag1"), doc.getFieldValues(SolrUpdateHandler.TAGS));
+  }
+
+  @Test
+  public void testUncommittedUpdatesAreNotVisible() throws Exception {
+    solrUpdateHandler.updateTableEntity(table("test_db.test_table"), false);
+    /* sent with the next batch, but not committed yet */
+    Thread.sleep(500);
+    assertNull(stored("test_db.test_table"));
+
+    solrUpdateHandler.commit();
+    assertNotNull(stored("test_db.test_table"));
+  }
+
+  @Test
+  public void testIndexManyViewsInBatches() throws Exception {
+    int tables = 10;
+    int viewsPerTable = 1000;
+    MetascopeView lastView = null;
+    for (int t = 0; t < tables; t++) {
+      MetascopeTable table = table("test_db.table_" + t);
+      solrUpdateHandler.updateTableEntity(table, false);
+      for (int v = 0; v < viewsPerTable; v++) {
+        MetascopeView view = new MetascopeView();
+        view.setViewId(table.getFqdn() + "/year=" + v);
+        view.setParameterString("/year=" + v);
+        view.setTable(table);
+        solrUpdateHandler.updateViewEntity(view, false);
+        lastView = view;
+      }
+    }
+    /* the status updates of the last view must not be overtaken by its earlier full update */
+    solrUpdateHandler.updateViewStatusInformation(lastView, 5000L, null, false);
+
+    /* a single commit for all documents */
+    solrUpdateHandler.commit();
+
+    SolrQuery query = new SolrQuery("type:" + SolrUpdateHandler.TYPE_PARTITION);
+    assertEquals(tables * viewsPerTable, solrClient.query(query).getResults().getNumFound());
+    SolrDocument doc = stored(lastView.getViewId());
+    assertEquals(5L, doc.getFieldValue(SolrUpdateHandler.TRANSFORMATIONTIMESTAMP));
+    assertEquals(lastView.getParameterString(), doc.getFieldValue(SolrUpdateHandler.PARAMETERSTRING));
+  }
+
+  @Test
+  public void testAsyncUpdatesWithoutCommitAreOnlyBuffered() throws Exception {
+    SolrClient client = mock(SolrClient.class);
+    SolrUpdateHandler handler = new SolrUpdateHandler(client, 100, 60000);
+    try {
+      Future<Void> sent = null;
+      for (int i = 0; i < 3; i++) {
+        sent = handler.updateTableEntityAsync(table("test_db.table_" + i), false);
+      }
+      Thread.sleep(200);
+      assertFalse(sent.isDone());
+      verify(client, never()).add(anyCollectionOf(SolrInputDocument.class));
+
+      /* a commit sends all buffered documents in one batch */
+      handler.updateTableEntityAsync(table("test_db.table_3"), true).get(5, TimeUnit.SECONDS);
+      sent.get(0, TimeUnit.SECONDS);
+      verify(client, times(1)).add(anyCollectionOf(SolrInputDocument.class));
+      verify(client, times(1)).commit(anyBoolean(), anyBoolean(), anyBoolean());
+    } finally {
+      handler.close();
+    }
+  }
+
+  @Test
+  public void testFailedBatchFailsTheFuture() throws Exception {
+    SolrClient client = mock(SolrClient.class);
+    doThrow(new SolrServerException("solr is down")).when(client).add(anyCollectionOf(SolrInputDocument.class));
+    SolrUpdateHandler handler = new SolrUpdateHandler(client, 1, 60000);
+    try {
+      handler.updateTableEntityAsync(table("test_db.test_table"), false).get(5, TimeUnit.SECONDS);
+      fail("the batch could not be sent");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof SolrServerException);
+    } finally {
+      handler.close();
+    }
+  }
+
+  private SolrDocument stored(String id) throws Exception {
+    SolrDocumentList results = solrClient.query(new SolrQuery("id:" + ClientUtils.escapeQueryChars(id))).getResults();
+    return results.isEmpty() ? null : results.get(0);
+  }
+
+  private MetascopeTable table(String fqdn) {
+    MetascopeTransformation transformation = new MetascopeTransformation();
+    transformation.setTransformationType("hive");
+
+    MetascopeTable table = new MetascopeTable();
+    table.setFqdn(fqdn);
+    table.setSchedoscopeId("schedoscope");
+    table.setDatabaseName(fqdn.split("\\.")[0]);
+    table.setTableName(fqdn.split("\\.")[1]);
+    table.setFields(new HashSet<MetascopeField>());
+    table.setParameters(new HashSet<MetascopeField>());
+    table.setTransformation(transformation);
+    table.setTableDescription("description");
+    table.setCreatedAt(1000000L);
+    return table;
+  }
+
+  private void copy(File source, File target) throws IOException {
+    if (source.isDirectory()) {
+      target.mkdirs();
+      for (String child : source.list()) {
+        copy(new File(source, child), new File(target, child));
+      }
+    } else {
+      Files.copy(source.toPath(), target.toPath());
+    }
+  }
+
+}
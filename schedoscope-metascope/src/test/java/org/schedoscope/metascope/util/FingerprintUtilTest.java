@@ -0,0 +1,108 @@
+/**
+ * Copyright 2017 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.metascope.util;
+
+import org.junit.Test;
+import org.schedoscope.metascope.model.MetascopeTable;
+import org.schedoscope.metascope.task.metastore.model.MetastoreTable;
+import org.schedoscope.metascope.task.model.View;
+import org.schedoscope.metascope.task.model.ViewTransformation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class FingerprintUtilTest {
+
+  @Test
+  public void testSchedoscopeFingerprintIgnoresStatus() {
+    View table = table("select * from a");
+    List<View> partitions = Arrays.asList(partition("app.module/Table/2017", "materialized"));
+    String fingerprint = FingerprintUtil.schedoscopeFingerprint("schedoscope-1", table, partitions);
+
+    List<View> transformingPartitions = Arrays.asList(partition("app.module/Table/2017", "transforming"));
+    assertEquals(fingerprint, FingerprintUtil.schedoscopeFingerprint("schedoscope-1", table("select * from a"),
+        transformingPartitions));
+  }
+
+  @Test
+  public void testSchedoscopeFingerprintChanges() {
+    List<View> partitions = new ArrayList<>();
+    partitions.add(partition("app.module/Table/2017", "materialized"));
+    String fingerprint = FingerprintUtil.schedoscopeFingerprint("schedoscope-1", table("select * from a"), partitions);
+
+    assertNotEquals(fingerprint, FingerprintUtil.schedoscopeFingerprint("schedoscope-1", table("select * from b"),
+        partitions));
+    assertNotEquals(fingerprint, FingerprintUtil.schedoscopeFingerprint("schedoscope-2", table("select * from a"),
+        partitions));
+
+    partitions.add(partition("app.module/Table/2018", "materialized"));
+    assertNotEquals(fingerprint, FingerprintUtil.schedoscopeFingerprint("schedoscope-1", table("select * from a"),
+        partitions));
+  }
+
+  @Test
+  public void testMetastoreFingerprint() {
+    MetascopeTable table = new MetascopeTable();
+    table.setSchedoscopeFingerprint("abc");
+    List<String> partitionNames = Arrays.asList("year=2017");
+    String fingerprint = FingerprintUtil.metastoreFingerprint(table, metastoreTable("1000", "1"), partitionNames);
+
+    assertEquals(fingerprint, FingerprintUtil.metastoreFingerprint(table, metastoreTable("1000", "1"), partitionNames));
+    assertNotEquals(fingerprint, FingerprintUtil.metastoreFingerprint(table, metastoreTable("2000", "1"), partitionNames));
+    assertNotEquals(fingerprint, FingerprintUtil.metastoreFingerprint(table, metastoreTable("1000", "2"), partitionNames));
+    assertNotEquals(fingerprint, FingerprintUtil.metastoreFingerprint(table, metastoreTable("1000", "1"),
+        Arrays.asList("year=2017", "year=2018")));
+
+    table.setSchedoscopeFingerprint("def");
+    assertNotEquals(fingerprint, FingerprintUtil.metastoreFingerprint(table, metastoreTable("1000", "1"), partitionNames));
+  }
+
+  private View table(String sql) {
+    ViewTransformation transformation = new ViewTransformation();
+    transformation.setName("hive");
+    Map<String, String> properties = new HashMap<>();
+    properties.put("sql", sql);
+    transformation.setProperties(properties);
+
+    View view = new View();
+    view.setName("app.module/Table/");
+    view.setIsTable(true);
+    view.setTransformation(transformation);
+    return view;
+  }
+
+  private View partition(String name, String status) {
+    View view = new View();
+    view.setName(name);
+    view.setStatus(status);
+    view.setDependencies(Collections.singletonMap("app.module.other", Arrays.asList("app.module/Other/")));
+    return view;
+  }
+
+  private MetastoreTable metastoreTable(String lastDdlTime, String schedoscopeTimestamp) {
+    MetastoreTable table = new MetastoreTable("owner", 0, null, null, "/hdfs/app/module/table", schedoscopeTimestamp);
+    table.setLastDdlTime(lastDdlTime);
+    return table;
+  }
+
+}
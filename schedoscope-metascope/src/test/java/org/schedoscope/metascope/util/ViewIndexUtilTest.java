@@ -0,0 +1,102 @@
+/**
+ * Copyright 2017 Otto (GmbH & Co KG)
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.schedoscope.metascope.util;
+
+import org.junit.Test;
+import org.schedoscope.metascope.model.MetascopeView;
+import org.schedoscope.metascope.task.model.View;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ViewIndexUtilTest {
+
+  @Test
+  public void testPartitionsByViewPath() {
+    List<View> views = new ArrayList<>();
+    views.add(view("app.module/Table/", true));
+    views.add(view("app.module/Table/2017/01", false));
+    views.add(view("app.module/Table/2017/02", false));
+    views.add(view("app.module/TableSuffix/", true));
+    views.add(view("app.module/TableSuffix/2017/01", false));
+
+    Map<String, List<View>> index = ViewIndexUtil.partitionsByViewPath(views);
+
+    List<View> partitions = ViewIndexUtil.getPartitions(index, "app.module/Table/");
+    assertEquals(2, partitions.size());
+    assertEquals("app.module/Table/2017/01", partitions.get(0).getName());
+    assertEquals("app.module/Table/2017/02", partitions.get(1).getName());
+    assertEquals(1, ViewIndexUtil.getPartitions(index, "app.module/TableSuffix/").size());
+    assertTrue(ViewIndexUtil.getPartitions(index, "app.module/Unknown/").isEmpty());
+  }
+
+  @Test
+  public void testPartitionsByViewPathForManyViews() {
+    int tables = 1000;
+    int partitionsPerTable = 200;
+    List<View> views = new ArrayList<>();
+    for (int t = 0; t < tables; t++) {
+      views.add(view("app.module/Table" + t + "/", true));
+      for (int p = 0; p < partitionsPerTable; p++) {
+        views.add(view("app.module/Table" + t + "/" + p, false));
+      }
+    }
+
+    /* a single pass over all views, each table lookup is constant */
+    Map<String, List<View>> index = ViewIndexUtil.partitionsByViewPath(views);
+
+    assertEquals(tables, index.size());
+    for (int t = 0; t < tables; t++) {
+      assertEquals(partitionsPerTable, ViewIndexUtil.getPartitions(index, "app.module/Table" + t + "/").size());
+    }
+  }
+
+  @Test
+  public void testViewsByParameterValues() {
+    MetascopeView first = metascopeView("/year=2017/month=01");
+    MetascopeView second = metascopeView("/year=2017/month=02");
+    MetascopeView duplicate = metascopeView("/year=2017/month=01");
+
+    Map<List<String>, MetascopeView> index = ViewIndexUtil.viewsByParameterValues(
+        Arrays.asList(first, second, duplicate));
+
+    assertEquals(2, index.size());
+    assertSame(first, index.get(Arrays.asList("2017", "01")));
+    assertSame(second, index.get(Arrays.asList("2017", "02")));
+    assertNull(index.get(Arrays.asList("2017", "03")));
+  }
+
+  private View view(String name, boolean isTable) {
+    View view = new View();
+    view.setName(name);
+    view.setIsTable(isTable);
+    return view;
+  }
+
+  private MetascopeView metascopeView(String parameterString) {
+    MetascopeView view = new MetascopeView();
+    view.setParameterString(parameterString);
+    return view;
+  }
+
+}